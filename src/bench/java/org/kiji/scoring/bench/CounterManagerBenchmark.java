@@ -0,0 +1,82 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.impl.MapCounterManager;
+import org.kiji.scoring.impl.StripedCounterManager;
+
+/** Benchmarks of contended counter increments for each CounterManager implementation. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(8)
+public class CounterManagerBenchmark {
+
+  /** Counters incremented by the benchmark. */
+  public enum BenchmarkCounter {
+    REQUESTS
+  }
+
+  @Param({"map", "striped"})
+  public String mImplementation;
+
+  private CounterManager mCounterManager;
+
+  /** Create the CounterManager under test. */
+  @Setup(Level.Trial)
+  public void setupCounterManagerBenchmark() {
+    if ("map".equals(mImplementation)) {
+      mCounterManager = MapCounterManager.create();
+    } else {
+      mCounterManager = StripedCounterManager.create();
+    }
+  }
+
+  /** Increment an enum counter. */
+  @Benchmark
+  public void incrementEnumCounter() {
+    mCounterManager.incrementCounter(BenchmarkCounter.REQUESTS, 1);
+  }
+
+  /** Increment a string counter. */
+  @Benchmark
+  public void incrementStringCounter() {
+    mCounterManager.incrementCounter("benchmark", "requests", 1);
+  }
+}
@@ -0,0 +1,156 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.avro.ParameterDescription;
+import org.kiji.scoring.bench.FreshKijiTableReaderBenchmark.ConstantScoreFunction;
+import org.kiji.scoring.lib.AlwaysFreshen;
+
+/**
+ * Load test comparing the default fixed thread pool with the virtual thread executor.
+ *
+ * <p>
+ *   Each operation is a bulk get of 10,000 freshening requests, all of which are in flight at
+ *   once. With the fixed pool, requests queue behind the pool's threads, each of which blocks
+ *   while its request waits for Fresheners. With the virtual thread executor every request has a
+ *   thread of its own.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExecutorModeBenchmark {
+  private static final String LAYOUT_PATH = "test-map-family-freshening.json";
+  private static final String TABLE_NAME = "test_map_family_freshening";
+  private static final String INFO = "info";
+  private static final String NAME = "name";
+  private static final int CONCURRENT_REQUESTS = 10000;
+  private static final long TIMESTAMP = 10L;
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+  private static final Map<String, ParameterDescription> EMPTY_DESCRIPTIONS =
+      Collections.emptyMap();
+
+  /** Which executor the reader runs on. */
+  @Param({"FIXED_POOL", "VIRTUAL_THREADS"})
+  public String mExecutorMode;
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private FreshKijiTableReader mFreshReader;
+  private List<EntityId> mEntityIds;
+  private KijiDataRequest mRequest;
+
+  /**
+   * Build the in-memory Kiji instance, register a Freshener and open the FreshKijiTableReader.
+   *
+   * @throws IOException in case of an error setting up the table.
+   */
+  @Setup(Level.Trial)
+  public void setupExecutorModeBenchmark() throws IOException {
+    mKiji = new InstanceBuilder()
+        .withTable(KijiTableLayouts.getLayout(LAYOUT_PATH))
+            .withRow("row")
+                .withFamily(INFO)
+                    .withQualifier(NAME).withValue(TIMESTAMP, "name")
+        .build();
+    mTable = mKiji.openTable(TABLE_NAME);
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          KijiColumnName.create(INFO, NAME),
+          new AlwaysFreshen(),
+          new ConstantScoreFunction(),
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader.Builder builder = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(10000);
+    if ("VIRTUAL_THREADS".equals(mExecutorMode)) {
+      builder.withVirtualThreadExecutor();
+    }
+    mFreshReader = builder.build();
+
+    mEntityIds = Collections.nCopies(CONCURRENT_REQUESTS, mTable.getEntityId("row"));
+    mRequest = KijiDataRequest.create(INFO, NAME);
+  }
+
+  /**
+   * Close the FreshKijiTableReader and release the in-memory Kiji instance.
+   *
+   * @throws IOException in case of an error closing resources.
+   */
+  @TearDown(Level.Trial)
+  public void cleanupExecutorModeBenchmark() throws IOException {
+    mFreshReader.close();
+    mTable.release();
+    mKiji.release();
+  }
+
+  /**
+   * Freshen the same row with many concurrent requests.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public List<KijiRowData> concurrentGets() throws IOException {
+    return mFreshReader.bulkGet(mEntityIds, mRequest);
+  }
+}
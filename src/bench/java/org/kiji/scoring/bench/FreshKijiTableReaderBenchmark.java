@@ -0,0 +1,249 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiDataRequestBuilder.ColumnsDef;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.FreshKijiTableReader.FreshRequestOptions;
+import org.kiji.scoring.FreshenerContext;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.ScoreFunction;
+import org.kiji.scoring.avro.ParameterDescription;
+import org.kiji.scoring.lib.AlwaysFreshen;
+
+/**
+ * Benchmarks of freshening reads through a FreshKijiTableReader backed by an in-memory Kiji.
+ *
+ * <p>
+ *   Every column read by these benchmarks has a Freshener which always runs its ScoreFunction, so
+ *   each read exercises policy evaluation, scoring and the write back to the table. ScoreFunctions
+ *   write at a fixed timestamp so that the table does not grow while the benchmark runs.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FreshKijiTableReaderBenchmark {
+  private static final String LAYOUT_PATH = "test-map-family-freshening.json";
+  private static final String TABLE_NAME = "test_map_family_freshening";
+  private static final String INFO = "info";
+  private static final String NAME = "name";
+  private static final String EMAIL = "email";
+  private static final String MAP = "map";
+  private static final int MAP_QUALIFIERS = 8;
+  private static final int ROWS = 32;
+  private static final long TIMESTAMP = 10L;
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+  private static final Map<String, ParameterDescription> EMPTY_DESCRIPTIONS =
+      Collections.emptyMap();
+
+  /** ScoreFunction which returns a constant without reading any input. */
+  public static final class ConstantScoreFunction extends ScoreFunction<String> {
+    /** {@inheritDoc} */
+    @Override
+    public KijiDataRequest getDataRequest(
+        final FreshenerContext context
+    ) throws IOException {
+      return KijiDataRequest.empty();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TimestampedValue<String> score(
+        final KijiRowData dataToScore,
+        final FreshenerContext context
+    ) throws IOException {
+      return TimestampedValue.create(TIMESTAMP, "new-val");
+    }
+  }
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private FreshKijiTableReader mFreshReader;
+  private EntityId mEntityId;
+  private List<EntityId> mEntityIds;
+  private KijiDataRequest mSingleColumnRequest;
+  private KijiDataRequest mMultiFreshenerRequest;
+  private KijiDataRequest mMapFamilyRequest;
+  private FreshRequestOptions mDisableAllOptions;
+
+  /**
+   * Build the in-memory Kiji instance, register Fresheners and open the FreshKijiTableReader.
+   *
+   * @throws IOException in case of an error setting up the table.
+   */
+  @Setup(Level.Trial)
+  public void setupFreshKijiTableReaderBenchmark() throws IOException {
+    final InstanceBuilder.TableBuilder tableBuilder =
+        new InstanceBuilder().withTable(KijiTableLayouts.getLayout(LAYOUT_PATH));
+    for (int row = 0; row < ROWS; row++) {
+      final InstanceBuilder.FamilyBuilder mapBuilder = tableBuilder.withRow("row-" + row)
+          .withFamily(INFO)
+              .withQualifier(NAME).withValue(TIMESTAMP, "name")
+              .withQualifier(EMAIL).withValue(TIMESTAMP, "email")
+          .withFamily(MAP);
+      for (int qualifier = 0; qualifier < MAP_QUALIFIERS; qualifier++) {
+        mapBuilder.withQualifier("qual" + qualifier).withValue(TIMESTAMP, "val");
+      }
+    }
+    mKiji = tableBuilder.build();
+    mTable = mKiji.openTable(TABLE_NAME);
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      for (KijiColumnName column : Lists.newArrayList(
+          KijiColumnName.create(INFO, NAME),
+          KijiColumnName.create(INFO, EMAIL),
+          KijiColumnName.create(MAP))) {
+        manager.registerFreshener(
+            TABLE_NAME,
+            column,
+            new AlwaysFreshen(),
+            new ConstantScoreFunction(),
+            EMPTY_PARAMS,
+            EMPTY_DESCRIPTIONS,
+            false,
+            false);
+      }
+    } finally {
+      manager.close();
+    }
+
+    mFreshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(10000)
+        .build();
+
+    mEntityId = mTable.getEntityId("row-0");
+    mEntityIds = Lists.newArrayListWithCapacity(ROWS);
+    for (int row = 0; row < ROWS; row++) {
+      mEntityIds.add(mTable.getEntityId("row-" + row));
+    }
+    mSingleColumnRequest = KijiDataRequest.create(INFO, NAME);
+    mMultiFreshenerRequest = KijiDataRequest.builder()
+        .addColumns(ColumnsDef.create().add(INFO, NAME).add(INFO, EMAIL))
+        .build();
+    final ColumnsDef mapColumns = ColumnsDef.create();
+    for (int qualifier = 0; qualifier < MAP_QUALIFIERS; qualifier++) {
+      mapColumns.add(MAP, "qual" + qualifier);
+    }
+    mMapFamilyRequest = KijiDataRequest.builder().addColumns(mapColumns).build();
+    mDisableAllOptions =
+        FreshRequestOptions.withDisabledColumns(FreshRequestOptions.DISABLE_ALL_COLUMNS);
+  }
+
+  /**
+   * Close the FreshKijiTableReader and release the in-memory Kiji instance.
+   *
+   * @throws IOException in case of an error closing resources.
+   */
+  @TearDown(Level.Trial)
+  public void cleanupFreshKijiTableReaderBenchmark() throws IOException {
+    mFreshReader.close();
+    mTable.release();
+    mKiji.release();
+  }
+
+  /**
+   * Read one column without running its Freshener. Measures the fixed cost of a request through
+   * the reader, which should allocate little beyond the read itself when run with -prof gc.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public KijiRowData unfreshenedGet() throws IOException {
+    return mFreshReader.get(mEntityId, mSingleColumnRequest, mDisableAllOptions);
+  }
+
+  /**
+   * Read one column which has one Freshener.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public KijiRowData singleColumnGet() throws IOException {
+    return mFreshReader.get(mEntityId, mSingleColumnRequest);
+  }
+
+  /**
+   * Read two columns which each have a Freshener.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public KijiRowData multiFreshenerGet() throws IOException {
+    return mFreshReader.get(mEntityId, mMultiFreshenerRequest);
+  }
+
+  /**
+   * Read several qualifiers of a map type family with a family wide Freshener.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public KijiRowData mapFamilyFanout() throws IOException {
+    return mFreshReader.get(mEntityId, mMapFamilyRequest);
+  }
+
+  /**
+   * Read one column with one Freshener from every row.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public List<KijiRowData> bulkGet() throws IOException {
+    return mFreshReader.bulkGet(mEntityIds, mSingleColumnRequest);
+  }
+}
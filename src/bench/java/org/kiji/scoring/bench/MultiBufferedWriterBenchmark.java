@@ -0,0 +1,105 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.impl.MultiBufferedWriter;
+
+/** Benchmarks of concurrent SingleBuffers flushing through a shared MultiBufferedWriter. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class MultiBufferedWriterBenchmark {
+  private static final String LAYOUT_PATH = "test-map-family-freshening.json";
+  private static final String TABLE_NAME = "test_map_family_freshening";
+  private static final long TIMESTAMP = 10L;
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private MultiBufferedWriter mWriter;
+  private EntityId mEntityId;
+
+  /**
+   * Build the in-memory Kiji instance and open the MultiBufferedWriter.
+   *
+   * @throws IOException in case of an error setting up the table.
+   */
+  @Setup(Level.Trial)
+  public void setupMultiBufferedWriterBenchmark() throws IOException {
+    mKiji = new InstanceBuilder()
+        .withTable(KijiTableLayouts.getLayout(LAYOUT_PATH))
+            .withRow("row")
+                .withFamily("info")
+                    .withQualifier("name").withValue(TIMESTAMP, "name")
+        .build();
+    mTable = mKiji.openTable(TABLE_NAME);
+    mWriter = new MultiBufferedWriter(mTable);
+    mEntityId = mTable.getEntityId("row");
+  }
+
+  /**
+   * Close the MultiBufferedWriter and release the in-memory Kiji instance.
+   *
+   * @throws IOException in case of an error closing resources.
+   */
+  @TearDown(Level.Trial)
+  public void cleanupMultiBufferedWriterBenchmark() throws IOException {
+    mWriter.close();
+    mTable.release();
+    mKiji.release();
+  }
+
+  /**
+   * Buffer and flush the writes of one freshening request which refreshed two columns.
+   *
+   * @throws IOException in case of an error writing.
+   */
+  @Benchmark
+  public void putAndFlush() throws IOException {
+    final MultiBufferedWriter.SingleBuffer buffer = mWriter.openSingleBuffer(2);
+    buffer.put(mEntityId, "info", "name", TIMESTAMP, "new-name");
+    buffer.put(mEntityId, "info", "email", TIMESTAMP, "new-email");
+    buffer.flush();
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.FreshenerGetStoresContext;
+import org.kiji.scoring.Parameters;
+import org.kiji.scoring.params.Param;
+
+/** Benchmarks of parsing annotated Parameters from a Freshener's parameter map. */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParametersBenchmark {
+
+  /** Parameters with a mix of the supported field types. */
+  public static final class BenchmarkParameters extends Parameters {
+    @Param public boolean mBoolean = false;
+    @Param public int mInt = 0;
+    @Param public long mLong = 0L;
+    @Param public double mDouble = 0.0;
+    @Param public String mString = null;
+    @Param public String mUnset = "default";
+  }
+
+  /** Context which serves parameters from a fixed map. */
+  private static final class MapContext implements FreshenerGetStoresContext {
+    private final Map<String, String> mParameters;
+
+    /**
+     * Initialize a new MapContext.
+     *
+     * @param parameters the parameters to serve.
+     */
+    private MapContext(
+        final Map<String, String> parameters
+    ) {
+      mParameters = parameters;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String getParameter(
+        final String key
+    ) {
+      return mParameters.get(key);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Map<String, String> getParameters() {
+      return mParameters;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public KijiColumnName getAttachedColumn() {
+      return null;
+    }
+  }
+
+  private final FreshenerGetStoresContext mContext = new MapContext(ImmutableMap.of(
+      "mBoolean", "true",
+      "mInt", "12",
+      "mLong", "1234567890",
+      "mDouble", "0.5",
+      "mString", "value"));
+
+  /**
+   * Parse a fresh Parameters instance, as a ScoreFunction does for each request.
+   *
+   * @return the parsed Parameters.
+   */
+  @Benchmark
+  public Parameters parse() {
+    final BenchmarkParameters parameters = new BenchmarkParameters();
+    parameters.parse(mContext);
+    return parameters;
+  }
+}
@@ -0,0 +1,176 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.avro.ParameterDescription;
+import org.kiji.scoring.bench.FreshKijiTableReaderBenchmark.ConstantScoreFunction;
+import org.kiji.scoring.lib.NeverFreshen;
+
+/**
+ * Benchmarks of batching concurrent client reads at several levels of concurrency.
+ *
+ * <p>
+ *   Each operation issues a number of concurrent asynchronous requests for distinct rows and waits
+ *   for all of them. The Freshener never scores, so each request's cost is dominated by reading its
+ *   client data, which is read either row by row or in batches.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadBatchingBenchmark {
+  private static final String LAYOUT_PATH = "test-map-family-freshening.json";
+  private static final String TABLE_NAME = "test_map_family_freshening";
+  private static final String INFO = "info";
+  private static final String NAME = "name";
+  private static final int ROWS = 256;
+  private static final long TIMESTAMP = 10L;
+  private static final long LINGER_MICROS = 200L;
+  private static final int MAX_BATCH_SIZE = 64;
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+  private static final Map<String, ParameterDescription> EMPTY_DESCRIPTIONS =
+      Collections.emptyMap();
+
+  /** Number of requests in flight at once. */
+  @Param({"1", "16", "256"})
+  public int mConcurrency;
+
+  /** Whether client reads are batched. */
+  @Param({"false", "true"})
+  public boolean mBatching;
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private FreshKijiTableReader mFreshReader;
+  private List<EntityId> mEntityIds;
+  private KijiDataRequest mRequest;
+
+  /**
+   * Build the in-memory Kiji instance, register a Freshener and open the FreshKijiTableReader.
+   *
+   * @throws IOException in case of an error setting up the table.
+   */
+  @Setup(Level.Trial)
+  public void setupReadBatchingBenchmark() throws IOException {
+    final InstanceBuilder.TableBuilder tableBuilder =
+        new InstanceBuilder().withTable(KijiTableLayouts.getLayout(LAYOUT_PATH));
+    for (int row = 0; row < ROWS; row++) {
+      tableBuilder.withRow("row-" + row)
+          .withFamily(INFO)
+              .withQualifier(NAME).withValue(TIMESTAMP, "name");
+    }
+    mKiji = tableBuilder.build();
+    mTable = mKiji.openTable(TABLE_NAME);
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          KijiColumnName.create(INFO, NAME),
+          new NeverFreshen(),
+          new ConstantScoreFunction(),
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader.Builder builder = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(10000);
+    if (mBatching) {
+      builder.withReadBatching(LINGER_MICROS, MAX_BATCH_SIZE);
+    }
+    mFreshReader = builder.build();
+
+    mEntityIds = Lists.newArrayListWithCapacity(mConcurrency);
+    for (int row = 0; row < mConcurrency; row++) {
+      mEntityIds.add(mTable.getEntityId("row-" + row));
+    }
+    mRequest = KijiDataRequest.create(INFO, NAME);
+  }
+
+  /**
+   * Close the FreshKijiTableReader and release the in-memory Kiji instance.
+   *
+   * @throws IOException in case of an error closing resources.
+   */
+  @TearDown(Level.Trial)
+  public void cleanupReadBatchingBenchmark() throws IOException {
+    mFreshReader.close();
+    mTable.release();
+    mKiji.release();
+  }
+
+  /**
+   * Issue one request per row concurrently and wait for all of them.
+   *
+   * @return the read row data.
+   * @throws InterruptedException if interrupted while waiting.
+   * @throws ExecutionException in case of an error reading.
+   */
+  @Benchmark
+  public List<KijiRowData> concurrentGets() throws InterruptedException, ExecutionException {
+    final List<ListenableFuture<KijiRowData>> futures =
+        Lists.newArrayListWithCapacity(mEntityIds.size());
+    for (EntityId entityId : mEntityIds) {
+      futures.add(mFreshReader.getAsync(entityId, mRequest));
+    }
+    return Futures.allAsList(futures).get();
+  }
+}
@@ -0,0 +1,185 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.mapreduce.produce.ProducerContext;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.FreshenerContext;
+import org.kiji.scoring.ScoreFunction;
+import org.kiji.scoring.lib.produce.ScoreFunctionProducer;
+
+/**
+ * Benchmarks of running a ScoreFunction through a ScoreFunctionProducer, one input row at a time.
+ *
+ * <p>
+ *   Run with -prof gc to report allocations per row. The ProducerContext is a dynamic proxy, whose
+ *   calls allocate their argument arrays, so {@link #contextPut()} measures the context alone and
+ *   should be subtracted from {@link #produce()} to find the allocations of the producer itself.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ScoreFunctionProducerBenchmark {
+  private static final String LAYOUT_PATH = "test-map-family-freshening.json";
+  private static final String TABLE_NAME = "test_map_family_freshening";
+  private static final long TIMESTAMP = 10L;
+
+  /** ScoreFunction which copies the name of each row. */
+  public static final class CopyNameScoreFunction extends ScoreFunction<String> {
+    /** {@inheritDoc} */
+    @Override
+    public KijiDataRequest getDataRequest(
+        final FreshenerContext context
+    ) throws IOException {
+      return KijiDataRequest.create("info", "name");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public TimestampedValue<String> score(
+        final KijiRowData dataToScore,
+        final FreshenerContext context
+    ) throws IOException {
+      return TimestampedValue.create(
+          TIMESTAMP, dataToScore.getMostRecentValue("info", "name").toString());
+    }
+  }
+
+  /** ProducerContext which discards every write and counter. */
+  private static final class DiscardingContext implements InvocationHandler {
+    /** {@inheritDoc} */
+    @Override
+    public Object invoke(
+        final Object proxy,
+        final Method method,
+        final Object[] args
+    ) {
+      if ("equals".equals(method.getName())) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(method.getName())) {
+        return System.identityHashCode(proxy);
+      } else if ("toString".equals(method.getName())) {
+        return "DiscardingContext";
+      }
+      return null;
+    }
+  }
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private KijiRowData mInput;
+  private ProducerContext mContext;
+  private ScoreFunctionProducer mProducer;
+
+  /**
+   * Build the in-memory Kiji instance, read the input row, and set up the producer.
+   *
+   * @throws IOException in case of an error setting up the table or the producer.
+   */
+  @Setup(Level.Trial)
+  public void setupScoreFunctionProducerBenchmark() throws IOException {
+    mKiji = new InstanceBuilder()
+        .withTable(KijiTableLayouts.getLayout(LAYOUT_PATH))
+            .withRow("row")
+                .withFamily("info")
+                    .withQualifier("name").withValue(TIMESTAMP, "name")
+        .build();
+    mTable = mKiji.openTable(TABLE_NAME);
+    final KijiTableReader reader = mTable.openTableReader();
+    try {
+      mInput = reader.get(mTable.getEntityId("row"), KijiDataRequest.create("info", "name"));
+    } finally {
+      reader.close();
+    }
+    mContext = (ProducerContext) Proxy.newProxyInstance(
+        ProducerContext.class.getClassLoader(),
+        new Class<?>[] {ProducerContext.class},
+        new DiscardingContext());
+
+    final Configuration conf = new Configuration(false);
+    conf.set(ScoreFunctionProducer.SCORE_FUNCTION_PRODUCER_CONF_KEY, String.format(
+        "{\"scoreFunctionClass\":\"%s\",\"attachedColumn\":\"info:email\",\"parameters\":{}}",
+        CopyNameScoreFunction.class.getName()));
+    mProducer = new ScoreFunctionProducer();
+    mProducer.setConf(conf);
+    mProducer.setup(mContext);
+  }
+
+  /**
+   * Clean up the producer and release the in-memory Kiji instance.
+   *
+   * @throws IOException in case of an error closing resources.
+   */
+  @TearDown(Level.Trial)
+  public void cleanupScoreFunctionProducerBenchmark() throws IOException {
+    mProducer.cleanup(mContext);
+    mTable.release();
+    mKiji.release();
+  }
+
+  /**
+   * Produce a score for one input row, as a producer task does for every row of its split.
+   *
+   * @throws IOException in case of an error scoring.
+   */
+  @Benchmark
+  public void produce() throws IOException {
+    mProducer.produce(mInput, mContext);
+  }
+
+  /**
+   * Write a score directly to the ProducerContext. The baseline cost of the context itself.
+   *
+   * @throws IOException in case of an error writing.
+   */
+  @Benchmark
+  public void contextPut() throws IOException {
+    mContext.put(TIMESTAMP, "name");
+  }
+}
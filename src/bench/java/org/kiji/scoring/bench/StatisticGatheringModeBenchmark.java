@@ -0,0 +1,145 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.FreshKijiTableReader.Builder.StatisticGatheringMode;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.avro.ParameterDescription;
+import org.kiji.scoring.lib.AlwaysFreshen;
+
+/**
+ * Benchmarks of the overhead of each StatisticGatheringMode on concurrent freshening reads.
+ * Compare each mode against NONE to find the cost of gathering statistics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+public class StatisticGatheringModeBenchmark {
+  private static final String LAYOUT_PATH = "test-map-family-freshening.json";
+  private static final String TABLE_NAME = "test_map_family_freshening";
+  private static final long TIMESTAMP = 10L;
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+  private static final Map<String, ParameterDescription> EMPTY_DESCRIPTIONS =
+      Collections.emptyMap();
+
+  @Param({"NONE", "SAMPLED", "AGGREGATE_ONLY", "ALL"})
+  public String mStatisticGatheringMode;
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private FreshKijiTableReader mFreshReader;
+  private EntityId mEntityId;
+  private KijiDataRequest mRequest;
+
+  /**
+   * Build the in-memory Kiji instance, register a Freshener and open a FreshKijiTableReader with
+   * the benchmarked statistics gathering mode.
+   *
+   * @throws IOException in case of an error setting up the table.
+   */
+  @Setup(Level.Trial)
+  public void setupStatisticGatheringModeBenchmark() throws IOException {
+    mKiji = new InstanceBuilder()
+        .withTable(KijiTableLayouts.getLayout(LAYOUT_PATH))
+            .withRow("row")
+                .withFamily("info")
+                    .withQualifier("name").withValue(TIMESTAMP, "name")
+        .build();
+    mTable = mKiji.openTable(TABLE_NAME);
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          KijiColumnName.create("info", "name"),
+          new AlwaysFreshen(),
+          new FreshKijiTableReaderBenchmark.ConstantScoreFunction(),
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    mFreshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(10000)
+        .withStatisticsGathering(StatisticGatheringMode.valueOf(mStatisticGatheringMode), 0)
+        .build();
+    mEntityId = mTable.getEntityId("row");
+    mRequest = KijiDataRequest.create("info", "name");
+  }
+
+  /**
+   * Close the FreshKijiTableReader and release the in-memory Kiji instance.
+   *
+   * @throws IOException in case of an error closing resources.
+   */
+  @TearDown(Level.Trial)
+  public void cleanupStatisticGatheringModeBenchmark() throws IOException {
+    mFreshReader.close();
+    mTable.release();
+    mKiji.release();
+  }
+
+  /**
+   * Read one column which has one Freshener.
+   *
+   * @return the read row data.
+   * @throws IOException in case of an error reading.
+   */
+  @Benchmark
+  public KijiRowData get() throws IOException {
+    return mFreshReader.get(mEntityId, mRequest);
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.kiji.scoring.FreshKijiTableReader.Builder.StatisticGatheringMode;
+import org.kiji.scoring.avro.KijiFreshenerRecord;
+import org.kiji.scoring.lib.AlwaysFreshen;
+import org.kiji.scoring.statistics.FreshKijiTableReaderStatistics;
+import org.kiji.scoring.statistics.FreshenerSingleRunStatistics;
+import org.kiji.scoring.statistics.FreshenerStatistics;
+
+/** Benchmarks of recording the statistics of Freshener runs. */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatisticsBenchmark {
+  private static final KijiFreshenerRecord RECORD = KijiFreshenerRecord.newBuilder()
+      .setRecordVersion("freshenerrecord-0.1")
+      .setFreshnessPolicyClass(AlwaysFreshen.class.getName())
+      .setScoreFunctionClass(FreshKijiTableReaderBenchmark.ConstantScoreFunction.class.getName())
+      .build();
+
+  private FreshKijiTableReaderStatistics mReaderStatistics;
+  private FreshenerStatistics mFreshenerStatistics;
+  private long mDuration = 0;
+
+  /**
+   * Create empty statistics. Reader statistics keep every raw run, so they are recreated each
+   * iteration to keep the heap from growing across the whole trial.
+   */
+  @Setup(Level.Iteration)
+  public void setupStatisticsBenchmark() {
+    mReaderStatistics = FreshKijiTableReaderStatistics.create(StatisticGatheringMode.ALL);
+    mFreshenerStatistics = FreshenerStatistics.create(RECORD);
+  }
+
+  /**
+   * Build statistics for a single run with a varying duration so that every duration bin is hit.
+   *
+   * @return statistics for a single run.
+   */
+  private FreshenerSingleRunStatistics nextRun() {
+    mDuration = (mDuration * 31 + 17) & 0xFFFFFFL;
+    return FreshenerSingleRunStatistics.create(false, mDuration, true, RECORD);
+  }
+
+  /** Add a run to the aggregate statistics of a single Freshener. */
+  @Benchmark
+  public void addFreshenerValues() {
+    mFreshenerStatistics.addValues(nextRun());
+  }
+
+  /** Add a run to the raw and aggregate statistics of a reader. */
+  @Benchmark
+  public void addReaderRunStatistics() {
+    mReaderStatistics.addFreshenerRunStatistics(nextRun());
+  }
+
+  /** Add a run to the aggregate statistics of a reader only, as AGGREGATE_ONLY mode does. */
+  @Benchmark
+  public void addReaderAggregateRun() {
+    mDuration = (mDuration * 31 + 17) & 0xFFFFFFL;
+    mReaderStatistics.addFreshenerRun(RECORD, false, mDuration, true);
+  }
+}
@@ -35,6 +35,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
@@ -50,8 +51,11 @@ import org.kiji.schema.KijiTableReaderBuilder.OnDecoderCacheMiss;
 import org.kiji.schema.layout.ColumnReaderSpec;
 import org.kiji.scoring.impl.FreshenerThreadPool;
 import org.kiji.scoring.impl.InternalFreshKijiTableReader;
-import org.kiji.scoring.impl.MapCounterManager;
+import org.kiji.scoring.impl.StripedCounterManager;
 import org.kiji.scoring.statistics.FreshKijiTableReaderStatistics;
+import org.kiji.scoring.statistics.ReaderPoolStatistics;
+import org.kiji.scoring.statistics.MetricsRegistry;
+import org.kiji.scoring.statistics.TraceSink;
 
 /**
  * Interface for reading freshened data from a Kiji Table.
@@ -162,6 +166,14 @@ public interface FreshKijiTableReader extends KijiTableReader {
   public static final class Builder {
     /** By default, do not allow returning partially fresh data. */
     private static final Boolean DEFAULT_PARTIAL_FRESHENING = false;
+    /** By default, let Fresheners finish and write after their request times out. */
+    private static final Boolean DEFAULT_CANCEL_ON_TIMEOUT = false;
+    /** By default, wait for freshening rather than refreshing in the background. */
+    private static final Boolean DEFAULT_STALE_WHILE_REVALIDATE = false;
+    /** By default, queue at most 1000 background refreshes. */
+    private static final int DEFAULT_MAX_PENDING_REFRESHES = 1000;
+    /** By default, do not limit the rate of background refreshes. */
+    private static final double DEFAULT_MAX_REFRESHES_PER_SECOND = 0;
     /** By default, Wait 100 milliseconds for freshening to occur. */
     private static final long DEFAULT_TIMEOUT = 100;
     /** By default, do not automatically reread. */
@@ -173,6 +185,8 @@ public interface FreshKijiTableReader extends KijiTableReader {
         StatisticGatheringMode.NONE;
     /** By default, log statistics every 10 minutes. */
     private static final long DEFAULT_STATISTICS_LOGGING_INTERVAL = 10 * 60 * 1000;
+    /** By default, sample 1 in 100 requests when statistics are sampled. */
+    private static final int DEFAULT_STATISTICS_SAMPLE_RATE = 100;
     /** By default, use the singleton executor service provided by FreshenerThreadPool. */
     private static final ExecutorService DEFAULT_EXECUTOR_SERVICE =
         FreshenerThreadPool.Singleton.GET.getExecutorService();
@@ -187,18 +201,35 @@ public interface FreshKijiTableReader extends KijiTableReader {
     /** Delegate to the default OnDecoderCacheMiss from {@link KijiTableReaderBuilder}. */
     private static final OnDecoderCacheMiss DEFAULT_CACHE_MISS =
         KijiTableReaderBuilder.DEFAULT_CACHE_MISS;
+    /** By default, pool as many KijiTableReaders as the default FreshenerThreadPool has threads. */
+    private static final int DEFAULT_READER_POOL_SIZE =
+        FreshenerThreadPool.DEFAULT_THREAD_POOL_SIZE;
+    /** By default, wait indefinitely for a pooled KijiTableReader. */
+    private static final long DEFAULT_READER_POOL_MAX_WAIT = 0;
     /** Enumeration of possible modes of statistics gathering. */
     public static enum StatisticGatheringMode {
-      NONE, ALL
+      NONE, ALL, SAMPLED, AGGREGATE_ONLY
+    }
+    /** Enumeration of ways to serve requests which are shed by admission control. */
+    public static enum OverloadPolicy {
+      /** Return the current contents of the table without running Fresheners. */
+      RETURN_STALE,
+      /**
+       * Return the current contents of the table and run Fresheners in the background so that
+       * later requests may find fresh data. Background work shares the queue of
+       * stale-while-revalidate refreshes and is dropped when that queue is full. See
+       * {@link Builder#withBackgroundRefreshLimits(int, double)}.
+       */
+      FRESHEN_IN_BACKGROUND
     }
 
     /**
-     * By default, use a MapCounterManager.
+     * By default, use a StripedCounterManager.
      *
-     * @return a new MapCounterManager.
+     * @return a new StripedCounterManager.
      */
     private static CounterManager defaultCounterManager() {
-      return MapCounterManager.create();
+      return StripedCounterManager.create();
     }
 
     /**
@@ -217,6 +248,16 @@ public interface FreshKijiTableReader extends KijiTableReader {
      * milliseconds.
      */
     private Long mTimeout = null;
+    /**
+     * Time in milliseconds added to each Freshener's observed 99th percentile latency to derive
+     * its adaptive timeout. Null indicates adaptive timeouts are disabled.
+     */
+    private Long mAdaptiveTimeoutMargin = null;
+    /**
+     * Number of consecutive runs longer than the timeout after which requests stop waiting for a
+     * Freshener when adaptive timeouts are enabled.
+     */
+    private Integer mAdaptiveTimeoutSkipThreshold = null;
     /**
      * The time in milliseconds the new reader will wait between automatically rereading Freshener
      * records from the meta table. Default is to not automatically reread.
@@ -227,12 +268,46 @@ public interface FreshKijiTableReader extends KijiTableReader {
      * Default is to not allow partial freshening.
      */
     private Boolean mAllowPartialFresh = null;
+    /**
+     * Whether or not the new reader will cancel requests which time out. Default is to let
+     * Fresheners finish and write in the background.
+     */
+    private Boolean mCancelOnTimeout = null;
+    /**
+     * Maximum number of freshening requests the new reader will run at once. Null indicates
+     * admission control is disabled.
+     */
+    private Integer mMaxInFlightRequests = null;
+    /** Maximum number of concurrent runs of each Freshener when admission control is enabled. */
+    private Integer mMaxInFlightPerFreshener = null;
+    /** How to serve requests which are shed when admission control is enabled. */
+    private OverloadPolicy mOverloadPolicy = null;
+    /** Whether requests return immediately and refresh in the background by default. */
+    private Boolean mStaleWhileRevalidate = null;
+    /** Maximum number of background refreshes which may be queued or running. */
+    private Integer mMaxPendingRefreshes = null;
+    /** Maximum rate at which background refreshes start. 0 indicates no limit. */
+    private Double mMaxRefreshesPerSecond = null;
+    /** Time in microseconds for which client reads wait to be batched. Null if not batching. */
+    private Long mReadBatchLingerMicros = null;
+    /** Number of client reads at which a batch is read without waiting further. */
+    private Integer mMaxReadBatchSize = null;
+    /** Time in milliseconds before data expires at which to prefresh it. Null if disabled. */
+    private Long mPrefreshLeadTime = null;
+    /** Maximum number of recently read cells tracked for prefreshing. */
+    private Integer mMaxHotCells = null;
+    /** Maximum number of prefreshes which may run at once. */
+    private Integer mMaxConcurrentPrefreshes = null;
+    /** Maximum rate at which prefreshes start. 0 indicates no limit. */
+    private Double mMaxPrefreshesPerSecond = null;
     /** Specifies which columns to freshen.  Default is all columns. */
     private List<KijiColumnName> mColumnsToFreshen = null;
     /** Specifies what statistics to gather. */
     private StatisticGatheringMode mStatisticGatheringMode = null;
     /** Time in milliseconds between logging collected statistics. */
     private Long mStatisticsLoggingInterval = null;
+    /** 1 in how many requests gather statistics when statistics are sampled. */
+    private Integer mStatisticsSampleRate = null;
     /** ExecutorService to use for running threads internal to the fresh reader. */
     private ExecutorService mExecutorService = null;
     /** CounterManager with which to store counters. */
@@ -256,6 +331,14 @@ public interface FreshKijiTableReader extends KijiTableReader {
      * running in the reader.
      */
     private OnDecoderCacheMiss mOnDecoderCacheMiss = null;
+    /** Maximum number of KijiTableReaders which may be borrowed from the reader pool at once. */
+    private Integer mReaderPoolSize = null;
+    /** Maximum time in milliseconds to wait for a pooled KijiTableReader. 0 indicates no limit. */
+    private Long mReaderPoolMaxWait = null;
+    /** TraceSink to which to emit the timing of each stage of freshening requests. */
+    private TraceSink mTraceSink = null;
+    /** MetricsRegistry to which to publish reader and Freshener metrics. */
+    private MetricsRegistry mMetricsRegistry = null;
 
 
 
@@ -313,6 +396,65 @@ public interface FreshKijiTableReader extends KijiTableReader {
       return mTimeout;
     }
 
+    /**
+     * Configure the FreshKijiTableReader to wait for each Freshener only as long as that Freshener
+     * usually takes. Default is to wait for all Fresheners until the request times out.
+     *
+     * <p>
+     *   The reader tracks the latency of each Freshener and waits for it until its 99th percentile
+     *   latency plus the given margin has passed since the start of the request, or until the
+     *   request times out if that is sooner. A Freshener which does not finish within its budget
+     *   causes the request to time out as if the request timeout had passed, but the Freshener
+     *   continues to run and write its result in the background.
+     * </p>
+     *
+     * <p>
+     *   A Freshener whose last skipThreshold runs all took longer than the reader's timeout is not
+     *   waited for at all; its runs continue in the background until it finishes within the
+     *   timeout again.
+     * </p>
+     *
+     * @param margin time in milliseconds to add to each Freshener's 99th percentile latency.
+     * @param skipThreshold number of consecutive runs longer than the reader's timeout after which
+     *     requests stop waiting for a Freshener. 0 indicates requests always wait.
+     * @return this Builder configured to use adaptive per-Freshener timeouts.
+     */
+    public Builder withAdaptiveTimeouts(
+        final long margin,
+        final int skipThreshold
+    ) {
+      Preconditions.checkArgument(0 <= margin,
+          "Adaptive timeout margin must be greater than or equal to 0, found: %s", margin);
+      Preconditions.checkArgument(0 <= skipThreshold,
+          "Adaptive timeout skip threshold must be greater than or equal to 0, found: %s",
+          skipThreshold);
+      Preconditions.checkState(null == mAdaptiveTimeoutMargin,
+          "Adaptive timeout margin is already set to: %s", mAdaptiveTimeoutMargin);
+      mAdaptiveTimeoutMargin = margin;
+      mAdaptiveTimeoutSkipThreshold = skipThreshold;
+      return this;
+    }
+
+    /**
+     * Get the configured adaptive timeout margin or null if adaptive timeouts are not enabled.
+     *
+     * @return the configured adaptive timeout margin or null if adaptive timeouts are not enabled.
+     */
+    public Long getAdaptiveTimeoutMargin() {
+      return mAdaptiveTimeoutMargin;
+    }
+
+    /**
+     * Get the configured adaptive timeout skip threshold or null if adaptive timeouts are not
+     * enabled.
+     *
+     * @return the configured adaptive timeout skip threshold or null if adaptive timeouts are not
+     *     enabled.
+     */
+    public Integer getAdaptiveTimeoutSkipThreshold() {
+      return mAdaptiveTimeoutSkipThreshold;
+    }
+
     /**
      * Configure the FreshKijiTableReader to automatically reread freshness policies from the meta
      * table on a scheduled interval.
@@ -379,6 +521,335 @@ public interface FreshKijiTableReader extends KijiTableReader {
       return mAllowPartialFresh;
     }
 
+    /**
+     * Configure the FreshKijiTableReader to cancel requests which time out. By default Fresheners
+     * continue to run after their request times out and write their results to the table so that
+     * later requests may find fresh data.
+     *
+     * <p>
+     *   When cancellation is enabled, Fresheners of a request which has timed out skip their
+     *   ScoreFunctions if they have not yet started them, and discard the results of
+     *   ScoreFunctions which finish after the timeout. Cancellation is cooperative; running
+     *   KijiFreshnessPolicies and ScoreFunctions are not interrupted, but may check
+     *   {@link org.kiji.scoring.FreshenerContext#isCancelled()} to stop early.
+     * </p>
+     *
+     * @param cancelOnTimeout whether the FreshKijiTableReader should cancel requests which time
+     *     out.
+     * @return this Builder configured to cancel requests which time out.
+     */
+    public Builder withCancelOnTimeout(
+        final boolean cancelOnTimeout
+    ) {
+      Preconditions.checkState(null == mCancelOnTimeout,
+          "Cancel on timeout is already set to: %s", mCancelOnTimeout);
+      mCancelOnTimeout = cancelOnTimeout;
+      return this;
+    }
+
+    /**
+     * Get the configured cancel on timeout or null if none has been set.
+     *
+     * @return the configured cancel on timeout or null if none has been set.
+     */
+    public Boolean getCancelOnTimeout() {
+      return mCancelOnTimeout;
+    }
+
+    /**
+     * Configure the FreshKijiTableReader to limit the freshening work it runs at once. Default is
+     * to run Fresheners for every request.
+     *
+     * <p>
+     *   A request which would exceed either limit is shed: it does not wait for freshening and
+     *   returns the current contents of the table, read directly by the calling thread so that
+     *   plain reads stay fast while scoring capacity is saturated. Depending on the overload
+     *   policy, the Fresheners of a shed request are either skipped or run in the background
+     *   without counting against the limits. Shed requests are counted with the reader's
+     *   CounterManager using {@link org.kiji.scoring.AdmissionCounter}.
+     * </p>
+     *
+     * <p>
+     *   A request holds its slots until all of its Fresheners finish, even if the request times
+     *   out first. Map type family Fresheners count once per request regardless of the number of
+     *   qualifiers requested.
+     * </p>
+     *
+     * @param maxInFlightRequests maximum number of freshening requests the reader may run at once.
+     *     0 indicates no limit.
+     * @param maxInFlightPerFreshener maximum number of concurrent runs of each Freshener. 0
+     *     indicates no limit.
+     * @param overloadPolicy how to serve requests which are shed.
+     * @return this Builder configured to limit the freshening work it runs at once.
+     */
+    public Builder withAdmissionControl(
+        final int maxInFlightRequests,
+        final int maxInFlightPerFreshener,
+        final OverloadPolicy overloadPolicy
+    ) {
+      Preconditions.checkArgument(0 <= maxInFlightRequests,
+          "Max in flight requests must be greater than or equal to 0, found: %s",
+          maxInFlightRequests);
+      Preconditions.checkArgument(0 <= maxInFlightPerFreshener,
+          "Max in flight per Freshener must be greater than or equal to 0, found: %s",
+          maxInFlightPerFreshener);
+      Preconditions.checkArgument(null != overloadPolicy, "Overload policy may not be null.");
+      Preconditions.checkState(null == mMaxInFlightRequests,
+          "Max in flight requests is already set to: %s", mMaxInFlightRequests);
+      mMaxInFlightRequests = maxInFlightRequests;
+      mMaxInFlightPerFreshener = maxInFlightPerFreshener;
+      mOverloadPolicy = overloadPolicy;
+      return this;
+    }
+
+    /**
+     * Get the configured maximum number of in flight requests or null if admission control is not
+     * enabled.
+     *
+     * @return the configured maximum number of in flight requests or null if admission control is
+     *     not enabled.
+     */
+    public Integer getMaxInFlightRequests() {
+      return mMaxInFlightRequests;
+    }
+
+    /**
+     * Get the configured maximum number of concurrent runs of each Freshener or null if admission
+     * control is not enabled.
+     *
+     * @return the configured maximum number of concurrent runs of each Freshener or null if
+     *     admission control is not enabled.
+     */
+    public Integer getMaxInFlightPerFreshener() {
+      return mMaxInFlightPerFreshener;
+    }
+
+    /**
+     * Get the configured overload policy or null if admission control is not enabled.
+     *
+     * @return the configured overload policy or null if admission control is not enabled.
+     */
+    public OverloadPolicy getOverloadPolicy() {
+      return mOverloadPolicy;
+    }
+
+    /**
+     * Configure the FreshKijiTableReader to serve requests in stale-while-revalidate mode by
+     * default. Default is to wait for freshening up to the timeout. This default may be overridden
+     * for a single request using
+     * {@link FreshRequestOptions.Builder#withStaleWhileRevalidate(boolean)}.
+     *
+     * <p>
+     *   A stale-while-revalidate request returns the current contents of the table as soon as they
+     *   are read and queues its Fresheners to run in the background, so that its latency is that
+     *   of a plain read while the table converges to fresh data. Background refreshes are
+     *   deduplicated by row and data request and are limited as configured by
+     *   {@link #withBackgroundRefreshLimits(int, double)}. Refreshes are counted with the
+     *   reader's CounterManager using {@link org.kiji.scoring.RefreshCounter}.
+     * </p>
+     *
+     * @param staleWhileRevalidate whether requests should return immediately and refresh in the
+     *     background by default.
+     * @return this Builder configured to serve requests in stale-while-revalidate mode by default.
+     */
+    public Builder withStaleWhileRevalidate(
+        final boolean staleWhileRevalidate
+    ) {
+      Preconditions.checkState(null == mStaleWhileRevalidate,
+          "Stale-while-revalidate is already set to: %s", mStaleWhileRevalidate);
+      mStaleWhileRevalidate = staleWhileRevalidate;
+      return this;
+    }
+
+    /**
+     * Get the configured stale-while-revalidate default or null if none has been set.
+     *
+     * @return the configured stale-while-revalidate default or null if none has been set.
+     */
+    public Boolean getStaleWhileRevalidate() {
+      return mStaleWhileRevalidate;
+    }
+
+    /**
+     * Configure the limits of background refreshes run on behalf of stale-while-revalidate
+     * requests. Default is to allow at most 1000 refreshes to be queued or running and not to
+     * limit their rate.
+     *
+     * @param maxPendingRefreshes maximum number of background refreshes which may be queued or
+     *     running. Refreshes submitted while this many are pending are dropped.
+     * @param maxRefreshesPerSecond maximum rate at which background refreshes start. 0 indicates
+     *     no limit.
+     * @return this Builder configured with the given background refresh limits.
+     */
+    public Builder withBackgroundRefreshLimits(
+        final int maxPendingRefreshes,
+        final double maxRefreshesPerSecond
+    ) {
+      Preconditions.checkArgument(0 < maxPendingRefreshes,
+          "Max pending refreshes must be positive, found: %s", maxPendingRefreshes);
+      Preconditions.checkArgument(0 <= maxRefreshesPerSecond,
+          "Max refreshes per second must be greater than or equal to 0, found: %s",
+          maxRefreshesPerSecond);
+      Preconditions.checkState(null == mMaxPendingRefreshes,
+          "Max pending refreshes is already set to: %s", mMaxPendingRefreshes);
+      mMaxPendingRefreshes = maxPendingRefreshes;
+      mMaxRefreshesPerSecond = maxRefreshesPerSecond;
+      return this;
+    }
+
+    /**
+     * Get the configured maximum number of pending background refreshes or null if none has been
+     * set.
+     *
+     * @return the configured maximum number of pending background refreshes or null if none has
+     *     been set.
+     */
+    public Integer getMaxPendingRefreshes() {
+      return mMaxPendingRefreshes;
+    }
+
+    /**
+     * Get the configured maximum rate of background refreshes or null if none has been set.
+     *
+     * @return the configured maximum rate of background refreshes or null if none has been set.
+     */
+    public Double getMaxRefreshesPerSecond() {
+      return mMaxRefreshesPerSecond;
+    }
+
+    /**
+     * Configure the FreshKijiTableReader to combine concurrent reads of client data into bulk
+     * reads. Default is to read the client data of each request with its own single row get.
+     *
+     * <p>
+     *   The first client read of a data request waits up to lingerMicros for concurrent reads of
+     *   an equal data request from other rows. Once the wait has passed or maxBatchSize reads have
+     *   joined, the rows are read with a single bulk get. This delays each read by at most the
+     *   linger time in exchange for fewer round trips to the table.
+     * </p>
+     *
+     * @param lingerMicros time in microseconds for which a batch waits for more reads.
+     * @param maxBatchSize number of reads at which a batch is read without waiting further. Must
+     *     be greater than 1.
+     * @return this Builder configured to batch client reads.
+     */
+    public Builder withReadBatching(
+        final long lingerMicros,
+        final int maxBatchSize
+    ) {
+      Preconditions.checkArgument(0 < lingerMicros,
+          "Linger time must be positive, found: %s", lingerMicros);
+      Preconditions.checkArgument(1 < maxBatchSize,
+          "Max batch size must be greater than 1, found: %s", maxBatchSize);
+      Preconditions.checkState(null == mReadBatchLingerMicros,
+          "Read batching linger time is already set to: %s", mReadBatchLingerMicros);
+      mReadBatchLingerMicros = lingerMicros;
+      mMaxReadBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Get the configured read batching linger time or null if none has been set.
+     *
+     * @return the configured read batching linger time or null if none has been set.
+     */
+    public Long getReadBatchLingerMicros() {
+      return mReadBatchLingerMicros;
+    }
+
+    /**
+     * Get the configured maximum read batch size or null if none has been set.
+     *
+     * @return the configured maximum read batch size or null if none has been set.
+     */
+    public Integer getMaxReadBatchSize() {
+      return mMaxReadBatchSize;
+    }
+
+    /**
+     * Configure the FreshKijiTableReader to rerun Fresheners shortly before the data of recently
+     * read cells expires. Default is to run Fresheners only when data is requested.
+     *
+     * <p>
+     *   Whenever a Freshener attached to a fully qualified column finds data fresh, the reader asks
+     *   its KijiFreshnessPolicy when the data will expire (see
+     *   {@link KijiFreshnessPolicy#getExpirationTime(org.kiji.schema.KijiRowData,
+     *   FreshenerContext)}) and remembers the cell in a hot set of the most recently read cells.
+     *   Once a cell's data is within leadTimeMillis of expiring, the reader runs its Freshener in
+     *   the background, scoring the data even though it is still fresh, so that later requests
+     *   find fresh data instead of waiting for the ScoreFunction. Cells whose policy cannot predict
+     *   expiration, such as those using {@link org.kiji.scoring.lib.NewerThan}, are not
+     *   prefreshed. Prefreshes are counted with the reader's CounterManager using
+     *   {@link org.kiji.scoring.PrefreshCounter}.
+     * </p>
+     *
+     * @param leadTimeMillis time in milliseconds before data expires at which to prefresh it.
+     * @param maxHotCells maximum number of recently read cells to track. The least recently read
+     *     cell is forgotten when the hot set is full.
+     * @param maxConcurrentPrefreshes maximum number of prefreshes which may run at once.
+     * @param maxPrefreshesPerSecond maximum rate at which prefreshes start. 0 indicates no limit.
+     * @return this Builder configured to prefresh recently read cells.
+     */
+    public Builder withPrefreshing(
+        final long leadTimeMillis,
+        final int maxHotCells,
+        final int maxConcurrentPrefreshes,
+        final double maxPrefreshesPerSecond
+    ) {
+      Preconditions.checkArgument(0 < leadTimeMillis,
+          "Lead time must be positive, found: %s", leadTimeMillis);
+      Preconditions.checkArgument(0 < maxHotCells,
+          "Max hot cells must be positive, found: %s", maxHotCells);
+      Preconditions.checkArgument(0 < maxConcurrentPrefreshes,
+          "Max concurrent prefreshes must be positive, found: %s", maxConcurrentPrefreshes);
+      Preconditions.checkArgument(0 <= maxPrefreshesPerSecond,
+          "Max prefreshes per second must be greater than or equal to 0, found: %s",
+          maxPrefreshesPerSecond);
+      Preconditions.checkState(null == mPrefreshLeadTime,
+          "Prefresh lead time is already set to: %s", mPrefreshLeadTime);
+      mPrefreshLeadTime = leadTimeMillis;
+      mMaxHotCells = maxHotCells;
+      mMaxConcurrentPrefreshes = maxConcurrentPrefreshes;
+      mMaxPrefreshesPerSecond = maxPrefreshesPerSecond;
+      return this;
+    }
+
+    /**
+     * Get the configured prefresh lead time or null if none has been set.
+     *
+     * @return the configured prefresh lead time or null if none has been set.
+     */
+    public Long getPrefreshLeadTime() {
+      return mPrefreshLeadTime;
+    }
+
+    /**
+     * Get the configured maximum number of hot cells or null if none has been set.
+     *
+     * @return the configured maximum number of hot cells or null if none has been set.
+     */
+    public Integer getMaxHotCells() {
+      return mMaxHotCells;
+    }
+
+    /**
+     * Get the configured maximum number of concurrent prefreshes or null if none has been set.
+     *
+     * @return the configured maximum number of concurrent prefreshes or null if none has been set.
+     */
+    public Integer getMaxConcurrentPrefreshes() {
+      return mMaxConcurrentPrefreshes;
+    }
+
+    /**
+     * Get the configured maximum rate of prefreshes or null if none has been set.
+     *
+     * @return the configured maximum rate of prefreshes or null if none has been set.
+     */
+    public Double getMaxPrefreshesPerSecond() {
+      return mMaxPrefreshesPerSecond;
+    }
+
     /**
      * Configure the FreshKijiTableReader to only freshen requests for a specific set of columns.
      *
@@ -423,6 +894,11 @@ public interface FreshKijiTableReader extends KijiTableReader {
      *   <li>NONE - gather no statistics.</li>
      *   <li>ALL - preserve all statistics, aggregates and all individual request statistics will be
      *       saved.</li>
+     *   <li>SAMPLED - gather statistics as ALL does for a random sample of requests. The sample
+     *       rate is configured by {@link #withStatisticsSampleRate(int)}.</li>
+     *   <li>AGGREGATE_ONLY - gather aggregate statistics for every request without saving
+     *       individual request statistics. Aggregates are updated by the threads which run
+     *       Fresheners rather than by a statistics gathering thread.</li>
      * </ul>
      *
      * @param mode the statistics gathering mode.
@@ -452,6 +928,35 @@ public interface FreshKijiTableReader extends KijiTableReader {
       return mStatisticGatheringMode;
     }
 
+    /**
+     * Configure the FreshKijiTableReader to gather statistics for 1 in every sampleRate requests
+     * when the statistics gathering mode is SAMPLED. Each request is sampled at random and all
+     * Fresheners run by a sampled request are recorded. Default is 1 in 100. Has no effect in other
+     * statistics gathering modes.
+     *
+     * @param sampleRate 1 in how many requests should gather statistics. Must be greater than 0.
+     * @return this Builder configured to sample 1 in every sampleRate requests.
+     */
+    public Builder withStatisticsSampleRate(
+        final int sampleRate
+    ) {
+      Preconditions.checkArgument(0 < sampleRate,
+          "Statistics sample rate must be greater than 0, found: %s", sampleRate);
+      Preconditions.checkState(null == mStatisticsSampleRate,
+          "Statistics sample rate is already set to: %s", mStatisticsSampleRate);
+      mStatisticsSampleRate = sampleRate;
+      return this;
+    }
+
+    /**
+     * Get the configured statistics sample rate or null if none has been set.
+     *
+     * @return the configured statistics sample rate or null if none has been set.
+     */
+    public Integer getStatisticsSampleRate() {
+      return mStatisticsSampleRate;
+    }
+
     /**
      * Get the statistics logging interval or null if none has been set.
      *
@@ -478,6 +983,26 @@ public interface FreshKijiTableReader extends KijiTableReader {
       return this;
     }
 
+    /**
+     * Configure the FreshKijiTableReader to run each asynchronous task on its own virtual thread.
+     * This option is mutually exclusive with {@link #withExecutorService(ExecutorService)}.
+     *
+     * <p>
+     *   Freshening blocks while waiting on table reads, Freshener results and writes, so the
+     *   number of requests the default fixed thread pool can serve at once is limited by its size.
+     *   Virtual threads remove that limit. On JVMs which do not provide virtual threads, tasks run
+     *   on cached platform threads instead. The executor is shared by all readers which use it.
+     * </p>
+     *
+     * @return this Builder configured to run each asynchronous task on its own virtual thread.
+     */
+    public Builder withVirtualThreadExecutor() {
+      Preconditions.checkState(null == mExecutorService,
+          "Executor service is already set to: %s", mExecutorService);
+      mExecutorService = FreshenerThreadPool.getThreadPerTaskExecutor();
+      return this;
+    }
+
     /**
      * Get the configured ExecutorService or null if none has been set.
      *
@@ -490,8 +1015,8 @@ public interface FreshKijiTableReader extends KijiTableReader {
     /**
      * Configure the FreshKijiTableReader to use the given CounterManager to store counters.
      *
-     * This field is optional. If unset the default CounterManager uses a synchronized HashMap to
-     * store counter values.
+     * This field is optional. If unset the default CounterManager stores counter values in
+     * striped atomic longs which may be incremented concurrently without locking.
      *
      * @param counterManager CounterManager with which to store counters.
      * @return this Builder configured to use the given CounterManager.
@@ -609,6 +1134,132 @@ public interface FreshKijiTableReader extends KijiTableReader {
       return mOnDecoderCacheMiss;
     }
 
+    /**
+     * Configure the reader to pool at most the given number of KijiTableReaders. Readers are
+     * borrowed from the pool only for the duration of a single read, so the pool may be smaller
+     * than the number of threads in the ExecutorService. Default is
+     * {@link FreshenerThreadPool#DEFAULT_THREAD_POOL_SIZE}.
+     *
+     * @param readerPoolSize maximum number of KijiTableReaders which may be borrowed at once.
+     * @return this Builder configured to pool at most the given number of KijiTableReaders.
+     */
+    public Builder withReaderPoolSize(
+        final int readerPoolSize
+    ) {
+      Preconditions.checkArgument(0 < readerPoolSize,
+          "Reader pool size must be positive, found: %s", readerPoolSize);
+      Preconditions.checkState(null == mReaderPoolSize,
+          "Reader pool size is already set to: %s", mReaderPoolSize);
+      mReaderPoolSize = readerPoolSize;
+      return this;
+    }
+
+    /**
+     * Get the configured reader pool size from this Builder, or null if none has been set.
+     *
+     * @return the configured reader pool size from this Builder, or null if none has been set.
+     */
+    public Integer getReaderPoolSize() {
+      return mReaderPoolSize;
+    }
+
+    /**
+     * Configure the reader to wait at most the given time for a pooled KijiTableReader. Reads
+     * which cannot get a KijiTableReader in time fail with an IOException. Default is to wait
+     * indefinitely.
+     *
+     * @param maxWaitMillis maximum time in milliseconds to wait for a pooled KijiTableReader. 0
+     *     indicates no limit.
+     * @return this Builder configured to wait at most the given time for a pooled
+     *     KijiTableReader.
+     */
+    public Builder withReaderPoolMaxWait(
+        final long maxWaitMillis
+    ) {
+      Preconditions.checkArgument(0 <= maxWaitMillis,
+          "Reader pool max wait must be non-negative, found: %s", maxWaitMillis);
+      Preconditions.checkState(null == mReaderPoolMaxWait,
+          "Reader pool max wait is already set to: %s", mReaderPoolMaxWait);
+      mReaderPoolMaxWait = maxWaitMillis;
+      return this;
+    }
+
+    /**
+     * Get the configured reader pool max wait from this Builder, or null if none has been set.
+     *
+     * @return the configured reader pool max wait from this Builder, or null if none has been set.
+     */
+    public Long getReaderPoolMaxWait() {
+      return mReaderPoolMaxWait;
+    }
+
+    /**
+     * Configure the reader to time each stage of freshening requests and emit the timings to the
+     * given TraceSink. Default is to emit no timings.
+     *
+     * <p>
+     *   Stage timings are also aggregated into {@link FreshKijiTableReaderStatistics} when
+     *   statistics gathering is enabled, whether or not a TraceSink is configured.
+     * </p>
+     *
+     * @param traceSink TraceSink to which to emit the timing of each stage of freshening requests.
+     * @return this Builder configured to emit the timing of each stage of freshening requests to
+     *     the given TraceSink.
+     */
+    public Builder withTraceSink(
+        final TraceSink traceSink
+    ) {
+      Preconditions.checkNotNull(traceSink, "TraceSink may not be null.");
+      Preconditions.checkState(null == mTraceSink,
+          "TraceSink is already set to: %s", mTraceSink);
+      mTraceSink = traceSink;
+      return this;
+    }
+
+    /**
+     * Get the configured TraceSink from this Builder, or null if none has been set.
+     *
+     * @return the configured TraceSink from this Builder, or null if none has been set.
+     */
+    public TraceSink getTraceSink() {
+      return mTraceSink;
+    }
+
+    /**
+     * Configure the reader to publish metrics to the given MetricsRegistry. Default is to publish
+     * no metrics.
+     *
+     * <p>
+     *   The reader publishes request, timeout and shed rates, request latencies, the duration of
+     *   each stage of freshening, the ratio of Freshener runs which found stale data, and the queue
+     *   depths of its reader pool and executor. Each Freshener additionally publishes its run, stale and timeout
+     *   rates, latency and stage durations. All metrics are removed from the registry when the
+     *   reader closes. See {@link org.kiji.scoring.statistics.JmxMetricsRegistry} to publish
+     *   metrics over JMX.
+     * </p>
+     *
+     * @param metricsRegistry MetricsRegistry to which to publish metrics.
+     * @return this Builder configured to publish metrics to the given MetricsRegistry.
+     */
+    public Builder withMetricsRegistry(
+        final MetricsRegistry metricsRegistry
+    ) {
+      Preconditions.checkNotNull(metricsRegistry, "MetricsRegistry may not be null.");
+      Preconditions.checkState(null == mMetricsRegistry,
+          "MetricsRegistry is already set to: %s", mMetricsRegistry);
+      mMetricsRegistry = metricsRegistry;
+      return this;
+    }
+
+    /**
+     * Get the configured MetricsRegistry from this Builder, or null if none has been set.
+     *
+     * @return the configured MetricsRegistry from this Builder, or null if none has been set.
+     */
+    public MetricsRegistry getMetricsRegistry() {
+      return mMetricsRegistry;
+    }
+
     /**
      * Builds a FreshKijiTableReader with the configured options.
      *
@@ -626,6 +1277,16 @@ public interface FreshKijiTableReader extends KijiTableReader {
       if (null == mAllowPartialFresh) {
         mAllowPartialFresh = DEFAULT_PARTIAL_FRESHENING;
       }
+      if (null == mCancelOnTimeout) {
+        mCancelOnTimeout = DEFAULT_CANCEL_ON_TIMEOUT;
+      }
+      if (null == mStaleWhileRevalidate) {
+        mStaleWhileRevalidate = DEFAULT_STALE_WHILE_REVALIDATE;
+      }
+      if (null == mMaxPendingRefreshes) {
+        mMaxPendingRefreshes = DEFAULT_MAX_PENDING_REFRESHES;
+        mMaxRefreshesPerSecond = DEFAULT_MAX_REFRESHES_PER_SECOND;
+      }
       if (null == mColumnsToFreshen) {
         mColumnsToFreshen = DEFAULT_COLUMNS_TO_FRESHEN;
       }
@@ -633,6 +1294,9 @@ public interface FreshKijiTableReader extends KijiTableReader {
         mStatisticGatheringMode = DEFAULT_STATISTICS_MODE;
         mStatisticsLoggingInterval = DEFAULT_STATISTICS_LOGGING_INTERVAL;
       }
+      if (null == mStatisticsSampleRate) {
+        mStatisticsSampleRate = DEFAULT_STATISTICS_SAMPLE_RATE;
+      }
       if (null == mExecutorService) {
         mExecutorService = DEFAULT_EXECUTOR_SERVICE;
       }
@@ -648,20 +1312,46 @@ public interface FreshKijiTableReader extends KijiTableReader {
       if (null == mOnDecoderCacheMiss) {
         mOnDecoderCacheMiss = DEFAULT_CACHE_MISS;
       }
+      if (null == mReaderPoolSize) {
+        mReaderPoolSize = DEFAULT_READER_POOL_SIZE;
+      }
+      if (null == mReaderPoolMaxWait) {
+        mReaderPoolMaxWait = DEFAULT_READER_POOL_MAX_WAIT;
+      }
 
       return new InternalFreshKijiTableReader(
           mTable,
           mTimeout,
+          mAdaptiveTimeoutMargin,
+          mAdaptiveTimeoutSkipThreshold,
           mRereadPeriod,
           mAllowPartialFresh,
+          mCancelOnTimeout,
+          mMaxInFlightRequests,
+          mMaxInFlightPerFreshener,
+          mOverloadPolicy,
+          mStaleWhileRevalidate,
+          mMaxPendingRefreshes,
+          mMaxRefreshesPerSecond,
+          mReadBatchLingerMicros,
+          mMaxReadBatchSize,
+          mPrefreshLeadTime,
+          mMaxHotCells,
+          mMaxConcurrentPrefreshes,
+          mMaxPrefreshesPerSecond,
           mColumnsToFreshen,
           mStatisticGatheringMode,
           mStatisticsLoggingInterval,
+          mStatisticsSampleRate,
           mExecutorService,
           mCounterManager,
           mColumnReaderSpecOverrides,
           mColumnReaderSpecAlternatives,
-          mOnDecoderCacheMiss);
+          mOnDecoderCacheMiss,
+          mReaderPoolSize,
+          mReaderPoolMaxWait,
+          mTraceSink,
+          mMetricsRegistry);
     }
   }
 
@@ -693,6 +1383,7 @@ public interface FreshKijiTableReader extends KijiTableReader {
       private Long mTimeout = null;
       private Map<String, String> mParameters = null;
       private Set<KijiColumnName> mDisabledColumns = null;
+      private Boolean mStaleWhileRevalidate = null;
 
       /** Private constructor. */
       private Builder() { }
@@ -802,6 +1493,33 @@ public interface FreshKijiTableReader extends KijiTableReader {
         return ImmutableSet.copyOf(mDisabledColumns);
       }
 
+      /**
+       * Configure whether this request should return immediately and refresh in the background,
+       * overriding the reader's default. See
+       * {@link FreshKijiTableReader.Builder#withStaleWhileRevalidate(boolean)}.
+       *
+       * @param staleWhileRevalidate whether this request should return the current contents of
+       *     the table immediately and run its Fresheners in the background.
+       * @return this builder configured to serve this request in the given mode.
+       */
+      public Builder withStaleWhileRevalidate(
+          final boolean staleWhileRevalidate
+      ) {
+        Preconditions.checkState(null == mStaleWhileRevalidate,
+            "Stale-while-revalidate is already set to: %s", mStaleWhileRevalidate);
+        mStaleWhileRevalidate = staleWhileRevalidate;
+        return this;
+      }
+
+      /**
+       * Get the configured stale-while-revalidate mode or null if none has been set.
+       *
+       * @return the configured stale-while-revalidate mode or null if none has been set.
+       */
+      public Boolean getStaleWhileRevalidate() {
+        return mStaleWhileRevalidate;
+      }
+
       /**
        * Build a FreshRequestOptions from the configured state and default values.
        *
@@ -818,7 +1536,9 @@ public interface FreshKijiTableReader extends KijiTableReader {
           mDisabledColumns = DEFAULT_DISABLED_COLUMNS;
         }
 
-        return new FreshRequestOptions(mTimeout, mParameters, mDisabledColumns);
+        // A null stale-while-revalidate mode indicates the reader's default should be used.
+        return new FreshRequestOptions(
+            mTimeout, mParameters, mDisabledColumns, mStaleWhileRevalidate);
       }
     }
 
@@ -868,6 +1588,7 @@ public interface FreshKijiTableReader extends KijiTableReader {
     private final long mTimeout;
     private final Map<String, String> mParameters;
     private final Set<KijiColumnName> mDisabledColumns;
+    private final Boolean mStaleWhileRevalidate;
 
     /**
      * Initialize a new FreshRequestOptions with the given timeout and parameters.
@@ -876,15 +1597,19 @@ public interface FreshKijiTableReader extends KijiTableReader {
      * @param parameters configuration parameters which will be available to all Fresheners run in
      *     response to this request.
      * @param disabledColumns set of columns which will not be freshened by this request.
+     * @param staleWhileRevalidate whether this request should return immediately and refresh in
+     *     the background, or null to use the reader's default.
      */
     private FreshRequestOptions(
         final long timeout,
         final Map<String, String> parameters,
-        final Set<KijiColumnName> disabledColumns
+        final Set<KijiColumnName> disabledColumns,
+        final Boolean staleWhileRevalidate
     ) {
       mTimeout = timeout;
       mParameters = parameters;
       mDisabledColumns = disabledColumns;
+      mStaleWhileRevalidate = staleWhileRevalidate;
     }
 
     /**
@@ -914,6 +1639,27 @@ public interface FreshKijiTableReader extends KijiTableReader {
       return mDisabledColumns;
     }
 
+    /**
+     * Get whether this request should return immediately and refresh in the background, or null
+     * if the reader's default should be used.
+     *
+     * @return whether this request should return immediately and refresh in the background, or
+     *     null if the reader's default should be used.
+     */
+    public Boolean getStaleWhileRevalidate() {
+      return mStaleWhileRevalidate;
+    }
+
+    /**
+     * Get a copy of these options which waits for freshening rather than refreshing in the
+     * background.
+     *
+     * @return a copy of these options which waits for freshening.
+     */
+    public FreshRequestOptions withoutStaleWhileRevalidate() {
+      return new FreshRequestOptions(mTimeout, mParameters, mDisabledColumns, false);
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -921,6 +1667,7 @@ public interface FreshKijiTableReader extends KijiTableReader {
           .add("timeout", mTimeout)
           .add("parameter_overrides", mParameters)
           .add("disabled_columns", mDisabledColumns)
+          .add("stale_while_revalidate", mStaleWhileRevalidate)
           .toString();
     }
   }
@@ -988,6 +1735,65 @@ public interface FreshKijiTableReader extends KijiTableReader {
       FreshRequestOptions options
   ) throws IOException;
 
+  /**
+   * Freshens data as needed without blocking the calling thread. The returned future completes
+   * with fresh data once all Fresheners have finished, or with stale or partially freshened data
+   * depending on the configuration of the reader once the configured timeout has passed. No thread
+   * waits on behalf of the request; completion is driven by the Fresheners and by a timer.
+   *
+   * @param entityId the EntityId of the row to query.
+   * @param dataRequest what data to retrieve.
+   * @return a future which completes with the data requested after freshening. Errors reading
+   *     from the table are reported through the future.
+   */
+  ListenableFuture<KijiRowData> getAsync(EntityId entityId, KijiDataRequest dataRequest);
+
+  /**
+   * Freshens data as needed without blocking the calling thread. The returned future completes
+   * with fresh data once all Fresheners have finished, or with stale or partially freshened data
+   * depending on the configuration of the reader once the specified timeout has passed.
+   *
+   * @param entityId the EntityId of the row to query.
+   * @param dataRequest what data to retrieve.
+   * @param options options which affect the behavior of this freshening request only.
+   * @return a future which completes with the data requested after freshening. Errors reading
+   *     from the table are reported through the future.
+   */
+  ListenableFuture<KijiRowData> getAsync(
+      EntityId entityId,
+      KijiDataRequest dataRequest,
+      FreshRequestOptions options);
+
+  /**
+   * Freshens data in several rows in parallel without blocking the calling thread. The returned
+   * future completes once every row has completed as described by
+   * {@link #getAsync(EntityId, KijiDataRequest)}.
+   *
+   * @param entityIds a list of EntityIds for the rows to query.
+   * @param dataRequest what data to retrieve from each row.
+   * @return a future which completes with a list of KijiRowData corresponding to the EntityIds and
+   *     data request after freshening.
+   */
+  ListenableFuture<List<KijiRowData>> bulkGetAsync(
+      List<EntityId> entityIds,
+      KijiDataRequest dataRequest);
+
+  /**
+   * Freshens data in several rows in parallel without blocking the calling thread. The returned
+   * future completes once every row has completed as described by
+   * {@link #getAsync(EntityId, KijiDataRequest, FreshRequestOptions)}.
+   *
+   * @param entityIds a list of EntityIds for the rows to query.
+   * @param dataRequest what data to retrieve from each row.
+   * @param options options which affect the behavior of this freshening request only.
+   * @return a future which completes with a list of KijiRowData corresponding to the EntityIds and
+   *     data request after freshening.
+   */
+  ListenableFuture<List<KijiRowData>> bulkGetAsync(
+      List<EntityId> entityIds,
+      KijiDataRequest dataRequest,
+      FreshRequestOptions options);
+
   /**
    * Clear cached Fresheners and reload from the meta table. This method replaces only those
    * Fresheners which have changed since the last call to rereadFreshenerRecords() or the
@@ -1016,6 +1822,13 @@ public interface FreshKijiTableReader extends KijiTableReader {
    */
   FreshKijiTableReaderStatistics getStatistics();
 
+  /**
+   * Get a snapshot of the utilization of the pool of KijiTableReaders used by this reader.
+   *
+   * @return a snapshot of the utilization of the pool of KijiTableReaders used by this reader.
+   */
+  ReaderPoolStatistics getReaderPoolStatistics();
+
   /**
    * Get the CounterManager used by this FreshKijiTableReader to store counters.
    *
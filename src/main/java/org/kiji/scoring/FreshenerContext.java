@@ -44,4 +44,33 @@ public interface FreshenerContext extends FreshenerSetupContext {
    *     context.
    */
   KijiDataRequest getClientRequest();
+
+  /**
+   * Get the time in nanoseconds remaining before the request which triggered the Freshener
+   * serviced by this context times out. Long running ScoreFunctions may use this to bound the
+   * work they do, for example by limiting the timeouts of remote calls.
+   *
+   * <p>
+   *   The returned value is negative once the request has timed out. Fresheners continue to run
+   *   after their request times out and their results are still written to the table, so a
+   *   negative value does not mean the Freshener's work is wasted unless
+   *   {@link #isCancelled()} is also true. Returns {@link Long#MAX_VALUE} if the Freshener is not
+   *   running as part of a request with a timeout.
+   * </p>
+   *
+   * @return the time in nanoseconds remaining before the request times out.
+   */
+  long getRemainingNanos();
+
+  /**
+   * Whether the request which triggered the Freshener serviced by this context has been
+   * cancelled. Requests are cancelled when they time out if the FreshKijiTableReader was built
+   * with {@link org.kiji.scoring.FreshKijiTableReader.Builder#withCancelOnTimeout(boolean)}.
+   * Results of ScoreFunctions which finish after their request has been cancelled are not written
+   * to the table, so long running ScoreFunctions may check this to stop early.
+   *
+   * @return whether the request which triggered the Freshener serviced by this context has been
+   *     cancelled.
+   */
+  boolean isCancelled();
 }
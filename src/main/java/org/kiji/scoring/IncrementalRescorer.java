@@ -0,0 +1,741 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.SetMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.KijiTableReaderPool;
+import org.kiji.schema.KijiTableReaderPool.Builder.WhenExhaustedAction;
+import org.kiji.schema.KijiTableWriter;
+import org.kiji.schema.RuntimeInterruptedException;
+import org.kiji.scoring.ScoreFunction.TimestampedValue;
+import org.kiji.scoring.avro.KijiFreshenerRecord;
+import org.kiji.scoring.impl.FreshenerDependencies;
+import org.kiji.scoring.impl.InternalFreshenerContext;
+import org.kiji.scoring.impl.MapCounterManager;
+import org.kiji.scoring.impl.ScoringUtils;
+
+/**
+ * Rescores rows as their inputs change, driven by a feed of changes from a
+ * {@link RowChangeSource}.
+ *
+ * <p>
+ *   An IncrementalRescorer loads the Fresheners attached to qualified columns of a table and
+ *   determines the input columns of each from its {@link KijiFreshnessManager#INPUT_COLUMNS_KEY}
+ *   parameter, or from the data request of its ScoreFunction if the parameter is not specified.
+ *   When a column of a row changes, the ScoreFunctions of the Fresheners which read that column
+ *   are run for that row, followed by the ScoreFunctions of Fresheners which read their outputs.
+ *   ScoreFunctions are run regardless of their KijiFreshnessPolicies, and each score is written
+ *   before the ScoreFunctions which read it are run. Fresheners attached to map type families are
+ *   not rescored.
+ * </p>
+ *
+ * <p>
+ *   Changes are processed in micro-batches. A batch collects changes until it is full or until
+ *   the batch window has passed since collection started. Identical changes within a batch are
+ *   processed once, and the rows of a batch are rescored in parallel by a fixed number of threads.
+ *   Once every row of a batch has been rescored, the batch is acknowledged to the source. A row
+ *   whose rescoring fails is logged and counted, and its changes are retried with the next batch.
+ *   Batches are not acknowledged while any row awaits a retry, so a source which replays
+ *   unacknowledged changes after a restart will replay the changes of failed rows. A row which
+ *   fails persistently therefore prevents all further acknowledgement. Use
+ *   {@link Builder#withAcknowledgeFailedRows(boolean)} to acknowledge batches regardless of
+ *   failures and drop the changes of failed rows instead.
+ * </p>
+ *
+ * <p>
+ *   Fresheners are loaded once when the IncrementalRescorer is built. Changes to the table's
+ *   Freshener records require a new IncrementalRescorer. If the source reports the writes of the
+ *   IncrementalRescorer itself, the Fresheners which read those outputs will be rescored again
+ *   when those changes arrive. A Freshener is never rescored because of a change to its own
+ *   attached column.
+ * </p>
+ *
+ * <p>
+ *   Example usage:
+ *   <pre>
+ *     final IncrementalRescorer rescorer = IncrementalRescorer.Builder.create()
+ *         .withTable(table)
+ *         .withRowChangeSource(source)
+ *         .withNumThreads(8)
+ *         .build();
+ *     rescorer.start();
+ *     ...
+ *     rescorer.close();
+ *   </pre>
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class IncrementalRescorer implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(IncrementalRescorer.class);
+
+  /** Builder for IncrementalRescorers. */
+  @ApiAudience.Public
+  @ApiStability.Experimental
+  public static final class Builder {
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+    private static final long DEFAULT_BATCH_WINDOW = 100;
+    private static final int DEFAULT_NUM_THREADS = 4;
+
+    private KijiTable mTable = null;
+    private RowChangeSource mSource = null;
+    private Integer mMaxBatchSize = null;
+    private Long mBatchWindow = null;
+    private Integer mNumThreads = null;
+    private Boolean mAcknowledgeFailedRows = null;
+
+    /** Private constructor. Use {@link #create()}. */
+    private Builder() { }
+
+    /**
+     * Create a new IncrementalRescorer Builder.
+     *
+     * @return a new IncrementalRescorer Builder.
+     */
+    public static Builder create() {
+      return new Builder();
+    }
+
+    /**
+     * Configure the IncrementalRescorer to rescore rows of the given table. The table is not
+     * released by the IncrementalRescorer.
+     *
+     * @param table the table whose rows to rescore.
+     * @return this builder.
+     */
+    public Builder withTable(
+        final KijiTable table
+    ) {
+      Preconditions.checkNotNull(table, "Table may not be null.");
+      Preconditions.checkState(null == mTable, "Table is already set to: %s", mTable);
+      mTable = table;
+      return this;
+    }
+
+    /**
+     * Configure the IncrementalRescorer to consume changes from the given source. The source is
+     * not closed by the IncrementalRescorer.
+     *
+     * @param source the source of changes to the rows of the table.
+     * @return this builder.
+     */
+    public Builder withRowChangeSource(
+        final RowChangeSource source
+    ) {
+      Preconditions.checkNotNull(source, "RowChangeSource may not be null.");
+      Preconditions.checkState(null == mSource, "RowChangeSource is already set to: %s", mSource);
+      mSource = source;
+      return this;
+    }
+
+    /**
+     * Configure the IncrementalRescorer to collect at most the given number of changes in each
+     * batch. If unspecified, defaults to 1000.
+     *
+     * @param maxBatchSize maximum number of changes in each batch.
+     * @return this builder.
+     */
+    public Builder withMaxBatchSize(
+        final int maxBatchSize
+    ) {
+      Preconditions.checkArgument(0 < maxBatchSize,
+          "Max batch size must be positive, found: %s", maxBatchSize);
+      Preconditions.checkState(null == mMaxBatchSize,
+          "Max batch size is already set to: %s", mMaxBatchSize);
+      mMaxBatchSize = maxBatchSize;
+      return this;
+    }
+
+    /**
+     * Configure the IncrementalRescorer to collect changes for each batch for at most the given
+     * time. Identical changes within this window are processed once. If unspecified, defaults to
+     * 100 milliseconds.
+     *
+     * @param batchWindow time in milliseconds for which to collect changes for each batch.
+     * @return this builder.
+     */
+    public Builder withBatchWindow(
+        final long batchWindow
+    ) {
+      Preconditions.checkArgument(0 < batchWindow,
+          "Batch window must be positive, found: %s", batchWindow);
+      Preconditions.checkState(null == mBatchWindow,
+          "Batch window is already set to: %s", mBatchWindow);
+      mBatchWindow = batchWindow;
+      return this;
+    }
+
+    /**
+     * Configure the IncrementalRescorer to rescore at most the given number of rows at once. If
+     * unspecified, defaults to 4.
+     *
+     * @param numThreads number of rows to rescore concurrently.
+     * @return this builder.
+     */
+    public Builder withNumThreads(
+        final int numThreads
+    ) {
+      Preconditions.checkArgument(0 < numThreads,
+          "Number of threads must be positive, found: %s", numThreads);
+      Preconditions.checkState(null == mNumThreads,
+          "Number of threads is already set to: %s", mNumThreads);
+      mNumThreads = numThreads;
+      return this;
+    }
+
+    /**
+     * Configure the IncrementalRescorer to acknowledge each batch to the source even if rescoring
+     * some of its rows failed. The changes of failed rows are dropped rather than retried. If
+     * unspecified, defaults to false, in which case failed rows are retried with the next batch and
+     * no batch is acknowledged until they succeed.
+     *
+     * @param acknowledgeFailedRows whether to acknowledge batches in which rows failed.
+     * @return this builder.
+     */
+    public Builder withAcknowledgeFailedRows(
+        final boolean acknowledgeFailedRows
+    ) {
+      Preconditions.checkState(null == mAcknowledgeFailedRows,
+          "Acknowledge failed rows is already set to: %s", mAcknowledgeFailedRows);
+      mAcknowledgeFailedRows = acknowledgeFailedRows;
+      return this;
+    }
+
+    /**
+     * Build a new IncrementalRescorer from the configuration of this builder. Loads and sets up the
+     * Fresheners attached to the table.
+     *
+     * @return a new IncrementalRescorer.
+     * @throws IOException in case of an error loading Fresheners.
+     */
+    public IncrementalRescorer build() throws IOException {
+      Preconditions.checkState(null != mTable, "Table must be set before building.");
+      Preconditions.checkState(null != mSource, "RowChangeSource must be set before building.");
+      return new IncrementalRescorer(
+          mTable,
+          mSource,
+          (null != mMaxBatchSize) ? mMaxBatchSize : DEFAULT_MAX_BATCH_SIZE,
+          (null != mBatchWindow) ? mBatchWindow : DEFAULT_BATCH_WINDOW,
+          (null != mNumThreads) ? mNumThreads : DEFAULT_NUM_THREADS,
+          (null != mAcknowledgeFailedRows) ? mAcknowledgeFailedRows : false);
+    }
+  }
+
+  /** The ScoreFunction of a single Freshener and the state necessary to run it. */
+  private static final class Rescorer {
+    private final KijiColumnName mAttachedColumn;
+    private final ScoreFunction<?> mScoreFunction;
+    private final InternalFreshenerContext mSetupContext;
+    private final FreshenerContext mContext;
+    private final KeyValueStoreReaderFactory mFactory;
+    private final KijiDataRequest mDataRequest;
+
+    /**
+     * Initialize a new Rescorer.
+     *
+     * @param attachedColumn the column to which the Freshener is attached.
+     * @param scoreFunction the set up ScoreFunction of the Freshener.
+     * @param setupContext the context with which the ScoreFunction was set up.
+     * @param context the context with which to run the ScoreFunction.
+     * @param factory the KeyValueStoreReaderFactory of the ScoreFunction.
+     * @param dataRequest the data request of the ScoreFunction.
+     */
+    private Rescorer(
+        final KijiColumnName attachedColumn,
+        final ScoreFunction<?> scoreFunction,
+        final InternalFreshenerContext setupContext,
+        final FreshenerContext context,
+        final KeyValueStoreReaderFactory factory,
+        final KijiDataRequest dataRequest
+    ) {
+      mAttachedColumn = attachedColumn;
+      mScoreFunction = scoreFunction;
+      mSetupContext = setupContext;
+      mContext = context;
+      mFactory = factory;
+      mDataRequest = dataRequest;
+    }
+  }
+
+  private final KijiTable mTable;
+  private final RowChangeSource mSource;
+  private final int mMaxBatchSize;
+  private final long mBatchWindow;
+  private final int mNumThreads;
+  private final boolean mAcknowledgeFailedRows;
+  private final CounterManager mCounterManager = MapCounterManager.create();
+  private final ImmutableMap<KijiColumnName, Rescorer> mRescorers;
+  /** The input columns of each Freshener. */
+  private final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> mInputColumns;
+  /** The columns of the Fresheners on which each Freshener depends. */
+  private final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> mUpstreamColumns;
+  /** The columns of the Fresheners which depend on each Freshener. */
+  private final SetMultimap<KijiColumnName, KijiColumnName> mDownstreamColumns;
+  private final KijiTableReaderPool mReaderPool;
+  private final KijiTableWriter mWriter;
+  private final ExecutorService mExecutorService;
+  private final ExecutorService mLoop;
+  /**
+   * The changed columns of rows whose rescoring failed, to be retried with the next batch. Only
+   * accessed by the thread processing batches.
+   */
+  private final Map<EntityId, Set<KijiColumnName>> mFailedRows = Maps.newLinkedHashMap();
+  private volatile boolean mStarted = false;
+  private volatile boolean mClosed = false;
+  /** Whether the background thread started with {@link #start()} is processing batches. */
+  private volatile boolean mRunning = false;
+  /** The most recent exception thrown while processing a batch in the background thread. */
+  private volatile Exception mLastFailure = null;
+
+  /**
+   * Processes batches until this IncrementalRescorer is closed. A batch which fails with an
+   * exception is counted and logged, and the next batch is processed after waiting for one batch
+   * window so that a persistently failing source does not spin.
+   */
+  private final Runnable mLoopRunnable = new Runnable() {
+    /** {@inheritDoc} */
+    @Override
+    public void run() {
+      try {
+        while (!mClosed && !Thread.currentThread().isInterrupted()) {
+          try {
+            processBatch();
+          } catch (RuntimeInterruptedException rie) {
+            LOG.debug("IncrementalRescorer interrupted, stopping.");
+            return;
+          } catch (Exception e) {
+            if (mClosed) {
+              return;
+            }
+            mLastFailure = e;
+            mCounterManager.incrementCounter(RescoreCounter.BATCH_FAILED, 1);
+            LOG.warn("IncrementalRescorer failed to process a batch with exception: {}",
+                e.toString());
+            try {
+              Thread.sleep(mBatchWindow);
+            } catch (InterruptedException ie) {
+              LOG.debug("IncrementalRescorer interrupted, stopping.");
+              return;
+            }
+          }
+        }
+      } finally {
+        mRunning = false;
+      }
+    }
+  };
+
+  /**
+   * Private constructor. Use {@link Builder#build()}.
+   *
+   * @param table the table whose rows to rescore.
+   * @param source the source of changes to the rows of the table.
+   * @param maxBatchSize maximum number of changes in each batch.
+   * @param batchWindow time in milliseconds for which to collect changes for each batch.
+   * @param numThreads number of rows to rescore concurrently.
+   * @param acknowledgeFailedRows whether to acknowledge batches in which rows failed.
+   * @throws IOException in case of an error loading Fresheners.
+   */
+  private IncrementalRescorer(
+      final KijiTable table,
+      final RowChangeSource source,
+      final int maxBatchSize,
+      final long batchWindow,
+      final int numThreads,
+      final boolean acknowledgeFailedRows
+  ) throws IOException {
+    mTable = table;
+    mSource = source;
+    mMaxBatchSize = maxBatchSize;
+    mBatchWindow = batchWindow;
+    mNumThreads = numThreads;
+    mAcknowledgeFailedRows = acknowledgeFailedRows;
+
+    final Map<KijiColumnName, KijiFreshenerRecord> records;
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(table.getKiji());
+    try {
+      records = manager.retrieveFreshenerRecords(table.getName());
+    } finally {
+      manager.close();
+    }
+    final Map<KijiColumnName, Rescorer> rescorers = Maps.newHashMap();
+    final Map<KijiColumnName, Map<String, String>> inputParameters = Maps.newHashMap();
+    for (Map.Entry<KijiColumnName, KijiFreshenerRecord> entry : records.entrySet()) {
+      if (!entry.getKey().isFullyQualified()) {
+        LOG.info("IncrementalRescorer will not rescore Freshener attached to map type family: {}",
+            entry.getKey());
+        continue;
+      }
+      final Rescorer rescorer = createRescorer(entry.getKey(), entry.getValue());
+      rescorers.put(entry.getKey(), rescorer);
+      final Map<String, String> parameters = Maps.newHashMap(entry.getValue().getParameters());
+      if (!parameters.containsKey(KijiFreshnessManager.INPUT_COLUMNS_KEY)) {
+        parameters.put(KijiFreshnessManager.INPUT_COLUMNS_KEY,
+            FreshenerDependencies.toInputColumnsParameter(rescorer.mDataRequest));
+      }
+      inputParameters.put(entry.getKey(), parameters);
+    }
+    mRescorers = ImmutableMap.copyOf(rescorers);
+    final ImmutableMap.Builder<KijiColumnName, ImmutableSet<KijiColumnName>> inputColumns =
+        ImmutableMap.builder();
+    for (Map.Entry<KijiColumnName, Map<String, String>> entry : inputParameters.entrySet()) {
+      inputColumns.put(entry.getKey(), FreshenerDependencies.getInputColumns(entry.getValue()));
+    }
+    mInputColumns = inputColumns.build();
+    mUpstreamColumns = FreshenerDependencies.getUpstreamColumns(inputParameters);
+    mDownstreamColumns = HashMultimap.create();
+    for (Map.Entry<KijiColumnName, ImmutableSet<KijiColumnName>> entry
+        : mUpstreamColumns.entrySet()) {
+      for (KijiColumnName upstream : entry.getValue()) {
+        mDownstreamColumns.put(upstream, entry.getKey());
+      }
+    }
+
+    mReaderPool = KijiTableReaderPool.Builder.create()
+        .withReaderFactory(table.getReaderFactory())
+        .withExhaustedAction(WhenExhaustedAction.BLOCK)
+        .withMaxActive(numThreads)
+        .build();
+    mWriter = table.openTableWriter();
+    mExecutorService = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+        .setNameFormat("incremental-rescorer-%d")
+        .setDaemon(true)
+        .build());
+    mLoop = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("incremental-rescorer-loop-%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Instantiate and set up the ScoreFunction of a Freshener.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @param record the record of the Freshener.
+   * @return a Rescorer which runs the ScoreFunction of the Freshener.
+   * @throws IOException in case of an error setting up the ScoreFunction.
+   */
+  private Rescorer createRescorer(
+      final KijiColumnName attachedColumn,
+      final KijiFreshenerRecord record
+  ) throws IOException {
+    final ScoreFunction<?> scoreFunction =
+        ScoringUtils.scoreFunctionForName(record.getScoreFunctionClass());
+    final KijiFreshnessPolicy policy = ScoringUtils.policyForName(record.getFreshnessPolicyClass());
+    final InternalFreshenerContext setupContext = InternalFreshenerContext.create(
+        attachedColumn, record.getParameters(), mCounterManager);
+    // The policy is not run, but KeyValueStores it specifies override those of the ScoreFunction.
+    final KeyValueStoreReaderFactory factory =
+        ScoringUtils.createKVStoreReaderFactory(setupContext, scoreFunction, policy);
+    setupContext.setKeyValueStoreReaderFactory(factory);
+    scoreFunction.setup(setupContext);
+    // ScoreFunctions run as though a client requested only the attached column.
+    final FreshenerContext context = InternalFreshenerContext.create(
+        KijiDataRequest.create(attachedColumn.getFamily(), attachedColumn.getQualifier()),
+        attachedColumn,
+        record.getParameters(),
+        ImmutableMap.<String, String>of(),
+        mCounterManager,
+        factory);
+    return new Rescorer(
+        attachedColumn,
+        scoreFunction,
+        setupContext,
+        context,
+        factory,
+        scoreFunction.getDataRequest(context));
+  }
+
+  /**
+   * Get the Fresheners to rescore in a row in which the given columns changed, in the order in
+   * which to rescore them.
+   *
+   * @param changedColumns the columns which changed.
+   * @return the columns of the Fresheners to rescore in dependency order.
+   */
+  private List<KijiColumnName> getAffectedColumns(
+      final Set<KijiColumnName> changedColumns
+  ) {
+    final Set<KijiColumnName> affected = Sets.newLinkedHashSet();
+    for (Map.Entry<KijiColumnName, ImmutableSet<KijiColumnName>> entry : mInputColumns.entrySet()) {
+      for (KijiColumnName changed : changedColumns) {
+        if (changed.equals(entry.getKey())) {
+          continue;
+        }
+        for (KijiColumnName input : entry.getValue()) {
+          if (FreshenerDependencies.reads(input, changed)) {
+            affected.add(entry.getKey());
+          }
+        }
+      }
+    }
+    final Deque<KijiColumnName> toVisit = new ArrayDeque<KijiColumnName>(affected);
+    while (!toVisit.isEmpty()) {
+      for (KijiColumnName downstream : mDownstreamColumns.get(toVisit.pop())) {
+        if (affected.add(downstream)) {
+          toVisit.add(downstream);
+        }
+      }
+    }
+    return FreshenerDependencies.sortByDependencies(affected, mUpstreamColumns);
+  }
+
+  /**
+   * Rescore the given Fresheners in a row. Each score is written before the next ScoreFunction
+   * reads the row.
+   *
+   * @param entityId the row to rescore.
+   * @param affectedColumns the columns of the Fresheners to rescore in dependency order.
+   * @throws IOException in case of an error reading or writing the row.
+   */
+  private void rescoreRow(
+      final EntityId entityId,
+      final List<KijiColumnName> affectedColumns
+  ) throws IOException {
+    final KijiTableReader reader = ScoringUtils.getPooledReader(mReaderPool);
+    try {
+      for (KijiColumnName column : affectedColumns) {
+        final Rescorer rescorer = mRescorers.get(column);
+        final KijiRowData dataToScore = reader.get(entityId, rescorer.mDataRequest);
+        final TimestampedValue<?> score =
+            rescorer.mScoreFunction.score(dataToScore, rescorer.mContext);
+        mWriter.put(
+            entityId,
+            column.getFamily(),
+            column.getQualifier(),
+            score.getTimestamp(),
+            score.getValue());
+        mCounterManager.incrementCounter(RescoreCounter.SCORES_WRITTEN, 1);
+      }
+    } finally {
+      reader.close();
+    }
+    mCounterManager.incrementCounter(RescoreCounter.ROWS_RESCORED, 1);
+  }
+
+  /**
+   * Collect a batch of changes from the source. Stops collecting when the batch is full or the
+   * batch window has passed.
+   *
+   * @return the changes of the batch.
+   * @throws IOException in case of an error reading from the source.
+   */
+  private List<RowChange> collectBatch() throws IOException {
+    final List<RowChange> changes = Lists.newArrayList();
+    final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(mBatchWindow);
+    long remaining = deadline - System.nanoTime();
+    while (changes.size() < mMaxBatchSize && 0 < remaining) {
+      changes.addAll(
+          mSource.poll(mMaxBatchSize - changes.size(), remaining, TimeUnit.NANOSECONDS));
+      remaining = deadline - System.nanoTime();
+    }
+    return changes;
+  }
+
+  /**
+   * Collect a single batch of changes from the source, rescore the affected rows along with rows
+   * which failed in previous batches, and acknowledge the batch to the source unless a row awaits
+   * a retry. Blocks until every affected row has been rescored. This is called repeatedly by the
+   * background thread started with {@link #start()}, and may be called directly instead of
+   * starting the background thread, but must not be called concurrently.
+   *
+   * @return the number of rows rescored.
+   * @throws IOException in case of an error reading from or acknowledging the source.
+   */
+  public int processBatch() throws IOException {
+    Preconditions.checkState(!mClosed, "IncrementalRescorer is closed.");
+    final List<RowChange> changes = collectBatch();
+    mCounterManager.incrementCounter(RescoreCounter.CHANGES_RECEIVED, changes.size());
+    final Map<EntityId, Set<KijiColumnName>> changedColumns = Maps.newLinkedHashMap(mFailedRows);
+    mFailedRows.clear();
+    int deduplicated = 0;
+    for (RowChange change : changes) {
+      Set<KijiColumnName> columns = changedColumns.get(change.getEntityId());
+      if (null == columns) {
+        columns = Sets.newHashSet();
+        changedColumns.put(change.getEntityId(), columns);
+      }
+      if (!columns.add(change.getColumn())) {
+        deduplicated++;
+      }
+    }
+    mCounterManager.incrementCounter(RescoreCounter.CHANGES_DEDUPLICATED, deduplicated);
+
+    final Map<EntityId, Future<Void>> futures = Maps.newLinkedHashMap();
+    for (Map.Entry<EntityId, Set<KijiColumnName>> entry : changedColumns.entrySet()) {
+      final EntityId entityId = entry.getKey();
+      final List<KijiColumnName> affectedColumns = getAffectedColumns(entry.getValue());
+      if (!affectedColumns.isEmpty()) {
+        futures.put(entityId, mExecutorService.submit(new Callable<Void>() {
+          /** {@inheritDoc} */
+          @Override
+          public Void call() throws IOException {
+            rescoreRow(entityId, affectedColumns);
+            return null;
+          }
+        }));
+      }
+    }
+    int rescored = 0;
+    for (Map.Entry<EntityId, Future<Void>> future : futures.entrySet()) {
+      try {
+        future.getValue().get();
+        rescored++;
+      } catch (ExecutionException ee) {
+        mCounterManager.incrementCounter(RescoreCounter.FAILED, 1);
+        LOG.warn("IncrementalRescorer failed to rescore row: {} with exception: {}",
+            future.getKey(), ee.getCause().getMessage());
+        if (!mAcknowledgeFailedRows) {
+          mFailedRows.put(future.getKey(), changedColumns.get(future.getKey()));
+        }
+      } catch (InterruptedException ie) {
+        // Retry every row of the interrupted batch if processing resumes.
+        mFailedRows.putAll(changedColumns);
+        throw new RuntimeInterruptedException(ie);
+      }
+    }
+    if (mFailedRows.isEmpty()) {
+      mSource.commit();
+    } else {
+      LOG.debug("IncrementalRescorer will retry {} failed rows before acknowledging changes.",
+          mFailedRows.size());
+    }
+    return rescored;
+  }
+
+  /**
+   * Start processing batches in a background thread until this IncrementalRescorer is closed.
+   *
+   * @return this IncrementalRescorer.
+   */
+  public IncrementalRescorer start() {
+    Preconditions.checkState(!mClosed, "IncrementalRescorer is closed.");
+    Preconditions.checkState(!mStarted, "IncrementalRescorer is already started.");
+    mStarted = true;
+    mRunning = true;
+    mLoop.submit(mLoopRunnable);
+    return this;
+  }
+
+  /**
+   * Whether the background thread started with {@link #start()} is processing batches. The
+   * background thread continues after a batch fails, so this is false only before this
+   * IncrementalRescorer is started or after it is closed or interrupted.
+   *
+   * @return whether the background thread is processing batches.
+   */
+  public boolean isRunning() {
+    return mRunning;
+  }
+
+  /**
+   * Get the most recent exception thrown while processing a batch in the background thread.
+   * Failures to rescore individual rows are counted with {@link RescoreCounter#FAILED} instead.
+   *
+   * @return the most recent exception thrown while processing a batch in the background thread,
+   *     or null if no batch has failed.
+   */
+  public Exception getLastFailure() {
+    return mLastFailure;
+  }
+
+  /**
+   * Get the CounterManager of this IncrementalRescorer. Counters are reported with
+   * {@link RescoreCounter}. Counters incremented by ScoreFunctions are also available.
+   *
+   * @return the CounterManager of this IncrementalRescorer.
+   */
+  public CounterManager getCounterManager() {
+    return mCounterManager;
+  }
+
+  /**
+   * Stop processing batches and clean up the ScoreFunctions of all Fresheners. Rows being
+   * rescored when this is called are allowed to finish. Changes of a batch which has not been
+   * acknowledged may be replayed by the source.
+   *
+   * @throws IOException in case of an error cleaning up.
+   */
+  @Override
+  public void close() throws IOException {
+    mClosed = true;
+    mLoop.shutdownNow();
+    mExecutorService.shutdown();
+    try {
+      mLoop.awaitTermination(mBatchWindow, TimeUnit.MILLISECONDS);
+      mExecutorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    }
+    for (Rescorer rescorer : mRescorers.values()) {
+      rescorer.mScoreFunction.cleanup(rescorer.mSetupContext);
+      rescorer.mFactory.close();
+    }
+    mWriter.close();
+    mReaderPool.close();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(IncrementalRescorer.class)
+        .add("table", mTable.getURI())
+        .add("rescored_columns", mRescorers.keySet())
+        .add("max_batch_size", mMaxBatchSize)
+        .add("batch_window", mBatchWindow)
+        .add("num_threads", mNumThreads)
+        .add("acknowledge_failed_rows", mAcknowledgeFailedRows)
+        .toString();
+  }
+}
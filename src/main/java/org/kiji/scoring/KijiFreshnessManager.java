@@ -23,12 +23,14 @@ import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.apache.avro.io.Decoder;
@@ -46,6 +48,7 @@ import org.kiji.mapreduce.kvstore.KeyValueStore;
 import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
 import org.kiji.schema.Kiji;
 import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiTableNotFoundException;
 import org.kiji.schema.KijiURI;
 import org.kiji.schema.layout.KijiTableLayout;
@@ -53,6 +56,7 @@ import org.kiji.schema.layout.KijiTableLayout.LocalityGroupLayout.FamilyLayout;
 import org.kiji.schema.util.ProtocolVersion;
 import org.kiji.scoring.avro.KijiFreshenerRecord;
 import org.kiji.scoring.avro.ParameterDescription;
+import org.kiji.scoring.impl.FreshenerDependencies;
 import org.kiji.scoring.impl.InternalFreshenerContext;
 import org.kiji.scoring.impl.NullCounterManager;
 import org.kiji.scoring.impl.ScoringUtils;
@@ -72,6 +76,55 @@ public final class KijiFreshnessManager implements Closeable {
 
   public static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
 
+  /**
+   * Parameter key under which a Freshener declares the comma separated columns read by its
+   * ScoreFunction. A FreshKijiTableReader runs a Freshener after any Fresheners attached to these
+   * columns in the same request. If partial freshening is enabled, the Freshener's ScoreFunction
+   * reads the values written by those Fresheners. If partial freshening is disabled, their values
+   * are not written until every Freshener of the request has finished, so the ScoreFunction reads
+   * the values stored before the request. If this
+   * parameter is not specified when registering a Freshener from an instantiated and setup
+   * ScoreFunction, it is derived from the ScoreFunction's
+   * {@link ScoreFunction#getDataRequest(FreshenerContext)}.
+   */
+  public static final String INPUT_COLUMNS_KEY =
+      "org.kiji.scoring.KijiFreshnessManager.input_columns";
+
+  /**
+   * Parameter key with which a Freshener opts in to writing only on change. If this parameter is
+   * "true", a FreshKijiTableReader does not write a score whose value equals the most recent value
+   * of the attached column. Because the existing cell keeps its timestamp, a KijiFreshnessPolicy
+   * which judges freshness by the age of the attached column would find the cell stale on every
+   * later read and rerun the ScoreFunction each time. Registering a Freshener with this parameter
+   * and a {@link org.kiji.scoring.lib.ShelfLife} or {@link org.kiji.scoring.lib.NewerThan} policy
+   * therefore fails with {@link ValidationFailure#WRITE_ONLY_ON_CHANGE_POLICY}, and a request which
+   * sets this parameter as an override for such a Freshener writes every score. Custom policies
+   * which judge freshness by cell timestamps should not be used with this parameter. Writes are
+   * counted with {@link WriteCounter}.
+   */
+  public static final String WRITE_ONLY_ON_CHANGE_KEY =
+      "org.kiji.scoring.KijiFreshnessManager.write_only_on_change";
+
+  /**
+   * Prefix of parameter keys with which a Freshener caches lookups in a KeyValueStore. The
+   * parameter whose key is this prefix followed by the name of a store specifies the maximum
+   * number of lookups to cache from that store. Lookups are cached by each FreshKijiTableReader
+   * and shared by all requests which run the Freshener. Cache hits and misses are counted with
+   * {@link StoreCacheCounter}.
+   */
+  public static final String STORE_CACHE_MAX_SIZE_KEY_PREFIX =
+      "org.kiji.scoring.KijiFreshnessManager.store_cache_max_size.";
+
+  /**
+   * Prefix of parameter keys with which a Freshener limits how long cached KeyValueStore lookups
+   * are kept. The parameter whose key is this prefix followed by the name of a store specifies the
+   * time in milliseconds after which lookups cached from that store expire. If unspecified, cached
+   * lookups expire only when evicted for space. Has no effect unless the store is cached. See
+   * {@link #STORE_CACHE_MAX_SIZE_KEY_PREFIX}.
+   */
+  public static final String STORE_CACHE_TTL_KEY_PREFIX =
+      "org.kiji.scoring.KijiFreshnessManager.store_cache_ttl.";
+
   /** Enumeration of possible Validation failure causes. */
   public static enum ValidationFailure {
     GROUP_FAMILY_ATTACHMENT,
@@ -80,7 +133,9 @@ public final class KijiFreshnessManager implements Closeable {
     FRESHENER_ALREADY_ATTACHED,
     NO_COLUMN_IN_TABLE,
     VERSION_TOO_LOW,
-    VERSION_TOO_HIGH
+    VERSION_TOO_HIGH,
+    DEPENDENCY_CYCLE,
+    WRITE_ONLY_ON_CHANGE_POLICY
   }
   /** The prefix we use for freshness policies stored in a meta table. */
   private static final String METATABLE_KEY_PREFIX = "kiji.scoring.fresh.";
@@ -401,7 +456,8 @@ public final class KijiFreshnessManager implements Closeable {
    * @param columnName name of the column to which a Freshener attachment is being validated.
    * @param policyClass fully qualified class name of the KijiFreshnessPolicy class to validate.
    * @param scoreFunctionClass fully qualified class name of the ScoreFunction class to validate.
-   * @param parameters configuration parameters. Parameters are not currently validated.
+   * @param parameters configuration parameters. Only {@link #WRITE_ONLY_ON_CHANGE_KEY} is
+   *     validated.
    * @return a mapping from ValidationFailure to the Exception which caused that failure.
    * @throws IOException in case of an error reading from the meta table.
    */
@@ -431,6 +487,13 @@ public final class KijiFreshnessManager implements Closeable {
           scoreFunctionClass)));
     }
 
+    if (Boolean.parseBoolean(parameters.get(WRITE_ONLY_ON_CHANGE_KEY))
+        && ScoringUtils.judgesFreshnessByTimestamp(policyClass)) {
+      failures.put(ValidationFailure.WRITE_ONLY_ON_CHANGE_POLICY, new IllegalArgumentException(
+          String.format("KijiFreshnessPolicy: %s judges freshness by cell timestamps and may not "
+          + "be used with %s.", policyClass, WRITE_ONLY_ON_CHANGE_KEY)));
+    }
+
     final KijiTableLayout layout = mKiji.getMetaTable().getTableLayout(tableName);
     final KijiURI tableUri = KijiURI.newBuilder(mKiji.getURI()).withTableName(tableName).build();
     final Map<String, FamilyLayout> familyMap = layout.getFamilyMap();
@@ -503,11 +566,46 @@ public final class KijiFreshnessManager implements Closeable {
     return failures;
   }
 
+  /**
+   * Validate that attaching the given Fresheners would not create a cycle of Fresheners whose
+   * ScoreFunctions read each other's columns. The given records replace any Fresheners already
+   * attached to the same columns.
+   *
+   * @param tableName name of the table which holds the columns to which the Fresheners will be
+   *     attached.
+   * @param records the Fresheners to attach, keyed by the column to which each will be attached.
+   * @return a mapping from ValidationFailure to the Exception which caused that failure.
+   * @throws IOException in case of an error reading from the meta table.
+   */
+  private Map<ValidationFailure, Exception> validateDependencies(
+      final String tableName,
+      final Map<KijiColumnName, KijiFreshenerRecord> records
+  ) throws IOException {
+    final Map<KijiColumnName, Map<String, String>> parameters = Maps.newHashMap();
+    for (Map.Entry<KijiColumnName, KijiFreshenerRecord> existing
+        : retrieveFreshenerRecords(tableName).entrySet()) {
+      parameters.put(existing.getKey(), existing.getValue().getParameters());
+    }
+    for (Map.Entry<KijiColumnName, KijiFreshenerRecord> record : records.entrySet()) {
+      parameters.put(record.getKey(), record.getValue().getParameters());
+    }
+
+    final Map<ValidationFailure, Exception> failures = Maps.newHashMap();
+    final List<KijiColumnName> cycle =
+        FreshenerDependencies.findCycle(FreshenerDependencies.getUpstreamColumns(parameters));
+    if (!cycle.isEmpty()) {
+      failures.put(ValidationFailure.DEPENDENCY_CYCLE, new IllegalArgumentException(
+          String.format("Fresheners attached to columns: %s read each other's columns.",
+          Joiner.on(", ").join(cycle))));
+    }
+    return failures;
+  }
+
   /**
    * Validate that a KijiFreshenerRecord may be written to the meta table. Aggregates validation
    * from {@link #validateWithStrings(String, org.kiji.schema.KijiColumnName, String, String,
-   * java.util.Map)} and {@link #validateAttachment(String, org.kiji.schema.KijiColumnName)} (if
-   * overwriteExisting is false).
+   * java.util.Map)}, {@link #validateAttachment(String, org.kiji.schema.KijiColumnName)} (if
+   * overwriteExisting is false), and {@link #validateDependencies(String, java.util.Map)}.
    *
    * @param tableName name of the table which holds the column to which the Freshener to validate
    *     is or will be attached.
@@ -563,9 +661,38 @@ public final class KijiFreshnessManager implements Closeable {
       failures.putAll(validateAttachment(tableName, columnName));
     }
 
+    failures.putAll(validateDependencies(tableName, ImmutableMap.of(columnName, record)));
+
     return failures;
   }
 
+  /**
+   * Derive the value of the {@link #INPUT_COLUMNS_KEY} parameter from the data request of a setup
+   * ScoreFunction. No client data request is available at registration, so a ScoreFunction whose
+   * data request depends on it must declare its input columns explicitly.
+   *
+   * @param scoreFunction the setup ScoreFunction whose input columns to derive.
+   * @param context the context with which the ScoreFunction was setup.
+   * @return the input columns of the ScoreFunction formatted as a parameter value, or null if they
+   *     could not be derived.
+   * @throws IOException in case of an error getting the ScoreFunction's data request.
+   */
+  private static String deriveInputColumns(
+      final ScoreFunction<?> scoreFunction,
+      final FreshenerContext context
+  ) throws IOException {
+    final KijiDataRequest dataRequest;
+    try {
+      dataRequest = scoreFunction.getDataRequest(context);
+    } catch (RuntimeException re) {
+      LOG.debug("Could not derive input columns of ScoreFunction: {} from its data request: {}",
+          scoreFunction.getClass().getName(), re.getMessage());
+      return null;
+    }
+    return (null == dataRequest)
+        ? null : FreshenerDependencies.toInputColumnsParameter(dataRequest);
+  }
+
   // -----------------------------------------------------------------------------------------------
   // Public interface
   // -----------------------------------------------------------------------------------------------
@@ -645,19 +772,27 @@ public final class KijiFreshnessManager implements Closeable {
       final boolean setupClasses
   ) throws IOException {
     // CSON: ParameterNumber
+    final InternalFreshenerContext context;
     if (setupClasses) {
-      final InternalFreshenerContext context =
-          InternalFreshenerContext.create(columnName, parameters, NullCounterManager.get());
+      context = InternalFreshenerContext.create(columnName, parameters, NullCounterManager.get());
       final KeyValueStoreReaderFactory factory =
           ScoringUtils.createKVStoreReaderFactory(context, scoreFunction, policy);
       context.setKeyValueStoreReaderFactory(factory);
       policy.setup(context);
       scoreFunction.setup(context);
+    } else {
+      context = null;
     }
     final Map<String, String> combinedParameters = Maps.newHashMap();
     combinedParameters.putAll(scoreFunction.serializeToParameters());
     combinedParameters.putAll(policy.serializeToParameters());
     combinedParameters.putAll(parameters);
+    if (null != context && !combinedParameters.containsKey(INPUT_COLUMNS_KEY)) {
+      final String inputColumns = deriveInputColumns(scoreFunction, context);
+      if (null != inputColumns) {
+        combinedParameters.put(INPUT_COLUMNS_KEY, inputColumns);
+      }
+    }
 
     final Map<String, ParameterDescription> combinedDescriptions = Maps.newHashMap();
     combinedDescriptions.putAll(Parameters.getDescriptions(scoreFunction));
@@ -923,6 +1058,17 @@ public final class KijiFreshnessManager implements Closeable {
         combinedFailures.put(recordEntry.getKey(), individualFailures);
       }
     }
+    // Records validated individually may still form a cycle with each other.
+    final Map<ValidationFailure, Exception> dependencyFailures =
+        validateDependencies(tableName, records);
+    if (!dependencyFailures.isEmpty()) {
+      for (KijiColumnName column : records.keySet()) {
+        if (!combinedFailures.containsKey(column)) {
+          combinedFailures.put(column, Maps.<ValidationFailure, Exception>newHashMap());
+        }
+        combinedFailures.get(column).putAll(dependencyFailures);
+      }
+    }
     if (combinedFailures.isEmpty()) {
       for (Entry<KijiColumnName, KijiFreshenerRecord> recordEntry : records.entrySet()) {
         writeRecordToMetaTable(tableName, recordEntry.getKey(), recordEntry.getValue());
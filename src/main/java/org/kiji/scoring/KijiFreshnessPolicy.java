@@ -104,6 +104,11 @@ public abstract class KijiFreshnessPolicy implements ParameterProvider {
    * that requested data is stale and that the associated ScoreFunction should run to refresh it.
    */
   protected static final boolean STALE = false;
+  /**
+   * When returned by {@link #getExpirationTime(KijiRowData, FreshenerContext)}, indicates to the
+   * framework that this policy cannot predict when fresh data will become stale.
+   */
+  public static final long UNKNOWN_EXPIRATION = Long.MAX_VALUE;
 
   // Attachment time methods -----------------------------------------------------------------------
 
@@ -298,6 +303,28 @@ public abstract class KijiFreshnessPolicy implements ParameterProvider {
    */
   public abstract boolean isFresh(KijiRowData rowData, FreshenerContext context);
 
+  /**
+   * Predicts when a KijiRowData which this policy has just found fresh will become stale.
+   * <p>
+   *   This method is called only by a FreshKijiTableReader which prefreshes data before it expires
+   *   (see {@link FreshKijiTableReader.Builder#withPrefreshing(long, int, int, double)}), after
+   *   {@link #isFresh(org.kiji.schema.KijiRowData, FreshenerContext)} has returned fresh for the
+   *   same row data. Because multiple threads may require this object at the same time, this
+   *   method must be thread safe. The default implementation returns {@link #UNKNOWN_EXPIRATION},
+   *   which excludes the row from prefreshing.
+   * </p>
+   *
+   * @param rowData The KijiRowData which was found fresh.
+   * @param context provides access to various contextual information about the Freshener which
+   *     includes this KijiFreshnessPolicy. The same context passed to
+   *     {@link #isFresh(org.kiji.schema.KijiRowData, FreshenerContext)}.
+   * @return the time in milliseconds since the epoch at which the data will become stale, or
+   *     {@link #UNKNOWN_EXPIRATION} if that time cannot be predicted.
+   */
+  public long getExpirationTime(KijiRowData rowData, FreshenerContext context) {
+    return UNKNOWN_EXPIRATION;
+  }
+
   // Parameter discovery --------------------------------------------------------------------------
 
   /** {@inheritDoc} */
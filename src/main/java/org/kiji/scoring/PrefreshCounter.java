@@ -0,0 +1,41 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/**
+ * Counters reported through the CounterManager of a {@link FreshKijiTableReader} built with
+ * {@link FreshKijiTableReader.Builder#withPrefreshing(long, int, int, double)}.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public enum PrefreshCounter {
+  /** Number of fresh reads which added or renewed a row in the hot set. */
+  TRACKED,
+  /** Number of rows removed from the hot set because it was full. */
+  EVICTED,
+  /** Number of prefreshes started. */
+  STARTED,
+  /** Number of rows whose data expired before a prefresh could be started. */
+  MISSED,
+  /** Number of prefreshes which failed with an exception. */
+  FAILED
+}
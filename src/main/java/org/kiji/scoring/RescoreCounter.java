@@ -0,0 +1,46 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/** Counters reported through the CounterManager of an {@link IncrementalRescorer}. */
+@ApiAudience.Public
+@ApiStability.Experimental
+public enum RescoreCounter {
+  /** Number of changes received from the RowChangeSource. */
+  CHANGES_RECEIVED,
+  /** Number of changes dropped because an identical change was received in the same batch. */
+  CHANGES_DEDUPLICATED,
+  /** Number of rows in which at least one Freshener was rescored. */
+  ROWS_RESCORED,
+  /** Number of scores written. */
+  SCORES_WRITTEN,
+  /**
+   * Number of times rescoring a row failed with an exception. A row which is retried is counted
+   * once for each failure.
+   */
+  FAILED,
+  /**
+   * Number of batches which the background thread failed to process because collecting or
+   * acknowledging the batch threw an exception.
+   */
+  BATCH_FAILED
+}
@@ -0,0 +1,115 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiColumnName;
+
+/**
+ * A change to a column of a row, delivered to an {@link IncrementalRescorer} by a
+ * {@link RowChangeSource}. RowChanges are equal if they change the same column of the same row.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class RowChange {
+
+  /**
+   * Create a new RowChange.
+   *
+   * @param entityId the row which changed.
+   * @param column the column which changed. May be a family if any column in the family may have
+   *     changed.
+   * @return a new RowChange.
+   */
+  public static RowChange create(
+      final EntityId entityId,
+      final KijiColumnName column
+  ) {
+    Preconditions.checkNotNull(entityId, "EntityId may not be null.");
+    Preconditions.checkNotNull(column, "Column may not be null.");
+    return new RowChange(entityId, column);
+  }
+
+  private final EntityId mEntityId;
+  private final KijiColumnName mColumn;
+
+  /**
+   * Private constructor. Use {@link #create(EntityId, KijiColumnName)}.
+   *
+   * @param entityId the row which changed.
+   * @param column the column which changed.
+   */
+  private RowChange(
+      final EntityId entityId,
+      final KijiColumnName column
+  ) {
+    mEntityId = entityId;
+    mColumn = column;
+  }
+
+  /**
+   * Get the row which changed.
+   *
+   * @return the row which changed.
+   */
+  public EntityId getEntityId() {
+    return mEntityId;
+  }
+
+  /**
+   * Get the column which changed.
+   *
+   * @return the column which changed.
+   */
+  public KijiColumnName getColumn() {
+    return mColumn;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean equals(
+      final Object other
+  ) {
+    if (!(other instanceof RowChange)) {
+      return false;
+    }
+    final RowChange that = (RowChange) other;
+    return mEntityId.equals(that.mEntityId) && mColumn.equals(that.mColumn);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(mEntityId, mColumn);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(RowChange.class)
+        .add("entity_id", mEntityId)
+        .add("column", mColumn)
+        .toString();
+  }
+}
@@ -0,0 +1,63 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.annotations.Inheritance;
+
+/**
+ * A feed of changes to rows of a table, consumed by an {@link IncrementalRescorer}.
+ *
+ * <p>
+ *   Implementations may be backed by a message queue, a change log of the table, or an in-memory
+ *   queue. See {@link org.kiji.scoring.lib.InMemoryRowChangeSource} for an implementation suitable
+ *   for testing. A RowChangeSource is polled by a single thread.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+@Inheritance.Extensible
+public interface RowChangeSource extends Closeable {
+
+  /**
+   * Get the next changes from the feed, waiting up to the given timeout for a change to arrive.
+   *
+   * @param maxChanges maximum number of changes to return.
+   * @param timeout time to wait for a change to arrive if none are available.
+   * @param unit unit of the timeout.
+   * @return up to maxChanges changes. Empty if no change arrived before the timeout.
+   * @throws IOException in case of an error reading from the feed.
+   */
+  List<RowChange> poll(int maxChanges, long timeout, TimeUnit unit) throws IOException;
+
+  /**
+   * Acknowledge that all changes returned by previous calls to
+   * {@link #poll(int, long, TimeUnit)} have been processed. Sources which can replay changes
+   * should not replay acknowledged changes after a restart.
+   *
+   * @throws IOException in case of an error acknowledging changes.
+   */
+  void commit() throws IOException;
+}
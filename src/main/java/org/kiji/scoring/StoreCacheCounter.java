@@ -0,0 +1,36 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/**
+ * Counters reported through the CounterManager of a {@link FreshKijiTableReader} which runs
+ * Fresheners that cache KeyValueStore lookups. See
+ * {@link KijiFreshnessManager#STORE_CACHE_MAX_SIZE_KEY_PREFIX}.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public enum StoreCacheCounter {
+  /** Number of KeyValueStore lookups served from a cache. */
+  HIT,
+  /** Number of KeyValueStore lookups which were not cached and were read from the store. */
+  MISS
+}
@@ -0,0 +1,765 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.batch;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
+import org.kiji.schema.HBaseEntityId;
+import org.kiji.schema.KijiBufferedWriter;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRegion;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiRowScanner;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.KijiTableReader.KijiScannerOptions;
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.FreshenerContext;
+import org.kiji.scoring.KijiFreshnessPolicy;
+import org.kiji.scoring.ScoreFunction;
+import org.kiji.scoring.ScoreFunction.TimestampedValue;
+import org.kiji.scoring.impl.InternalFreshenerContext;
+import org.kiji.scoring.impl.MapCounterManager;
+import org.kiji.scoring.impl.ScoringUtils;
+import org.kiji.scoring.lib.AlwaysFreshen;
+
+/**
+ * Runs a ScoreFunction across all rows of a table in the local process, without MapReduce.
+ *
+ * <p>
+ *   The table is split by its region boundaries. A fixed number of worker threads take regions
+ *   from a shared queue, scan each region, and write the scores of rows in the region through a
+ *   buffered writer. Each worker runs its own instances of the ScoreFunction and
+ *   KijiFreshnessPolicy, so neither needs to be thread safe. If a KijiFreshnessPolicy is
+ *   specified, rows which it considers fresh are not scored; otherwise every row is scored as if
+ *   the ScoreFunction was attached with an {@link AlwaysFreshen} policy.
+ * </p>
+ *
+ * <p>
+ *   If a checkpoint file is specified, the boundaries of each region are appended to it once the
+ *   scores of the region have been flushed, and regions recorded in the checkpoint file are skipped
+ *   when scoring is run again. A region is skipped only if its boundaries are unchanged, so regions
+ *   which have split or merged since the checkpoint are scored again.
+ * </p>
+ *
+ * <p>
+ *   Example usage:
+ *   <pre>
+ *     final LocalBatchScorer scorer = LocalBatchScorer.Builder.create()
+ *         .withTable(table)
+ *         .withAttachedColumn(KijiColumnName.create("family:qualifier"))
+ *         .withScoreFunctionClass(MyScoreFunction.class)
+ *         .withNumThreads(8)
+ *         .withCheckpointFile(new File("/tmp/my-score-function.checkpoint"))
+ *         .build();
+ *     final LocalBatchScorer.Progress progress = scorer.run();
+ *   </pre>
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class LocalBatchScorer {
+  private static final Logger LOG = LoggerFactory.getLogger(LocalBatchScorer.class);
+
+  /** Builder for LocalBatchScorers. */
+  @ApiAudience.Public
+  @ApiStability.Experimental
+  public static final class Builder {
+    private static final KijiDataRequest DEFAULT_CLIENT_REQUEST = KijiDataRequest.empty();
+    private static final Map<String, String> DEFAULT_PARAMETERS = ImmutableMap.of();
+    private static final Class<? extends KijiFreshnessPolicy> DEFAULT_POLICY_CLASS =
+        AlwaysFreshen.class;
+    private static final int DEFAULT_NUM_THREADS = 1;
+    private static final long DEFAULT_REPORTING_INTERVAL = 10000;
+
+    private KijiTable mTable = null;
+    private KijiColumnName mAttachedColumn = null;
+    private Class<? extends ScoreFunction<?>> mScoreFunctionClass = null;
+    private Class<? extends KijiFreshnessPolicy> mPolicyClass = null;
+    private Map<String, String> mParameters = null;
+    private KijiDataRequest mClientDataRequest = null;
+    private Integer mNumThreads = null;
+    private File mCheckpointFile = null;
+    private Long mReportingInterval = null;
+    private PrintStream mReportStream = null;
+
+    /** Private constructor. Use {@link #create()}. */
+    private Builder() { }
+
+    /**
+     * Create a new LocalBatchScorer Builder.
+     *
+     * @return a new LocalBatchScorer Builder.
+     */
+    public static Builder create() {
+      return new Builder();
+    }
+
+    /**
+     * Configure the LocalBatchScorer to score rows of the given table. The table is not released by
+     * the LocalBatchScorer.
+     *
+     * @param table the table whose rows to score.
+     * @return this builder.
+     */
+    public Builder withTable(
+        final KijiTable table
+    ) {
+      Preconditions.checkNotNull(table, "Table may not be null.");
+      Preconditions.checkState(null == mTable, "Table is already set to: %s", mTable);
+      mTable = table;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to write scores to the given column. This column will be
+     * visible to the ScoreFunction via {@link FreshenerContext#getAttachedColumn()}.
+     *
+     * @param attachedColumn fully qualified column to which to write scores.
+     * @return this builder.
+     */
+    public Builder withAttachedColumn(
+        final KijiColumnName attachedColumn
+    ) {
+      Preconditions.checkNotNull(attachedColumn, "Attached column may not be null.");
+      Preconditions.checkArgument(attachedColumn.isFullyQualified(),
+          "Attached column must be fully qualified, found: %s", attachedColumn);
+      Preconditions.checkState(null == mAttachedColumn,
+          "Attached column is already set to: %s", mAttachedColumn);
+      mAttachedColumn = attachedColumn;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to score rows with the given ScoreFunction implementation.
+     *
+     * @param scoreFunctionClass class of the ScoreFunction with which to score rows.
+     * @return this builder.
+     */
+    public Builder withScoreFunctionClass(
+        final Class<? extends ScoreFunction<?>> scoreFunctionClass
+    ) {
+      Preconditions.checkNotNull(scoreFunctionClass, "ScoreFunction class may not be null.");
+      Preconditions.checkState(null == mScoreFunctionClass,
+          "ScoreFunction class is already set to: %s", mScoreFunctionClass);
+      mScoreFunctionClass = scoreFunctionClass;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to score only rows which the given KijiFreshnessPolicy
+     * implementation considers stale. If unspecified, every row is scored.
+     *
+     * @param policyClass class of the KijiFreshnessPolicy with which to check rows.
+     * @return this builder.
+     */
+    public Builder withFreshnessPolicyClass(
+        final Class<? extends KijiFreshnessPolicy> policyClass
+    ) {
+      Preconditions.checkNotNull(policyClass, "KijiFreshnessPolicy class may not be null.");
+      Preconditions.checkState(null == mPolicyClass,
+          "KijiFreshnessPolicy class is already set to: %s", mPolicyClass);
+      mPolicyClass = policyClass;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to make the given parameters available to the ScoreFunction
+     * and KijiFreshnessPolicy via the FreshenerContext. If unspecified, no parameters are
+     * available.
+     *
+     * @param parameters parameters available to the ScoreFunction and KijiFreshnessPolicy.
+     * @return this builder.
+     */
+    public Builder withParameters(
+        final Map<String, String> parameters
+    ) {
+      Preconditions.checkNotNull(parameters, "Parameters may not be null.");
+      Preconditions.checkState(null == mParameters,
+          "Parameters are already set to: %s", mParameters);
+      mParameters = parameters;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to make the given client data request visible to the
+     * ScoreFunction via {@link FreshenerContext#getClientRequest()}. If unspecified, an empty data
+     * request is used.
+     *
+     * @param clientDataRequest data request visible to the ScoreFunction.
+     * @return this builder.
+     */
+    public Builder withClientDataRequest(
+        final KijiDataRequest clientDataRequest
+    ) {
+      Preconditions.checkNotNull(clientDataRequest, "Client data request may not be null.");
+      Preconditions.checkState(null == mClientDataRequest,
+          "Client data request is already set to: %s", mClientDataRequest);
+      mClientDataRequest = clientDataRequest;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to score regions concurrently with the given number of
+     * threads. If unspecified, defaults to 1.
+     *
+     * @param numThreads number of regions to score concurrently.
+     * @return this builder.
+     */
+    public Builder withNumThreads(
+        final int numThreads
+    ) {
+      Preconditions.checkArgument(0 < numThreads,
+          "Number of threads must be positive, found: %s", numThreads);
+      Preconditions.checkState(null == mNumThreads,
+          "Number of threads is already set to: %s", mNumThreads);
+      mNumThreads = numThreads;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to record completed regions in the given file and to skip
+     * regions already recorded there. If unspecified, progress is not recorded.
+     *
+     * @param checkpointFile file in which to record completed regions.
+     * @return this builder.
+     */
+    public Builder withCheckpointFile(
+        final File checkpointFile
+    ) {
+      Preconditions.checkNotNull(checkpointFile, "Checkpoint file may not be null.");
+      Preconditions.checkState(null == mCheckpointFile,
+          "Checkpoint file is already set to: %s", mCheckpointFile);
+      mCheckpointFile = checkpointFile;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to report throughput at the given interval. If unspecified,
+     * defaults to 10 seconds.
+     *
+     * @param reportingInterval time in milliseconds between reports. 0 indicates no reports.
+     * @return this builder.
+     */
+    public Builder withReportingInterval(
+        final long reportingInterval
+    ) {
+      Preconditions.checkArgument(0 <= reportingInterval,
+          "Reporting interval must be greater than or equal to 0, found: %s", reportingInterval);
+      Preconditions.checkState(null == mReportingInterval,
+          "Reporting interval is already set to: %s", mReportingInterval);
+      mReportingInterval = reportingInterval;
+      return this;
+    }
+
+    /**
+     * Configure the LocalBatchScorer to print throughput reports to the given stream. If
+     * unspecified, reports are logged.
+     *
+     * @param reportStream stream to which to print reports.
+     * @return this builder.
+     */
+    public Builder withReportStream(
+        final PrintStream reportStream
+    ) {
+      Preconditions.checkNotNull(reportStream, "Report stream may not be null.");
+      Preconditions.checkState(null == mReportStream,
+          "Report stream is already set to: %s", mReportStream);
+      mReportStream = reportStream;
+      return this;
+    }
+
+    /**
+     * Build a new LocalBatchScorer from the configuration of this builder.
+     *
+     * @return a new LocalBatchScorer.
+     */
+    public LocalBatchScorer build() {
+      Preconditions.checkState(null != mTable, "Table must be set before building.");
+      Preconditions.checkState(null != mAttachedColumn,
+          "Attached column must be set before building.");
+      Preconditions.checkState(null != mScoreFunctionClass,
+          "ScoreFunction class must be set before building.");
+      return new LocalBatchScorer(
+          mTable,
+          mAttachedColumn,
+          mScoreFunctionClass,
+          (null != mPolicyClass) ? mPolicyClass : DEFAULT_POLICY_CLASS,
+          (null != mParameters) ? mParameters : DEFAULT_PARAMETERS,
+          (null != mClientDataRequest) ? mClientDataRequest : DEFAULT_CLIENT_REQUEST,
+          (null != mNumThreads) ? mNumThreads : DEFAULT_NUM_THREADS,
+          mCheckpointFile,
+          (null != mReportingInterval) ? mReportingInterval : DEFAULT_REPORTING_INTERVAL,
+          mReportStream);
+    }
+  }
+
+  /** A snapshot of the progress of a LocalBatchScorer. */
+  @ApiAudience.Public
+  @ApiStability.Experimental
+  public static final class Progress {
+    private final long mRowsScanned;
+    private final long mRowsScored;
+    private final int mRegionsCompleted;
+    private final int mRegionsTotal;
+    private final long mElapsedMillis;
+
+    /**
+     * Initialize a new Progress.
+     *
+     * @param rowsScanned number of rows scanned.
+     * @param rowsScored number of rows scored and written.
+     * @param regionsCompleted number of regions completed, including regions skipped because they
+     *     were recorded in the checkpoint file.
+     * @param regionsTotal number of regions in the table.
+     * @param elapsedMillis time in milliseconds since scoring started.
+     */
+    private Progress(
+        final long rowsScanned,
+        final long rowsScored,
+        final int regionsCompleted,
+        final int regionsTotal,
+        final long elapsedMillis
+    ) {
+      mRowsScanned = rowsScanned;
+      mRowsScored = rowsScored;
+      mRegionsCompleted = regionsCompleted;
+      mRegionsTotal = regionsTotal;
+      mElapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Get the number of rows scanned.
+     *
+     * @return the number of rows scanned.
+     */
+    public long getRowsScanned() {
+      return mRowsScanned;
+    }
+
+    /**
+     * Get the number of rows scored and written. Rows which the KijiFreshnessPolicy considered
+     * fresh are scanned but not scored.
+     *
+     * @return the number of rows scored and written.
+     */
+    public long getRowsScored() {
+      return mRowsScored;
+    }
+
+    /**
+     * Get the number of regions completed, including regions skipped because they were recorded in
+     * the checkpoint file.
+     *
+     * @return the number of regions completed.
+     */
+    public int getRegionsCompleted() {
+      return mRegionsCompleted;
+    }
+
+    /**
+     * Get the number of regions in the table.
+     *
+     * @return the number of regions in the table.
+     */
+    public int getRegionsTotal() {
+      return mRegionsTotal;
+    }
+
+    /**
+     * Get the time in milliseconds since scoring started.
+     *
+     * @return the time in milliseconds since scoring started.
+     */
+    public long getElapsedMillis() {
+      return mElapsedMillis;
+    }
+
+    /**
+     * Get the average number of rows scanned per second since scoring started.
+     *
+     * @return the average number of rows scanned per second since scoring started.
+     */
+    public double getRowsPerSecond() {
+      return (0 == mElapsedMillis) ? 0.0 : mRowsScanned * 1000.0 / mElapsedMillis;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+      return String.format("%d/%d regions, %d rows scanned, %d rows scored in %.1f s (%.1f rows/s)",
+          mRegionsCompleted, mRegionsTotal, mRowsScanned, mRowsScored, mElapsedMillis / 1000.0,
+          getRowsPerSecond());
+    }
+  }
+
+  /** Scores regions from the shared queue until it is empty. */
+  private final class Worker implements Callable<Void> {
+    private final Queue<KijiRegion> mRegions;
+
+    /**
+     * Initialize a new Worker.
+     *
+     * @param regions queue of regions to score, shared by all workers.
+     */
+    private Worker(
+        final Queue<KijiRegion> regions
+    ) {
+      mRegions = regions;
+    }
+
+    /**
+     * Score all rows in a region.
+     *
+     * @param region the region to score.
+     * @param reader reader with which to scan the region.
+     * @param writer writer with which to write scores.
+     * @param dataRequest data request with which to scan the region.
+     * @param scoreFunction ScoreFunction with which to score rows.
+     * @param policy KijiFreshnessPolicy with which to check rows.
+     * @param context context of the ScoreFunction and KijiFreshnessPolicy.
+     * @throws IOException in case of an error reading or writing the table.
+     */
+    private void scoreRegion(
+        final KijiRegion region,
+        final KijiTableReader reader,
+        final KijiBufferedWriter writer,
+        final KijiDataRequest dataRequest,
+        final ScoreFunction<?> scoreFunction,
+        final KijiFreshnessPolicy policy,
+        final FreshenerContext context
+    ) throws IOException {
+      final KijiScannerOptions options = new KijiScannerOptions();
+      if (0 != region.getStartKey().length) {
+        options.setStartRow(HBaseEntityId.fromHBaseRowKey(region.getStartKey()));
+      }
+      if (0 != region.getEndKey().length) {
+        options.setStopRow(HBaseEntityId.fromHBaseRowKey(region.getEndKey()));
+      }
+      final KijiRowScanner scanner = reader.getScanner(dataRequest, options);
+      try {
+        for (KijiRowData row : scanner) {
+          if (Thread.currentThread().isInterrupted()) {
+            throw new IOException("Scoring was interrupted.");
+          }
+          mRowsScanned.incrementAndGet();
+          if (!policy.isFresh(row, context)) {
+            final TimestampedValue<?> score = scoreFunction.score(row, context);
+            writer.put(
+                row.getEntityId(),
+                mAttachedColumn.getFamily(),
+                mAttachedColumn.getQualifier(),
+                score.getTimestamp(),
+                score.getValue());
+            mRowsScored.incrementAndGet();
+          }
+        }
+      } finally {
+        scanner.close();
+      }
+      writer.flush();
+      checkpoint(region);
+      mRegionsCompleted.incrementAndGet();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Void call() throws IOException {
+      final ScoreFunction<?> scoreFunction = ReflectionUtils.newInstance(mScoreFunctionClass, null);
+      final KijiFreshnessPolicy policy = ReflectionUtils.newInstance(mPolicyClass, null);
+      final InternalFreshenerContext setupContext =
+          InternalFreshenerContext.create(mAttachedColumn, mParameters, mCounterManager);
+      final KeyValueStoreReaderFactory factory =
+          ScoringUtils.createKVStoreReaderFactory(setupContext, scoreFunction, policy);
+      setupContext.setKeyValueStoreReaderFactory(factory);
+      final FreshenerContext context = InternalFreshenerContext.create(
+          mClientDataRequest,
+          mAttachedColumn,
+          mParameters,
+          ImmutableMap.<String, String>of(),
+          mCounterManager,
+          factory);
+      policy.setup(setupContext);
+      scoreFunction.setup(setupContext);
+      final KijiDataRequest dataRequest = scoreFunction.getDataRequest(context).merge(
+          policy.shouldUseClientDataRequest(context)
+              ? mClientDataRequest : policy.getDataRequest(context));
+      final KijiTableReader reader = mTable.openTableReader();
+      try {
+        final KijiBufferedWriter writer = mTable.getWriterFactory().openBufferedWriter();
+        try {
+          KijiRegion region = mRegions.poll();
+          while (null != region) {
+            scoreRegion(region, reader, writer, dataRequest, scoreFunction, policy, context);
+            region = mRegions.poll();
+          }
+        } finally {
+          writer.close();
+        }
+      } finally {
+        reader.close();
+        scoreFunction.cleanup(setupContext);
+        policy.cleanup(setupContext);
+        factory.close();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Get the checkpoint record of a region.
+   *
+   * @param region the region whose checkpoint record to get.
+   * @return the checkpoint record of the region.
+   */
+  private static String checkpointRecord(
+      final KijiRegion region
+  ) {
+    return Hex.encodeHexString(region.getStartKey())
+        + "-" + Hex.encodeHexString(region.getEndKey());
+  }
+
+  private final KijiTable mTable;
+  private final KijiColumnName mAttachedColumn;
+  private final Class<? extends ScoreFunction<?>> mScoreFunctionClass;
+  private final Class<? extends KijiFreshnessPolicy> mPolicyClass;
+  private final Map<String, String> mParameters;
+  private final KijiDataRequest mClientDataRequest;
+  private final int mNumThreads;
+  /** File in which to record completed regions. Null if progress is not recorded. */
+  private final File mCheckpointFile;
+  private final long mReportingInterval;
+  /** Stream to which to print reports. Null if reports are logged. */
+  private final PrintStream mReportStream;
+  private final CounterManager mCounterManager = MapCounterManager.create();
+  private final AtomicLong mRowsScanned = new AtomicLong();
+  private final AtomicLong mRowsScored = new AtomicLong();
+  private final AtomicInteger mRegionsCompleted = new AtomicInteger();
+  private volatile int mRegionsTotal = 0;
+  private volatile long mStartTime = 0;
+
+  /**
+   * Private constructor. Use {@link Builder#build()}.
+   *
+   * @param table the table whose rows to score.
+   * @param attachedColumn fully qualified column to which to write scores.
+   * @param scoreFunctionClass class of the ScoreFunction with which to score rows.
+   * @param policyClass class of the KijiFreshnessPolicy with which to check rows.
+   * @param parameters parameters available to the ScoreFunction and KijiFreshnessPolicy.
+   * @param clientDataRequest data request visible to the ScoreFunction.
+   * @param numThreads number of regions to score concurrently.
+   * @param checkpointFile file in which to record completed regions, or null.
+   * @param reportingInterval time in milliseconds between reports. 0 indicates no reports.
+   * @param reportStream stream to which to print reports, or null to log reports.
+   */
+  private LocalBatchScorer(
+      final KijiTable table,
+      final KijiColumnName attachedColumn,
+      final Class<? extends ScoreFunction<?>> scoreFunctionClass,
+      final Class<? extends KijiFreshnessPolicy> policyClass,
+      final Map<String, String> parameters,
+      final KijiDataRequest clientDataRequest,
+      final int numThreads,
+      final File checkpointFile,
+      final long reportingInterval,
+      final PrintStream reportStream
+  ) {
+    mTable = table;
+    mAttachedColumn = attachedColumn;
+    mScoreFunctionClass = scoreFunctionClass;
+    mPolicyClass = policyClass;
+    mParameters = ImmutableMap.copyOf(parameters);
+    mClientDataRequest = clientDataRequest;
+    mNumThreads = numThreads;
+    mCheckpointFile = checkpointFile;
+    mReportingInterval = reportingInterval;
+    mReportStream = reportStream;
+  }
+
+  /**
+   * Read the checkpoint records of regions completed by previous runs.
+   *
+   * @return the checkpoint records of completed regions.
+   * @throws IOException in case of an error reading the checkpoint file.
+   */
+  private Set<String> readCheckpoint() throws IOException {
+    if (null == mCheckpointFile || !mCheckpointFile.exists()) {
+      return Sets.newHashSet();
+    }
+    return Sets.newHashSet(Files.readAllLines(mCheckpointFile.toPath(), Charsets.UTF_8));
+  }
+
+  /**
+   * Record a completed region in the checkpoint file.
+   *
+   * @param region the completed region.
+   * @throws IOException in case of an error writing the checkpoint file.
+   */
+  private synchronized void checkpoint(
+      final KijiRegion region
+  ) throws IOException {
+    if (null != mCheckpointFile) {
+      Files.write(
+          mCheckpointFile.toPath(),
+          (checkpointRecord(region) + "\n").getBytes(Charsets.UTF_8),
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    }
+  }
+
+  /**
+   * Get a snapshot of the progress of scoring.
+   *
+   * @return a snapshot of the progress of scoring.
+   */
+  public Progress getProgress() {
+    return new Progress(
+        mRowsScanned.get(),
+        mRowsScored.get(),
+        mRegionsCompleted.get(),
+        mRegionsTotal,
+        (0 == mStartTime) ? 0 : System.currentTimeMillis() - mStartTime);
+  }
+
+  /** Report the progress of scoring to the report stream or log. */
+  private void report() {
+    final Progress progress = getProgress();
+    if (null != mReportStream) {
+      mReportStream.println(progress);
+    } else {
+      LOG.info("{}", progress);
+    }
+  }
+
+  /**
+   * Score all rows of the table, blocking until scoring is complete. A LocalBatchScorer may be run
+   * only once.
+   *
+   * @return the final progress of scoring.
+   * @throws IOException in case of an error reading or writing the table. Scores of regions which
+   *     had not completed may have been partially written.
+   */
+  public Progress run() throws IOException {
+    Preconditions.checkState(0 == mStartTime, "LocalBatchScorer may be run only once.");
+    mStartTime = System.currentTimeMillis();
+    final List<KijiRegion> regions = mTable.getRegions();
+    mRegionsTotal = regions.size();
+    final Set<String> completed = readCheckpoint();
+    final Queue<KijiRegion> remaining = new ConcurrentLinkedQueue<KijiRegion>();
+    for (KijiRegion region : regions) {
+      if (completed.contains(checkpointRecord(region))) {
+        mRegionsCompleted.incrementAndGet();
+      } else {
+        remaining.add(region);
+      }
+    }
+    LOG.info("Scoring {} of {} regions of table: {} with {} threads.",
+        remaining.size(), regions.size(), mTable.getURI(), mNumThreads);
+
+    final ExecutorService workers = Executors.newFixedThreadPool(mNumThreads,
+        new ThreadFactoryBuilder().setNameFormat("local-batch-scorer-%d").setDaemon(true).build());
+    final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("local-batch-scorer-reporter-%d")
+            .setDaemon(true)
+            .build());
+    if (0 != mReportingInterval) {
+      reporter.scheduleAtFixedRate(new Runnable() {
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+          report();
+        }
+      }, mReportingInterval, mReportingInterval, TimeUnit.MILLISECONDS);
+    }
+    try {
+      final List<Future<Void>> futures = Lists.newArrayList();
+      for (int i = 0; i < Math.min(mNumThreads, remaining.size()); i++) {
+        futures.add(workers.submit(new Worker(remaining)));
+      }
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ee) {
+          if (ee.getCause() instanceof IOException) {
+            throw (IOException) ee.getCause();
+          } else {
+            throw new RuntimeException(ee.getCause());
+          }
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for scoring to complete.", ie);
+        }
+      }
+    } finally {
+      workers.shutdownNow();
+      reporter.shutdownNow();
+    }
+    report();
+    return getProgress();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(LocalBatchScorer.class)
+        .add("table", mTable.getURI())
+        .add("attached_column", mAttachedColumn)
+        .add("score_function_class", mScoreFunctionClass.getName())
+        .add("policy_class", mPolicyClass.getName())
+        .add("num_threads", mNumThreads)
+        .add("checkpoint_file", mCheckpointFile)
+        .add("progress", getProgress())
+        .toString();
+  }
+}
@@ -0,0 +1,201 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+
+/**
+ * Tracks the latency of each Freshener run by a FreshKijiTableReader and derives a time budget for
+ * each from its observed 99th percentile latency.
+ *
+ * <p>
+ *   A Freshener's budget is its 99th percentile latency over its most recent
+ *   {@value #WINDOW_SIZE} runs plus a configured margin, capped by the timeout of the request.
+ *   Until a Freshener has run {@value #MIN_SAMPLES} times its budget is the request timeout. A
+ *   Freshener whose last runs all took longer than the reader's timeout gets a budget of 0, so
+ *   requests return without waiting for it while it continues to run and write in the background.
+ *   Because those background runs are still recorded, the Freshener's budget recovers once it
+ *   finishes within the timeout again.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class AdaptiveTimeouts {
+  /** Number of most recent runs of each Freshener from which its budget is calculated. */
+  static final int WINDOW_SIZE = 256;
+  /** Number of runs of a Freshener required before its budget adapts. */
+  static final int MIN_SAMPLES = 20;
+  /** Number of runs between recalculations of a Freshener's 99th percentile latency. */
+  private static final int RECALCULATION_INTERVAL = 16;
+
+  /** Observed latency of a single Freshener. */
+  private final class FreshenerLatency {
+    private final AtomicLongArray mWindow = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicLong mCount = new AtomicLong(0);
+    private final AtomicInteger mConsecutiveTimeouts = new AtomicInteger(0);
+    /** 99th percentile latency in nanoseconds, or -1 if there are too few samples. */
+    private volatile long mP99Nanos = -1;
+
+    /**
+     * Record the latency of a single run.
+     *
+     * @param durationNanos time in nanoseconds from the start of the request until the Freshener
+     *     finished.
+     */
+    private void record(
+        final long durationNanos
+    ) {
+      final long index = mCount.getAndIncrement();
+      mWindow.lazySet((int) (index % WINDOW_SIZE), durationNanos);
+      if (durationNanos > mTimeoutNanos) {
+        mConsecutiveTimeouts.incrementAndGet();
+      } else {
+        mConsecutiveTimeouts.set(0);
+      }
+      final long count = index + 1;
+      if (MIN_SAMPLES <= count && 0 == (count - MIN_SAMPLES) % RECALCULATION_INTERVAL) {
+        final int size = (int) Math.min(count, WINDOW_SIZE);
+        final long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+          values[i] = mWindow.get(i);
+        }
+        Arrays.sort(values);
+        mP99Nanos = values[(int) Math.ceil(0.99 * size) - 1];
+      }
+    }
+  }
+
+  /**
+   * Create a new AdaptiveTimeouts.
+   *
+   * @param marginMillis time in milliseconds to add to a Freshener's 99th percentile latency.
+   * @param skipThreshold number of consecutive runs longer than the reader's timeout after which
+   *     requests stop waiting for a Freshener. 0 indicates requests always wait.
+   * @param timeoutMillis the reader's timeout in milliseconds.
+   * @return a new AdaptiveTimeouts.
+   */
+  static AdaptiveTimeouts create(
+      final long marginMillis,
+      final int skipThreshold,
+      final long timeoutMillis
+  ) {
+    Preconditions.checkArgument(0 <= marginMillis,
+        "Adaptive timeout margin must be greater than or equal to 0, found: %s", marginMillis);
+    Preconditions.checkArgument(0 <= skipThreshold,
+        "Adaptive timeout skip threshold must be greater than or equal to 0, found: %s",
+        skipThreshold);
+    return new AdaptiveTimeouts(marginMillis, skipThreshold, timeoutMillis);
+  }
+
+  private final long mMarginNanos;
+  private final int mSkipThreshold;
+  private final long mTimeoutNanos;
+  private final ConcurrentMap<KijiColumnName, FreshenerLatency> mLatencies =
+      new ConcurrentHashMap<KijiColumnName, FreshenerLatency>();
+
+  /**
+   * Private constructor. Use {@link #create(long, int, long)}.
+   *
+   * @param marginMillis time in milliseconds to add to a Freshener's 99th percentile latency.
+   * @param skipThreshold number of consecutive runs longer than the reader's timeout after which
+   *     requests stop waiting for a Freshener.
+   * @param timeoutMillis the reader's timeout in milliseconds.
+   */
+  private AdaptiveTimeouts(
+      final long marginMillis,
+      final int skipThreshold,
+      final long timeoutMillis
+  ) {
+    mMarginNanos = TimeUnit.MILLISECONDS.toNanos(marginMillis);
+    mSkipThreshold = skipThreshold;
+    mTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+  }
+
+  /**
+   * Get the budget in nanoseconds of the Freshener attached to the given column.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @param requestTimeoutNanos the timeout in nanoseconds of the request which runs the Freshener.
+   * @return the time in nanoseconds from the start of the request that the request should wait
+   *     for the Freshener to finish.
+   */
+  long getBudgetNanos(
+      final KijiColumnName attachedColumn,
+      final long requestTimeoutNanos
+  ) {
+    final FreshenerLatency latency = mLatencies.get(attachedColumn);
+    if (null == latency) {
+      return requestTimeoutNanos;
+    }
+    if (0 < mSkipThreshold && mSkipThreshold <= latency.mConsecutiveTimeouts.get()) {
+      return 0;
+    }
+    final long p99Nanos = latency.mP99Nanos;
+    return (-1 == p99Nanos)
+        ? requestTimeoutNanos : Math.min(requestTimeoutNanos, p99Nanos + mMarginNanos);
+  }
+
+  /**
+   * Record the latency of a single run of the Freshener attached to the given column.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @param durationNanos time in nanoseconds from the start of the request until the Freshener
+   *     finished.
+   */
+  void record(
+      final KijiColumnName attachedColumn,
+      final long durationNanos
+  ) {
+    FreshenerLatency latency = mLatencies.get(attachedColumn);
+    if (null == latency) {
+      final FreshenerLatency created = new FreshenerLatency();
+      latency = mLatencies.putIfAbsent(attachedColumn, created);
+      if (null == latency) {
+        latency = created;
+      }
+    }
+    latency.record(durationNanos);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(AdaptiveTimeouts.class)
+        .add("margin_nanos", mMarginNanos)
+        .add("skip_threshold", mSkipThreshold)
+        .add("timeout_nanos", mTimeoutNanos)
+        .toString();
+  }
+}
@@ -0,0 +1,243 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.AdmissionCounter;
+import org.kiji.scoring.CounterManager;
+
+/**
+ * Limits the number of freshening requests a FreshKijiTableReader runs at once, and the number of
+ * concurrent runs of each Freshener.
+ *
+ * <p>
+ *   A request must be admitted before its Fresheners are run. Admission never blocks; a request
+ *   which would exceed either limit is rejected immediately so that the reader can serve it
+ *   without waiting for freshening. An admitted request holds its slots until each of its
+ *   Fresheners has finished, which may be after the request itself has timed out and returned.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class AdmissionController {
+
+  /** The slots held by a single admitted request. */
+  final class Admission {
+    /** Per-Freshener slots held by this request, released as each Freshener finishes. */
+    private final Map<KijiColumnName, Semaphore> mFreshenerSlots;
+    /** Number of Fresheners which have not finished. The request slot is released at 0. */
+    private final AtomicInteger mRemaining;
+
+    /**
+     * Initialize a new Admission.
+     *
+     * @param freshenerSlots per-Freshener slots held by this request.
+     * @param freshenerCount number of Fresheners run by this request.
+     */
+    private Admission(
+        final Map<KijiColumnName, Semaphore> freshenerSlots,
+        final int freshenerCount
+    ) {
+      mFreshenerSlots = freshenerSlots;
+      mRemaining = new AtomicInteger(freshenerCount);
+    }
+
+    /**
+     * Release the slot held for the Freshener attached to the given column. Releases the request
+     * slot once every Freshener of the request has finished.
+     *
+     * @param attachedColumn the column to which the finished Freshener is attached.
+     */
+    void release(
+        final KijiColumnName attachedColumn
+    ) {
+      final Semaphore freshenerSlot = mFreshenerSlots.get(attachedColumn);
+      if (null != freshenerSlot) {
+        freshenerSlot.release();
+      }
+      if (0 == mRemaining.decrementAndGet() && null != mRequestSlots) {
+        mRequestSlots.release();
+      }
+    }
+
+    /**
+     * Release every slot held by this request. Only valid if none of the Fresheners of the request
+     * have been started, for example because the request failed before starting them.
+     */
+    void releaseAll() {
+      for (Semaphore freshenerSlot : mFreshenerSlots.values()) {
+        freshenerSlot.release();
+      }
+      if (0 < mRemaining.getAndSet(0) && null != mRequestSlots) {
+        mRequestSlots.release();
+      }
+    }
+
+    /**
+     * Wrap the Callable which runs the Freshener attached to the given column so that its slot is
+     * released when it finishes.
+     *
+     * @param attachedColumn the column to which the Freshener is attached.
+     * @param callable the Callable which runs the Freshener.
+     * @param <T> the return type of the Callable.
+     * @return a Callable which runs the given Callable and then releases its slot.
+     */
+    <T> Callable<T> wrap(
+        final KijiColumnName attachedColumn,
+        final Callable<T> callable
+    ) {
+      return new Callable<T>() {
+        /** {@inheritDoc} */
+        @Override
+        public T call() throws Exception {
+          try {
+            return callable.call();
+          } finally {
+            release(attachedColumn);
+          }
+        }
+      };
+    }
+  }
+
+  /**
+   * Create a new AdmissionController.
+   *
+   * @param maxInFlightRequests maximum number of freshening requests which may run at once. 0
+   *     indicates no limit.
+   * @param maxInFlightPerFreshener maximum number of concurrent runs of each Freshener. 0 indicates
+   *     no limit.
+   * @return a new AdmissionController.
+   */
+  static AdmissionController create(
+      final int maxInFlightRequests,
+      final int maxInFlightPerFreshener
+  ) {
+    Preconditions.checkArgument(0 <= maxInFlightRequests,
+        "Max in flight requests must be greater than or equal to 0, found: %s",
+        maxInFlightRequests);
+    Preconditions.checkArgument(0 <= maxInFlightPerFreshener,
+        "Max in flight per Freshener must be greater than or equal to 0, found: %s",
+        maxInFlightPerFreshener);
+    return new AdmissionController(maxInFlightRequests, maxInFlightPerFreshener);
+  }
+
+  private final int mMaxInFlightRequests;
+  private final int mMaxInFlightPerFreshener;
+  /** Slots for whole requests. Null if requests are not limited. */
+  private final Semaphore mRequestSlots;
+  private final ConcurrentMap<KijiColumnName, Semaphore> mFreshenerSlots =
+      new ConcurrentHashMap<KijiColumnName, Semaphore>();
+
+  /**
+   * Private constructor. Use {@link #create(int, int)}.
+   *
+   * @param maxInFlightRequests maximum number of freshening requests which may run at once.
+   * @param maxInFlightPerFreshener maximum number of concurrent runs of each Freshener.
+   */
+  private AdmissionController(
+      final int maxInFlightRequests,
+      final int maxInFlightPerFreshener
+  ) {
+    mMaxInFlightRequests = maxInFlightRequests;
+    mMaxInFlightPerFreshener = maxInFlightPerFreshener;
+    mRequestSlots = (0 == maxInFlightRequests) ? null : new Semaphore(maxInFlightRequests);
+  }
+
+  /**
+   * Get the slots of the Freshener attached to the given column.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @return the slots of the Freshener.
+   */
+  private Semaphore getFreshenerSlots(
+      final KijiColumnName attachedColumn
+  ) {
+    final Semaphore slots = mFreshenerSlots.get(attachedColumn);
+    if (null != slots) {
+      return slots;
+    }
+    final Semaphore created = new Semaphore(mMaxInFlightPerFreshener);
+    final Semaphore existing = mFreshenerSlots.putIfAbsent(attachedColumn, created);
+    return (null != existing) ? existing : created;
+  }
+
+  /**
+   * Admit a request which will run the Fresheners attached to the given columns, or reject it if
+   * admitting it would exceed a limit. Rejections are counted with the given CounterManager.
+   *
+   * @param attachedColumns the columns to which the Fresheners of the request are attached.
+   * @param counterManager CounterManager with which to count rejections.
+   * @return the slots held by the admitted request, or null if the request was rejected.
+   */
+  Admission tryAdmit(
+      final Collection<KijiColumnName> attachedColumns,
+      final CounterManager counterManager
+  ) {
+    if (null != mRequestSlots && !mRequestSlots.tryAcquire()) {
+      counterManager.incrementCounter(AdmissionCounter.READER_LIMIT_EXCEEDED, 1);
+      return null;
+    }
+    final Map<KijiColumnName, Semaphore> acquired = Maps.newHashMap();
+    if (0 != mMaxInFlightPerFreshener) {
+      for (KijiColumnName attachedColumn : attachedColumns) {
+        final Semaphore slots = getFreshenerSlots(attachedColumn);
+        if (slots.tryAcquire()) {
+          acquired.put(attachedColumn, slots);
+        } else {
+          for (Semaphore acquiredSlots : acquired.values()) {
+            acquiredSlots.release();
+          }
+          if (null != mRequestSlots) {
+            mRequestSlots.release();
+          }
+          counterManager.incrementCounter(AdmissionCounter.FRESHENER_LIMIT_EXCEEDED, 1);
+          return null;
+        }
+      }
+    }
+    return new Admission(acquired, attachedColumns.size());
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(AdmissionController.class)
+        .add("max_in_flight_requests", mMaxInFlightRequests)
+        .add("max_in_flight_per_freshener", mMaxInFlightPerFreshener)
+        .toString();
+  }
+}
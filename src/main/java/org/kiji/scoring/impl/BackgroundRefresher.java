@@ -0,0 +1,315 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.io.Closeable;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.FreshKijiTableReader.FreshRequestOptions;
+import org.kiji.scoring.RefreshCounter;
+
+/**
+ * Runs freshening requests in the background on behalf of stale-while-revalidate requests and
+ * requests shed by admission control.
+ *
+ * <p>
+ *   Refreshes are deduplicated by row and data request; a refresh submitted while an identical
+ *   refresh is queued or running is dropped. At most a fixed number of refreshes may be queued or
+ *   running at once, and refreshes are started no faster than a fixed rate. A single worker thread
+ *   takes refreshes from the queue and starts each as an asynchronous freshening request, so no
+ *   thread of the reader's ExecutorService waits for a refresh while its Fresheners run on the
+ *   same ExecutorService. A refresh is pending until its request completes.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class BackgroundRefresher implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(BackgroundRefresher.class);
+
+  /** A single queued refresh. Equality considers only the row and data request. */
+  private static final class Refresh {
+    private final EntityId mEntityId;
+    private final KijiDataRequest mDataRequest;
+    private final FreshRequestOptions mOptions;
+
+    /**
+     * Initialize a new Refresh.
+     *
+     * @param entityId the row to refresh.
+     * @param dataRequest the data to refresh.
+     * @param options options of the freshening request which will perform the refresh.
+     */
+    private Refresh(
+        final EntityId entityId,
+        final KijiDataRequest dataRequest,
+        final FreshRequestOptions options
+    ) {
+      mEntityId = entityId;
+      mDataRequest = dataRequest;
+      mOptions = options;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(
+        final Object other
+    ) {
+      if (!(other instanceof Refresh)) {
+        return false;
+      }
+      final Refresh that = (Refresh) other;
+      return mEntityId.equals(that.mEntityId) && mDataRequest.equals(that.mDataRequest);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(mEntityId, mDataRequest);
+    }
+  }
+
+  /**
+   * Create a new BackgroundRefresher.
+   *
+   * @param reader the reader through which to run refreshes.
+   * @param counterManager CounterManager with which to count refreshes.
+   * @param maxPendingRefreshes maximum number of refreshes which may be queued or running.
+   * @param maxRefreshesPerSecond maximum rate at which to start refreshes. 0 indicates no limit.
+   * @return a new BackgroundRefresher.
+   */
+  static BackgroundRefresher create(
+      final FreshKijiTableReader reader,
+      final CounterManager counterManager,
+      final int maxPendingRefreshes,
+      final double maxRefreshesPerSecond
+  ) {
+    Preconditions.checkArgument(0 < maxPendingRefreshes,
+        "Max pending refreshes must be positive, found: %s", maxPendingRefreshes);
+    Preconditions.checkArgument(0 <= maxRefreshesPerSecond,
+        "Max refreshes per second must be greater than or equal to 0, found: %s",
+        maxRefreshesPerSecond);
+    return new BackgroundRefresher(
+        reader, counterManager, maxPendingRefreshes, maxRefreshesPerSecond);
+  }
+
+  private final FreshKijiTableReader mReader;
+  private final CounterManager mCounterManager;
+  private final int mMaxPendingRefreshes;
+  private final double mMaxRefreshesPerSecond;
+  /** Limits the rate at which refreshes start. Null if the rate is not limited. */
+  private final RateLimiter mRateLimiter;
+  /** Refreshes which are queued or running, used to drop duplicates. */
+  private final Set<Refresh> mPending =
+      Sets.newSetFromMap(new ConcurrentHashMap<Refresh, Boolean>());
+  /**
+   * Permits held by each pending refresh from the time it is queued until it finishes. Bounds the
+   * refreshes queued here and running together.
+   */
+  private final Semaphore mPermits;
+  private final BlockingQueue<Refresh> mQueue;
+  private final ExecutorService mWorker;
+
+  /** Takes refreshes from the queue and starts them, subject to the rate limit. */
+  private final Runnable mWorkerLoop = new Runnable() {
+    /** {@inheritDoc} */
+    @Override
+    public void run() {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          final Refresh refresh = mQueue.take();
+          if (null != mRateLimiter) {
+            mRateLimiter.acquire();
+          }
+          start(refresh);
+        }
+      } catch (InterruptedException ie) {
+        LOG.debug("BackgroundRefresher worker interrupted, stopping.");
+      }
+    }
+  };
+
+  /**
+   * Private constructor. Use {@link #create(FreshKijiTableReader, CounterManager, int, double)}.
+   *
+   * @param reader the reader through which to run refreshes.
+   * @param counterManager CounterManager with which to count refreshes.
+   * @param maxPendingRefreshes maximum number of refreshes which may be queued or running.
+   * @param maxRefreshesPerSecond maximum rate at which to start refreshes. 0 indicates no limit.
+   */
+  private BackgroundRefresher(
+      final FreshKijiTableReader reader,
+      final CounterManager counterManager,
+      final int maxPendingRefreshes,
+      final double maxRefreshesPerSecond
+  ) {
+    mReader = reader;
+    mCounterManager = counterManager;
+    mMaxPendingRefreshes = maxPendingRefreshes;
+    mMaxRefreshesPerSecond = maxRefreshesPerSecond;
+    mRateLimiter = (0 == maxRefreshesPerSecond) ? null : RateLimiter.create(maxRefreshesPerSecond);
+    mPermits = new Semaphore(maxPendingRefreshes);
+    mQueue = new LinkedBlockingQueue<Refresh>(maxPendingRefreshes);
+    mWorker = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("fresh-reader-refresher-%d")
+        .setDaemon(true)
+        .build());
+    mWorker.submit(mWorkerLoop);
+  }
+
+  /**
+   * Finish a pending refresh, allowing an identical refresh and one other refresh to be queued.
+   *
+   * @param refresh the refresh which finished.
+   */
+  private void finish(
+      final Refresh refresh
+  ) {
+    mPending.remove(refresh);
+    mPermits.release();
+  }
+
+  /**
+   * Record a failed refresh.
+   *
+   * @param refresh the refresh which failed.
+   * @param t the cause of the failure.
+   */
+  private void fail(
+      final Refresh refresh,
+      final Throwable t
+  ) {
+    mCounterManager.incrementCounter(RefreshCounter.FAILED, 1);
+    LOG.warn("Background refresh of row: {} failed with exception: {}",
+        refresh.mEntityId, t.getMessage());
+  }
+
+  /**
+   * Start a refresh as an asynchronous freshening request. The refresh remains pending until the
+   * request completes.
+   *
+   * @param refresh the refresh to start.
+   */
+  private void start(
+      final Refresh refresh
+  ) {
+    final ListenableFuture<KijiRowData> request;
+    try {
+      request = mReader.getAsync(refresh.mEntityId, refresh.mDataRequest, refresh.mOptions);
+    } catch (RuntimeException re) {
+      fail(refresh, re);
+      finish(refresh);
+      return;
+    }
+    Futures.addCallback(request, new FutureCallback<KijiRowData>() {
+      /** {@inheritDoc} */
+      @Override
+      public void onSuccess(
+          final KijiRowData result
+      ) {
+        finish(refresh);
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public void onFailure(
+          final Throwable t
+      ) {
+        fail(refresh, t);
+        finish(refresh);
+      }
+    });
+  }
+
+  /**
+   * Queue a refresh of the given data. The refresh is dropped if an identical refresh is already
+   * pending or if the maximum number of refreshes are pending. Refreshes are counted with the
+   * CounterManager.
+   *
+   * @param entityId the row to refresh.
+   * @param dataRequest the data to refresh.
+   * @param options options of the freshening request which will perform the refresh. These
+   *     options must not request stale-while-revalidate.
+   * @return whether the refresh was queued.
+   */
+  boolean submit(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest,
+      final FreshRequestOptions options
+  ) {
+    final Refresh refresh = new Refresh(entityId, dataRequest, options);
+    if (!mPending.add(refresh)) {
+      mCounterManager.incrementCounter(RefreshCounter.DEDUPLICATED, 1);
+      return false;
+    } else if (!mPermits.tryAcquire()) {
+      mPending.remove(refresh);
+      mCounterManager.incrementCounter(RefreshCounter.DROPPED, 1);
+      return false;
+    } else {
+      // The queue has room for every refresh holding a permit.
+      mQueue.add(refresh);
+      mCounterManager.incrementCounter(RefreshCounter.QUEUED, 1);
+      return true;
+    }
+  }
+
+  /** Stop the worker and discard queued refreshes. Refreshes which have started will finish. */
+  @Override
+  public void close() {
+    mWorker.shutdownNow();
+    mQueue.clear();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(BackgroundRefresher.class)
+        .add("max_pending_refreshes", mMaxPendingRefreshes)
+        .add("max_refreshes_per_second", mMaxRefreshesPerSecond)
+        .add("queued_refreshes", mQueue.size())
+        .add("pending_refreshes", mPending.size())
+        .toString();
+  }
+}
@@ -24,6 +24,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
@@ -47,6 +48,7 @@ final class Freshener implements ReferenceCountable<Freshener> {
   private final KijiFreshnessPolicy mPolicy;
   private final ScoreFunction<?> mScoreFunction;
   private final KeyValueStoreReaderFactory mFactory;
+  private final KeyValueStoreCaches mStoreCaches;
   private final KijiColumnName mAttachedColumn;
   private final AtomicInteger mRetainCounter = new AtomicInteger(1);
   private final Map<String, String> mParameters;
@@ -76,8 +78,10 @@ final class Freshener implements ReferenceCountable<Freshener> {
     mScoreFunction = scoreFunction;
     mFactory = factory;
     mAttachedColumn = attachedColumn;
-    mParameters = parameters;
+    // Copied once so that requests without parameter overrides may share the same map.
+    mParameters = ImmutableMap.copyOf(parameters);
     mCounterManager = counterManager;
+    mStoreCaches = KeyValueStoreCaches.create(factory, mParameters, counterManager);
   }
 
   /**
@@ -107,6 +111,16 @@ final class Freshener implements ReferenceCountable<Freshener> {
     return mFactory;
   }
 
+  /**
+   * Get the KeyValueStoreCaches from this Freshener, which cache lookups shared by all requests
+   * that run this Freshener.
+   *
+   * @return the KeyValueStoreCaches from this Freshener.
+   */
+  public KeyValueStoreCaches getKVStoreCaches() {
+    return mStoreCaches;
+  }
+
   /**
    * Get the attached column of this Freshener.
    *
@@ -157,6 +171,7 @@ final class Freshener implements ReferenceCountable<Freshener> {
         InternalFreshenerContext.create(mAttachedColumn, mParameters, mCounterManager, mFactory);
     mScoreFunction.cleanup(cleanupContext);
     mPolicy.cleanup(cleanupContext);
+    mStoreCaches.close();
     mFactory.close();
   }
 
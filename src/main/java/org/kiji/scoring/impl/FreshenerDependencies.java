@@ -0,0 +1,262 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiDataRequest.Column;
+import org.kiji.scoring.KijiFreshnessManager;
+
+/**
+ * Utility methods for the dependency graph formed by Fresheners whose ScoreFunctions read columns
+ * to which other Fresheners are attached.
+ *
+ * <p>
+ *   A Freshener declares the columns its ScoreFunction reads in its
+ *   {@link KijiFreshnessManager#INPUT_COLUMNS_KEY} parameter. A Freshener depends on every other
+ *   Freshener attached to one of those columns, or to the family of one of those columns. A
+ *   Freshener which reads its own column does not depend on itself.
+ * </p>
+ */
+@ApiAudience.Private
+public final class FreshenerDependencies {
+
+  private static final Splitter INPUT_COLUMNS_SPLITTER =
+      Splitter.on(',').trimResults().omitEmptyStrings();
+  private static final Joiner INPUT_COLUMNS_JOINER = Joiner.on(',');
+
+  /** Utility classes may not be instantiated. */
+  private FreshenerDependencies() { }
+
+  /**
+   * Get the input columns declared in the parameters of a Freshener.
+   *
+   * @param parameters the parameters of the Freshener.
+   * @return the declared input columns of the Freshener. Empty if none are declared.
+   */
+  public static ImmutableSet<KijiColumnName> getInputColumns(
+      final Map<String, String> parameters
+  ) {
+    final String inputColumns = parameters.get(KijiFreshnessManager.INPUT_COLUMNS_KEY);
+    if (null == inputColumns) {
+      return ImmutableSet.of();
+    }
+    final ImmutableSet.Builder<KijiColumnName> columns = ImmutableSet.builder();
+    for (String column : INPUT_COLUMNS_SPLITTER.split(inputColumns)) {
+      columns.add(KijiColumnName.create(column));
+    }
+    return columns.build();
+  }
+
+  /**
+   * Format the columns of a data request as the value of the
+   * {@link KijiFreshnessManager#INPUT_COLUMNS_KEY} parameter.
+   *
+   * @param dataRequest the data request read by a ScoreFunction.
+   * @return the columns of the data request formatted as a parameter value.
+   */
+  public static String toInputColumnsParameter(
+      final KijiDataRequest dataRequest
+  ) {
+    final List<String> columns = Lists.newArrayList();
+    for (Column column : dataRequest.getColumns()) {
+      columns.add(column.getName());
+    }
+    return INPUT_COLUMNS_JOINER.join(columns);
+  }
+
+  /**
+   * Whether an input column reads data written by a Freshener attached to the given column.
+   *
+   * @param inputColumn the input column.
+   * @param attachedColumn the column to which a Freshener is attached.
+   * @return whether the input column overlaps the attached column.
+   */
+  public static boolean reads(
+      final KijiColumnName inputColumn,
+      final KijiColumnName attachedColumn
+  ) {
+    return inputColumn.getFamily().equals(attachedColumn.getFamily())
+        && (!inputColumn.isFullyQualified()
+            || !attachedColumn.isFullyQualified()
+            || inputColumn.equals(attachedColumn));
+  }
+
+  /**
+   * Get the Fresheners on which each Freshener depends.
+   *
+   * @param parameters the parameters of each Freshener, keyed by the column to which the Freshener
+   *     is attached.
+   * @return the columns of the Fresheners on which each Freshener depends, keyed by the column to
+   *     which the Freshener is attached. Fresheners without dependencies are omitted.
+   */
+  public static ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> getUpstreamColumns(
+      final Map<KijiColumnName, Map<String, String>> parameters
+  ) {
+    final ImmutableMap.Builder<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns =
+        ImmutableMap.builder();
+    for (Map.Entry<KijiColumnName, Map<String, String>> entry : parameters.entrySet()) {
+      final ImmutableSet<KijiColumnName> inputColumns = getInputColumns(entry.getValue());
+      if (inputColumns.isEmpty()) {
+        continue;
+      }
+      final ImmutableSet.Builder<KijiColumnName> upstream = ImmutableSet.builder();
+      for (KijiColumnName attachedColumn : parameters.keySet()) {
+        if (attachedColumn.equals(entry.getKey())) {
+          continue;
+        }
+        for (KijiColumnName inputColumn : inputColumns) {
+          if (reads(inputColumn, attachedColumn)) {
+            upstream.add(attachedColumn);
+            break;
+          }
+        }
+      }
+      final ImmutableSet<KijiColumnName> upstreamSet = upstream.build();
+      if (!upstreamSet.isEmpty()) {
+        upstreamColumns.put(entry.getKey(), upstreamSet);
+      }
+    }
+    return upstreamColumns.build();
+  }
+
+  /**
+   * Find a cycle of dependencies between Fresheners.
+   *
+   * @param upstreamColumns the columns of the Fresheners on which each Freshener depends, as
+   *     returned by {@link #getUpstreamColumns(java.util.Map)}.
+   * @return the columns of the Fresheners which form a cycle, in dependency order, or an empty list
+   *     if the dependencies are acyclic.
+   */
+  public static List<KijiColumnName> findCycle(
+      final Map<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns
+  ) {
+    final Set<KijiColumnName> finished = Sets.newHashSet();
+    for (KijiColumnName column : upstreamColumns.keySet()) {
+      final List<KijiColumnName> cycle =
+          findCycle(column, upstreamColumns, Lists.<KijiColumnName>newArrayList(), finished);
+      if (!cycle.isEmpty()) {
+        return cycle;
+      }
+    }
+    return ImmutableList.of();
+  }
+
+  /**
+   * Depth first search for a cycle reachable from the given column.
+   *
+   * @param column the column from which to search.
+   * @param upstreamColumns the columns of the Fresheners on which each Freshener depends.
+   * @param path the columns visited on the way to this column.
+   * @param finished columns from which no cycle is reachable.
+   * @return the columns which form a cycle, or an empty list if none is reachable.
+   */
+  private static List<KijiColumnName> findCycle(
+      final KijiColumnName column,
+      final Map<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns,
+      final List<KijiColumnName> path,
+      final Set<KijiColumnName> finished
+  ) {
+    if (finished.contains(column)) {
+      return ImmutableList.of();
+    }
+    final int index = path.indexOf(column);
+    if (-1 != index) {
+      return ImmutableList.copyOf(path.subList(index, path.size()));
+    }
+    final ImmutableSet<KijiColumnName> upstream = upstreamColumns.get(column);
+    if (null != upstream) {
+      path.add(column);
+      for (KijiColumnName upstreamColumn : upstream) {
+        final List<KijiColumnName> cycle =
+            findCycle(upstreamColumn, upstreamColumns, path, finished);
+        if (!cycle.isEmpty()) {
+          return cycle;
+        }
+      }
+      path.remove(path.size() - 1);
+    }
+    finished.add(column);
+    return ImmutableList.of();
+  }
+
+  /**
+   * Order columns so that each Freshener comes after the Fresheners on which it depends. Only
+   * dependencies between the given columns are considered. Columns in a cycle, which may only be
+   * present in records written without validation, follow all others in their original order.
+   *
+   * @param columns the columns to which the Fresheners to order are attached.
+   * @param upstreamColumns the columns of the Fresheners on which each Freshener depends.
+   * @return the columns in dependency order.
+   */
+  public static ImmutableList<KijiColumnName> sortByDependencies(
+      final Collection<KijiColumnName> columns,
+      final Map<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns
+  ) {
+    final Map<KijiColumnName, Integer> waitingOn = Maps.newLinkedHashMap();
+    for (KijiColumnName column : columns) {
+      int count = 0;
+      final ImmutableSet<KijiColumnName> upstream = upstreamColumns.get(column);
+      if (null != upstream) {
+        for (KijiColumnName upstreamColumn : upstream) {
+          if (columns.contains(upstreamColumn)) {
+            count++;
+          }
+        }
+      }
+      waitingOn.put(column, count);
+    }
+    final ImmutableList.Builder<KijiColumnName> sorted = ImmutableList.builder();
+    boolean progressed = true;
+    while (!waitingOn.isEmpty() && progressed) {
+      progressed = false;
+      for (KijiColumnName ready : Lists.newArrayList(waitingOn.keySet())) {
+        if (0 != waitingOn.get(ready)) {
+          continue;
+        }
+        sorted.add(ready);
+        waitingOn.remove(ready);
+        progressed = true;
+        for (Map.Entry<KijiColumnName, Integer> waiting : waitingOn.entrySet()) {
+          final ImmutableSet<KijiColumnName> upstream = upstreamColumns.get(waiting.getKey());
+          if (null != upstream && upstream.contains(ready)) {
+            waiting.setValue(waiting.getValue() - 1);
+          }
+        }
+      }
+    }
+    sorted.addAll(waitingOn.keySet());
+    return sorted.build();
+  }
+}
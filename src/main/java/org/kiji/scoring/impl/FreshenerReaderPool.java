@@ -0,0 +1,233 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.KijiTableReaderPool;
+import org.kiji.schema.RuntimeInterruptedException;
+import org.kiji.scoring.statistics.ReaderPoolStatistics;
+
+/**
+ * Bounded pool of KijiTableReaders used by a FreshKijiTableReader.
+ *
+ * <p>
+ *   Readers are only borrowed for the duration of a single read, so a reader is never held while
+ *   waiting on another read, a freshness policy, or a ScoreFunction. Callers which cannot get a
+ *   reader within the maximum wait time fail with an IOException rather than blocking forever.
+ *   The pool records how many readers are in use and how long callers wait for them.
+ * </p>
+ */
+@ApiAudience.Private
+public final class FreshenerReaderPool implements Closeable {
+
+  /**
+   * Create a new FreshenerReaderPool.
+   *
+   * @param pool underlying pool from which to borrow readers. Must allow at least maxActive
+   *     readers to be borrowed at once.
+   * @param maxActive maximum number of readers which may be borrowed at once.
+   * @param maxWaitMillis maximum time in milliseconds to wait for a reader. 0 indicates no limit.
+   * @return a new FreshenerReaderPool.
+   */
+  public static FreshenerReaderPool create(
+      final KijiTableReaderPool pool,
+      final int maxActive,
+      final long maxWaitMillis
+  ) {
+    Preconditions.checkArgument(0 < maxActive,
+        "Reader pool size must be positive, found: %s", maxActive);
+    Preconditions.checkArgument(0 <= maxWaitMillis,
+        "Reader pool max wait must be non-negative, found: %s", maxWaitMillis);
+    return new FreshenerReaderPool(pool, maxActive, maxWaitMillis);
+  }
+
+  private final KijiTableReaderPool mPool;
+  private final int mMaxActive;
+  private final long mMaxWaitMillis;
+  private final Semaphore mPermits;
+  private final AtomicInteger mActive = new AtomicInteger(0);
+  private final AtomicInteger mPeakActive = new AtomicInteger(0);
+  private final AtomicLong mBorrowCount = new AtomicLong(0);
+  private final AtomicLong mTotalWaitNanos = new AtomicLong(0);
+  private final AtomicLong mMaxWaitNanos = new AtomicLong(0);
+  private final AtomicLong mExhaustedCount = new AtomicLong(0);
+
+  /**
+   * Private constructor. Use {@link #create(KijiTableReaderPool, int, long)}.
+   *
+   * @param pool underlying pool from which to borrow readers.
+   * @param maxActive maximum number of readers which may be borrowed at once.
+   * @param maxWaitMillis maximum time in milliseconds to wait for a reader. 0 indicates no limit.
+   */
+  private FreshenerReaderPool(
+      final KijiTableReaderPool pool,
+      final int maxActive,
+      final long maxWaitMillis
+  ) {
+    mPool = pool;
+    mMaxActive = maxActive;
+    mMaxWaitMillis = maxWaitMillis;
+    mPermits = new Semaphore(maxActive);
+  }
+
+  /**
+   * Wait for permission to borrow a reader.
+   *
+   * @throws IOException if no reader becomes available within the maximum wait time.
+   */
+  private void acquire() throws IOException {
+    final long startNanos = System.nanoTime();
+    try {
+      if (0 == mMaxWaitMillis) {
+        mPermits.acquire();
+      } else if (!mPermits.tryAcquire(mMaxWaitMillis, TimeUnit.MILLISECONDS)) {
+        mExhaustedCount.incrementAndGet();
+        throw new IOException(String.format(
+            "Timed out after %d ms waiting for one of %d pooled KijiTableReaders.",
+            mMaxWaitMillis, mMaxActive));
+      }
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    }
+    final long waitNanos = System.nanoTime() - startNanos;
+    mBorrowCount.incrementAndGet();
+    mTotalWaitNanos.addAndGet(waitNanos);
+    long maxWait = mMaxWaitNanos.get();
+    while (waitNanos > maxWait && !mMaxWaitNanos.compareAndSet(maxWait, waitNanos)) {
+      maxWait = mMaxWaitNanos.get();
+    }
+    final int active = mActive.incrementAndGet();
+    int peak = mPeakActive.get();
+    while (active > peak && !mPeakActive.compareAndSet(peak, active)) {
+      peak = mPeakActive.get();
+    }
+  }
+
+  /** Give up permission to borrow a reader. */
+  private void release() {
+    mActive.decrementAndGet();
+    mPermits.release();
+  }
+
+  /**
+   * Read data from a single row using a pooled reader.
+   *
+   * @param entityId the row from which to read.
+   * @param dataRequest the data to read.
+   * @return the requested data.
+   * @throws IOException in case of an error borrowing a reader or reading from the table.
+   */
+  public KijiRowData get(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest
+  ) throws IOException {
+    acquire();
+    try {
+      final KijiTableReader reader = ScoringUtils.getPooledReader(mPool);
+      try {
+        return reader.get(entityId, dataRequest);
+      } finally {
+        reader.close();
+      }
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Read data from several rows using a single pooled reader.
+   *
+   * @param entityIds the rows from which to read.
+   * @param dataRequest the data to read from each row.
+   * @return the requested data in the order of the given rows.
+   * @throws IOException in case of an error borrowing a reader or reading from the table.
+   */
+  public List<KijiRowData> bulkGet(
+      final List<EntityId> entityIds,
+      final KijiDataRequest dataRequest
+  ) throws IOException {
+    acquire();
+    try {
+      final KijiTableReader reader = ScoringUtils.getPooledReader(mPool);
+      try {
+        return reader.bulkGet(entityIds, dataRequest);
+      } finally {
+        reader.close();
+      }
+    } finally {
+      release();
+    }
+  }
+
+  /**
+   * Get a snapshot of the utilization of this pool.
+   *
+   * @return a snapshot of the utilization of this pool.
+   */
+  public ReaderPoolStatistics getStatistics() {
+    return ReaderPoolStatistics.create(
+        mMaxActive,
+        mActive.get(),
+        mPeakActive.get(),
+        mBorrowCount.get(),
+        mTotalWaitNanos.get(),
+        mMaxWaitNanos.get(),
+        mExhaustedCount.get());
+  }
+
+  /**
+   * Get the number of threads waiting to borrow a KijiTableReader.
+   *
+   * @return the number of threads waiting to borrow a KijiTableReader.
+   */
+  public int getQueueLength() {
+    return mPermits.getQueueLength();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() throws IOException {
+    mPool.close();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(FreshenerReaderPool.class)
+        .add("max_active", mMaxActive)
+        .add("max_wait_ms", mMaxWaitMillis)
+        .add("active", mActive.get())
+        .toString();
+  }
+}
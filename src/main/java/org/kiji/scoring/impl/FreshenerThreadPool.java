@@ -21,6 +21,10 @@ package org.kiji.scoring.impl;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import org.kiji.annotations.ApiAudience;
 
 /**
@@ -28,9 +32,47 @@ import org.kiji.annotations.ApiAudience;
  */
 @ApiAudience.Private
 public final class FreshenerThreadPool {
+  private static final Logger LOG = LoggerFactory.getLogger(FreshenerThreadPool.class);
+
   /** Default number of threads. */
   public static final int DEFAULT_THREAD_POOL_SIZE = 100;
 
+  /** Holder for the thread-per-task executor so that it is only created if it is used. */
+  private static final class ThreadPerTask {
+    private static final ExecutorService EXECUTOR_SERVICE = createThreadPerTaskExecutor();
+  }
+
+  /**
+   * Create an ExecutorService which runs each task on a new virtual thread. Virtual threads are
+   * looked up reflectively so that this class may be compiled and run on JVMs which do not
+   * provide them; on those JVMs an unbounded pool of cached daemon threads is used instead.
+   *
+   * @return a new ExecutorService which runs each task on its own thread.
+   */
+  private static ExecutorService createThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor")
+          .invoke(null);
+    } catch (ReflectiveOperationException roe) {
+      LOG.info("Virtual threads are not available, using cached platform threads instead.");
+      return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+          .setNameFormat("freshener-task-%d")
+          .setDaemon(true)
+          .build());
+    }
+  }
+
+  /**
+   * Get the shared ExecutorService which runs each task on its own virtual thread, or on its own
+   * cached platform thread if virtual threads are not available.
+   *
+   * @return the shared thread-per-task ExecutorService.
+   */
+  public static ExecutorService getThreadPerTaskExecutor() {
+    return ThreadPerTask.EXECUTOR_SERVICE;
+  }
+
   /** Enum used to guarantee that only a single thread pool is created. */
   public enum Singleton {
     GET(Executors.newFixedThreadPool(DEFAULT_THREAD_POOL_SIZE));
@@ -22,13 +22,22 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,13 +47,17 @@ import org.kiji.schema.InternalKijiError;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiRowData;
-import org.kiji.schema.KijiTableReader;
-import org.kiji.schema.KijiTableReaderPool;
 import org.kiji.scoring.CounterManager;
 import org.kiji.scoring.FreshKijiTableReader.Builder.StatisticGatheringMode;
+import org.kiji.scoring.FreshenerContext;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.ScoreFunction.TimestampedValue;
+import org.kiji.scoring.WriteCounter;
 import org.kiji.scoring.avro.KijiFreshenerRecord;
 import org.kiji.scoring.impl.MultiBufferedWriter.SingleBuffer;
+import org.kiji.scoring.statistics.FreshKijiTableReaderStatistics;
 import org.kiji.scoring.statistics.FreshenerSingleRunStatistics;
+import org.kiji.scoring.statistics.FresheningStage;
 
 /**
  * All state necessary to process a freshening 'get' request.
@@ -59,7 +72,7 @@ final class FresheningRequestContext {
   private static final Logger LOG = LoggerFactory.getLogger(FresheningRequestContext.class);
 
   /** Unique identifier for the request served by this context. */
-  private final String mId;
+  private final RequestId mId;
   /** Time in milliseconds since the epoch at which this request started. */
   private final long mStartTime;
   /**
@@ -73,7 +86,7 @@ final class FresheningRequestContext {
    */
   private final Map<String, String> mParameterOverrides;
   /** A pool of KijiTableReaders to use for retrieving data to check for freshness and score. */
-  private final KijiTableReaderPool mReaderPool;
+  private final FreshenerReaderPool mReaderPool;
   /** The row to which this request applies. */
   private final EntityId mEntityId;
   /** The data request which should be refreshed before returning. */
@@ -94,14 +107,35 @@ final class FresheningRequestContext {
   private final boolean mAllowPartial;
   /** The set of Fresheners which have not finished. */
   private final Map<KijiColumnName, KijiFreshenerRecord> mFreshenersRemaining;
+  /**
+   * The Fresheners of this request on which each Freshener of this request depends, keyed by
+   * attached column. Fresheners without dependencies in this request are omitted.
+   */
+  private final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> mUpstreamColumns;
   /** What level of statistics should be gathered about Fresheners run as part of this request. */
   private final StatisticGatheringMode mStatisticGatheringMode;
   /** Statistics about individual completed Fresheners. */
   private final BlockingQueue<FreshenerSingleRunStatistics> mFreshenerSingleRunStatistics;
+  /** Aggregate statistics updated directly when the statistics gathering mode is AGGREGATE_ONLY. */
+  private final FreshKijiTableReaderStatistics mAggregateStatistics;
   /** Executor to get Futures within this request. */
-  private final ExecutorService mExecutorService;
+  private final ListeningExecutorService mExecutorService;
   /** CounterManager with which to store counters. */
   private final CounterManager mCounterManager;
+  /** Times the stages of this request. */
+  private final RequestTracer mTracer;
+  /** Publishes the metrics of Fresheners run by this request. */
+  private final ReaderMetrics mMetrics;
+  /** Records the latency of Fresheners run by this request. Null if adaptive timeouts are off. */
+  private final AdaptiveTimeouts mAdaptiveTimeouts;
+  /** The deadline of this request, through which this request may be cancelled. */
+  private final RequestDeadline mDeadline;
+  /** Slots held by this request if it was admitted by admission control, otherwise null. */
+  private final AdmissionController.Admission mAdmission;
+  /** Records cells found fresh by this request. Null if prefreshing is disabled. */
+  private final Prefresher mPrefresher;
+  /** Whether this request is a prefresh which should score data that is due to expire. */
+  private final boolean mIsPrefresh;
   /**
    * Whether any Freshener has written into a buffer for this request. This value may only move
    * from false to true.
@@ -122,6 +156,8 @@ final class FresheningRequestContext {
    * @param parameterOverrides Request-time parameters which will be overlayed on the parameters
    *     from the Freshener records.
    * @param freshenerRecords Freshener records for Fresheners applicable to this request.
+   * @param upstreamColumns the columns of the Fresheners on which each Freshener of the reader
+   *     depends, keyed by attached column.
    * @param readerPool the pool of KijiTableReaders to which to delegate table reads.
    * @param entityId the row from which to read.
    * @param dataRequest the section of the row which should be refreshed.
@@ -131,21 +167,37 @@ final class FresheningRequestContext {
    *     writes.
    * @param allowPartial whether this context allows partial freshening.
    * @param statisticGatheringMode what level of statistics should be gathered about Fresheners
-   *     run as part of this request.
+   *     run as part of this request. NONE if this request was not sampled.
    * @param statisticsQueue Queue for communicating statistics about completed Fresheners to the
    *     statistics gathering thread. This queue is thread safe and ordering of statistics in the
    *     queue does not matter.
+   * @param aggregateStatistics statistics to update directly when the statistics gathering mode is
+   *     AGGREGATE_ONLY.
    * @param executorService ExecutorService to use for creating Futures within this request.
    * @param counterManager CounterManager with which to store counters.
+   * @param tracer RequestTracer with which to time the stages of this request.
+   * @param metrics ReaderMetrics to which to publish the metrics of Fresheners run by this
+   *     request.
+   * @param adaptiveTimeouts AdaptiveTimeouts with which to record the latency of Fresheners run by
+   *     this request, or null if adaptive timeouts are disabled.
+   * @param deadline the deadline of this request, through which this request may be cancelled.
+   * @param admission slots held by this request if it was admitted by admission control, or null
+   *     if admission control is disabled or this request was shed. Each slot is released when its
+   *     Freshener finishes.
+   * @param prefresher Prefresher with which to record cells found fresh, or null if prefreshing is
+   *     disabled.
+   * @param isPrefresh whether this request is a prefresh which should score data that is due to
+   *     expire even though it is still fresh.
    */
   // CSOFF: ParameterNumber
   public FresheningRequestContext(
-      final String id,
+      final RequestId id,
       final long startTime,
       final ImmutableMap<KijiColumnName, Freshener> fresheners,
       final Map<String, String> parameterOverrides,
       final ImmutableMap<KijiColumnName, KijiFreshenerRecord> freshenerRecords,
-      final KijiTableReaderPool readerPool,
+      final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns,
+      final FreshenerReaderPool readerPool,
       final EntityId entityId,
       final KijiDataRequest dataRequest,
       final Future<KijiRowData> clientDataFuture,
@@ -153,8 +205,16 @@ final class FresheningRequestContext {
       final boolean allowPartial,
       final StatisticGatheringMode statisticGatheringMode,
       final BlockingQueue<FreshenerSingleRunStatistics> statisticsQueue,
-      final ExecutorService executorService,
-      final CounterManager counterManager
+      final FreshKijiTableReaderStatistics aggregateStatistics,
+      final ListeningExecutorService executorService,
+      final CounterManager counterManager,
+      final RequestTracer tracer,
+      final ReaderMetrics metrics,
+      final AdaptiveTimeouts adaptiveTimeouts,
+      final RequestDeadline deadline,
+      final AdmissionController.Admission admission,
+      final Prefresher prefresher,
+      final boolean isPrefresh
   ) {
     // CSON: ParameterNumber
     mId = id;
@@ -169,9 +229,18 @@ final class FresheningRequestContext {
     mAllowPartial = allowPartial;
     mStatisticGatheringMode = statisticGatheringMode;
     mFreshenerSingleRunStatistics = statisticsQueue;
+    mAggregateStatistics = aggregateStatistics;
     mExecutorService = executorService;
     mCounterManager = counterManager;
+    mTracer = tracer;
+    mMetrics = metrics;
+    mAdaptiveTimeouts = adaptiveTimeouts;
+    mDeadline = deadline;
+    mAdmission = admission;
+    mPrefresher = prefresher;
+    mIsPrefresh = isPrefresh;
     mFreshenersRemaining = getInitialFresheners(freshenerRecords);
+    mUpstreamColumns = getRequestUpstreamColumns(upstreamColumns);
     if (mAllowPartial) {
       // Each Freshener will have its own buffer when partial freshening is enabled, so the
       // request buffer is not needed.
@@ -183,6 +252,36 @@ final class FresheningRequestContext {
     }
   }
 
+  /**
+   * Restrict the dependencies between the reader's Fresheners to those between the Fresheners of
+   * this request.
+   *
+   * @param upstreamColumns the columns of the Fresheners on which each Freshener of the reader
+   *     depends, keyed by attached column.
+   * @return the columns of the Fresheners of this request on which each Freshener of this request
+   *     depends, keyed by attached column.
+   */
+  private ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> getRequestUpstreamColumns(
+      final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns
+  ) {
+    if (upstreamColumns.isEmpty()) {
+      return upstreamColumns;
+    }
+    final ImmutableMap.Builder<KijiColumnName, ImmutableSet<KijiColumnName>> requestUpstream =
+        ImmutableMap.builder();
+    for (KijiColumnName attachedColumn : mFresheners.keySet()) {
+      final ImmutableSet<KijiColumnName> upstream = upstreamColumns.get(attachedColumn);
+      if (null != upstream) {
+        final ImmutableSet<KijiColumnName> inRequest =
+            Sets.intersection(upstream, mFresheners.keySet()).immutableCopy();
+        if (!inRequest.isEmpty()) {
+          requestUpstream.put(attachedColumn, inRequest);
+        }
+      }
+    }
+    return requestUpstream.build();
+  }
+
   /**
    * Get the mapping of all qualified columns to associated Freshener records which will be run as
    * part of this request.
@@ -194,7 +293,8 @@ final class FresheningRequestContext {
   private Map<KijiColumnName, KijiFreshenerRecord> getInitialFresheners(
       final Map<KijiColumnName, KijiFreshenerRecord> freshenerRecords
   ) {
-    final Map<KijiColumnName, KijiFreshenerRecord> collectedColumns = Maps.newHashMap();
+    final Map<KijiColumnName, KijiFreshenerRecord> collectedColumns =
+        Maps.newHashMapWithExpectedSize(freshenerRecords.size());
     for (Map.Entry<KijiColumnName, KijiFreshenerRecord> record : freshenerRecords.entrySet()) {
       if (record.getKey().isFullyQualified()) {
         collectedColumns.put(record.getKey(), record.getValue());
@@ -213,7 +313,7 @@ final class FresheningRequestContext {
    *
    * @return the unique Id of this request.
    */
-  public String getRequestId() {
+  public RequestId getRequestId() {
     return mId;
   }
 
@@ -240,7 +340,7 @@ final class FresheningRequestContext {
    *
    * @return the reader pool which services this request.
    */
-  public KijiTableReaderPool getReaderPool() {
+  public FreshenerReaderPool getReaderPool() {
     return mReaderPool;
   }
 
@@ -307,6 +407,67 @@ final class FresheningRequestContext {
     return mCounterManager;
   }
 
+  /**
+   * Get the RequestTracer with which to time the stages of this request.
+   *
+   * @return the RequestTracer with which to time the stages of this request.
+   */
+  public RequestTracer getTracer() {
+    return mTracer;
+  }
+
+  /**
+   * Get the deadline of this request.
+   *
+   * @return the deadline of this request.
+   */
+  public RequestDeadline getDeadline() {
+    return mDeadline;
+  }
+
+  /**
+   * Whether this request has been cancelled. Fresheners which have not yet written should finish
+   * without writing once their request has been cancelled.
+   *
+   * @return whether this request has been cancelled.
+   */
+  public boolean isCancelled() {
+    return mDeadline.isCancelled();
+  }
+
+  /**
+   * Get the Prefresher with which to record cells found fresh.
+   *
+   * @return the Prefresher with which to record cells found fresh, or null if prefreshing is
+   *     disabled.
+   */
+  public Prefresher getPrefresher() {
+    return mPrefresher;
+  }
+
+  /**
+   * Whether this request is a prefresh.
+   *
+   * @return whether this request is a prefresh.
+   */
+  public boolean isPrefresh() {
+    return mIsPrefresh;
+  }
+
+  /**
+   * Read the client's data request from the table, timing the read as the final read of this
+   * request.
+   *
+   * @return the current state of the requested data in the table.
+   * @throws IOException in case of an error reading from the table.
+   */
+  public KijiRowData finalRead() throws IOException {
+    final long startNanos = mTracer.start();
+    final KijiRowData data = mReaderPool.get(mEntityId, mClientDataRequest);
+    mTracer.end(null, FresheningStage.FINAL_READ, startNanos);
+    return data;
+  }
+
   /**
    * Whether this context has received writes.
    *
@@ -316,6 +477,41 @@ final class FresheningRequestContext {
     return mHasReceivedWrites;
   }
 
+  /**
+   * Check whether the write of a score should be suppressed. A write is suppressed if the Freshener
+   * which produced the score writes only on change and the score's value equals the most recent
+   * value of its column in the table. The client's data is not used for the comparison because its
+   * time range may hide the most recent value. Writes of Fresheners whose KijiFreshnessPolicy
+   * judges freshness by cell timestamps are never suppressed. Suppressed and performed writes of
+   * Fresheners which write only on change are counted with the CounterManager.
+   *
+   * @param freshener the Freshener which produced the score.
+   * @param freshenerContext the context of the Freshener which produced the score.
+   * @param score the score to check.
+   * @return whether the score should not be written.
+   * @throws IOException in case of an error reading the current value of the column.
+   */
+  public boolean shouldSuppressWrite(
+      final Freshener freshener,
+      final FreshenerContext freshenerContext,
+      final TimestampedValue<?> score
+  ) throws IOException {
+    if (!Boolean.parseBoolean(
+        freshenerContext.getParameter(KijiFreshnessManager.WRITE_ONLY_ON_CHANGE_KEY))
+        || ScoringUtils.judgesFreshnessByTimestamp(
+            freshener.getFreshnessPolicy().getClass().getName())) {
+      return false;
+    }
+    final KijiColumnName column = freshenerContext.getAttachedColumn();
+    final boolean unchanged = ScoringUtils.isUnchanged(
+        mReaderPool.get(
+            mEntityId, KijiDataRequest.create(column.getFamily(), column.getQualifier())),
+        column,
+        score);
+    mCounterManager.incrementCounter(unchanged ? WriteCounter.SUPPRESSED : WriteCounter.WRITTEN, 1);
+    return unchanged;
+  }
+
   /**
    * Signal the context that a Freshener has finished.
    *
@@ -327,16 +523,53 @@ final class FresheningRequestContext {
       final KijiColumnName attachedColumn,
       final boolean scoreFunctionRan
   ) {
-    if (scoreFunctionRan) {
+    return finishFreshener(attachedColumn, scoreFunctionRan, scoreFunctionRan);
+  }
+
+  /**
+   * Signal the context that a Freshener has finished.
+   *
+   * @param attachedColumn the column to which the finishing Freshener is attached.
+   * @param scoreFunctionRan whether a ScoreFunction was run for the Freshener which finished.
+   * @param wrote whether the Freshener which finished wrote its score. False if the write was
+   *     suppressed because the score was unchanged.
+   * @return the number of unfinished Fresheners.
+   */
+  public int finishFreshener(
+      final KijiColumnName attachedColumn,
+      final boolean scoreFunctionRan,
+      final boolean wrote
+  ) {
+    if (wrote) {
       mHasReceivedWrites = true;
     }
     final long finishTime = System.nanoTime();
-    if (StatisticGatheringMode.NONE != mStatisticGatheringMode) {
-      mFreshenerSingleRunStatistics.add(FreshenerSingleRunStatistics.create(
-          mHasTimedOut,
-          finishTime - mStartTime,
-          scoreFunctionRan,
-          mFreshenersRemaining.get(attachedColumn)));
+    switch (mStatisticGatheringMode) {
+      case NONE: break;
+      case AGGREGATE_ONLY: {
+        mAggregateStatistics.addFreshenerRun(
+            mFreshenersRemaining.get(attachedColumn),
+            mHasTimedOut,
+            finishTime - mStartTime,
+            scoreFunctionRan);
+        break;
+      }
+      default: {
+        mFreshenerSingleRunStatistics.add(FreshenerSingleRunStatistics.create(
+            mHasTimedOut,
+            finishTime - mStartTime,
+            scoreFunctionRan,
+            mFreshenersRemaining.get(attachedColumn)));
+      }
+    }
+    mMetrics.freshenerFinished(
+        attachedColumn, finishTime - mStartTime, mHasTimedOut, scoreFunctionRan);
+    if (null != mAdaptiveTimeouts) {
+      // Qualified columns in map type families are recorded against the family's Freshener.
+      mAdaptiveTimeouts.record(
+          mFresheners.containsKey(attachedColumn)
+              ? attachedColumn : KijiColumnName.create(attachedColumn.getFamily(), null),
+          finishTime - mStartTime);
     }
     final int remaining;
     synchronized (mFreshenersRemaining) {
@@ -369,27 +602,33 @@ final class FresheningRequestContext {
     mHasTimedOut = true;
   }
 
+  /**
+   * Cancels this request. Fresheners which have not yet written will finish without writing.
+   * Cancellation is cooperative; running KijiFreshnessPolicies and ScoreFunctions are not
+   * interrupted but may observe the cancellation through their FreshenerContext.
+   */
+  public void cancel() {
+    mDeadline.cancel();
+  }
+
   /**
    * Gets cached stale data from the clientDataFuture if available. Falls back to reading from the
    * table if the clientDataFuture is not finished. Data is not guaranteed to be stale, but is
    * guaranteed to conform to the atomicity constraints set by partial freshening (i.e. if partial
    * freshening is disabled, this will return entirely fresh or entire stale data.)
    *
-   * @param reader the reader to use to read new data if the clientDataFuture is not finished.
    * @return cached stale data if possible, otherwise the current state of the table. Returned data
    *     will conform to the atomicity guarantees provided by partial freshening, but this may
    *     return fresh data in some race conditions.
    * @throws IOException in case of an error reading from the table.
    */
-  private KijiRowData getStaleData(
-      final KijiTableReader reader
-  ) throws IOException {
+  private KijiRowData getStaleData() throws IOException {
     if (mClientDataFuture.isDone()) {
       return ScoringUtils.getFromFuture(mClientDataFuture);
     } else {
       // If clientDataFuture is not ready to be retrieved we can only attempt to read data from the
       // table.  This data will still include exclusively fresh or stale data.
-      return reader.get(mEntityId, mClientDataRequest);
+      return finalRead();
     }
   }
 
@@ -402,21 +641,16 @@ final class FresheningRequestContext {
    * @throws java.io.IOException in case of an error reading from the table.
    */
   public KijiRowData checkAndRead() throws IOException {
-    final KijiTableReader reader = ScoringUtils.getPooledReader(mReaderPool);
-    try {
-      if (mAllowPartial && mHasReceivedWrites) {
-        // If any writes have been cached, read from the table.
-        LOG.debug("{} allows partial freshening and data was written. Reading from the table.",
-            mId);
-        return reader.get(mEntityId, mClientDataRequest);
-      } else {
-        // If no writes have been cached or allowPartial is false, return stale data.
-        LOG.debug("{} does not allow partial freshening or no values cached. Returning stale data.",
-            mId);
-        return getStaleData(reader);
-      }
-    } finally {
-      reader.close();
+    if (mAllowPartial && mHasReceivedWrites) {
+      // If any writes have been cached, read from the table.
+      LOG.debug("{} allows partial freshening and data was written. Reading from the table.",
+          mId);
+      return finalRead();
+    } else {
+      // If no writes have been cached or allowPartial is false, return stale data.
+      LOG.debug("{} does not allow partial freshening or no values cached. Returning stale data.",
+          mId);
+      return getStaleData();
     }
   }
 
@@ -427,21 +661,145 @@ final class FresheningRequestContext {
    * @return a Future for each Freshener from the request context.
    * @throws IOException in case of an error getting a reader from the pool.
    */
-  public ImmutableList<Future<Boolean>> getFuturesForFresheners() throws IOException {
-    final List<Future<Boolean>> collectedFutures =
-        Lists.newArrayListWithCapacity(mFresheners.size());
+  public ImmutableList<ListenableFuture<Boolean>> getFuturesForFresheners() throws IOException {
+    if (mUpstreamColumns.isEmpty()) {
+      final List<ListenableFuture<Boolean>> collectedFutures =
+          Lists.newArrayListWithCapacity(mFresheners.size());
+      for (KijiColumnName attachedColumn : mFresheners.keySet()) {
+        collectedFutures.add(submit(attachedColumn, getCallable(attachedColumn)));
+      }
+      return ImmutableList.copyOf(collectedFutures);
+    }
 
-    for (Map.Entry<KijiColumnName, Freshener> entry : mFresheners.entrySet()) {
-      if (entry.getKey().isFullyQualified()) {
-        final Future<Boolean> future = ScoringUtils.getFuture(mExecutorService,
-            new QualifiedFreshenerCallable(this, entry.getKey(), mClientDataFuture));
-        collectedFutures.add(future);
+    // Start Fresheners in dependency order so that the Futures of each Freshener's dependencies
+    // exist when it is started.
+    final Map<KijiColumnName, ListenableFuture<Boolean>> futures =
+        Maps.newHashMapWithExpectedSize(mFresheners.size());
+    for (KijiColumnName attachedColumn
+        : FreshenerDependencies.sortByDependencies(mFresheners.keySet(), mUpstreamColumns)) {
+      final List<ListenableFuture<Boolean>> upstreamFutures = Lists.newArrayList();
+      final ImmutableSet<KijiColumnName> upstream = mUpstreamColumns.get(attachedColumn);
+      if (null != upstream) {
+        for (KijiColumnName upstreamColumn : upstream) {
+          // Fresheners in a cycle may not have started; they do not wait for each other.
+          final ListenableFuture<Boolean> upstreamFuture = futures.get(upstreamColumn);
+          if (null != upstreamFuture) {
+            upstreamFutures.add(upstreamFuture);
+          }
+        }
+      }
+      final Callable<Boolean> callable = getCallable(attachedColumn);
+      if (upstreamFutures.isEmpty()) {
+        futures.put(attachedColumn, submit(attachedColumn, callable));
       } else {
-        final Future<Boolean> future = ScoringUtils.getFuture(mExecutorService,
-            new MapFamilyFreshenerCallable(this, entry.getKey(), mClientDataFuture));
-        collectedFutures.add(future);
+        futures.put(attachedColumn, submitAfter(upstreamFutures, attachedColumn, callable));
       }
     }
-    return ImmutableList.copyOf(collectedFutures);
+    final ImmutableList.Builder<ListenableFuture<Boolean>> collectedFutures =
+        ImmutableList.builder();
+    for (KijiColumnName attachedColumn : mFresheners.keySet()) {
+      collectedFutures.add(futures.get(attachedColumn));
+    }
+    return collectedFutures.build();
+  }
+
+  /**
+   * Get the Callable which runs the Freshener attached to the given column.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @return the Callable which runs the Freshener.
+   */
+  private Callable<Boolean> getCallable(
+      final KijiColumnName attachedColumn
+  ) {
+    final Callable<Boolean> callable;
+    if (attachedColumn.isFullyQualified()) {
+      callable = new QualifiedFreshenerCallable(this, attachedColumn, mClientDataFuture);
+    } else {
+      callable = new MapFamilyFreshenerCallable(this, attachedColumn, mClientDataFuture);
+    }
+    return (null != mAdmission) ? mAdmission.wrap(attachedColumn, callable) : callable;
+  }
+
+  /**
+   * Release the admission slot of a Freshener which the ExecutorService rejected and which will
+   * therefore never run.
+   *
+   * @param attachedColumn the column to which the rejected Freshener is attached.
+   * @param ree the rejection.
+   */
+  private void releaseRejected(
+      final KijiColumnName attachedColumn,
+      final RejectedExecutionException ree
+  ) {
+    LOG.warn("{} Freshener attached to: {} was rejected by the ExecutorService: {}",
+        mId, attachedColumn, ree.getMessage());
+    if (null != mAdmission) {
+      mAdmission.release(attachedColumn);
+    }
+  }
+
+  /**
+   * Run a Freshener on the ExecutorService. If the ExecutorService rejects the Freshener, its
+   * admission slot is released and the returned Future fails.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @param callable the Callable which runs the Freshener.
+   * @return a Future which completes with the result of the Freshener.
+   */
+  private ListenableFuture<Boolean> submit(
+      final KijiColumnName attachedColumn,
+      final Callable<Boolean> callable
+  ) {
+    try {
+      return mExecutorService.submit(callable);
+    } catch (RejectedExecutionException ree) {
+      releaseRejected(attachedColumn, ree);
+      return Futures.immediateFailedFuture(ree);
+    }
+  }
+
+  /**
+   * Run a Freshener on the ExecutorService once the Fresheners on which it depends have finished,
+   * whether or not they succeeded. If the ExecutorService rejects the Freshener, its admission
+   * slot is released and the returned Future fails. Listeners swallow rejections, so without this
+   * the Future would never complete.
+   *
+   * @param upstreamFutures the Futures of the Fresheners on which the Freshener depends.
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @param callable the Callable which runs the Freshener.
+   * @return a Future which completes with the result of the Freshener.
+   */
+  private ListenableFuture<Boolean> submitAfter(
+      final List<ListenableFuture<Boolean>> upstreamFutures,
+      final KijiColumnName attachedColumn,
+      final Callable<Boolean> callable
+  ) {
+    final SettableFuture<Boolean> future = SettableFuture.create();
+    Futures.successfulAsList(upstreamFutures).addListener(new Runnable() {
+      /** {@inheritDoc} */
+      @Override
+      public void run() {
+        try {
+          future.set(callable.call());
+        } catch (Exception e) {
+          future.setException(e);
+        }
+      }
+    }, new Executor() {
+      /** {@inheritDoc} */
+      @Override
+      public void execute(
+          final Runnable command
+      ) {
+        try {
+          mExecutorService.execute(command);
+        } catch (RejectedExecutionException ree) {
+          releaseRejected(attachedColumn, ree);
+          future.setException(ree);
+        }
+      }
+    });
+    return future;
   }
 }
@@ -48,9 +48,9 @@ final class FutureAggregatingCallable<T> implements Callable<List<T>> {
    * @param futures asynchronously calculated values to be collected.
    */
   public FutureAggregatingCallable(
-      final List<Future<T>> futures
+      final List<? extends Future<T>> futures
   ) {
-    mFutures = ImmutableList.copyOf(futures);
+    mFutures = ImmutableList.<Future<T>>copyOf(futures);
   }
 
   /** {@inheritDoc} */
@@ -20,6 +20,7 @@
 package org.kiji.scoring.impl;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -29,7 +30,13 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -38,9 +45,17 @@ import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,15 +68,16 @@ import org.kiji.schema.KijiDataRequest.Column;
 import org.kiji.schema.KijiRowData;
 import org.kiji.schema.KijiRowScanner;
 import org.kiji.schema.KijiTable;
-import org.kiji.schema.KijiTableReader;
 import org.kiji.schema.KijiTableReaderBuilder.OnDecoderCacheMiss;
 import org.kiji.schema.KijiTableReaderPool;
 import org.kiji.schema.KijiTableReaderPool.Builder.WhenExhaustedAction;
 import org.kiji.schema.layout.ColumnReaderSpec;
 import org.kiji.schema.util.JvmId;
 import org.kiji.schema.util.ReferenceCountable;
+import org.kiji.scoring.AdmissionCounter;
 import org.kiji.scoring.CounterManager;
 import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.FreshKijiTableReader.Builder.OverloadPolicy;
 import org.kiji.scoring.FreshKijiTableReader.Builder.StatisticGatheringMode;
 import org.kiji.scoring.KijiFreshnessManager;
 import org.kiji.scoring.KijiFreshnessPolicy;
@@ -69,6 +85,11 @@ import org.kiji.scoring.ScoreFunction;
 import org.kiji.scoring.avro.KijiFreshenerRecord;
 import org.kiji.scoring.statistics.FreshKijiTableReaderStatistics;
 import org.kiji.scoring.statistics.FreshenerSingleRunStatistics;
+import org.kiji.scoring.statistics.FresheningSpan;
+import org.kiji.scoring.statistics.FresheningStage;
+import org.kiji.scoring.statistics.MetricsRegistry;
+import org.kiji.scoring.statistics.ReaderPoolStatistics;
+import org.kiji.scoring.statistics.TraceSink;
 
 /**
  * Local implementation of FreshKijiTableReader.
@@ -148,6 +169,8 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     private final ImmutableList<KijiColumnName> mColumnsToFreshen;
     private final ImmutableMap<KijiColumnName, KijiFreshenerRecord> mFreshenerRecords;
     private final ImmutableMap<KijiColumnName, Freshener> mFresheners;
+    /** The Fresheners on which each Freshener depends, keyed by attached column. */
+    private final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> mUpstreamColumns;
     private final AtomicInteger mRetainCounter = new AtomicInteger(1);
 
     /**
@@ -167,6 +190,12 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
       mColumnsToFreshen = ImmutableList.copyOf(columnsToFreshen);
       mFreshenerRecords = ImmutableMap.copyOf(freshenerRecords);
       mFresheners = ImmutableMap.copyOf(fresheners);
+      final Map<KijiColumnName, Map<String, String>> parameters =
+          Maps.newHashMapWithExpectedSize(freshenerRecords.size());
+      for (Map.Entry<KijiColumnName, KijiFreshenerRecord> record : freshenerRecords.entrySet()) {
+        parameters.put(record.getKey(), record.getValue().getParameters());
+      }
+      mUpstreamColumns = FreshenerDependencies.getUpstreamColumns(parameters);
     }
 
     /** {@inheritDoc} */
@@ -203,6 +232,40 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     }
   }
 
+  /** A freshening request whose Fresheners have been started. */
+  private static final class StartedRequest {
+    private final FresheningRequestContext mContext;
+    private final ImmutableMap<KijiColumnName, Freshener> mFresheners;
+    /** A Future for each Freshener, in the iteration order of mFresheners. */
+    private final ImmutableList<ListenableFuture<Boolean>> mFutures;
+    private final Future<KijiRowData> mClientDataFuture;
+    /** Timeout of the request in milliseconds. */
+    private final long mTimeout;
+
+    /**
+     * Initialize a new StartedRequest.
+     *
+     * @param context the context of the request.
+     * @param fresheners the Fresheners run by the request.
+     * @param futures a Future for each Freshener, in the iteration order of fresheners.
+     * @param clientDataFuture a Future of the requested data before freshening.
+     * @param timeout timeout of the request in milliseconds.
+     */
+    private StartedRequest(
+        final FresheningRequestContext context,
+        final ImmutableMap<KijiColumnName, Freshener> fresheners,
+        final ImmutableList<ListenableFuture<Boolean>> futures,
+        final Future<KijiRowData> clientDataFuture,
+        final long timeout
+    ) {
+      mContext = context;
+      mFresheners = fresheners;
+      mFutures = futures;
+      mClientDataFuture = clientDataFuture;
+      mTimeout = timeout;
+    }
+  }
+
   // -----------------------------------------------------------------------------------------------
 
   /** TimerTask for periodically calling {@link FreshKijiTableReader#rereadFreshenerRecords()}. */
@@ -308,15 +371,21 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     private void collectStats() {
       final List<FreshenerSingleRunStatistics> stats = Lists.newArrayList();
       mStatisticsQueue.drainTo(stats);
-      // This switch is redundant right now because this thread is only created if the mode is ALL
-      // but future modes will require it.
+      final List<FresheningSpan> spans = Lists.newArrayList();
+      mSpanQueue.drainTo(spans);
       switch (mStatisticGatheringMode) {
-        case ALL: {
+        case ALL:
+        case SAMPLED: {
           for (FreshenerSingleRunStatistics stat : stats) {
             mAggregatedStatistics.addFreshenerRunStatistics(stat);
           }
+          for (FresheningSpan span : spans) {
+            mAggregatedStatistics.addFresheningSpan(span);
+          }
           return;
         }
+        // AGGREGATE_ONLY statistics are added directly by the threads which run Fresheners.
+        case AGGREGATE_ONLY:
         case NONE: return;
         default:
       }
@@ -527,6 +596,9 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
       final ImmutableList<KijiColumnName> columnsToFreshen,
       final ImmutableMap<KijiColumnName, Freshener> fresheners
   ) {
+    if (fresheners.isEmpty() || columnsToFreshen.isEmpty()) {
+      return ImmutableMap.of();
+    }
     final Map<KijiColumnName, Freshener> collectedFresheners = Maps.newHashMap();
     for (KijiColumnName column : columnsToFreshen) {
       if (column.isFullyQualified()) {
@@ -561,11 +633,11 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
   private static ImmutableList<KijiColumnName> getColumnsFromRequest(
       final KijiDataRequest request
   ) {
-    final List<KijiColumnName> collectedColumns = Lists.newArrayList();
+    final ImmutableList.Builder<KijiColumnName> collectedColumns = ImmutableList.builder();
     for (Column column : request.getColumns()) {
       collectedColumns.add(KijiColumnName.create(column.getName()));
     }
-    return ImmutableList.copyOf(collectedColumns);
+    return collectedColumns.build();
   }
 
   /**
@@ -584,13 +656,17 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     if (disabledColumns == FreshKijiTableReader.FreshRequestOptions.DISABLE_ALL_COLUMNS) {
       return ImmutableList.of();
     }
-    final List<KijiColumnName> collectedColumns = Lists.newArrayList();
+    if (disabledColumns.isEmpty()) {
+      // Nothing to remove, the immutable input may be shared.
+      return requestColumns;
+    }
+    final ImmutableList.Builder<KijiColumnName> collectedColumns = ImmutableList.builder();
     for (KijiColumnName column : requestColumns) {
       if (!disabledColumns.contains(column)) {
         collectedColumns.add(column);
       }
     }
-    return ImmutableList.copyOf(collectedColumns);
+    return collectedColumns.build();
   }
 
   /**
@@ -608,12 +684,12 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
    * @return a Future representing the return value of the given Freshener.
    */
   private static <T> Future<T> getFutureForFreshener(
-      final String requestId,
+      final RequestId requestId,
       final Freshener freshener,
       final InternalFreshenerContext freshenerContext,
       final Future<KijiRowData> clientDataFuture,
       final ExecutorService executorService,
-      final KijiTableReaderPool readerPool,
+      final FreshenerReaderPool readerPool,
       final EntityId entityId
   ) {
     final Future<KijiRowData> rowDataToCheckFuture;
@@ -685,28 +761,62 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
   /** The table from which the reader reads. */
   private final KijiTable mTable;
   /** A pool of KijiTableReaders used for retrieving data to check for freshness and score. */
-  private final KijiTableReaderPool mReaderPool;
+  private final FreshenerReaderPool mReaderPool;
   /** The default time in milliseconds to wait for a freshening request to complete. */
   private final long mTimeout;
+  /** Tracks per-Freshener latency to derive adaptive timeouts. Null if they are disabled. */
+  private final AdaptiveTimeouts mAdaptiveTimeouts;
   /** A timer task which periodically calls this reader's {@link #rereadFreshenerRecords()}. */
   private final RereadTask mRereadTask;
   /** Whether this reader allows partially freshened data to be written. */
   private final boolean mAllowPartial;
+  /** Whether this reader cancels requests which time out. */
+  private final boolean mCancelOnTimeout;
+  /** Limits the freshening work run by this reader. Null if admission control is disabled. */
+  private final AdmissionController mAdmissionController;
+  /** How to serve requests shed by admission control. */
+  private final OverloadPolicy mOverloadPolicy;
+  /** Whether requests return immediately and refresh in the background by default. */
+  private final boolean mStaleWhileRevalidate;
+  /** Maximum number of background refreshes which may be queued or running. */
+  private final int mMaxPendingRefreshes;
+  /** Maximum rate at which background refreshes start. 0 indicates no limit. */
+  private final double mMaxRefreshesPerSecond;
+  /** Combines concurrent client reads into bulk reads. Null if client reads are not batched. */
+  private final ReadBatcher mReadBatcher;
+  /** Reruns Fresheners of recently read cells before their data expires. Null if disabled. */
+  private final Prefresher mPrefresher;
+  /**
+   * Runs Fresheners in the background for stale-while-revalidate requests and requests shed by
+   * admission control. Created by the first such request.
+   */
+  private volatile BackgroundRefresher mBackgroundRefresher = null;
+  /** Completes asynchronous requests at their timeouts. Created by the first such request. */
+  private volatile ScheduledExecutorService mTimeoutScheduler = null;
   /** The buffered writer through which all fresheners run by this reader commit to the table. */
   private final MultiBufferedWriter mBufferedWriter;
   /** The KijiFreshnessManager used to retrieve updated Freshener records. */
   private final KijiFreshnessManager mFreshnessManager;
   /** Level of statistics gathering (e.g. ALL, NONE). */
   private final StatisticGatheringMode mStatisticGatheringMode;
+  /** 1 in how many requests gather statistics when the statistics gathering mode is SAMPLED. */
+  private final int mStatisticsSampleRate;
   /** Thread responsible for gathering and aggregating statistics. */
   private final StatisticsGathererThread mStatisticsGathererThread;
   /** Queue through which statistics about completed Fresheners are passed to the gatherer. */
   private final BlockingQueue<FreshenerSingleRunStatistics> mStatisticsQueue =
       new LinkedBlockingQueue<FreshenerSingleRunStatistics>();
+  /** Queue through which timing spans of requests are passed to the gatherer. */
+  private final BlockingQueue<FresheningSpan> mSpanQueue =
+      new LinkedBlockingQueue<FresheningSpan>();
+  /** TraceSink to which to emit timing spans of requests, or null if spans are not emitted. */
+  private final TraceSink mTraceSink;
+  /** Publishes the metrics of this reader. */
+  private final ReaderMetrics mMetrics;
   /** Unique ID generator for differentiating requests in logs. */
   private final UniqueIdGenerator mUniqueIdGenerator = new UniqueIdGenerator();
   /** ExecutorService from which to get Futures. */
-  private final ExecutorService mExecutorService;
+  private final ListeningExecutorService mExecutorService;
   /** CounterManager with which to store counters. */
   private final CounterManager mCounterManager;
   /** All mutable state which may be modified by a called to {@link #rereadFreshenerRecords()}. */
@@ -717,13 +827,44 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
    *
    * @param table the KijiTable from which this reader will read and to which it will write.
    * @param timeout the time in milliseconds the reader should wait before returning stale data.
+   * @param adaptiveTimeoutMargin time in milliseconds to add to each Freshener's 99th percentile
+   *     latency to derive its adaptive timeout, or null to disable adaptive timeouts.
+   * @param adaptiveTimeoutSkipThreshold number of consecutive runs longer than the timeout after
+   *     which requests stop waiting for a Freshener. Ignored if adaptiveTimeoutMargin is null.
    * @param rereadPeriod the time in milliseconds between automatically rereading policy records.
    *     A value of 0 indicates no automatic rereads.
    * @param allowPartial whether to allow returning partially freshened data when available.
+   * @param cancelOnTimeout whether to cancel requests which time out, preventing their Fresheners
+   *     from writing.
+   * @param maxInFlightRequests maximum number of freshening requests to run at once, or null to
+   *     disable admission control.
+   * @param maxInFlightPerFreshener maximum number of concurrent runs of each Freshener. Ignored if
+   *     maxInFlightRequests is null.
+   * @param overloadPolicy how to serve requests shed by admission control. Ignored if
+   *     maxInFlightRequests is null.
+   * @param staleWhileRevalidate whether requests return immediately and refresh in the background
+   *     by default.
+   * @param maxPendingRefreshes maximum number of background refreshes which may be queued.
+   * @param maxRefreshesPerSecond maximum rate at which background refreshes start. 0 indicates no
+   *     limit.
+   * @param readBatchLingerMicros time in microseconds for which client reads wait to be batched,
+   *     or null to read the client data of each request separately.
+   * @param maxReadBatchSize number of client reads at which a batch is read without waiting
+   *     further. Ignored if readBatchLingerMicros is null.
+   * @param prefreshLeadTime time in milliseconds before data expires at which to prefresh it, or
+   *     null to disable prefreshing.
+   * @param maxHotCells maximum number of recently read cells tracked for prefreshing. Ignored if
+   *     prefreshLeadTime is null.
+   * @param maxConcurrentPrefreshes maximum number of prefreshes which may run at once. Ignored if
+   *     prefreshLeadTime is null.
+   * @param maxPrefreshesPerSecond maximum rate at which prefreshes start. 0 indicates no limit.
+   *     Ignored if prefreshLeadTime is null.
    * @param columnsToFreshen the set of columns which this reader will attempt to freshen.
    * @param statisticGatheringMode specifies what statistics to gather.
    * @param statisticsLoggingInterval time in milliseconds between automatic logging of statistics.
    *     0 indicates no automatic logging.
+   * @param statisticsSampleRate 1 in how many requests gather statistics when the statistics
+   *     gathering mode is SAMPLED.
    * @param executorService ExecutorService to use for getting Futures.
    * @param counterManager CounterManager with which to store counters.
    * @param overrides ColumnReaderSpec overrides which will change the default behavior when reading
@@ -735,6 +876,13 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
    *     user.
    * @param onDecoderCacheMiss Behavior when the reader fails to find a cell decoder corresponding
    *     to a ColumnReaderSpec override specified in a KijiDataRequest.
+   * @param readerPoolSize maximum number of KijiTableReaders which may be in use at once.
+   * @param readerPoolMaxWait maximum time in milliseconds to wait for a pooled KijiTableReader.
+   *     0 indicates no limit.
+   * @param traceSink TraceSink to which to emit the timing of each stage of freshening requests,
+   *     or null to emit nothing.
+   * @param metricsRegistry MetricsRegistry to which to publish metrics, or null to publish
+   *     nothing.
    * @throws IOException in case of an error reading from the meta table or setting up a
    *     KijiFreshnessPolicy or ScoreFunction.
    */
@@ -742,33 +890,65 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
   public InternalFreshKijiTableReader(
       final KijiTable table,
       final long timeout,
+      final Long adaptiveTimeoutMargin,
+      final Integer adaptiveTimeoutSkipThreshold,
       final long rereadPeriod,
       final boolean allowPartial,
+      final boolean cancelOnTimeout,
+      final Integer maxInFlightRequests,
+      final Integer maxInFlightPerFreshener,
+      final OverloadPolicy overloadPolicy,
+      final boolean staleWhileRevalidate,
+      final int maxPendingRefreshes,
+      final double maxRefreshesPerSecond,
+      final Long readBatchLingerMicros,
+      final Integer maxReadBatchSize,
+      final Long prefreshLeadTime,
+      final Integer maxHotCells,
+      final Integer maxConcurrentPrefreshes,
+      final Double maxPrefreshesPerSecond,
       final List<KijiColumnName> columnsToFreshen,
       final StatisticGatheringMode statisticGatheringMode,
       final long statisticsLoggingInterval,
+      final int statisticsSampleRate,
       final ExecutorService executorService,
       final CounterManager counterManager,
       final Map<KijiColumnName, ColumnReaderSpec> overrides,
       final Multimap<KijiColumnName, ColumnReaderSpec> alternatives,
-      final OnDecoderCacheMiss onDecoderCacheMiss
+      final OnDecoderCacheMiss onDecoderCacheMiss,
+      final int readerPoolSize,
+      final long readerPoolMaxWait,
+      final TraceSink traceSink,
+      final MetricsRegistry metricsRegistry
   ) throws IOException {
     // CSON: ParameterNumberCheck
     mReaderUID = String.format("%s;InternalFreshKijiTableReader@%s@%s",
         JvmId.get(), System.identityHashCode(this), System.currentTimeMillis());
 
     mTable = table;
-    mReaderPool = KijiTableReaderPool.Builder.create()
-        .withReaderFactory(mTable.getReaderFactory())
-        .withExhaustedAction(WhenExhaustedAction.BLOCK)
-        .withMaxActive(FreshenerThreadPool.DEFAULT_THREAD_POOL_SIZE)
-        .withColumnReaderSpecOverrides(overrides)
-        .withColumnReaderSpecAlternatives(alternatives)
-        .withOnDecoderCacheMissBehavior(onDecoderCacheMiss)
-        .build();
+    mReaderPool = FreshenerReaderPool.create(
+        KijiTableReaderPool.Builder.create()
+            .withReaderFactory(mTable.getReaderFactory())
+            .withExhaustedAction(WhenExhaustedAction.BLOCK)
+            .withMaxActive(readerPoolSize)
+            .withColumnReaderSpecOverrides(overrides)
+            .withColumnReaderSpecAlternatives(alternatives)
+            .withOnDecoderCacheMissBehavior(onDecoderCacheMiss)
+            .build(),
+        readerPoolSize,
+        readerPoolMaxWait);
     mBufferedWriter = new MultiBufferedWriter(mTable);
     mTimeout = timeout;
+    mAdaptiveTimeouts = (null == adaptiveTimeoutMargin) ? null : AdaptiveTimeouts.create(
+        adaptiveTimeoutMargin, adaptiveTimeoutSkipThreshold, timeout);
     mAllowPartial = allowPartial;
+    mCancelOnTimeout = cancelOnTimeout;
+    mAdmissionController = (null == maxInFlightRequests) ? null
+        : AdmissionController.create(maxInFlightRequests, maxInFlightPerFreshener);
+    mOverloadPolicy = overloadPolicy;
+    mStaleWhileRevalidate = staleWhileRevalidate;
+    mMaxPendingRefreshes = maxPendingRefreshes;
+    mMaxRefreshesPerSecond = maxRefreshesPerSecond;
     mFreshnessManager = KijiFreshnessManager.create(mTable.getKiji());
     final List<KijiColumnName> innerColumnsToFreshen = (null != columnsToFreshen)
         ? columnsToFreshen : Lists.<KijiColumnName>newArrayList();
@@ -778,13 +958,21 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
         innerColumnsToFreshen,
         records,
         createFresheners(mReaderUID, counterManager, records));
+    warnOfUnflushedDependencies(mRereadableState);
     mStatisticGatheringMode = statisticGatheringMode;
+    mStatisticsSampleRate = statisticsSampleRate;
 
     mStatisticsGathererThread = startStatisticsGatherer(statisticsLoggingInterval);
     mRereadTask = startPeriodicRereader(rereadPeriod);
 
-    mExecutorService = executorService;
+    mExecutorService = MoreExecutors.listeningDecorator(executorService);
     mCounterManager = counterManager;
+    mMetrics = ReaderMetrics.create(metricsRegistry, mTable, mReaderPool, executorService);
+    mTraceSink = mMetrics.wrap(traceSink);
+    mReadBatcher = (null == readBatchLingerMicros) ? null : ReadBatcher.create(
+        mReaderPool, mExecutorService, readBatchLingerMicros, maxReadBatchSize);
+    mPrefresher = (null == prefreshLeadTime) ? null : Prefresher.create(this, mCounterManager,
+        prefreshLeadTime, maxHotCells, maxConcurrentPrefreshes, maxPrefreshesPerSecond);
 
     LOG.debug("Opening reader with UID: {}", mReaderUID);
     // Retain the table once everything else has succeeded.
@@ -849,10 +1037,11 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
 
   /**
    * Start a new StatisticsGathererThread if the reader's statistics gathering mode is not NONE.
+   * In AGGREGATE_ONLY mode the thread only holds and logs the statistics and is not started.
    *
    * @param statisticsLoggingInterval time in milliseconds between logging statistics. 0 indicates
    *     no automatic logging.
-   * @return a new StatisticsGathererThread, already started.
+   * @return a new StatisticsGathererThread, already started unless the mode is AGGREGATE_ONLY.
    */
   private StatisticsGathererThread startStatisticsGatherer(
       final long statisticsLoggingInterval
@@ -860,8 +1049,10 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     final StatisticsGathererThread gatherer;
     if (StatisticGatheringMode.NONE != mStatisticGatheringMode) {
       gatherer = new StatisticsGathererThread(statisticsLoggingInterval);
-      LOG.debug("{} starting statistics gathering thread.", mReaderUID);
-      gatherer.start();
+      if (StatisticGatheringMode.AGGREGATE_ONLY != mStatisticGatheringMode) {
+        LOG.debug("{} starting statistics gathering thread.", mReaderUID);
+        gatherer.start();
+      }
     } else {
       gatherer = null;
     }
@@ -893,6 +1084,84 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     return task;
   }
 
+  /**
+   * Get the statistics gathering mode of a new freshening request. When the reader samples
+   * statistics, requests which are not sampled gather no statistics.
+   *
+   * @return the statistics gathering mode of a new freshening request.
+   */
+  private StatisticGatheringMode getRequestStatisticGatheringMode() {
+    if (StatisticGatheringMode.SAMPLED == mStatisticGatheringMode
+        && 0 != ThreadLocalRandom.current().nextInt(mStatisticsSampleRate)) {
+      return StatisticGatheringMode.NONE;
+    } else {
+      return mStatisticGatheringMode;
+    }
+  }
+
+  /**
+   * Get a RequestTracer for a new freshening request. Stages are only timed if there is a
+   * TraceSink or MetricsRegistry or statistics are being gathered for the request.
+   *
+   * @param id unique identifier of the request.
+   * @param records records of the Fresheners which will be run by the request.
+   * @param statisticGatheringMode the statistics gathering mode of the request.
+   * @return a RequestTracer for a new freshening request.
+   */
+  private RequestTracer getTracer(
+      final RequestId id,
+      final Map<KijiColumnName, KijiFreshenerRecord> records,
+      final StatisticGatheringMode statisticGatheringMode
+  ) {
+    switch (statisticGatheringMode) {
+      case NONE: return RequestTracer.create(id, records, mTraceSink, null, null);
+      case AGGREGATE_ONLY: return RequestTracer.create(
+          id, records, mTraceSink, null, mStatisticsGathererThread.getStatistics());
+      default: return RequestTracer.create(id, records, mTraceSink, mSpanQueue, null);
+    }
+  }
+
+  /**
+   * Wait for each Freshener of a request until it finishes or its adaptive budget has passed.
+   * Every Freshener is waited for so that all those which finish within their budgets are
+   * collected even if another has already missed its budget.
+   *
+   * @param attachedColumns the columns to which the request's Fresheners are attached, in the
+   *     same order as their futures.
+   * @param futures a Future for each of the request's Fresheners.
+   * @param startTime time in nanoseconds at which the request started.
+   * @param timeout timeout of the request in milliseconds.
+   * @return the result of each Freshener's Future.
+   * @throws TimeoutException if any Freshener did not finish within its budget.
+   */
+  private List<Boolean> getWithinBudgets(
+      final Collection<KijiColumnName> attachedColumns,
+      final List<? extends Future<Boolean>> futures,
+      final long startTime,
+      final long timeout
+  ) throws TimeoutException {
+    final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+    final List<Boolean> results = Lists.newArrayListWithCapacity(futures.size());
+    boolean missedBudget = false;
+    int index = 0;
+    for (KijiColumnName attachedColumn : attachedColumns) {
+      final long remainingNanos = mAdaptiveTimeouts.getBudgetNanos(attachedColumn, timeoutNanos)
+          - (System.nanoTime() - startTime);
+      try {
+        results.add(ScoringUtils.getFromFuture(
+            futures.get(index), Math.max(0, remainingNanos), TimeUnit.NANOSECONDS));
+      } catch (TimeoutException te) {
+        LOG.debug("Freshener attached to: {} did not finish within its budget.", attachedColumn);
+        missedBudget = true;
+      }
+      index++;
+    }
+    if (missedBudget) {
+      throw new TimeoutException("Fresheners did not finish within their budgets.");
+    }
+    return results;
+  }
+
   /**
    * Attempts to get and retain the reader's RereadableState until retain succeeds.
    *
@@ -912,117 +1181,367 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     return state;
   }
 
-  // -----------------------------------------------------------------------------------------------
-  // Public interface.
-  // -----------------------------------------------------------------------------------------------
+  /**
+   * Whether a request with the given options should return immediately and refresh in the
+   * background.
+   *
+   * @param options options of the request.
+   * @return whether the request should return immediately and refresh in the background.
+   */
+  private boolean isStaleWhileRevalidate(
+      final FreshRequestOptions options
+  ) {
+    final Boolean staleWhileRevalidate = options.getStaleWhileRevalidate();
+    return (null != staleWhileRevalidate) ? staleWhileRevalidate : mStaleWhileRevalidate;
+  }
 
-  /** {@inheritDoc} */
-  @Override
-  public KijiRowData get(
+  /**
+   * Get the reader's BackgroundRefresher, creating it if this is the first stale-while-revalidate
+   * or shed request.
+   *
+   * @return the reader's BackgroundRefresher.
+   */
+  private BackgroundRefresher getBackgroundRefresher() {
+    BackgroundRefresher refresher = mBackgroundRefresher;
+    if (null == refresher) {
+      synchronized (this) {
+        refresher = mBackgroundRefresher;
+        if (null == refresher) {
+          refresher = BackgroundRefresher.create(
+              this, mCounterManager, mMaxPendingRefreshes, mMaxRefreshesPerSecond);
+          mBackgroundRefresher = refresher;
+        }
+      }
+    }
+    return refresher;
+  }
+
+  /**
+   * Get the scheduler which completes asynchronous requests at their timeouts, creating it if this
+   * is the first asynchronous request.
+   *
+   * @return the reader's timeout scheduler.
+   */
+  private ScheduledExecutorService getTimeoutScheduler() {
+    ScheduledExecutorService scheduler = mTimeoutScheduler;
+    if (null == scheduler) {
+      synchronized (this) {
+        scheduler = mTimeoutScheduler;
+        if (null == scheduler) {
+          final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("fresh-reader-timeout-%d")
+                  .setDaemon(true)
+                  .build());
+          // Requests which finish on time cancel their timeouts, do not keep them queued.
+          executor.setRemoveOnCancelPolicy(true);
+          scheduler = executor;
+          mTimeoutScheduler = scheduler;
+        }
+      }
+    }
+    return scheduler;
+  }
+
+  /**
+   * Read the client data of a request asynchronously, as part of a batch if read batching is
+   * enabled.
+   *
+   * @param entityId the row to read.
+   * @param dataRequest the data to read.
+   * @param tracer RequestTracer with which to time the read.
+   * @return a Future which completes with the client data.
+   */
+  private ListenableFuture<KijiRowData> readClientData(
       final EntityId entityId,
-      final KijiDataRequest dataRequest
-  ) throws IOException {
-    return get(
-        entityId, dataRequest, FreshKijiTableReader.FreshRequestOptions.withTimeout(mTimeout));
+      final KijiDataRequest dataRequest,
+      final RequestTracer tracer
+  ) {
+    if (null == mReadBatcher) {
+      return mExecutorService.submit(new TableReadCallable(
+          mReaderPool, entityId, dataRequest, tracer, null, FresheningStage.CLIENT_READ));
+    } else {
+      return mReadBatcher.read(entityId, dataRequest, tracer);
+    }
   }
 
-  /** {@inheritDoc} */
-  @Override
-  public KijiRowData get(
+  /**
+   * Start the Fresheners applicable to a request.
+   *
+   * <p>
+   *   Returns null if the request should be served by reading directly from the table. This is the
+   *   case if no Fresheners apply to the request, if the request refreshes in the background, or if
+   *   the request was shed by admission control. Shed requests whose Fresheners run in the
+   *   background have been queued with the BackgroundRefresher when this method returns.
+   * </p>
+   *
+   * @param id unique identifier of the request.
+   * @param startTime time in nanoseconds at which the request started.
+   * @param entityId the row to freshen.
+   * @param dataRequest the data to freshen.
+   * @param options options which affect the behavior of this request only.
+   * @param isPrefresh whether the request is a prefresh which should score data that is due to
+   *     expire.
+   * @return the started request, or null if the request should be served from the table.
+   * @throws IOException in case of an error getting a reader from the pool.
+   */
+  private StartedRequest startRequest(
+      final RequestId id,
+      final long startTime,
       final EntityId entityId,
       final KijiDataRequest dataRequest,
-      final FreshRequestOptions options
+      final FreshRequestOptions options,
+      final boolean isPrefresh
   ) throws IOException {
-    requireState(LifecycleState.OPEN);
-    // Get the start time for the request.
-    final long startTime = System.nanoTime();
-
-    final String id = String.format("%s#%s", mReaderUID, mUniqueIdGenerator.getNextUniqueId());
-    LOG.debug("{} starting with EntityId: {} data request: {} request options: {}",
-        id, entityId, dataRequest, options);
-
-    final KijiTableReader requestReader = ScoringUtils.getPooledReader(mReaderPool);
+    final ImmutableList<KijiColumnName> requestColumns =
+        removeDisabledColumns(getColumnsFromRequest(dataRequest), options.getDisabledColumns());
+
+    final ImmutableMap<KijiColumnName, Freshener> fresheners;
+    final ImmutableMap<KijiColumnName, KijiFreshenerRecord> records;
+    final ImmutableMap<KijiColumnName, ImmutableSet<KijiColumnName>> upstreamColumns;
+    // Get a retained snapshot of the rereadable state.
+    final RereadableState rereadableState = getRereadableState();
     try {
-      final ImmutableList<KijiColumnName> requestColumns =
-          removeDisabledColumns(getColumnsFromRequest(dataRequest), options.getDisabledColumns());
-
-      final ImmutableMap<KijiColumnName, Freshener> fresheners;
-      final ImmutableMap<KijiColumnName, KijiFreshenerRecord> records;
-      // Get a retained snapshot of the rereadable state.
-      final RereadableState rereadableState = getRereadableState();
-      try {
-        // Collect the Fresheners and Records applicable to this request.
-        fresheners = filterFresheners(requestColumns, rereadableState.mFresheners);
+      // Collect the Fresheners and Records applicable to this request.
+      fresheners = filterFresheners(requestColumns, rereadableState.mFresheners);
+      // If there are no Fresheners attached to the requested columns, read from the table.
+      if (fresheners.isEmpty()) {
+        return null;
+      } else if (isStaleWhileRevalidate(options)) {
+        // Queue the Fresheners to run in the background and return the current data.
+        LOG.debug("{} queuing background refresh and returning current data.", id);
+        getBackgroundRefresher().submit(
+            entityId, dataRequest, options.withoutStaleWhileRevalidate());
+        return null;
+      } else {
+        // Retain the Fresheners so that they cannot be cleaned up while in use.
+        for (Map.Entry<KijiColumnName, Freshener> freshenerEntry : fresheners.entrySet()) {
+          freshenerEntry.getValue().retain();
+        }
+        // Records are only needed once the request is known to run Fresheners.
         records = filterRecords(rereadableState.mFreshenerRecords, requestColumns);
-        // If there are no Fresheners attached to the requested columns, return the requested data.
-        if (fresheners.isEmpty()) {
-          return requestReader.get(entityId, dataRequest);
+        upstreamColumns = rereadableState.mUpstreamColumns;
+      }
+    } finally {
+      rereadableState.release();
+    }
+
+    LOG.debug("{} will run Fresheners: {}", id, fresheners.values());
+
+    final AdmissionController.Admission admission;
+    if (null == mAdmissionController) {
+      admission = null;
+    } else {
+      admission = mAdmissionController.tryAdmit(fresheners.keySet(), mCounterManager);
+      if (null == admission) {
+        mMetrics.requestShed();
+        for (Freshener freshener : fresheners.values()) {
+          freshener.release();
+        }
+        if (OverloadPolicy.RETURN_STALE == mOverloadPolicy) {
+          LOG.debug("{} was shed, returning stale data.", id);
+        } else if (getBackgroundRefresher().submit(
+            entityId, dataRequest, options.withoutStaleWhileRevalidate())) {
+          // Shed work is bounded and deduplicated by the BackgroundRefresher. A refresh which is
+          // shed again while it runs is deduplicated against itself and dropped.
+          LOG.debug("{} was shed, queuing background refresh.", id);
+          mCounterManager.incrementCounter(AdmissionCounter.FRESHENED_IN_BACKGROUND, 1);
         } else {
-          // Retain the Fresheners so that they cannot be cleaned up while in use.
-          for (Map.Entry<KijiColumnName, Freshener> freshenerEntry : fresheners.entrySet()) {
-            freshenerEntry.getValue().retain();
-          }
+          LOG.debug("{} was shed, background refresh dropped.", id);
         }
-      } finally {
-        rereadableState.release();
+        return null;
       }
+    }
 
-      LOG.debug("{} will run Fresheners: {}", id, fresheners.values());
-
-      final Future<KijiRowData> clientDataFuture = ScoringUtils.getFuture(
-          mExecutorService, new TableReadCallable(mReaderPool, entityId, dataRequest));
+    final StatisticGatheringMode statisticGatheringMode = getRequestStatisticGatheringMode();
+    final RequestTracer tracer = getTracer(id, records, statisticGatheringMode);
+    // If the options specify timeout of -1 this indicates we should use the configured timeout.
+    final long timeout = (-1 == options.getTimeout()) ? mTimeout : options.getTimeout();
 
-      final FresheningRequestContext requestContext = new FresheningRequestContext(
+    final Future<KijiRowData> clientDataFuture;
+    final FresheningRequestContext requestContext;
+    try {
+      clientDataFuture = readClientData(entityId, dataRequest, tracer);
+      requestContext = new FresheningRequestContext(
           id,
           startTime,
           fresheners,
           options.getParameters(),
           records,
+          upstreamColumns,
           mReaderPool,
           entityId,
           dataRequest,
           clientDataFuture,
           mBufferedWriter,
           mAllowPartial,
-          mStatisticGatheringMode,
+          statisticGatheringMode,
           mStatisticsQueue,
+          (null != mStatisticsGathererThread) ? mStatisticsGathererThread.getStatistics() : null,
           mExecutorService,
-          mCounterManager);
-
-      final ImmutableList<Future<Boolean>> futures = requestContext.getFuturesForFresheners();
+          mCounterManager,
+          tracer,
+          mMetrics,
+          mAdaptiveTimeouts,
+          RequestDeadline.create(startTime, TimeUnit.MILLISECONDS.toNanos(timeout)),
+          admission,
+          mPrefresher,
+          isPrefresh);
+    } catch (RuntimeException re) {
+      // No Freshener has started, so release everything the request holds.
+      if (null != admission) {
+        admission.releaseAll();
+      }
+      for (Freshener freshener : fresheners.values()) {
+        freshener.release();
+      }
+      throw re;
+    }
 
-      final Future<List<Boolean>> superFuture =
-          ScoringUtils.getFuture(mExecutorService, new FutureAggregatingCallable<Boolean>(futures));
+    final ImmutableList<ListenableFuture<Boolean>> futures =
+        requestContext.getFuturesForFresheners();
+    return new StartedRequest(requestContext, fresheners, futures, clientDataFuture, timeout);
+  }
 
-      // If the options specify timeout of -1 this indicates we should use the configured timeout.
-      final long timeout = (-1 == options.getTimeout()) ? mTimeout : options.getTimeout();
+  /**
+   * Finish a request whose Fresheners all finished before its timeout.
+   *
+   * @param id unique identifier of the request.
+   * @param request the started request.
+   * @param results whether each Freshener of the request wrote a value.
+   * @return the data requested after freshening.
+   * @throws IOException in case of an error reading from the table.
+   */
+  private static KijiRowData completeOnTime(
+      final RequestId id,
+      final StartedRequest request,
+      final List<Boolean> results
+  ) throws IOException {
+    if (results.contains(true)) {
+      // If all Fresheners return in time and at least one has written a new value, read from
+      // the table.
+      LOG.debug("{} completed on time and data was written.", id);
+      return request.mContext.finalRead();
+    } else {
+      // If all Fresheners return in time, but none have written new values, do not read from
+      // the table.
+      LOG.debug("{} completed on time and no data was written.", id);
       try {
-        if (ScoringUtils.getFromFuture(superFuture, timeout).contains(true)) {
-          // If all Fresheners return in time and at least one has written a new value, read from
-          // the table.
-          LOG.debug("{} completed on time and data was written.", id);
-          return requestReader.get(entityId, dataRequest);
-        } else {
-          // If all Fresheners return in time, but none have written new values, do not read from
-          // the table.
-          LOG.debug("{} completed on time and no data was written.", id);
-          try {
-            return ScoringUtils.getFromFuture(clientDataFuture, 0L);
-          } catch (TimeoutException te) {
-            // If client data is not immediately available, read from the table.
-            return requestReader.get(entityId, dataRequest);
-          }
-        }
+        return ScoringUtils.getFromFuture(request.mClientDataFuture, 0L);
       } catch (TimeoutException te) {
-        requestContext.timeOut();
-        // If superFuture times out, read partially freshened data from the table or return the
-        // cached data based on whether partial freshness is allowed.
-        LOG.debug("{} timed out, checking for partial writes.", id);
-        return requestContext.checkAndRead();
+        // If client data is not immediately available, read from the table.
+        return request.mContext.finalRead();
+      }
+    }
+  }
+
+  /**
+   * Finish a request whose Fresheners did not all finish before its timeout.
+   *
+   * @param id unique identifier of the request.
+   * @param request the started request.
+   * @return stale or partially freshened data depending on the configuration of the reader.
+   * @throws IOException in case of an error reading from the table.
+   */
+  private KijiRowData completeTimedOut(
+      final RequestId id,
+      final StartedRequest request
+  ) throws IOException {
+    request.mContext.timeOut();
+    if (mCancelOnTimeout) {
+      request.mContext.cancel();
+    }
+    // If Fresheners time out, read partially freshened data from the table or return the
+    // cached data based on whether partial freshness is allowed.
+    LOG.debug("{} timed out, checking for partial writes.", id);
+    return request.mContext.checkAndRead();
+  }
+
+  /**
+   * Start a prefresh of a single cell. The cell's Freshener runs as part of a normal freshening
+   * request, except that data which its policy finds fresh but due to expire is scored as if it
+   * were stale. Nothing waits for the request; its Fresheners write when they finish.
+   *
+   * <p>
+   *   This method is package private to be used by Prefresher. It should not be used elsewhere.
+   * </p>
+   *
+   * @param entityId the row of the cell.
+   * @param column the column of the cell.
+   * @return a Future which completes with whether each Freshener of the prefresh wrote a value, or
+   *     null if no Freshener was started.
+   * @throws IOException in case of an error getting a reader from the pool.
+   */
+  ListenableFuture<List<Boolean>> prefresh(
+      final EntityId entityId,
+      final KijiColumnName column
+  ) throws IOException {
+    final RequestId id = RequestId.create(mReaderUID, mUniqueIdGenerator.getNextId());
+    LOG.debug("{} prefreshing EntityId: {} column: {}", id, entityId, column);
+    final StartedRequest request = startRequest(
+        id,
+        System.nanoTime(),
+        entityId,
+        KijiDataRequest.create(column.getFamily(), column.getQualifier()),
+        FreshRequestOptions.withTimeout(mTimeout).withoutStaleWhileRevalidate(),
+        true);
+    return (null == request) ? null : Futures.allAsList(request.mFutures);
+  }
+
+  // -----------------------------------------------------------------------------------------------
+  // Public interface.
+  // -----------------------------------------------------------------------------------------------
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiRowData get(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest
+  ) throws IOException {
+    return get(
+        entityId, dataRequest, FreshKijiTableReader.FreshRequestOptions.withTimeout(mTimeout));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiRowData get(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest,
+      final FreshRequestOptions options
+  ) throws IOException {
+    requireState(LifecycleState.OPEN);
+    // Get the start time for the request.
+    final long startTime = System.nanoTime();
+    mMetrics.requestStarted();
+
+    // The ID is formatted only if it is logged or traced.
+    final RequestId id = RequestId.create(mReaderUID, mUniqueIdGenerator.getNextId());
+    LOG.debug("{} starting with EntityId: {} data request: {} request options: {}",
+        id, entityId, dataRequest, options);
+
+    final StartedRequest request =
+        startRequest(id, startTime, entityId, dataRequest, options, false);
+    if (null == request) {
+      return mReaderPool.get(entityId, dataRequest);
+    }
+
+    boolean timedOut = false;
+    try {
+      final List<Boolean> results;
+      if (null == mAdaptiveTimeouts) {
+        final Future<List<Boolean>> superFuture = ScoringUtils.getFuture(
+            mExecutorService, new FutureAggregatingCallable<Boolean>(request.mFutures));
+        results = ScoringUtils.getFromFuture(superFuture, request.mTimeout);
+      } else {
+        results = getWithinBudgets(
+            request.mFresheners.keySet(), request.mFutures, startTime, request.mTimeout);
       }
+      return completeOnTime(id, request, results);
+    } catch (TimeoutException te) {
+      timedOut = true;
+      return completeTimedOut(id, request);
     } finally {
-      // Return the reader to the pool.
-      requestReader.close();
+      mMetrics.requestFinished(System.nanoTime() - startTime, timedOut);
     }
   }
 
@@ -1046,68 +1565,67 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
       final FreshRequestOptions options
   ) throws IOException {
     requireState(LifecycleState.OPEN);
+    final long startTime = System.nanoTime();
 
     final KijiColumnName columnName = KijiColumnName.create(family, qualifier);
     final KijiDataRequest dataRequest = KijiDataRequest.create(family, qualifier);
 
-    final String id = String.format("%s#%s", mReaderUID, mUniqueIdGenerator.getNextUniqueId());
+    // The ID is formatted only if it is logged or traced.
+    final RequestId id = RequestId.create(mReaderUID, mUniqueIdGenerator.getNextId());
     LOG.debug("{} starting with EntityId: {} data request: {} request options: {}",
         id, entityId, dataRequest, options);
 
-    final KijiTableReader requestReader = ScoringUtils.getPooledReader(mReaderPool);
+    final Freshener freshener;
+    final RereadableState rereadableState = getRereadableState();
     try {
-      final Freshener freshener;
-      final RereadableState rereadableState = getRereadableState();
-      try {
-        freshener = rereadableState.mFresheners.get(columnName);
-        if (null == freshener) {
-          return requestReader.get(entityId, dataRequest).getMostRecentValue(family, qualifier);
-        } else {
-          freshener.retain();
-        }
-      } finally {
-        rereadableState.release();
+      freshener = rereadableState.mFresheners.get(columnName);
+      if (null == freshener) {
+        return mReaderPool.get(entityId, dataRequest).getMostRecentValue(family, qualifier);
+      } else {
+        freshener.retain();
       }
+    } finally {
+      rereadableState.release();
+    }
 
-      LOG.debug("{} will run Freshener: {}", id, freshener);
+    LOG.debug("{} will run Freshener: {}", id, freshener);
 
-      final InternalFreshenerContext freshenerContext = InternalFreshenerContext.create(
-          dataRequest,
-          columnName,
-          freshener.getParameters(),
-          options.getParameters(),
-          mCounterManager,
-          freshener.getKVStoreReaderFactory());
+    final long timeout = (-1 == options.getTimeout()) ? mTimeout : options.getTimeout();
+    final InternalFreshenerContext freshenerContext = InternalFreshenerContext.create(
+        dataRequest,
+        columnName,
+        freshener.getParameters(),
+        options.getParameters(),
+        mCounterManager,
+        freshener.getKVStoreReaderFactory(),
+        freshener.getKVStoreCaches(),
+        RequestDeadline.create(startTime, TimeUnit.MILLISECONDS.toNanos(timeout)));
 
-      final Future<KijiRowData> clientDataFuture = ScoringUtils.getFuture(
-          mExecutorService, new TableReadCallable(mReaderPool, entityId, dataRequest));
+    final Future<KijiRowData> clientDataFuture = ScoringUtils.getFuture(
+        mExecutorService, new TableReadCallable(mReaderPool, entityId, dataRequest));
 
-      final Future<T> freshenerFuture = getFutureForFreshener(
-          id,
-          freshener,
-          freshenerContext,
-          clientDataFuture,
-          mExecutorService,
-          mReaderPool,
-          entityId);
+    final Future<T> freshenerFuture = getFutureForFreshener(
+        id,
+        freshener,
+        freshenerContext,
+        clientDataFuture,
+        mExecutorService,
+        mReaderPool,
+        entityId);
 
-      final long timeout = (-1 == options.getTimeout()) ? mTimeout : options.getTimeout();
-      try {
-        final T retval = ScoringUtils.getFromFuture(freshenerFuture, timeout);
-        LOG.debug("{} completed on time, asynchronously writing data.");
-        // TODO(SCORE-163) do not ignore the return value of this call.
-        mExecutorService.submit(new TableWriteRunnable<T>(
-            mBufferedWriter.openSingleBuffer(1), entityId, family, qualifier, retval));
-        return retval;
-      } catch (TimeoutException te) {
-        LOG.debug("{} timed out, returning stale data.", id);
-        // TODO(SCORE-163) do not ignore the return value of this call.
-        mExecutorService.submit(new TableWriteRunnable<T>(
-            mBufferedWriter.openSingleBuffer(1), entityId, family, qualifier, freshenerFuture));
-        return ScoringUtils.getFromFuture(clientDataFuture).getMostRecentValue(family, qualifier);
-      }
-    } finally {
-      requestReader.close();
+    try {
+      final T retval = ScoringUtils.getFromFuture(freshenerFuture, timeout);
+      LOG.debug("{} completed on time, asynchronously writing data.");
+      // TODO(SCORE-163) do not ignore the return value of this call.
+      mExecutorService.submit(new TableWriteRunnable<T>(
+          mBufferedWriter.openSingleBuffer(1), entityId, family, qualifier, retval));
+      return retval;
+    } catch (TimeoutException te) {
+      LOG.debug("{} timed out, returning stale data.", id);
+      // TODO(SCORE-163) do not ignore the return value of this call.
+      mExecutorService.submit(new TableWriteRunnable<T>(
+          mBufferedWriter.openSingleBuffer(1), entityId, family, qualifier, freshenerFuture));
+      return ScoringUtils.getFromFuture(clientDataFuture).getMostRecentValue(family, qualifier);
     }
   }
 
@@ -1142,13 +1660,145 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
       return ScoringUtils.getFromFuture(superDuperFuture, options.getTimeout());
     } catch (TimeoutException te) {
       // If the request times out, read from the table.
-      final KijiTableReader reader = ScoringUtils.getPooledReader(mReaderPool);
-      try {
-        return reader.bulkGet(entityIds, dataRequest);
-      } finally {
-        reader.close();
+      return mReaderPool.bulkGet(entityIds, dataRequest);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ListenableFuture<KijiRowData> getAsync(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest
+  ) {
+    return getAsync(
+        entityId, dataRequest, FreshKijiTableReader.FreshRequestOptions.withTimeout(mTimeout));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>
+   *   Fresheners are run exactly as they are by
+   *   {@link #get(EntityId, KijiDataRequest, FreshRequestOptions)}, but no thread waits for them.
+   *   The request is finished by whichever happens first: the last Freshener finishing, or a timer
+   *   firing at the request's timeout. Data is read from the table on the reader's
+   *   ExecutorService. Adaptive timeouts bound only the request as a whole.
+   * </p>
+   */
+  @Override
+  public ListenableFuture<KijiRowData> getAsync(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest,
+      final FreshRequestOptions options
+  ) {
+    requireState(LifecycleState.OPEN);
+    final long startTime = System.nanoTime();
+    mMetrics.requestStarted();
+
+    final RequestId id = RequestId.create(mReaderUID, mUniqueIdGenerator.getNextId());
+    LOG.debug("{} starting asynchronously with EntityId: {} data request: {} request options: {}",
+        id, entityId, dataRequest, options);
+
+    final StartedRequest request;
+    try {
+      request = startRequest(id, startTime, entityId, dataRequest, options, false);
+    } catch (IOException ioe) {
+      return Futures.immediateFailedFuture(ioe);
+    }
+    if (null == request) {
+      return readClientData(entityId, dataRequest, RequestTracer.DISABLED);
+    }
+
+    final SettableFuture<KijiRowData> result = SettableFuture.create();
+    // Whichever of the Fresheners finishing and the timeout happens first finishes the request.
+    final AtomicBoolean isFinished = new AtomicBoolean(false);
+    final long remainingNanos =
+        TimeUnit.MILLISECONDS.toNanos(request.mTimeout) - (System.nanoTime() - startTime);
+    final ScheduledFuture<?> timeoutFuture = getTimeoutScheduler().schedule(new Runnable() {
+      /** {@inheritDoc} */
+      @Override
+      public void run() {
+        if (isFinished.compareAndSet(false, true)) {
+          // Reading stale data may read from the table, so do not read on the timer thread.
+          mExecutorService.execute(new Runnable() {
+            /** {@inheritDoc} */
+            @Override
+            public void run() {
+              try {
+                result.set(completeTimedOut(id, request));
+              } catch (Throwable t) {
+                result.setException(t);
+              } finally {
+                mMetrics.requestFinished(System.nanoTime() - startTime, true);
+              }
+            }
+          });
+        }
+      }
+    }, Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS);
+
+    Futures.addCallback(Futures.allAsList(request.mFutures), new FutureCallback<List<Boolean>>() {
+      /** {@inheritDoc} */
+      @Override
+      public void onSuccess(
+          final List<Boolean> results
+      ) {
+        if (isFinished.compareAndSet(false, true)) {
+          timeoutFuture.cancel(false);
+          try {
+            result.set(completeOnTime(id, request, results));
+          } catch (Throwable t) {
+            result.setException(t);
+          } finally {
+            mMetrics.requestFinished(System.nanoTime() - startTime, false);
+          }
+        }
       }
+
+      /** {@inheritDoc} */
+      @Override
+      public void onFailure(
+          final Throwable t
+      ) {
+        if (isFinished.compareAndSet(false, true)) {
+          timeoutFuture.cancel(false);
+          mMetrics.requestFinished(System.nanoTime() - startTime, false);
+          result.setException(t);
+        }
+      }
+    }, mExecutorService);
+
+    return result;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ListenableFuture<List<KijiRowData>> bulkGetAsync(
+      final List<EntityId> entityIds,
+      final KijiDataRequest dataRequest
+  ) {
+    return bulkGetAsync(
+        entityIds, dataRequest, FreshKijiTableReader.FreshRequestOptions.withTimeout(mTimeout));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public ListenableFuture<List<KijiRowData>> bulkGetAsync(
+      final List<EntityId> entityIds,
+      final KijiDataRequest dataRequest,
+      final FreshRequestOptions options
+  ) {
+    requireState(LifecycleState.OPEN);
+
+    LOG.debug("{} starting asynchronous bulk get request.", mReaderUID);
+
+    // Each row finishes by its own timeout, so the aggregate finishes by the same deadline.
+    final List<ListenableFuture<KijiRowData>> futures =
+        Lists.newArrayListWithCapacity(entityIds.size());
+    for (EntityId entityId : entityIds) {
+      futures.add(getAsync(entityId, dataRequest, options));
     }
+    return Futures.allAsList(futures);
   }
 
   /** {@inheritDoc} */
@@ -1176,6 +1826,12 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     return mStatisticsGathererThread.getStatistics();
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public ReaderPoolStatistics getReaderPoolStatistics() {
+    return mReaderPool.getStatistics();
+  }
+
   /** {@inheritDoc} */
   @Override
   public CounterManager getCounterManager() {
@@ -1229,9 +1885,34 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
             mCounterManager,
             newRecords,
             ImmutableMap.copyOf(oldFresheners)));
+    warnOfUnflushedDependencies(mRereadableState);
     oldState.release();
   }
 
+  /**
+   * Log a warning if partial freshening is disabled and any Freshener depends on another. Without
+   * partial freshening no score is written until every Freshener of a request has finished, so a
+   * dependent reads the values of the Fresheners on which it depends as they were stored before
+   * the request.
+   *
+   * @param state the RereadableState whose Fresheners to check.
+   */
+  private void warnOfUnflushedDependencies(
+      final RereadableState state
+  ) {
+    if (mAllowPartial) {
+      return;
+    }
+    for (Map.Entry<KijiColumnName, ImmutableSet<KijiColumnName>> upstream
+        : state.mUpstreamColumns.entrySet()) {
+      if (!upstream.getValue().isEmpty()) {
+        LOG.warn("Freshener attached to: {} depends on Fresheners attached to: {}. Partial "
+            + "freshening is disabled, so it will read their values as stored before each request.",
+            upstream.getKey(), upstream.getValue());
+      }
+    }
+  }
+
   /** {@inheritDoc} */
   @Override
   public void close() throws IOException {
@@ -1246,6 +1927,16 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
       mRereadTask.cancel();
     }
 
+    if (null != mPrefresher) {
+      mPrefresher.close();
+    }
+    // Stop issuing reads before closing the reader pool from which they borrow readers.
+    if (null != mBackgroundRefresher) {
+      mBackgroundRefresher.close();
+    }
+    if (null != mReadBatcher) {
+      mReadBatcher.close();
+    }
     mFreshnessManager.close();
     try {
       mReaderPool.close();
@@ -1256,7 +1947,11 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
         throw new RuntimeException(e);
       }
     }
+    if (null != mTimeoutScheduler) {
+      mTimeoutScheduler.shutdownNow();
+    }
     mBufferedWriter.close();
+    mMetrics.close();
     mRereadableState.release();
     mTable.release();
 
@@ -1270,11 +1965,20 @@ public final class InternalFreshKijiTableReader implements FreshKijiTableReader
     return Objects.toStringHelper(InternalFreshKijiTableReader.class)
         .add("table", mTable)
         .add("timeout", mTimeout)
+        .add("adaptive_timeouts", mAdaptiveTimeouts)
         .add("automatic_reread_period",
             (null != mRereadTask) ? mRereadTask.getRereadPeriod() : "no_automatic_reread")
         .add("allows_partial_freshening", mAllowPartial)
+        .add("cancels_on_timeout", mCancelOnTimeout)
+        .add("admission_controller", mAdmissionController)
+        .add("overload_policy", mOverloadPolicy)
+        .add("stale_while_revalidate", mStaleWhileRevalidate)
+        .add("read_batcher", mReadBatcher)
+        .add("background_refresher", mBackgroundRefresher)
+        .add("prefresher", mPrefresher)
         .add("freshens_columns", Joiner.on(", ").join(mRereadableState.mColumnsToFreshen))
         .add("statistics_gathering_mode", mStatisticGatheringMode)
+        .add("statistics_sample_rate", mStatisticsSampleRate)
         .add("statistics_logging_period", (null != mStatisticsGathererThread)
             ? mStatisticsGathererThread.getLoggingInterval() : "no_statistics_gathered")
         .addValue(mState)
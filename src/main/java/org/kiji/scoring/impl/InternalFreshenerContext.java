@@ -52,7 +52,8 @@ public final class InternalFreshenerContext implements FreshenerContext {
   // -----------------------------------------------------------------------------------------------
 
   /**
-   * Union the parameters and overrides and return an immutable view of the map.
+   * Union the parameters and overrides and return an immutable view of the map. If there are no
+   * overrides and the parameters are already immutable, they are returned without copying.
    *
    * @param parameters base parameters to merge.
    * @param overrides overrides to merge. Entries in this map will mask entries in parameters.
@@ -62,6 +63,9 @@ public final class InternalFreshenerContext implements FreshenerContext {
       final Map<String, String> parameters,
       final Map<String, String> overrides
   ) {
+    if (overrides.isEmpty()) {
+      return ImmutableMap.copyOf(parameters);
+    }
     final Map<String, String> collectedParameters = Maps.newHashMap(parameters);
     collectedParameters.putAll(overrides);
     return ImmutableMap.copyOf(collectedParameters);
@@ -89,7 +93,8 @@ public final class InternalFreshenerContext implements FreshenerContext {
         attachedColumn,
         parameters,
         EMPTY_PARAMS,
-        counterManager);
+        counterManager,
+        RequestDeadline.NONE);
   }
 
   /**
@@ -115,7 +120,8 @@ public final class InternalFreshenerContext implements FreshenerContext {
         attachedColumn,
         parameters,
         EMPTY_PARAMS,
-        counterManager);
+        counterManager,
+        RequestDeadline.NONE);
     ifc.setKeyValueStoreReaderFactory(factory);
     return ifc;
   }
@@ -143,14 +149,57 @@ public final class InternalFreshenerContext implements FreshenerContext {
       final Map<String, String> parameterOverrides,
       final CounterManager counterManager,
       final KeyValueStoreReaderFactory factory
+  ) {
+    return create(
+        clientRequest,
+        attachedColumn,
+        parameters,
+        parameterOverrides,
+        counterManager,
+        factory,
+        null,
+        RequestDeadline.NONE);
+  }
+
+  /**
+   * Create a new InternalFreshenerContext appropriate for use as a FreshenerContext serving a
+   * Freshener run as part of a request with a deadline. All fields will be set.
+   *
+   * @param clientRequest the client data request which triggered the Freshener served by this
+   * context.
+   * @param attachedColumn the column to which the Freshener served by this context is attached.
+   * @param parameters the configuration parameters recovered from the KijiFreshenerRecord from
+   *     which the Freshener served by this context was built.
+   * @param parameterOverrides configuration parameters passed to a FreshKijiTableReader at request
+   *     time. These overrides take precedence over 'parameters'.
+   * @param counterManager CounterManager with which to manage counters.
+   * @param factory a KeyValueStoreReaderFactory which provides KeyValueStoreReaders for this
+   *     context.
+   * @param storeCaches KeyValueStoreCaches which provide cached KeyValueStoreReaders for this
+   *     context, or null to open all KeyValueStoreReaders from the factory.
+   * @param deadline the deadline of the request which triggered the Freshener served by this
+   *     context.
+   * @return a new InternalFreshenerContext.
+   */
+  static InternalFreshenerContext create(
+      final KijiDataRequest clientRequest,
+      final KijiColumnName attachedColumn,
+      final Map<String, String> parameters,
+      final Map<String, String> parameterOverrides,
+      final CounterManager counterManager,
+      final KeyValueStoreReaderFactory factory,
+      final KeyValueStoreCaches storeCaches,
+      final RequestDeadline deadline
   ) {
     final InternalFreshenerContext ifc = new InternalFreshenerContext(
         clientRequest,
         attachedColumn,
         parameters,
         parameterOverrides,
-        counterManager);
+        counterManager,
+        deadline);
     ifc.setKeyValueStoreReaderFactory(factory);
+    ifc.mStoreCaches = storeCaches;
     return ifc;
   }
 
@@ -162,7 +211,10 @@ public final class InternalFreshenerContext implements FreshenerContext {
   private final KijiColumnName mAttachedColumn;
   private final Map<String, String> mParameters;
   private final CounterManager mCounterManager;
+  private final RequestDeadline mDeadline;
   private KeyValueStoreReaderFactory mReaderFactory = null;
+  /** Caches lookups of KeyValueStores configured for caching. Null if no stores are cached. */
+  private KeyValueStoreCaches mStoreCaches = null;
 
   /**
    * Initialize a new InternalFreshenerContext.
@@ -175,18 +227,22 @@ public final class InternalFreshenerContext implements FreshenerContext {
    * @param parameterOverrides configuration parameters passed to a FreshKijiTableReader at request
    *     time. These overrides take precedence over 'parameters'.
    * @param counterManager CounterManager with which to manage counters.
+   * @param deadline the deadline of the request which triggered the Freshener served by this
+   *     context.
    */
   private InternalFreshenerContext(
       final KijiDataRequest clientRequest,
       final KijiColumnName attachedColumn,
       final Map<String, String> parameters,
       final Map<String, String> parameterOverrides,
-      final CounterManager counterManager
+      final CounterManager counterManager,
+      final RequestDeadline deadline
   ) {
     mClientRequest = clientRequest;
     mAttachedColumn = attachedColumn;
     mParameters = unionParameters(parameters, parameterOverrides);
     mCounterManager = counterManager;
+    mDeadline = deadline;
   }
 
   /**
@@ -215,6 +271,18 @@ public final class InternalFreshenerContext implements FreshenerContext {
     return mClientRequest;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public long getRemainingNanos() {
+    return mDeadline.getRemainingNanos();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isCancelled() {
+    return mDeadline.isCancelled();
+  }
+
   /** {@inheritDoc} */
   @Override
   public KijiColumnName getAttachedColumn() {
@@ -228,7 +296,11 @@ public final class InternalFreshenerContext implements FreshenerContext {
   ) throws IOException {
     Preconditions.checkState(null != mReaderFactory,
         "Cannot open KeyValueStores during calls to getRequiredStores()");
-    return mReaderFactory.openStore(storeName);
+    if (null != mStoreCaches) {
+      return mStoreCaches.openStore(storeName);
+    } else {
+      return mReaderFactory.openStore(storeName);
+    }
   }
 
   /** {@inheritDoc} */
@@ -28,8 +28,6 @@ import org.kiji.annotations.ApiAudience;
 import org.kiji.schema.EntityId;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiRowData;
-import org.kiji.schema.KijiTableReader;
-import org.kiji.schema.KijiTableReaderPool;
 
 /**
  * Callable which performs freshening for a single isolated column. This callable does not persist
@@ -49,9 +47,9 @@ final class IsolatedFreshenerCallable<T> implements Callable<T> {
   private final Freshener mFreshener;
   private final Future<KijiRowData> mDataToCheckFuture;
   private final InternalFreshenerContext mContext;
-  private final String mRequestId;
+  private final RequestId mRequestId;
   private final Future<KijiRowData> mClientDataFuture;
-  private final KijiTableReaderPool mReaderPool;
+  private final FreshenerReaderPool mReaderPool;
   private final EntityId mEntityId;
 
   /**
@@ -71,9 +69,9 @@ final class IsolatedFreshenerCallable<T> implements Callable<T> {
       final Freshener freshener,
       final Future<KijiRowData> dataToCheckFuture,
       final InternalFreshenerContext context,
-      final String requestId,
+      final RequestId requestId,
       final Future<KijiRowData> clientDataFuture,
-      final KijiTableReaderPool readerPool,
+      final FreshenerReaderPool readerPool,
       final EntityId entityId
   ) {
     mFreshener = freshener;
@@ -100,15 +98,9 @@ final class IsolatedFreshenerCallable<T> implements Callable<T> {
     } else {
       LOG.debug("{} Freshener attached to: {} returned stale and will run its ScoreFunction",
           mRequestId, mFreshener.getAttachedColumn());
-      final KijiTableReader reader = ScoringUtils.getPooledReader(mReaderPool);
-      try {
-        return (T) mFreshener.getScoreFunction().score(
-            reader.get(mEntityId, mFreshener.getScoreFunction().getDataRequest(mContext)),
-            mContext).getValue();
-      } finally {
-        reader.close();
-      }
-
+      final KijiRowData dataToScore =
+          mReaderPool.get(mEntityId, mFreshener.getScoreFunction().getDataRequest(mContext));
+      return (T) mFreshener.getScoreFunction().score(dataToScore, mContext).getValue();
     }
   }
 }
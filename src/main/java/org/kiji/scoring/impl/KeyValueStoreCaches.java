@@ -0,0 +1,321 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReader;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.StoreCacheCounter;
+
+/**
+ * Opens KeyValueStoreReaders for a single Freshener, wrapping the readers of stores configured for
+ * caching in a bounded lookup cache shared by all requests which run the Freshener.
+ *
+ * <p>
+ *   A store is cached if the Freshener's parameters contain
+ *   {@link KijiFreshnessManager#STORE_CACHE_MAX_SIZE_KEY_PREFIX} followed by the store's name.
+ *   Cached entries optionally expire after the time specified by
+ *   {@link KijiFreshnessManager#STORE_CACHE_TTL_KEY_PREFIX} followed by the store's name. Absent
+ *   values are cached as well as present values. Cache hits and misses are counted with the
+ *   CounterManager.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by Freshener and InternalFreshenerContext. It should
+ *   not be used elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class KeyValueStoreCaches {
+
+  /** Configuration of the lookup cache of a single store. */
+  private static final class CacheSpec {
+    private final long mMaxSize;
+    private final long mTtlMillis;
+
+    /**
+     * Initialize a new CacheSpec.
+     *
+     * @param maxSize maximum number of entries in the cache.
+     * @param ttlMillis time in milliseconds after which entries expire. 0 indicates no expiration.
+     */
+    private CacheSpec(
+        final long maxSize,
+        final long ttlMillis
+    ) {
+      mMaxSize = maxSize;
+      mTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Build an empty cache according to this spec.
+     *
+     * @param <K> the type of the keys in the cache.
+     * @param <V> the type of the values in the cache.
+     * @return an empty cache according to this spec.
+     */
+    private <K, V> Cache<K, Optional<V>> buildCache() {
+      final CacheBuilder<Object, Object> builder =
+          CacheBuilder.newBuilder().maximumSize(mMaxSize).recordStats();
+      if (0 != mTtlMillis) {
+        builder.expireAfterWrite(mTtlMillis, TimeUnit.MILLISECONDS);
+      }
+      return builder.build();
+    }
+  }
+
+  /**
+   * KeyValueStoreReader which serves lookups from a cache, falling back to the wrapped reader.
+   *
+   * @param <K> the type of the keys of the store.
+   * @param <V> the type of the values of the store.
+   */
+  private final class CachingReader<K, V> implements KeyValueStoreReader<K, V> {
+    private final KeyValueStoreReader<K, V> mReader;
+    private final Cache<K, Optional<V>> mCache;
+
+    /**
+     * Initialize a new CachingReader.
+     *
+     * @param reader the reader whose lookups to cache.
+     * @param cache the cache in which to hold lookups.
+     */
+    private CachingReader(
+        final KeyValueStoreReader<K, V> reader,
+        final Cache<K, Optional<V>> cache
+    ) {
+      mReader = reader;
+      mCache = cache;
+    }
+
+    /**
+     * Get the cached value of a key, looking it up in the wrapped reader if it is not cached.
+     *
+     * @param key the key whose value to get.
+     * @return the value of the key, absent if the store does not contain the key.
+     * @throws IOException in case of an error looking up the key.
+     */
+    private Optional<V> lookup(
+        final K key
+    ) throws IOException {
+      final Optional<V> cached = mCache.getIfPresent(key);
+      if (null != cached) {
+        mCounterManager.incrementCounter(StoreCacheCounter.HIT, 1);
+        return cached;
+      }
+      mCounterManager.incrementCounter(StoreCacheCounter.MISS, 1);
+      try {
+        return mCache.get(key, new Callable<Optional<V>>() {
+          /** {@inheritDoc} */
+          @Override
+          public Optional<V> call() throws IOException {
+            return Optional.fromNullable(mReader.get(key));
+          }
+        });
+      } catch (ExecutionException ee) {
+        if (ee.getCause() instanceof IOException) {
+          throw (IOException) ee.getCause();
+        } else {
+          throw new RuntimeException(ee.getCause());
+        }
+      }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public V get(
+        final K key
+    ) throws IOException {
+      return lookup(key).orNull();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean containsKey(
+        final K key
+    ) throws IOException {
+      return lookup(key).isPresent();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isOpen() {
+      return mReader.isOpen();
+    }
+
+    /**
+     * Does nothing. This reader and its cache are shared by all requests which run the Freshener,
+     * so they are released by {@link KeyValueStoreCaches#close()} when the Freshener is closed.
+     *
+     * @throws IOException never.
+     */
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * Invalidate the cache and close the wrapped reader.
+     *
+     * @throws IOException in case of an error closing the wrapped reader.
+     */
+    private void release() throws IOException {
+      mCache.invalidateAll();
+      mReader.close();
+    }
+  }
+
+  /**
+   * Create a new KeyValueStoreCaches.
+   *
+   * @param factory the factory from which to open KeyValueStoreReaders.
+   * @param parameters the parameters of the Freshener, which configure the caches of its stores.
+   * @param counterManager CounterManager with which to count cache hits and misses.
+   * @return a new KeyValueStoreCaches.
+   */
+  static KeyValueStoreCaches create(
+      final KeyValueStoreReaderFactory factory,
+      final Map<String, String> parameters,
+      final CounterManager counterManager
+  ) {
+    final Map<String, CacheSpec> specs = Maps.newHashMap();
+    for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+      if (parameter.getKey().startsWith(KijiFreshnessManager.STORE_CACHE_MAX_SIZE_KEY_PREFIX)) {
+        final String storeName = parameter.getKey().substring(
+            KijiFreshnessManager.STORE_CACHE_MAX_SIZE_KEY_PREFIX.length());
+        final long maxSize = Long.parseLong(parameter.getValue());
+        Preconditions.checkArgument(0 < maxSize,
+            "Store cache max size must be positive, found: %s", maxSize);
+        final String ttl =
+            parameters.get(KijiFreshnessManager.STORE_CACHE_TTL_KEY_PREFIX + storeName);
+        final long ttlMillis = (null == ttl) ? 0 : Long.parseLong(ttl);
+        Preconditions.checkArgument(0 <= ttlMillis,
+            "Store cache TTL must be greater than or equal to 0, found: %s", ttlMillis);
+        specs.put(storeName, new CacheSpec(maxSize, ttlMillis));
+      }
+    }
+    return new KeyValueStoreCaches(factory, ImmutableMap.copyOf(specs), counterManager);
+  }
+
+  private final KeyValueStoreReaderFactory mFactory;
+  private final ImmutableMap<String, CacheSpec> mSpecs;
+  private final CounterManager mCounterManager;
+  /** Readers of cached stores, opened on first use. */
+  private final ConcurrentMap<String, CachingReader<?, ?>> mReaders =
+      new ConcurrentHashMap<String, CachingReader<?, ?>>();
+
+  /**
+   * Private constructor. Use {@link #create(KeyValueStoreReaderFactory, Map, CounterManager)}.
+   *
+   * @param factory the factory from which to open KeyValueStoreReaders.
+   * @param specs cache configurations by store name.
+   * @param counterManager CounterManager with which to count cache hits and misses.
+   */
+  private KeyValueStoreCaches(
+      final KeyValueStoreReaderFactory factory,
+      final ImmutableMap<String, CacheSpec> specs,
+      final CounterManager counterManager
+  ) {
+    mFactory = factory;
+    mSpecs = specs;
+    mCounterManager = counterManager;
+  }
+
+  /**
+   * Open the KeyValueStoreReader of the named store. Returns a caching reader if the store is
+   * configured for caching, otherwise the reader from the KeyValueStoreReaderFactory.
+   *
+   * @param storeName the name of the store to open.
+   * @param <K> the type of the keys of the store.
+   * @param <V> the type of the values of the store.
+   * @return the KeyValueStoreReader of the named store.
+   * @throws IOException in case of an error opening the store.
+   */
+  @SuppressWarnings("unchecked")
+  <K, V> KeyValueStoreReader<K, V> openStore(
+      final String storeName
+  ) throws IOException {
+    final CacheSpec spec = mSpecs.get(storeName);
+    if (null == spec) {
+      return mFactory.openStore(storeName);
+    }
+    final CachingReader<?, ?> reader = mReaders.get(storeName);
+    if (null != reader) {
+      return (KeyValueStoreReader<K, V>) reader;
+    }
+    final KeyValueStoreReader<K, V> opened = mFactory.openStore(storeName);
+    final CachingReader<K, V> created =
+        new CachingReader<K, V>(opened, spec.<K, V>buildCache());
+    final CachingReader<?, ?> existing = mReaders.putIfAbsent(storeName, created);
+    return (KeyValueStoreReader<K, V>) ((null != existing) ? existing : created);
+  }
+
+  /**
+   * Invalidate the lookup cache and close the wrapped reader of each cached store which has been
+   * opened. Should only be called by the Freshener which owns these caches when it is closed.
+   *
+   * @throws IOException in case of an error closing a wrapped reader.
+   */
+  void close() throws IOException {
+    for (CachingReader<?, ?> reader : mReaders.values()) {
+      reader.release();
+    }
+    mReaders.clear();
+  }
+
+  /**
+   * Get the statistics of the lookup cache of each cached store which has been opened.
+   *
+   * @return the statistics of the lookup cache of each opened cached store by store name.
+   */
+  Map<String, CacheStats> getStats() {
+    final Map<String, CacheStats> stats = Maps.newHashMap();
+    for (Map.Entry<String, CachingReader<?, ?>> reader : mReaders.entrySet()) {
+      stats.put(reader.getKey(), reader.getValue().mCache.stats());
+    }
+    return stats;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(KeyValueStoreCaches.class)
+        .add("cached_stores", mSpecs.keySet())
+        .add("stats", getStats())
+        .toString();
+  }
+}
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 
 import org.kiji.annotations.ApiAudience;
@@ -111,7 +112,7 @@ public final class MapCounterManager implements CounterManager {
   @Override
   public Set<String> getGroups() {
     synchronized (mCounters) {
-      return mCounters.keySet();
+      return ImmutableSet.copyOf(mCounters.keySet());
     }
   }
 
@@ -123,7 +124,7 @@ public final class MapCounterManager implements CounterManager {
     synchronized (mCounters) {
       final Map<String, Long> groupMap = mCounters.get(group);
       if (null != groupMap) {
-        return groupMap.keySet();
+        return ImmutableSet.copyOf(groupMap.keySet());
       } else {
         return Collections.emptySet();
       }
@@ -31,10 +31,10 @@ import org.kiji.annotations.ApiAudience;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiRowData;
-import org.kiji.schema.KijiTableReader;
 import org.kiji.scoring.FreshenerContext;
 import org.kiji.scoring.ScoreFunction.TimestampedValue;
 import org.kiji.scoring.impl.MultiBufferedWriter.SingleBuffer;
+import org.kiji.scoring.statistics.FresheningStage;
 
 /**
  * Callable which performs freshening for all requested qualifiers in a specific map-type family.
@@ -101,31 +101,52 @@ final class MapFamilyFreshenerCallable implements Callable<Boolean> {
     /** {@inheritDoc} */
     @Override
     public Boolean call() throws Exception {
+      if (mRequestContext.isCancelled()) {
+        mRequestContext.finishFreshener(mStaleQualifier, DID_NOT_WRITE);
+        return DID_NOT_WRITE;
+      }
       final SingleBuffer buffer;
       if (mRequestContext.allowsPartial()) {
         buffer = mRequestContext.openUniqueBuffer();
       } else {
         buffer = mRequestContext.getRequestBuffer();
       }
+      final RequestTracer tracer = mRequestContext.getTracer();
+      final long scoreStart = tracer.start();
       final TimestampedValue<?> score = mFreshener.getScoreFunction().score(mDataToScore, mContext);
-      buffer.put(
-          mRequestContext.getEntityId(),
-          mStaleQualifier.getFamily(),
-          mStaleQualifier.getQualifier(),
-          score.getTimestamp(),
-          score.getValue());
-      final int remainingFresheners = mRequestContext.finishFreshener(mStaleQualifier, WROTE);
-      if (mRequestContext.allowsPartial()) {
-        buffer.flush();
-        return WROTE;
+      tracer.end(mStaleQualifier, FresheningStage.SCORE, scoreStart);
+      if (mRequestContext.isCancelled()) {
+        // Results of ScoreFunctions which finish after the request is cancelled are discarded.
+        mRequestContext.finishFreshener(mStaleQualifier, DID_NOT_WRITE);
+        return DID_NOT_WRITE;
+      }
+      final boolean unchanged = mRequestContext.shouldSuppressWrite(mFreshener, mContext, score);
+      if (!unchanged) {
+        buffer.put(
+            mRequestContext.getEntityId(),
+            mStaleQualifier.getFamily(),
+            mStaleQualifier.getQualifier(),
+            score.getTimestamp(),
+            score.getValue());
+      }
+      final int remainingFresheners =
+          mRequestContext.finishFreshener(mStaleQualifier, true, !unchanged);
+      final SingleBuffer toFlush;
+      if (unchanged && (mRequestContext.allowsPartial() || !mRequestContext.hasReceivedWrites())) {
+        // An unchanged score wrote nothing, so there is nothing to flush unless this is the last
+        // Freshener of a request in which other Fresheners wrote.
+        return DID_NOT_WRITE;
+      } else if (mRequestContext.allowsPartial()) {
+        toFlush = buffer;
+      } else if (0 == remainingFresheners) {
+        toFlush = mRequestContext.getRequestBuffer();
       } else {
-        if (0 == remainingFresheners) {
-          mRequestContext.getRequestBuffer().flush();
-          return WROTE;
-        } else {
-          return DID_NOT_WRITE;
-        }
+        return DID_NOT_WRITE;
       }
+      final long flushStart = tracer.start();
+      toFlush.flush();
+      tracer.end(mStaleQualifier, FresheningStage.FLUSH, flushStart);
+      return WROTE;
     }
   }
 
@@ -159,7 +180,9 @@ final class MapFamilyFreshenerCallable implements Callable<Boolean> {
           freshener.getParameters(),
           mRequestContext.getParameterOverrides(),
           requestContext.getCounterManager(),
-          freshener.getKVStoreReaderFactory()));
+          freshener.getKVStoreReaderFactory(),
+          freshener.getKVStoreCaches(),
+          requestContext.getDeadline()));
     }
   }
 
@@ -183,23 +206,21 @@ final class MapFamilyFreshenerCallable implements Callable<Boolean> {
     if (freshener.getFreshnessPolicy().shouldUseClientDataRequest(context)) {
       return mClientDataFuture;
     } else {
-      final KijiTableReader reader = ScoringUtils.getPooledReader(mRequestContext.getReaderPool());
-      try {
-        KijiDataRequest policyRequest = KijiDataRequest.empty();
-        for (Map.Entry<KijiColumnName, FreshenerContext> qualifierContext
-            : mQualifiersContexts.entrySet()) {
-          policyRequest = policyRequest.merge(
-              freshener.getFreshnessPolicy().getDataRequest(qualifierContext.getValue()));
-        }
-        return ScoringUtils.getFuture(
-            mRequestContext.getExecutorService(),
-            new TableReadCallable(
-                mRequestContext.getReaderPool(),
-                mRequestContext.getEntityId(),
-                policyRequest));
-      } finally {
-        reader.close();
+      KijiDataRequest policyRequest = KijiDataRequest.empty();
+      for (Map.Entry<KijiColumnName, FreshenerContext> qualifierContext
+          : mQualifiersContexts.entrySet()) {
+        policyRequest = policyRequest.merge(
+            freshener.getFreshnessPolicy().getDataRequest(qualifierContext.getValue()));
       }
+      return ScoringUtils.getFuture(
+          mRequestContext.getExecutorService(),
+          new TableReadCallable(
+              mRequestContext.getReaderPool(),
+              mRequestContext.getEntityId(),
+              policyRequest,
+              mRequestContext.getTracer(),
+              mFamily,
+              FresheningStage.POLICY_READ));
     }
   }
 
@@ -229,12 +250,12 @@ final class MapFamilyFreshenerCallable implements Callable<Boolean> {
       request = request.merge(
           freshener.getScoreFunction().getDataRequest(staleQualifier.getValue()));
     }
-    final KijiTableReader reader = ScoringUtils.getPooledReader(mRequestContext.getReaderPool());
-    try {
-      return reader.get(mRequestContext.getEntityId(), request);
-    } finally {
-      reader.close();
-    }
+    final RequestTracer tracer = mRequestContext.getTracer();
+    final long startNanos = tracer.start();
+    final KijiRowData dataToScore =
+        mRequestContext.getReaderPool().get(mRequestContext.getEntityId(), request);
+    tracer.end(mFamily, FresheningStage.SCORE_READ, startNanos);
+    return dataToScore;
   }
 
   /** {@inheritDoc} */
@@ -250,11 +271,18 @@ final class MapFamilyFreshenerCallable implements Callable<Boolean> {
             freshener.getParameters(),
             mRequestContext.getParameterOverrides(),
             mRequestContext.getCounterManager(),
-            freshener.getKVStoreReaderFactory())));
+            freshener.getKVStoreReaderFactory(),
+            freshener.getKVStoreCaches(),
+            mRequestContext.getDeadline())));
+    final RequestTracer tracer = mRequestContext.getTracer();
     final Map<KijiColumnName, FreshenerContext> staleQualifiers = Maps.newHashMap();
     for (Map.Entry<KijiColumnName, FreshenerContext> qualifierContext
         : mQualifiersContexts.entrySet()) {
-      if (!freshener.getFreshnessPolicy().isFresh(dataToCheck, qualifierContext.getValue())) {
+      final long isFreshStart = tracer.start();
+      final boolean isFresh =
+          freshener.getFreshnessPolicy().isFresh(dataToCheck, qualifierContext.getValue());
+      tracer.end(qualifierContext.getKey(), FresheningStage.IS_FRESH, isFreshStart);
+      if (!isFresh) {
         staleQualifiers.put(qualifierContext.getKey(), qualifierContext.getValue());
       } else {
         mRequestContext.finishFreshener(qualifierContext.getKey(), DID_NOT_WRITE);
@@ -262,6 +290,11 @@ final class MapFamilyFreshenerCallable implements Callable<Boolean> {
     }
     if (staleQualifiers.isEmpty()) {
       return DID_NOT_WRITE;
+    } else if (mRequestContext.isCancelled()) {
+      for (KijiColumnName staleQualifier : staleQualifiers.keySet()) {
+        mRequestContext.finishFreshener(staleQualifier, DID_NOT_WRITE);
+      }
+      return DID_NOT_WRITE;
     } else {
       final KijiRowData dataToScore = getDataToScore(freshener, staleQualifiers);
       final List<Future<Boolean>> qualifierFutures = Lists.newArrayList();
@@ -22,6 +22,8 @@ package org.kiji.scoring.impl;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.google.common.collect.Lists;
 
@@ -33,6 +35,12 @@ import org.kiji.schema.KijiTable;
 /**
  * Buffered writer supporting connection sharing to minimize opened writer connections.
  * SingleBuffers retrieved from this class do not need to be closed when they are no longer needed.
+ *
+ * <p>
+ *   Buffers and the shared writer are guarded by explicit locks rather than monitors because
+ *   flushing blocks on table I/O, which would pin the carrier thread of a virtual thread blocked in
+ *   a synchronized block.
+ * </p>
  */
 @ApiAudience.Private
 public final class MultiBufferedWriter implements Closeable {
@@ -81,6 +89,7 @@ public final class MultiBufferedWriter implements Closeable {
   public final class SingleBuffer {
 
     private final List<EFQTV<?>> mBuffer;
+    private final Lock mBufferLock = new ReentrantLock();
 
     /**
      * Initialize a new SingleBuffer which delegates to a MultiBufferedWriter to flush data.
@@ -110,8 +119,11 @@ public final class MultiBufferedWriter implements Closeable {
         final long timestamp,
         final V value
     ) {
-      synchronized (mBuffer) {
+      mBufferLock.lock();
+      try {
         mBuffer.add(new EFQTV<V>(entityId, family, qualifier, timestamp, value));
+      } finally {
+        mBufferLock.unlock();
       }
     }
 
@@ -130,8 +142,10 @@ public final class MultiBufferedWriter implements Closeable {
      * @throws IOException in case of an error writing to the table.
      */
     public void flush() throws IOException {
-      synchronized (mWriter) {
-        synchronized (mBuffer) {
+      mWriterLock.lock();
+      try {
+        mBufferLock.lock();
+        try {
           for (EFQTV<?> efqtv : mBuffer) {
             mWriter.put(
                 efqtv.mEntityId,
@@ -142,7 +156,11 @@ public final class MultiBufferedWriter implements Closeable {
           }
           mWriter.flush();
           mBuffer.clear();
+        } finally {
+          mBufferLock.unlock();
         }
+      } finally {
+        mWriterLock.unlock();
       }
     }
   }
@@ -153,6 +171,8 @@ public final class MultiBufferedWriter implements Closeable {
 
   /** Delegate BufferedWriter to actually perform writes. */
   private final KijiBufferedWriter mWriter;
+  /** Guards mWriter, which is shared by all SingleBuffers. */
+  private final Lock mWriterLock = new ReentrantLock();
 
   /**
    * Default constructor.
@@ -0,0 +1,435 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.io.Closeable;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.KijiFreshnessPolicy;
+import org.kiji.scoring.PrefreshCounter;
+
+/**
+ * Reruns the Fresheners of recently read cells shortly before their data expires.
+ *
+ * <p>
+ *   Whenever a Freshener attached to a fully qualified column finds data fresh, the cell and the
+ *   expiration time predicted by its KijiFreshnessPolicy are recorded in a bounded hot set. The
+ *   least recently read cell is evicted when the hot set is full. A single scanner thread
+ *   periodically starts a prefresh of each cell whose data will expire within the lead time. The
+ *   hot set is also ordered by expiration time, so a scan visits only the cells which are due. A
+ *   prefresh runs the cell's Freshener as if its data were already stale, so that readers find
+ *   fresh data rather than paying for scoring themselves. Prefreshes are limited in concurrency
+ *   and rate; a due cell which cannot be started remains in the hot set until the next scan or
+ *   until its data expires. Prefreshed cells leave the hot set and return when they are next read.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class Prefresher implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(Prefresher.class);
+
+  /** The column of a Freshener in a single row. */
+  private static final class HotCell {
+    private final EntityId mEntityId;
+    private final KijiColumnName mColumn;
+
+    /**
+     * Initialize a new HotCell.
+     *
+     * @param entityId the row of the cell.
+     * @param column the column of the cell.
+     */
+    private HotCell(
+        final EntityId entityId,
+        final KijiColumnName column
+    ) {
+      mEntityId = entityId;
+      mColumn = column;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(
+        final Object other
+    ) {
+      if (!(other instanceof HotCell)) {
+        return false;
+      }
+      final HotCell that = (HotCell) other;
+      return mEntityId.equals(that.mEntityId) && mColumn.equals(that.mColumn);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(mEntityId, mColumn);
+    }
+  }
+
+  /** A HotCell in the hot set with the expiration time of its data. */
+  private static final class HotEntry {
+    private final HotCell mCell;
+    private final long mExpirationTime;
+    /** Distinguishes entries with the same expiration time. */
+    private final long mSequence;
+
+    /**
+     * Initialize a new HotEntry.
+     *
+     * @param cell the cell.
+     * @param expirationTime time in milliseconds since the epoch at which the data of the cell will
+     *     become stale.
+     * @param sequence number which distinguishes this entry from other entries.
+     */
+    private HotEntry(
+        final HotCell cell,
+        final long expirationTime,
+        final long sequence
+    ) {
+      mCell = cell;
+      mExpirationTime = expirationTime;
+      mSequence = sequence;
+    }
+  }
+
+  /** Orders HotEntries from earliest to latest expiration time. */
+  private static final Comparator<HotEntry> EXPIRATION_ORDER = new Comparator<HotEntry>() {
+    /** {@inheritDoc} */
+    @Override
+    public int compare(
+        final HotEntry left,
+        final HotEntry right
+    ) {
+      if (left.mExpirationTime != right.mExpirationTime) {
+        return (left.mExpirationTime < right.mExpirationTime) ? -1 : 1;
+      }
+      if (left.mSequence != right.mSequence) {
+        return (left.mSequence < right.mSequence) ? -1 : 1;
+      }
+      return 0;
+    }
+  };
+
+  /**
+   * Create a new Prefresher.
+   *
+   * @param reader the reader through which to run prefreshes.
+   * @param counterManager CounterManager with which to count prefreshes.
+   * @param leadTimeMillis time in milliseconds before expiration at which a cell becomes due.
+   * @param maxHotCells maximum number of cells in the hot set.
+   * @param maxConcurrentPrefreshes maximum number of prefreshes which may run at once.
+   * @param maxPrefreshesPerSecond maximum rate at which to start prefreshes. 0 indicates no limit.
+   * @return a new Prefresher.
+   */
+  static Prefresher create(
+      final InternalFreshKijiTableReader reader,
+      final CounterManager counterManager,
+      final long leadTimeMillis,
+      final int maxHotCells,
+      final int maxConcurrentPrefreshes,
+      final double maxPrefreshesPerSecond
+  ) {
+    Preconditions.checkArgument(0 < leadTimeMillis,
+        "Lead time must be positive, found: %s", leadTimeMillis);
+    Preconditions.checkArgument(0 < maxHotCells,
+        "Max hot cells must be positive, found: %s", maxHotCells);
+    Preconditions.checkArgument(0 < maxConcurrentPrefreshes,
+        "Max concurrent prefreshes must be positive, found: %s", maxConcurrentPrefreshes);
+    Preconditions.checkArgument(0 <= maxPrefreshesPerSecond,
+        "Max prefreshes per second must be greater than or equal to 0, found: %s",
+        maxPrefreshesPerSecond);
+    return new Prefresher(reader, counterManager, leadTimeMillis, maxHotCells,
+        maxConcurrentPrefreshes, maxPrefreshesPerSecond);
+  }
+
+  private final InternalFreshKijiTableReader mReader;
+  private final CounterManager mCounterManager;
+  private final long mLeadTimeMillis;
+  private final int mMaxHotCells;
+  private final int mMaxConcurrentPrefreshes;
+  private final double mMaxPrefreshesPerSecond;
+  /** Limits the rate at which prefreshes start. Null if the rate is not limited. */
+  private final RateLimiter mRateLimiter;
+  /** Slots for running prefreshes, released as each prefresh finishes. */
+  private final Semaphore mPrefreshSlots;
+  /** Guards mHotCells, mByExpiration and mNextSequence. */
+  private final Lock mLock = new ReentrantLock();
+  /** Entries of recently read cells in order from least to most recently read. */
+  private final LinkedHashMap<HotCell, HotEntry> mHotCells =
+      new LinkedHashMap<HotCell, HotEntry>(16, 0.75f, true);
+  /** The entries of mHotCells in order from earliest to latest expiration time. */
+  private final TreeSet<HotEntry> mByExpiration = new TreeSet<HotEntry>(EXPIRATION_ORDER);
+  private long mNextSequence = 0;
+  private final ScheduledExecutorService mScanner;
+
+  /** Starts each prefresh which is due. */
+  private final Runnable mScan = new Runnable() {
+    /** {@inheritDoc} */
+    @Override
+    public void run() {
+      for (HotCell cell : takeDueCells()) {
+        start(cell);
+      }
+    }
+  };
+
+  /**
+   * Private constructor. Use {@link #create(InternalFreshKijiTableReader, CounterManager, long,
+   * int, int, double)}.
+   *
+   * @param reader the reader through which to run prefreshes.
+   * @param counterManager CounterManager with which to count prefreshes.
+   * @param leadTimeMillis time in milliseconds before expiration at which a cell becomes due.
+   * @param maxHotCells maximum number of cells in the hot set.
+   * @param maxConcurrentPrefreshes maximum number of prefreshes which may run at once.
+   * @param maxPrefreshesPerSecond maximum rate at which to start prefreshes. 0 indicates no limit.
+   */
+  private Prefresher(
+      final InternalFreshKijiTableReader reader,
+      final CounterManager counterManager,
+      final long leadTimeMillis,
+      final int maxHotCells,
+      final int maxConcurrentPrefreshes,
+      final double maxPrefreshesPerSecond
+  ) {
+    mReader = reader;
+    mCounterManager = counterManager;
+    mLeadTimeMillis = leadTimeMillis;
+    mMaxHotCells = maxHotCells;
+    mMaxConcurrentPrefreshes = maxConcurrentPrefreshes;
+    mMaxPrefreshesPerSecond = maxPrefreshesPerSecond;
+    mRateLimiter =
+        (0 == maxPrefreshesPerSecond) ? null : RateLimiter.create(maxPrefreshesPerSecond);
+    mPrefreshSlots = new Semaphore(maxConcurrentPrefreshes);
+    mScanner = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("fresh-reader-prefresher-%d")
+        .setDaemon(true)
+        .build());
+    // Scanning four times per lead time starts each prefresh between one and three quarters of the
+    // lead time before expiration.
+    final long scanPeriod = Math.max(1, leadTimeMillis / 4);
+    mScanner.scheduleWithFixedDelay(mScan, scanPeriod, scanPeriod, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Record that the given cell was read and found fresh. Renews the cell in the hot set, evicting
+   * the least recently read cell if the hot set is full.
+   *
+   * @param entityId the row of the cell.
+   * @param column the column of the cell.
+   * @param expirationTime time in milliseconds since the epoch at which the data of the cell will
+   *     become stale, or {@link KijiFreshnessPolicy#UNKNOWN_EXPIRATION} if it is not known.
+   */
+  void track(
+      final EntityId entityId,
+      final KijiColumnName column,
+      final long expirationTime
+  ) {
+    if (KijiFreshnessPolicy.UNKNOWN_EXPIRATION == expirationTime) {
+      return;
+    }
+    boolean evicted = false;
+    final HotCell cell = new HotCell(entityId, column);
+    mLock.lock();
+    try {
+      final HotEntry entry = new HotEntry(cell, expirationTime, mNextSequence++);
+      final HotEntry previous = mHotCells.put(cell, entry);
+      if (null != previous) {
+        mByExpiration.remove(previous);
+      }
+      mByExpiration.add(entry);
+      if (mHotCells.size() > mMaxHotCells) {
+        final Iterator<HotEntry> eldest = mHotCells.values().iterator();
+        mByExpiration.remove(eldest.next());
+        eldest.remove();
+        evicted = true;
+      }
+    } finally {
+      mLock.unlock();
+    }
+    mCounterManager.incrementCounter(PrefreshCounter.TRACKED, 1);
+    if (evicted) {
+      mCounterManager.incrementCounter(PrefreshCounter.EVICTED, 1);
+    }
+  }
+
+  /**
+   * Whether data with the given expiration time is due to be prefreshed.
+   *
+   * @param expirationTime time in milliseconds since the epoch at which the data will become
+   *     stale, or {@link KijiFreshnessPolicy#UNKNOWN_EXPIRATION} if it is not known.
+   * @return whether the data will become stale within the lead time.
+   */
+  boolean isDue(
+      final long expirationTime
+  ) {
+    return expirationTime - mLeadTimeMillis <= System.currentTimeMillis();
+  }
+
+  /**
+   * Remove and return the cells whose prefreshes may start now. Cells whose data has already
+   * expired are dropped because readers will freshen them. Takes a slot and a permit for each
+   * returned cell, and stops at the first cell for which either is unavailable. Visits cells in
+   * order of expiration time and stops at the first cell which is not yet due, so the cost of a
+   * scan does not depend on the size of the hot set.
+   *
+   * @return the cells to prefresh.
+   */
+  private List<HotCell> takeDueCells() {
+    final long now = System.currentTimeMillis();
+    final List<HotCell> dueCells = Lists.newArrayList();
+    int missed = 0;
+    mLock.lock();
+    try {
+      while (!mByExpiration.isEmpty()) {
+        final HotEntry entry = mByExpiration.first();
+        if (entry.mExpirationTime <= now) {
+          missed++;
+        } else if (entry.mExpirationTime - mLeadTimeMillis <= now) {
+          if (!mPrefreshSlots.tryAcquire()) {
+            break;
+          }
+          if (null != mRateLimiter && !mRateLimiter.tryAcquire()) {
+            mPrefreshSlots.release();
+            break;
+          }
+          dueCells.add(entry.mCell);
+        } else {
+          break;
+        }
+        mByExpiration.pollFirst();
+        mHotCells.remove(entry.mCell);
+      }
+    } finally {
+      mLock.unlock();
+    }
+    if (0 < missed) {
+      mCounterManager.incrementCounter(PrefreshCounter.MISSED, missed);
+    }
+    return dueCells;
+  }
+
+  /**
+   * Start a prefresh of the given cell. The slot taken for the prefresh is released when it
+   * finishes.
+   *
+   * @param cell the cell to prefresh.
+   */
+  private void start(
+      final HotCell cell
+  ) {
+    final ListenableFuture<List<Boolean>> prefresh;
+    try {
+      prefresh = mReader.prefresh(cell.mEntityId, cell.mColumn);
+    } catch (Exception e) {
+      mPrefreshSlots.release();
+      mCounterManager.incrementCounter(PrefreshCounter.FAILED, 1);
+      LOG.warn("Prefresh of column: {} in row: {} failed with exception: {}",
+          cell.mColumn, cell.mEntityId, e.getMessage());
+      return;
+    }
+    if (null == prefresh) {
+      // The Freshener has been unloaded or the prefresh was shed.
+      mPrefreshSlots.release();
+      return;
+    }
+    mCounterManager.incrementCounter(PrefreshCounter.STARTED, 1);
+    Futures.addCallback(prefresh, new FutureCallback<List<Boolean>>() {
+      /** {@inheritDoc} */
+      @Override
+      public void onSuccess(
+          final List<Boolean> result
+      ) {
+        mPrefreshSlots.release();
+      }
+
+      /** {@inheritDoc} */
+      @Override
+      public void onFailure(
+          final Throwable t
+      ) {
+        mPrefreshSlots.release();
+        mCounterManager.incrementCounter(PrefreshCounter.FAILED, 1);
+        LOG.warn("Prefresh of column: {} in row: {} failed with exception: {}",
+            cell.mColumn, cell.mEntityId, t.getMessage());
+      }
+    });
+  }
+
+  /** Stop scanning and clear the hot set. Prefreshes which have started will finish. */
+  @Override
+  public void close() {
+    mScanner.shutdownNow();
+    mLock.lock();
+    try {
+      mHotCells.clear();
+      mByExpiration.clear();
+    } finally {
+      mLock.unlock();
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    final int hotCells;
+    mLock.lock();
+    try {
+      hotCells = mHotCells.size();
+    } finally {
+      mLock.unlock();
+    }
+    return Objects.toStringHelper(Prefresher.class)
+        .add("lead_time_millis", mLeadTimeMillis)
+        .add("max_hot_cells", mMaxHotCells)
+        .add("max_concurrent_prefreshes", mMaxConcurrentPrefreshes)
+        .add("max_prefreshes_per_second", mMaxPrefreshesPerSecond)
+        .add("hot_cells", hotCells)
+        .toString();
+  }
+}
@@ -28,10 +28,11 @@ import org.slf4j.LoggerFactory;
 import org.kiji.annotations.ApiAudience;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiRowData;
-import org.kiji.schema.KijiTableReader;
 import org.kiji.scoring.FreshenerContext;
+import org.kiji.scoring.KijiFreshnessPolicy;
 import org.kiji.scoring.ScoreFunction.TimestampedValue;
 import org.kiji.scoring.impl.MultiBufferedWriter.SingleBuffer;
+import org.kiji.scoring.statistics.FresheningStage;
 
 /**
  * Callable which performs freshening for a specific column in the context of a specific get
@@ -102,22 +103,104 @@ final class QualifiedFreshenerCallable implements Callable<Boolean> {
     if (freshener.getFreshnessPolicy().shouldUseClientDataRequest(context)) {
       return mClientDataFuture;
     } else {
-      final KijiTableReader reader = ScoringUtils.getPooledReader(mRequestContext.getReaderPool());
-      try {
-        return ScoringUtils.getFuture(mRequestContext.getExecutorService(), new TableReadCallable(
-            mRequestContext.getReaderPool(),
-            mRequestContext.getEntityId(),
-            freshener.getFreshnessPolicy().getDataRequest(context)));
-      } finally {
-        reader.close();
-      }
+      return ScoringUtils.getFuture(mRequestContext.getExecutorService(), new TableReadCallable(
+          mRequestContext.getReaderPool(),
+          mRequestContext.getEntityId(),
+          freshener.getFreshnessPolicy().getDataRequest(context),
+          mRequestContext.getTracer(),
+          mAttachedColumn,
+          FresheningStage.POLICY_READ));
+    }
+  }
+
+  /**
+   * Check the freshness of data. If prefreshing is enabled, records fresh data with the Prefresher,
+   * or for a prefresh request, treats fresh data as stale if it is due to expire.
+   *
+   * @param freshener the Freshener whose policy will check the data.
+   * @param dataToCheck the data to check.
+   * @param context the context of the Freshener.
+   * @return whether the Freshener's ScoreFunction should not run.
+   */
+  private boolean isFresh(
+      final Freshener freshener,
+      final KijiRowData dataToCheck,
+      final FreshenerContext context
+  ) {
+    final KijiFreshnessPolicy policy = freshener.getFreshnessPolicy();
+    final boolean isFresh = policy.isFresh(dataToCheck, context);
+    final Prefresher prefresher = mRequestContext.getPrefresher();
+    if (!isFresh || null == prefresher) {
+      return isFresh;
+    }
+    final long expirationTime = policy.getExpirationTime(dataToCheck, context);
+    if (mRequestContext.isPrefresh()) {
+      return !prefresher.isDue(expirationTime);
+    } else {
+      prefresher.track(mRequestContext.getEntityId(), mAttachedColumn, expirationTime);
+      return true;
+    }
+  }
+
+  /**
+   * Flush a buffer, timing the flush as a stage of this Freshener.
+   *
+   * @param tracer RequestTracer with which to time the flush.
+   * @param buffer the buffer to flush.
+   * @throws IOException in case of an error writing to the table.
+   */
+  private void flush(
+      final RequestTracer tracer,
+      final SingleBuffer buffer
+  ) throws IOException {
+    final long startNanos = tracer.start();
+    buffer.flush();
+    tracer.end(mAttachedColumn, FresheningStage.FLUSH, startNanos);
+  }
+
+  /**
+   * Finish this Freshener without writing because its ScoreFunction returned the current value of
+   * the attached column. If this is the last Freshener of a request with partial freshening
+   * disabled, flushes the request buffer if other Fresheners wrote.
+   *
+   * @param tracer RequestTracer with which to time the flush.
+   * @return WROTE if this flushed writes of other Fresheners, otherwise DID_NOT_WRITE.
+   * @throws IOException in case of an error writing to the table.
+   */
+  private Boolean finishUnchanged(
+      final RequestTracer tracer
+  ) throws IOException {
+    LOG.debug("{} Freshener attached to: {} returned an unchanged value and will not write",
+        mRequestContext.getRequestId(), mAttachedColumn);
+    final int remainingFresheners =
+        mRequestContext.finishFreshener(mAttachedColumn, true, DID_NOT_WRITE);
+    if (!mRequestContext.allowsPartial()
+        && 0 == remainingFresheners
+        && mRequestContext.hasReceivedWrites()) {
+      flush(tracer, mRequestContext.getRequestBuffer());
+      return WROTE;
+    } else {
+      return DID_NOT_WRITE;
     }
   }
 
+  /**
+   * Finish this Freshener without writing because its request has been cancelled.
+   *
+   * @return DID_NOT_WRITE.
+   */
+  private Boolean finishCancelled() {
+    LOG.debug("{} was cancelled, Freshener attached to: {} will not write",
+        mRequestContext.getRequestId(), mAttachedColumn);
+    mRequestContext.finishFreshener(mAttachedColumn, DID_NOT_WRITE);
+    return DID_NOT_WRITE;
+  }
+
   /** {@inheritDoc} */
   @Override
   public Boolean call() throws Exception {
     final Freshener freshener = mRequestContext.getFresheners().get(mAttachedColumn);
+    final RequestTracer tracer = mRequestContext.getTracer();
     try {
       final FreshenerContext freshenerContext =
           InternalFreshenerContext.create(
@@ -126,10 +209,14 @@ final class QualifiedFreshenerCallable implements Callable<Boolean> {
               freshener.getParameters(),
               mRequestContext.getParameterOverrides(),
               mRequestContext.getCounterManager(),
-              freshener.getKVStoreReaderFactory());
+              freshener.getKVStoreReaderFactory(),
+              freshener.getKVStoreCaches(),
+              mRequestContext.getDeadline());
       final KijiRowData dataToCheck = ScoringUtils.getFromFuture(
           getDataToCheck(freshener, freshenerContext));
-      final boolean isFresh = freshener.getFreshnessPolicy().isFresh(dataToCheck, freshenerContext);
+      final long isFreshStart = tracer.start();
+      final boolean isFresh = isFresh(freshener, dataToCheck, freshenerContext);
+      tracer.end(mAttachedColumn, FresheningStage.IS_FRESH, isFreshStart);
       if (isFresh) {
         LOG.debug(
             "{} Freshener attached to: {} returned fresh and will not run its ScoreFunction",
@@ -139,7 +226,7 @@ final class QualifiedFreshenerCallable implements Callable<Boolean> {
           // If this is the last thread, check for writes, flush, and indicate that data was
           // written
           if (mRequestContext.hasReceivedWrites()) {
-            mRequestContext.getRequestBuffer().flush();
+            flush(tracer, mRequestContext.getRequestBuffer());
             return WROTE;
           } else {
             return DID_NOT_WRITE;
@@ -149,6 +236,8 @@ final class QualifiedFreshenerCallable implements Callable<Boolean> {
           // this did not write.
           return DID_NOT_WRITE;
         }
+      } else if (mRequestContext.isCancelled()) {
+        return finishCancelled();
       } else {
         LOG.debug("{} Freshener attached to: {} returned stale and will run its ScoreFunction",
             mRequestContext.getRequestId(), mAttachedColumn);
@@ -158,18 +247,21 @@ final class QualifiedFreshenerCallable implements Callable<Boolean> {
         } else {
           buffer = mRequestContext.getRequestBuffer();
         }
-        final KijiTableReader reader =
-            ScoringUtils.getPooledReader(mRequestContext.getReaderPool());
-        final TimestampedValue<?> score;
-        try {
-          score = freshener.getScoreFunction().score(
-              reader.get(
-                  mRequestContext.getEntityId(),
-                  freshener.getScoreFunction().getDataRequest(freshenerContext)),
-              freshenerContext
-          );
-        } finally {
-          reader.close();
+        // Read the ScoreFunction's input before scoring so that no reader is held while scoring.
+        final long scoreReadStart = tracer.start();
+        final KijiRowData dataToScore = mRequestContext.getReaderPool().get(
+            mRequestContext.getEntityId(),
+            freshener.getScoreFunction().getDataRequest(freshenerContext));
+        tracer.end(mAttachedColumn, FresheningStage.SCORE_READ, scoreReadStart);
+        final long scoreStart = tracer.start();
+        final TimestampedValue<?> score =
+            freshener.getScoreFunction().score(dataToScore, freshenerContext);
+        tracer.end(mAttachedColumn, FresheningStage.SCORE, scoreStart);
+        if (mRequestContext.isCancelled()) {
+          return finishCancelled();
+        }
+        if (mRequestContext.shouldSuppressWrite(freshener, freshenerContext, score)) {
+          return finishUnchanged(tracer);
         }
         buffer.put(
             mRequestContext.getEntityId(),
@@ -181,13 +273,13 @@ final class QualifiedFreshenerCallable implements Callable<Boolean> {
         if (mRequestContext.allowsPartial()) {
           // If partial freshening is enabled, flush the buffer immediately and indicate that data
           // was written.
-          buffer.flush();
+          flush(tracer, buffer);
           return WROTE;
         } else {
           if (0 == remainingFresheners) {
             // If this is the last thread to finish, flush the request buffer and indicate that
             // data was written.
-            mRequestContext.getRequestBuffer().flush();
+            flush(tracer, mRequestContext.getRequestBuffer());
             return WROTE;
           } else {
             // If this is not the last thread to finish, indicate that no data was written.
@@ -0,0 +1,313 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiRowData;
+import org.kiji.scoring.statistics.FresheningStage;
+
+/**
+ * Combines concurrent single row reads with equal data requests into bulk reads.
+ *
+ * <p>
+ *   The first read of a data request opens a batch. Reads of an equal data request join the open
+ *   batch until it lingers for a fixed time or reaches a maximum size, at which point the batch is
+ *   closed and its rows are read with a single bulk get on the ExecutorService. Each read's future
+ *   is then completed with its own row. A batch holding a single read is served by a single row
+ *   get.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class ReadBatcher implements Closeable {
+
+  /** A single read waiting in a batch. */
+  private static final class PendingRead {
+    private final EntityId mEntityId;
+    private final RequestTracer mTracer;
+    private final long mStartNanos;
+    private final SettableFuture<KijiRowData> mFuture = SettableFuture.create();
+
+    /**
+     * Initialize a new PendingRead.
+     *
+     * @param entityId the row to read.
+     * @param tracer RequestTracer with which to time the read.
+     */
+    private PendingRead(
+        final EntityId entityId,
+        final RequestTracer tracer
+    ) {
+      mEntityId = entityId;
+      mTracer = tracer;
+      mStartNanos = tracer.start();
+    }
+  }
+
+  /** Reads of a single data request which will be performed together. */
+  private final class Batch implements Runnable {
+    private final KijiDataRequest mDataRequest;
+    private final List<PendingRead> mReads = Lists.newArrayList();
+    /**
+     * Closes this batch when it has lingered long enough. Null until the batch is scheduled. If
+     * the batch is closed by size before this is set, the linger finds it closed and does nothing.
+     */
+    private volatile ScheduledFuture<?> mLingerFuture = null;
+
+    /**
+     * Initialize a new Batch.
+     *
+     * @param dataRequest the data request shared by all reads in this batch.
+     */
+    private Batch(
+        final KijiDataRequest dataRequest
+    ) {
+      mDataRequest = dataRequest;
+    }
+
+    /** Perform every read in this batch. */
+    @Override
+    public void run() {
+      try {
+        final List<KijiRowData> rows;
+        if (1 == mReads.size()) {
+          rows = Lists.newArrayList(mReaderPool.get(mReads.get(0).mEntityId, mDataRequest));
+        } else {
+          final List<EntityId> entityIds = Lists.newArrayListWithCapacity(mReads.size());
+          for (PendingRead read : mReads) {
+            entityIds.add(read.mEntityId);
+          }
+          rows = mReaderPool.bulkGet(entityIds, mDataRequest);
+        }
+        for (int index = 0; index < mReads.size(); index++) {
+          final PendingRead read = mReads.get(index);
+          read.mTracer.end(null, FresheningStage.CLIENT_READ, read.mStartNanos);
+          read.mFuture.set(rows.get(index));
+        }
+      } catch (Throwable t) {
+        for (PendingRead read : mReads) {
+          read.mFuture.setException(t);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create a new ReadBatcher.
+   *
+   * @param readerPool pool of readers with which to perform reads.
+   * @param executorService ExecutorService on which to perform reads.
+   * @param lingerMicros time in microseconds for which a batch waits for more reads.
+   * @param maxBatchSize number of reads at which a batch is read without waiting further.
+   * @return a new ReadBatcher.
+   */
+  static ReadBatcher create(
+      final FreshenerReaderPool readerPool,
+      final ExecutorService executorService,
+      final long lingerMicros,
+      final int maxBatchSize
+  ) {
+    Preconditions.checkArgument(0 < lingerMicros,
+        "Linger time must be positive, found: %s", lingerMicros);
+    Preconditions.checkArgument(1 < maxBatchSize,
+        "Max batch size must be greater than 1, found: %s", maxBatchSize);
+    return new ReadBatcher(readerPool, executorService, lingerMicros, maxBatchSize);
+  }
+
+  private final FreshenerReaderPool mReaderPool;
+  private final ExecutorService mExecutorService;
+  private final long mLingerMicros;
+  private final int mMaxBatchSize;
+  /** Closes batches which have lingered long enough. */
+  private final ScheduledThreadPoolExecutor mLingerTimer;
+  /** Guards mOpenBatches. Held only briefly and never while reading. */
+  private final Lock mLock = new ReentrantLock();
+  /** Batches which may be joined by further reads, keyed by data request. */
+  private final Map<KijiDataRequest, Batch> mOpenBatches = Maps.newHashMap();
+
+  /**
+   * Private constructor. Use {@link #create(FreshenerReaderPool, ExecutorService, long, int)}.
+   *
+   * @param readerPool pool of readers with which to perform reads.
+   * @param executorService ExecutorService on which to perform reads.
+   * @param lingerMicros time in microseconds for which a batch waits for more reads.
+   * @param maxBatchSize number of reads at which a batch is read without waiting further.
+   */
+  private ReadBatcher(
+      final FreshenerReaderPool readerPool,
+      final ExecutorService executorService,
+      final long lingerMicros,
+      final int maxBatchSize
+  ) {
+    mReaderPool = readerPool;
+    mExecutorService = executorService;
+    mLingerMicros = lingerMicros;
+    mMaxBatchSize = maxBatchSize;
+    mLingerTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+        .setNameFormat("fresh-reader-batcher-%d")
+        .setDaemon(true)
+        .build());
+    // Batches closed by reaching their maximum size cancel their linger, do not keep it queued.
+    mLingerTimer.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * Close the given batch if it is still open and read it on the ExecutorService.
+   *
+   * @param batch the batch to close.
+   */
+  private void closeBatch(
+      final Batch batch
+  ) {
+    mLock.lock();
+    try {
+      if (batch != mOpenBatches.get(batch.mDataRequest)) {
+        // The batch was already closed by reaching its maximum size.
+        return;
+      }
+      mOpenBatches.remove(batch.mDataRequest);
+    } finally {
+      mLock.unlock();
+    }
+    submit(batch);
+  }
+
+  /**
+   * Read a closed batch on the ExecutorService.
+   *
+   * @param batch the closed batch to read.
+   */
+  private void submit(
+      final Batch batch
+  ) {
+    try {
+      mExecutorService.execute(batch);
+    } catch (RejectedExecutionException ree) {
+      for (PendingRead read : batch.mReads) {
+        read.mFuture.setException(ree);
+      }
+    }
+  }
+
+  /**
+   * Read a row as part of a batch.
+   *
+   * @param entityId the row to read.
+   * @param dataRequest the data to read.
+   * @param tracer RequestTracer with which to time the read.
+   * @return a future which completes with the requested row.
+   */
+  ListenableFuture<KijiRowData> read(
+      final EntityId entityId,
+      final KijiDataRequest dataRequest,
+      final RequestTracer tracer
+  ) {
+    final PendingRead read = new PendingRead(entityId, tracer);
+    Batch toSubmit = null;
+    Batch toSchedule = null;
+    mLock.lock();
+    try {
+      Batch batch = mOpenBatches.get(dataRequest);
+      if (null == batch) {
+        batch = new Batch(dataRequest);
+        mOpenBatches.put(dataRequest, batch);
+        toSchedule = batch;
+      }
+      batch.mReads.add(read);
+      if (mMaxBatchSize <= batch.mReads.size()) {
+        mOpenBatches.remove(dataRequest);
+        toSubmit = batch;
+      }
+    } finally {
+      mLock.unlock();
+    }
+    if (null != toSchedule && toSchedule != toSubmit) {
+      final Batch lingering = toSchedule;
+      final ScheduledFuture<?> lingerFuture = mLingerTimer.schedule(new Runnable() {
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+          closeBatch(lingering);
+        }
+      }, mLingerMicros, TimeUnit.MICROSECONDS);
+      lingering.mLingerFuture = lingerFuture;
+    }
+    if (null != toSubmit) {
+      if (null != toSubmit.mLingerFuture) {
+        toSubmit.mLingerFuture.cancel(false);
+      }
+      submit(toSubmit);
+    }
+    return read.mFuture;
+  }
+
+  /**
+   * Stop lingering. Open batches are read immediately on the calling thread, so that they finish
+   * before the reader pool is closed.
+   */
+  @Override
+  public void close() {
+    mLingerTimer.shutdownNow();
+    final List<Batch> open;
+    mLock.lock();
+    try {
+      open = Lists.newArrayList(mOpenBatches.values());
+      mOpenBatches.clear();
+    } finally {
+      mLock.unlock();
+    }
+    for (Batch batch : open) {
+      batch.run();
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(ReadBatcher.class)
+        .add("linger_micros", mLingerMicros)
+        .add("max_batch_size", mMaxBatchSize)
+        .toString();
+  }
+}
@@ -0,0 +1,445 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Sets;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.layout.KijiTableLayout.LocalityGroupLayout.FamilyLayout;
+import org.kiji.scoring.statistics.FresheningSpan;
+import org.kiji.scoring.statistics.FresheningStage;
+import org.kiji.scoring.statistics.MetricsRegistry;
+import org.kiji.scoring.statistics.MetricsRegistry.Gauge;
+import org.kiji.scoring.statistics.MetricsRegistry.Histogram;
+import org.kiji.scoring.statistics.MetricsRegistry.Meter;
+import org.kiji.scoring.statistics.TraceSink;
+
+/**
+ * Publishes the metrics of a single FreshKijiTableReader to a MetricsRegistry.
+ *
+ * <p>
+ *   Metric names are prefixed with the table name and a per-process reader number, e.g.
+ *   <code>users.reader-0.requests</code>. Per-Freshener metrics additionally include the column
+ *   to which the Freshener is attached, e.g. <code>users.reader-0.freshener.info:name.runs</code>.
+ *   Stage durations are received as spans, so ReaderMetrics is also the TraceSink of its reader.
+ *   Metric handles are cached so that updating a metric does not require a registry lookup.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+class ReaderMetrics implements TraceSink {
+
+  /** ReaderMetrics which publishes nothing. */
+  static final ReaderMetrics DISABLED = new ReaderMetrics(null, null, null) {
+    /** {@inheritDoc} */
+    @Override
+    void requestStarted() { }
+
+    /** {@inheritDoc} */
+    @Override
+    void requestShed() { }
+
+    /** {@inheritDoc} */
+    @Override
+    void requestFinished(
+        final long durationNanos,
+        final boolean timedOut
+    ) { }
+
+    /** {@inheritDoc} */
+    @Override
+    void freshenerFinished(
+        final KijiColumnName attachedColumn,
+        final long durationNanos,
+        final boolean timedOut,
+        final boolean scoreFunctionRan
+    ) { }
+
+    /** {@inheritDoc} */
+    @Override
+    public void emit(
+        final FresheningSpan span
+    ) { }
+
+    /** {@inheritDoc} */
+    @Override
+    TraceSink wrap(
+        final TraceSink traceSink
+    ) {
+      return traceSink;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void close() { }
+  };
+
+  /** Source of reader numbers used to keep the metric names of readers of one table distinct. */
+  private static final AtomicInteger READER_COUNTER = new AtomicInteger(0);
+
+  /** Metrics of a single Freshener. */
+  private final class FreshenerMetrics {
+    private final Meter mRuns;
+    private final Meter mStale;
+    private final Meter mTimeouts;
+    private final Histogram mLatency;
+    private final Map<FresheningStage, Histogram> mStageDurations;
+
+    /**
+     * Initialize a new FreshenerMetrics.
+     *
+     * @param prefix prefix of the names of the metrics of this Freshener.
+     */
+    private FreshenerMetrics(
+        final String prefix
+    ) {
+      mRuns = meter(prefix + "runs");
+      mStale = meter(prefix + "stale");
+      mTimeouts = meter(prefix + "timeouts");
+      mLatency = histogram(prefix + "latency_ns");
+      mStageDurations = stageHistograms(prefix + "stage.");
+    }
+  }
+
+  /**
+   * Create a new ReaderMetrics, or get {@link #DISABLED} if there is no registry.
+   *
+   * @param registry MetricsRegistry to which to publish metrics, or null to publish nothing.
+   * @param table the table read by the reader.
+   * @param readerPool the reader's pool of KijiTableReaders.
+   * @param executorService the ExecutorService which runs the reader's Fresheners.
+   * @return a new ReaderMetrics, or {@link #DISABLED} if registry is null.
+   */
+  static ReaderMetrics create(
+      final MetricsRegistry registry,
+      final KijiTable table,
+      final FreshenerReaderPool readerPool,
+      final ExecutorService executorService
+  ) {
+    if (null == registry) {
+      return DISABLED;
+    }
+    final ReaderMetrics metrics = new ReaderMetrics(
+        registry,
+        table,
+        String.format("%s.reader-%d.", table.getName(), READER_COUNTER.getAndIncrement()));
+    metrics.registerGauges(readerPool, executorService);
+    return metrics;
+  }
+
+  private final MetricsRegistry mRegistry;
+  private final KijiTable mTable;
+  private final String mPrefix;
+  private final Set<String> mNames = Sets.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+  private final ConcurrentMap<KijiColumnName, FreshenerMetrics> mFreshenerMetrics =
+      new ConcurrentHashMap<KijiColumnName, FreshenerMetrics>();
+  private final AtomicLong mFreshenerRuns = new AtomicLong(0);
+  private final AtomicLong mStaleRuns = new AtomicLong(0);
+  private final Meter mRequests;
+  private final Meter mTimeouts;
+  private final Meter mShed;
+  private final Histogram mRequestLatency;
+  private final Map<FresheningStage, Histogram> mStageDurations;
+
+  /**
+   * Private constructor. Use {@link #create(MetricsRegistry, KijiTable, FreshenerReaderPool,
+   * ExecutorService)}.
+   *
+   * @param registry MetricsRegistry to which to publish metrics.
+   * @param table the table read by the reader.
+   * @param prefix prefix of the names of all metrics of the reader.
+   */
+  private ReaderMetrics(
+      final MetricsRegistry registry,
+      final KijiTable table,
+      final String prefix
+  ) {
+    mRegistry = registry;
+    mTable = table;
+    mPrefix = prefix;
+    if (null == registry) {
+      mRequests = null;
+      mTimeouts = null;
+      mShed = null;
+      mRequestLatency = null;
+      mStageDurations = null;
+    } else {
+      mRequests = meter(prefix + "requests");
+      mTimeouts = meter(prefix + "timeouts");
+      mShed = meter(prefix + "shed");
+      mRequestLatency = histogram(prefix + "request_latency_ns");
+      mStageDurations = stageHistograms(prefix + "stage.");
+    }
+  }
+
+  /**
+   * Get a meter from the registry and remember its name for removal.
+   *
+   * @param name the name of the meter.
+   * @return the meter with the given name.
+   */
+  private Meter meter(
+      final String name
+  ) {
+    mNames.add(name);
+    return mRegistry.meter(name);
+  }
+
+  /**
+   * Get a histogram from the registry and remember its name for removal.
+   *
+   * @param name the name of the histogram.
+   * @return the histogram with the given name.
+   */
+  private Histogram histogram(
+      final String name
+  ) {
+    mNames.add(name);
+    return mRegistry.histogram(name);
+  }
+
+  /**
+   * Register a gauge with the registry and remember its name for removal.
+   *
+   * @param name the name of the gauge.
+   * @param gauge the gauge to register.
+   */
+  private void register(
+      final String name,
+      final Gauge<?> gauge
+  ) {
+    mNames.add(name);
+    mRegistry.register(name, gauge);
+  }
+
+  /**
+   * Get a histogram of durations for each freshening stage.
+   *
+   * @param prefix prefix of the names of the histograms.
+   * @return a histogram of durations for each freshening stage.
+   */
+  private Map<FresheningStage, Histogram> stageHistograms(
+      final String prefix
+  ) {
+    final Map<FresheningStage, Histogram> histograms =
+        new EnumMap<FresheningStage, Histogram>(FresheningStage.class);
+    for (FresheningStage stage : FresheningStage.values()) {
+      histograms.put(stage, histogram(prefix + stage.name().toLowerCase() + "_ns"));
+    }
+    return histograms;
+  }
+
+  /**
+   * Register gauges which sample the state of the reader.
+   *
+   * @param readerPool the reader's pool of KijiTableReaders.
+   * @param executorService the ExecutorService which runs the reader's Fresheners.
+   */
+  private void registerGauges(
+      final FreshenerReaderPool readerPool,
+      final ExecutorService executorService
+  ) {
+    register(mPrefix + "stale_ratio", new Gauge<Double>() {
+      /** {@inheritDoc} */
+      @Override
+      public Double getValue() {
+        final long runs = mFreshenerRuns.get();
+        return (0 == runs) ? 0.0 : (double) mStaleRuns.get() / runs;
+      }
+    });
+    register(mPrefix + "reader_pool.active", new Gauge<Integer>() {
+      /** {@inheritDoc} */
+      @Override
+      public Integer getValue() {
+        return readerPool.getStatistics().getActive();
+      }
+    });
+    register(mPrefix + "reader_pool.queue_length", new Gauge<Integer>() {
+      /** {@inheritDoc} */
+      @Override
+      public Integer getValue() {
+        return readerPool.getQueueLength();
+      }
+    });
+    if (executorService instanceof ThreadPoolExecutor) {
+      final ThreadPoolExecutor executor = (ThreadPoolExecutor) executorService;
+      register(mPrefix + "executor.queue_depth", new Gauge<Integer>() {
+        /** {@inheritDoc} */
+        @Override
+        public Integer getValue() {
+          return executor.getQueue().size();
+        }
+      });
+    }
+  }
+
+  /**
+   * Get the metrics of the Freshener attached to the given column. Qualified columns in map type
+   * families are attributed to the Freshener attached to the family.
+   *
+   * @param column the column for which a Freshener ran.
+   * @return the metrics of the Freshener attached to the given column.
+   */
+  private FreshenerMetrics getFreshenerMetrics(
+      final KijiColumnName column
+  ) {
+    final FreshenerMetrics existing = mFreshenerMetrics.get(column);
+    if (null != existing) {
+      return existing;
+    }
+    final FamilyLayout family = mTable.getLayout().getFamilyMap().get(column.getFamily());
+    final KijiColumnName attachedColumn = (null != family && family.isMapType())
+        ? KijiColumnName.create(column.getFamily(), null) : column;
+    FreshenerMetrics metrics = mFreshenerMetrics.get(attachedColumn);
+    if (null == metrics) {
+      final FreshenerMetrics created =
+          new FreshenerMetrics(String.format("%sfreshener.%s.", mPrefix, attachedColumn));
+      metrics = mFreshenerMetrics.putIfAbsent(attachedColumn, created);
+      if (null == metrics) {
+        metrics = created;
+      }
+    }
+    mFreshenerMetrics.putIfAbsent(column, metrics);
+    return metrics;
+  }
+
+  /** Record the start of a request. */
+  void requestStarted() {
+    mRequests.mark(1);
+  }
+
+  /** Record that a request was shed by admission control. */
+  void requestShed() {
+    mShed.mark(1);
+  }
+
+  /**
+   * Record the end of a request which ran Fresheners.
+   *
+   * @param durationNanos time in nanoseconds from the start of the request until it returned.
+   * @param timedOut whether the request timed out.
+   */
+  void requestFinished(
+      final long durationNanos,
+      final boolean timedOut
+  ) {
+    mRequestLatency.update(durationNanos);
+    if (timedOut) {
+      mTimeouts.mark(1);
+    }
+  }
+
+  /**
+   * Record the end of a single Freshener run.
+   *
+   * @param attachedColumn the column for which the Freshener ran.
+   * @param durationNanos time in nanoseconds from the start of the request until the Freshener
+   *     finished.
+   * @param timedOut whether the request had timed out before the Freshener finished.
+   * @param scoreFunctionRan whether the data was stale and the ScoreFunction ran.
+   */
+  void freshenerFinished(
+      final KijiColumnName attachedColumn,
+      final long durationNanos,
+      final boolean timedOut,
+      final boolean scoreFunctionRan
+  ) {
+    final FreshenerMetrics metrics = getFreshenerMetrics(attachedColumn);
+    mFreshenerRuns.incrementAndGet();
+    metrics.mRuns.mark(1);
+    metrics.mLatency.update(durationNanos);
+    if (scoreFunctionRan) {
+      mStaleRuns.incrementAndGet();
+      metrics.mStale.mark(1);
+    }
+    if (timedOut) {
+      metrics.mTimeouts.mark(1);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void emit(
+      final FresheningSpan span
+  ) {
+    mStageDurations.get(span.getStage()).update(span.getDurationNanos());
+    if (null != span.getAttachedColumn() && null != span.getFreshenerRecord()) {
+      getFreshenerMetrics(span.getAttachedColumn()).mStageDurations
+          .get(span.getStage()).update(span.getDurationNanos());
+    }
+  }
+
+  /**
+   * Get a TraceSink which emits spans to both the given TraceSink and these metrics.
+   *
+   * @param traceSink TraceSink configured by the user, or null if none was configured.
+   * @return a TraceSink which emits spans to both the given TraceSink and these metrics.
+   */
+  TraceSink wrap(
+      final TraceSink traceSink
+  ) {
+    if (null == traceSink) {
+      return this;
+    }
+    return new TraceSink() {
+      /** {@inheritDoc} */
+      @Override
+      public void emit(
+          final FresheningSpan span
+      ) {
+        traceSink.emit(span);
+        ReaderMetrics.this.emit(span);
+      }
+    };
+  }
+
+  /** Remove all metrics of the reader from the registry. */
+  void close() {
+    for (String name : mNames) {
+      mRegistry.remove(name);
+    }
+    mNames.clear();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(ReaderMetrics.class)
+        .add("prefix", mPrefix)
+        .add("registry", mRegistry)
+        .toString();
+  }
+}
@@ -0,0 +1,117 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import com.google.common.base.Objects;
+
+import org.kiji.annotations.ApiAudience;
+
+/**
+ * The deadline of a single freshening request and whether the request has been cancelled.
+ *
+ * <p>
+ *   A RequestDeadline is shared by every Freshener run as part of a request and is exposed to
+ *   KijiFreshnessPolicies and ScoreFunctions through
+ *   {@link org.kiji.scoring.FreshenerContext#getRemainingNanos()} and
+ *   {@link org.kiji.scoring.FreshenerContext#isCancelled()}. Cancellation is cooperative; a
+ *   cancelled request does not interrupt running Fresheners, but Fresheners which have not yet
+ *   scored skip their ScoreFunctions.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class RequestDeadline {
+  /** A deadline which never passes and cannot be cancelled. */
+  static final RequestDeadline NONE = new RequestDeadline(false, 0);
+
+  /**
+   * Create a new RequestDeadline.
+   *
+   * @param startNanos time in nanoseconds at which the request started.
+   * @param timeoutNanos time in nanoseconds after the start of the request at which the deadline
+   *     passes.
+   * @return a new RequestDeadline.
+   */
+  static RequestDeadline create(
+      final long startNanos,
+      final long timeoutNanos
+  ) {
+    return new RequestDeadline(true, startNanos + timeoutNanos);
+  }
+
+  /** Whether this deadline can pass. */
+  private final boolean mIsBounded;
+  /** Time in nanoseconds at which this deadline passes. */
+  private final long mDeadlineNanos;
+  /** Whether the request has been cancelled. This value may only move from false to true. */
+  private volatile boolean mIsCancelled = false;
+
+  /**
+   * Initialize a new RequestDeadline.
+   *
+   * @param isBounded whether this deadline can pass.
+   * @param deadlineNanos time in nanoseconds at which this deadline passes.
+   */
+  private RequestDeadline(
+      final boolean isBounded,
+      final long deadlineNanos
+  ) {
+    mIsBounded = isBounded;
+    mDeadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * Get the time in nanoseconds until this deadline passes. Negative once the deadline has passed
+   * and {@link Long#MAX_VALUE} if the deadline cannot pass.
+   *
+   * @return the time in nanoseconds until this deadline passes.
+   */
+  long getRemainingNanos() {
+    return mIsBounded ? mDeadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+  }
+
+  /** Cancel the request. Has no effect on {@link #NONE}. */
+  void cancel() {
+    if (mIsBounded) {
+      mIsCancelled = true;
+    }
+  }
+
+  /**
+   * Whether the request has been cancelled.
+   *
+   * @return whether the request has been cancelled.
+   */
+  boolean isCancelled() {
+    return mIsCancelled;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(RequestDeadline.class)
+        .add("remaining_nanos", getRemainingNanos())
+        .add("cancelled", mIsCancelled)
+        .toString();
+  }
+}
@@ -0,0 +1,86 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import org.kiji.annotations.ApiAudience;
+
+/**
+ * Unique identifier of a single freshening request.
+ *
+ * <p>
+ *   The string form of a RequestId is built the first time it is needed, usually when a debug log
+ *   message or a span is emitted, so that requests which are neither logged nor traced do not pay
+ *   for formatting an identifier.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+final class RequestId {
+
+  /**
+   * Create a new RequestId.
+   *
+   * @param readerUID unique identifier of the reader which serves the request.
+   * @param sequenceNumber number of the request, unique within its reader.
+   * @return a new RequestId.
+   */
+  static RequestId create(
+      final String readerUID,
+      final long sequenceNumber
+  ) {
+    return new RequestId(readerUID, sequenceNumber);
+  }
+
+  private final String mReaderUID;
+  private final long mSequenceNumber;
+  /**
+   * Cached string form of this identifier. Racing threads may each build the string, but every
+   * build is equal, so no synchronization is required.
+   */
+  private String mString = null;
+
+  /**
+   * Private constructor. Use {@link #create(String, long)}.
+   *
+   * @param readerUID unique identifier of the reader which serves the request.
+   * @param sequenceNumber number of the request, unique within its reader.
+   */
+  private RequestId(
+      final String readerUID,
+      final long sequenceNumber
+  ) {
+    mReaderUID = readerUID;
+    mSequenceNumber = sequenceNumber;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    String string = mString;
+    if (null == string) {
+      string = mReaderUID + '#' + mSequenceNumber;
+      mString = string;
+    }
+    return string;
+  }
+}
@@ -0,0 +1,195 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+
+import com.google.common.base.Objects;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.avro.KijiFreshenerRecord;
+import org.kiji.scoring.statistics.FreshKijiTableReaderStatistics;
+import org.kiji.scoring.statistics.FresheningSpan;
+import org.kiji.scoring.statistics.FresheningStage;
+import org.kiji.scoring.statistics.TraceSink;
+
+/**
+ * Times the stages of a single freshening request and emits a span for each to a TraceSink and
+ * to the statistics gathering thread or directly to aggregate statistics.
+ *
+ * <p>
+ *   Callers time a stage by calling {@link #start()} before it and
+ *   {@link #end(KijiColumnName, FresheningStage, long)} after it. {@link #DISABLED} does not read
+ *   the clock or allocate, so tracing costs only two calls per stage when it is turned off.
+ * </p>
+ *
+ * <p>
+ *   This class is package private to be used by InternalFreshKijiTableReader. It should not be used
+ *   elsewhere.
+ * </p>
+ */
+@ApiAudience.Private
+class RequestTracer {
+
+  /** A RequestTracer which records nothing. */
+  static final RequestTracer DISABLED = new RequestTracer(null, null, null, null, null) {
+    /** {@inheritDoc} */
+    @Override
+    long start() {
+      return 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    void end(
+        final KijiColumnName attachedColumn,
+        final FresheningStage stage,
+        final long startNanos
+    ) { }
+  };
+
+  /**
+   * Create a new RequestTracer, or get {@link #DISABLED} if spans have nowhere to go.
+   *
+   * @param requestId unique identifier of the traced request.
+   * @param freshenerRecords records of the Fresheners run by the request, keyed by attached column.
+   * @param traceSink TraceSink to which to emit spans, or null if spans should not be emitted.
+   * @param spanQueue queue through which to pass spans to the statistics gathering thread, or null
+   *     if statistics are not being gathered by that thread.
+   * @param aggregateStatistics statistics to which to add spans directly, or null if aggregate
+   *     statistics are not being gathered without the statistics gathering thread.
+   * @return a new RequestTracer, or {@link #DISABLED} if spans have nowhere to go.
+   */
+  static RequestTracer create(
+      final RequestId requestId,
+      final Map<KijiColumnName, KijiFreshenerRecord> freshenerRecords,
+      final TraceSink traceSink,
+      final BlockingQueue<FresheningSpan> spanQueue,
+      final FreshKijiTableReaderStatistics aggregateStatistics
+  ) {
+    if (null == traceSink && null == spanQueue && null == aggregateStatistics) {
+      return DISABLED;
+    } else {
+      return new RequestTracer(
+          requestId, freshenerRecords, traceSink, spanQueue, aggregateStatistics);
+    }
+  }
+
+  private final RequestId mRequestId;
+  private final Map<KijiColumnName, KijiFreshenerRecord> mFreshenerRecords;
+  private final TraceSink mTraceSink;
+  private final BlockingQueue<FresheningSpan> mSpanQueue;
+  private final FreshKijiTableReaderStatistics mAggregateStatistics;
+
+  /**
+   * Private constructor. Use
+   * {@link #create(RequestId, Map, TraceSink, BlockingQueue, FreshKijiTableReaderStatistics)}.
+   *
+   * @param requestId unique identifier of the traced request.
+   * @param freshenerRecords records of the Fresheners run by the request, keyed by attached column.
+   * @param traceSink TraceSink to which to emit spans, or null.
+   * @param spanQueue queue through which to pass spans to the statistics gathering thread, or null.
+   * @param aggregateStatistics statistics to which to add spans directly, or null.
+   */
+  private RequestTracer(
+      final RequestId requestId,
+      final Map<KijiColumnName, KijiFreshenerRecord> freshenerRecords,
+      final TraceSink traceSink,
+      final BlockingQueue<FresheningSpan> spanQueue,
+      final FreshKijiTableReaderStatistics aggregateStatistics
+  ) {
+    mRequestId = requestId;
+    mFreshenerRecords = freshenerRecords;
+    mTraceSink = traceSink;
+    mSpanQueue = spanQueue;
+    mAggregateStatistics = aggregateStatistics;
+  }
+
+  /**
+   * Get the record of the Freshener attached to the given column or to its map type family.
+   *
+   * @param attachedColumn the column to which the Freshener is attached.
+   * @return the record of the Freshener attached to the given column, or null if there is none.
+   */
+  private KijiFreshenerRecord getRecord(
+      final KijiColumnName attachedColumn
+  ) {
+    if (null == attachedColumn) {
+      return null;
+    }
+    final KijiFreshenerRecord record = mFreshenerRecords.get(attachedColumn);
+    if (null == record && attachedColumn.isFullyQualified()) {
+      return mFreshenerRecords.get(KijiColumnName.create(attachedColumn.getFamily(), null));
+    } else {
+      return record;
+    }
+  }
+
+  /**
+   * Get the start time of a stage.
+   *
+   * @return the start time of a stage to pass to
+   *     {@link #end(KijiColumnName, FresheningStage, long)}.
+   */
+  long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Record the end of a stage.
+   *
+   * @param attachedColumn the column of the Freshener which ran the stage, or null if the stage
+   *     belongs to the whole request.
+   * @param stage the stage which ended.
+   * @param startNanos the value returned by {@link #start()} when the stage began.
+   */
+  void end(
+      final KijiColumnName attachedColumn,
+      final FresheningStage stage,
+      final long startNanos
+  ) {
+    final FresheningSpan span = FresheningSpan.create(
+        mRequestId.toString(),
+        attachedColumn,
+        getRecord(attachedColumn),
+        stage,
+        startNanos,
+        System.nanoTime() - startNanos);
+    if (null != mTraceSink) {
+      mTraceSink.emit(span);
+    }
+    if (null != mSpanQueue) {
+      mSpanQueue.add(span);
+    }
+    if (null != mAggregateStatistics) {
+      mAggregateStatistics.addFresheningSpan(span);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(RequestTracer.class)
+        .add("request_id", mRequestId)
+        .add("trace_sink", mTraceSink)
+        .toString();
+  }
+}
@@ -40,11 +40,15 @@ import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiDataRequest.Column;
+import org.kiji.schema.KijiRowData;
 import org.kiji.schema.KijiTableReader;
 import org.kiji.schema.KijiTableReaderPool;
 import org.kiji.schema.RuntimeInterruptedException;
 import org.kiji.scoring.KijiFreshnessPolicy;
 import org.kiji.scoring.ScoreFunction;
+import org.kiji.scoring.ScoreFunction.TimestampedValue;
+import org.kiji.scoring.lib.NewerThan;
+import org.kiji.scoring.lib.ShelfLife;
 
 /** Utility class for commonly used methods in KijiScoring. */
 @ApiAudience.Private
@@ -228,4 +232,48 @@ public final class ScoringUtils {
     }
     return collectedQualifiers;
   }
+
+  /**
+   * Check whether a KijiFreshnessPolicy judges freshness by the timestamp of the newest cell in the
+   * attached column. Writing only on change cannot be used with such a policy, because a cell whose
+   * rescored value is unchanged keeps its old timestamp and would be stale on every later read.
+   *
+   * @param policyClass fully qualified class name of the KijiFreshnessPolicy to check.
+   * @return whether the policy judges freshness by the timestamp of the attached column.
+   */
+  public static boolean judgesFreshnessByTimestamp(
+      final String policyClass
+  ) {
+    return ShelfLife.class.getName().equals(policyClass)
+        || NewerThan.class.getName().equals(policyClass);
+  }
+
+  /**
+   * Check whether the value of a score equals the most recent value of a column. CharSequences are
+   * compared by content so that a decoded Avro Utf8 equals an equivalent String.
+   *
+   * @param currentData row data containing the current value of the column.
+   * @param column fully qualified column whose current value to compare.
+   * @param score the score whose value to compare.
+   * @return whether the value of the score equals the most recent value of the column. False if
+   *     the row data contains no value for the column.
+   * @throws IOException in case of an error decoding the current value of the column.
+   */
+  public static boolean isUnchanged(
+      final KijiRowData currentData,
+      final KijiColumnName column,
+      final TimestampedValue<?> score
+  ) throws IOException {
+    if (!currentData.containsColumn(column.getFamily(), column.getQualifier())) {
+      return false;
+    }
+    final Object current =
+        currentData.getMostRecentValue(column.getFamily(), column.getQualifier());
+    final Object value = score.getValue();
+    if (current instanceof CharSequence && value instanceof CharSequence) {
+      return current.toString().equals(value.toString());
+    } else {
+      return Objects.equal(current, value);
+    }
+  }
 }
@@ -0,0 +1,244 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.collect.ImmutableSet;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.scoring.CounterManager;
+
+/**
+ * A counter manager for concurrent use which does not lock on increment.
+ *
+ * <p>
+ *   Each counter is split into several stripes, each on its own cache line. Threads increment the
+ *   stripe selected by their thread ID and reads sum all stripes, so concurrent increments of the
+ *   same counter rarely touch the same memory. Counters are found through concurrent maps keyed by
+ *   group and then name, and enum counters are additionally cached by the enum constant itself so
+ *   that incrementing an enum counter does not build its group name.
+ * </p>
+ *
+ * <p>
+ *   Counter values read while increments are in progress may not reflect those increments.
+ *   {@link #getGroups()} and {@link #getCountersInGroup(String)} return immutable snapshots.
+ * </p>
+ */
+@ApiAudience.Private
+public final class StripedCounterManager implements CounterManager {
+
+  /** Number of longs per stripe. Pads each stripe to its own 64 byte cache line. */
+  private static final int STRIPE_WIDTH = 8;
+  /** Number of stripes per counter. A power of two at least the number of processors. */
+  private static final int STRIPE_COUNT = stripeCount(Runtime.getRuntime().availableProcessors());
+
+  /**
+   * Get the smallest power of two which is at least the given number of processors.
+   *
+   * @param processors the number of available processors.
+   * @return the number of stripes to use for each counter.
+   */
+  private static int stripeCount(
+      final int processors
+  ) {
+    int count = 1;
+    while (count < processors) {
+      count <<= 1;
+    }
+    return count;
+  }
+
+  /**
+   * Get the index of the stripe which the calling thread should increment.
+   *
+   * @return the index of the stripe which the calling thread should increment.
+   */
+  private static int stripeIndex() {
+    long id = Thread.currentThread().getId();
+    // Spread sequential thread IDs across stripes.
+    id ^= (id >>> 16);
+    id *= 0x85ebca6bL;
+    id ^= (id >>> 13);
+    return ((int) id & (STRIPE_COUNT - 1)) * STRIPE_WIDTH;
+  }
+
+  /** A single counter value split across stripes. */
+  private static final class StripedLong {
+    private final AtomicLongArray mStripes = new AtomicLongArray(STRIPE_COUNT * STRIPE_WIDTH);
+
+    /**
+     * Add the given value to this counter.
+     *
+     * @param value the value to add.
+     */
+    private void add(
+        final long value
+    ) {
+      mStripes.addAndGet(stripeIndex(), value);
+    }
+
+    /**
+     * Get the sum of all stripes of this counter.
+     *
+     * @return the sum of all stripes of this counter.
+     */
+    private long sum() {
+      long sum = 0;
+      for (int i = 0; i < STRIPE_COUNT * STRIPE_WIDTH; i += STRIPE_WIDTH) {
+        sum += mStripes.get(i);
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * Create a new StripedCounterManager.
+   *
+   * @return a new StripedCounterManager.
+   */
+  public static StripedCounterManager create() {
+    return new StripedCounterManager();
+  }
+
+  private final ConcurrentMap<String, ConcurrentMap<String, StripedLong>> mCounters =
+      new ConcurrentHashMap<String, ConcurrentMap<String, StripedLong>>();
+  private final ConcurrentMap<Enum<?>, StripedLong> mEnumCounters =
+      new ConcurrentHashMap<Enum<?>, StripedLong>();
+
+  /** Private constructor. Use {@link #create()}. */
+  private StripedCounterManager() { }
+
+  /**
+   * Get the counter with the given group and name, creating it if it does not exist.
+   *
+   * @param group the group of the counter.
+   * @param name the name of the counter.
+   * @return the counter with the given group and name.
+   */
+  private StripedLong getOrCreate(
+      final String group,
+      final String name
+  ) {
+    ConcurrentMap<String, StripedLong> groupMap = mCounters.get(group);
+    if (null == groupMap) {
+      final ConcurrentMap<String, StripedLong> newGroupMap =
+          new ConcurrentHashMap<String, StripedLong>();
+      groupMap = mCounters.putIfAbsent(group, newGroupMap);
+      if (null == groupMap) {
+        groupMap = newGroupMap;
+      }
+    }
+    StripedLong counter = groupMap.get(name);
+    if (null == counter) {
+      final StripedLong newCounter = new StripedLong();
+      counter = groupMap.putIfAbsent(name, newCounter);
+      if (null == counter) {
+        counter = newCounter;
+      }
+    }
+    return counter;
+  }
+
+  /**
+   * Get the counter with the given group and name if it exists.
+   *
+   * @param group the group of the counter.
+   * @param name the name of the counter.
+   * @return the counter with the given group and name or null if it does not exist.
+   */
+  private StripedLong getIfPresent(
+      final String group,
+      final String name
+  ) {
+    final ConcurrentMap<String, StripedLong> groupMap = mCounters.get(group);
+    return (null != groupMap) ? groupMap.get(name) : null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void incrementCounter(
+      final Enum<?> counter,
+      final long value
+  ) {
+    StripedLong striped = mEnumCounters.get(counter);
+    if (null == striped) {
+      // Share the counter with the equivalent group and name so that both views agree.
+      striped = getOrCreate(counter.getDeclaringClass().getName(), counter.name());
+      mEnumCounters.putIfAbsent(counter, striped);
+    }
+    striped.add(value);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void incrementCounter(
+      final String group,
+      final String name,
+      final long value
+  ) {
+    getOrCreate(group, name).add(value);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Long getCounterValue(
+      final Enum<?> counter
+  ) {
+    final StripedLong striped = mEnumCounters.get(counter);
+    if (null != striped) {
+      return striped.sum();
+    } else {
+      return getCounterValue(counter.getDeclaringClass().getName(), counter.name());
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Long getCounterValue(
+      final String group,
+      final String name
+  ) {
+    final StripedLong striped = getIfPresent(group, name);
+    return (null != striped) ? striped.sum() : null;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Set<String> getGroups() {
+    return ImmutableSet.copyOf(mCounters.keySet());
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Set<String> getCountersInGroup(
+      final String group
+  ) {
+    final ConcurrentMap<String, StripedLong> groupMap = mCounters.get(group);
+    if (null != groupMap) {
+      return ImmutableSet.copyOf(groupMap.keySet());
+    } else {
+      return Collections.emptySet();
+    }
+  }
+}
@@ -22,10 +22,10 @@ import java.util.concurrent.Callable;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.schema.EntityId;
+import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiRowData;
-import org.kiji.schema.KijiTableReader;
-import org.kiji.schema.KijiTableReaderPool;
+import org.kiji.scoring.statistics.FresheningStage;
 
 /**
  * Callable which performs a read from a table.  Used in a Future to read asynchronously.
@@ -38,35 +38,63 @@ import org.kiji.schema.KijiTableReaderPool;
 @ApiAudience.Private
 final class TableReadCallable implements Callable<KijiRowData> {
 
-  private final KijiTableReaderPool mReaderPool;
+  private final FreshenerReaderPool mReaderPool;
   private final EntityId mEntityId;
   private final KijiDataRequest mDataRequest;
+  private final RequestTracer mTracer;
+  private final KijiColumnName mAttachedColumn;
+  private final FresheningStage mStage;
 
   /**
    * Initialize a new TableReadCallable.
    *
-   * @param readerPool the KijiTableReaderPool from which to get a reader to perform the read.
+   * @param readerPool the FreshenerReaderPool from which to get a reader to perform the read.
    * @param entityId the EntityId of the row from which to read data.
    * @param dataRequest the KijiDataRequest defining the data to read from the row.
    */
   public TableReadCallable(
-      final KijiTableReaderPool readerPool,
+      final FreshenerReaderPool readerPool,
       final EntityId entityId,
       final KijiDataRequest dataRequest
   ) {
+    this(readerPool, entityId, dataRequest, RequestTracer.DISABLED, null, null);
+  }
+
+  /**
+   * Initialize a new TableReadCallable which times the read as a stage of a freshening request.
+   *
+   * @param readerPool the FreshenerReaderPool from which to get a reader to perform the read.
+   * @param entityId the EntityId of the row from which to read data.
+   * @param dataRequest the KijiDataRequest defining the data to read from the row.
+   * @param tracer RequestTracer with which to time the read.
+   * @param attachedColumn column of the Freshener for which the read is performed, or null if the
+   *     read belongs to the whole request.
+   * @param stage the stage of the request which the read performs.
+   */
+  // CSOFF: ParameterNumberCheck
+  public TableReadCallable(
+      final FreshenerReaderPool readerPool,
+      final EntityId entityId,
+      final KijiDataRequest dataRequest,
+      final RequestTracer tracer,
+      final KijiColumnName attachedColumn,
+      final FresheningStage stage
+  ) {
+    // CSON: ParameterNumberCheck
     mReaderPool = readerPool;
     mEntityId = entityId;
     mDataRequest = dataRequest;
+    mTracer = tracer;
+    mAttachedColumn = attachedColumn;
+    mStage = stage;
   }
 
   /** {@inheritDoc} */
   @Override
   public KijiRowData call() throws Exception {
-    final KijiTableReader reader = ScoringUtils.getPooledReader(mReaderPool);
-    try {
-      return reader.get(mEntityId, mDataRequest);
-    } finally {
-      reader.close();
-    }
+    final long startNanos = mTracer.start();
+    final KijiRowData data = mReaderPool.get(mEntityId, mDataRequest);
+    mTracer.end(mAttachedColumn, mStage, startNanos);
+    return data;
   }
 }
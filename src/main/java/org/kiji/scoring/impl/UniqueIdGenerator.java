@@ -40,6 +40,15 @@ final class UniqueIdGenerator {
    * @return the next unique identifier.
    */
   public String getNextUniqueId() {
-    return String.valueOf(mNext.getAndIncrement());
+    return String.valueOf(getNextId());
+  }
+
+  /**
+   * Get the next unique identifier without formatting it.
+   *
+   * @return the next unique identifier.
+   */
+  public long getNextId() {
+    return mNext.getAndIncrement();
   }
 }
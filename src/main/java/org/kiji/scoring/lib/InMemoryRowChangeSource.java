@@ -0,0 +1,123 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.schema.RuntimeInterruptedException;
+import org.kiji.scoring.RowChange;
+import org.kiji.scoring.RowChangeSource;
+
+/**
+ * RowChangeSource backed by an unbounded in-memory queue. Changes are added with
+ * {@link #add(RowChange)} or {@link #addAll(Collection)}. Changes are not replayed, so
+ * {@link #commit()} does nothing. Suitable for testing and for feeding changes observed within
+ * the same process.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class InMemoryRowChangeSource implements RowChangeSource {
+
+  private final BlockingQueue<RowChange> mQueue = new LinkedBlockingQueue<RowChange>();
+
+  /** Private constructor. Use {@link #create()}. */
+  private InMemoryRowChangeSource() { }
+
+  /**
+   * Create a new empty InMemoryRowChangeSource.
+   *
+   * @return a new empty InMemoryRowChangeSource.
+   */
+  public static InMemoryRowChangeSource create() {
+    return new InMemoryRowChangeSource();
+  }
+
+  /**
+   * Add a change to the end of the feed.
+   *
+   * @param change the change to add.
+   * @return this source.
+   */
+  public InMemoryRowChangeSource add(
+      final RowChange change
+  ) {
+    mQueue.add(change);
+    return this;
+  }
+
+  /**
+   * Add changes to the end of the feed.
+   *
+   * @param changes the changes to add.
+   * @return this source.
+   */
+  public InMemoryRowChangeSource addAll(
+      final Collection<RowChange> changes
+  ) {
+    mQueue.addAll(changes);
+    return this;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public List<RowChange> poll(
+      final int maxChanges,
+      final long timeout,
+      final TimeUnit unit
+  ) {
+    final List<RowChange> changes = Lists.newArrayList();
+    try {
+      final RowChange first = mQueue.poll(timeout, unit);
+      if (null != first) {
+        changes.add(first);
+        mQueue.drainTo(changes, maxChanges - 1);
+      }
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    }
+    return changes;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void commit() { }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() {
+    mQueue.clear();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(InMemoryRowChangeSource.class)
+        .add("queued_changes", mQueue.size())
+        .toString();
+  }
+}
@@ -114,6 +114,18 @@ public final class ShelfLife extends KijiFreshnessPolicy {
         && System.currentTimeMillis() - timestamps.first() <= shelfLife;
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public long getExpirationTime(KijiRowData rowData, FreshenerContext context) {
+    final ShelfLifeParameters params = new ShelfLifeParameters();
+    params.parse(context);
+    final KijiColumnName columnName = context.getAttachedColumn();
+    final NavigableSet<Long> timestamps =
+        rowData.getTimestamps(columnName.getFamily(), columnName.getQualifier());
+    // Fresh data is stale once the newest value is more than the shelf life old.
+    return timestamps.first() + params.getShelfLife() + 1;
+  }
+
   // Parameters ------------------------------------------------------------------------------------
 
   /**
@@ -30,18 +30,15 @@ import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 import org.kiji.mapreduce.KijiContext;
 import org.kiji.mapreduce.kvstore.KeyValueStore;
-import org.kiji.mapreduce.kvstore.KeyValueStoreReader;
 import org.kiji.mapreduce.produce.KijiProducer;
 import org.kiji.mapreduce.produce.ProducerContext;
 import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiRowData;
-import org.kiji.scoring.CounterManager;
-import org.kiji.scoring.FreshenerContext;
 import org.kiji.scoring.ScoreFunction;
 import org.kiji.scoring.impl.InternalFreshenerContext;
 import org.kiji.scoring.impl.NullCounterManager;
-import org.kiji.scoring.lib.produce.impl.KijiContextCounterManager;
+import org.kiji.scoring.lib.produce.impl.KijiContextFreshenerContext;
 
 /**
  * KijiProducer implementation which runs a ScoreFunction implementation by name.
@@ -78,72 +75,14 @@ public final class ScoreFunctionProducer extends KijiProducer {
     // CSON: MemberName
   }
 
-  /**
-   * FreshenerContext implementation which delegates to a KijiContext to provide KeyValueStores and
-   * to an InternalFreshenerContext to provide all other methods.
-   */
-  private static final class ScoreFunctionProducerFreshenerContext implements FreshenerContext {
-
-    private final KijiContext mGetStoresDelegate;
-    private final InternalFreshenerContext mOtherDelegate;
-    private final CounterManager mCounterManager;
-
-    /**
-     * Initialize a new ScoreFunctionProducerFreshenerContext with the given delegates.
-     *  @param getStoresDelegate a KijiContext from which to get KeyValueStores.
-     * @param otherDelegate an InternalFreshenerContext with which to provide all other methods.
-     * @param counterManager CounterManager with which to store counters.
-     */
-    private ScoreFunctionProducerFreshenerContext(
-        final KijiContext getStoresDelegate,
-        final InternalFreshenerContext otherDelegate,
-        final CounterManager counterManager
-    ) {
-      mGetStoresDelegate = getStoresDelegate;
-      mOtherDelegate = otherDelegate;
-      mCounterManager = counterManager;
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public KijiDataRequest getClientRequest() {
-      return mOtherDelegate.getClientRequest();
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public <K, V> KeyValueStoreReader<K, V> getStore(final String storeName) throws IOException {
-      return mGetStoresDelegate.getStore(storeName);
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public CounterManager getCounterManager() {
-      return mCounterManager;
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public String getParameter(final String key) {
-      return mOtherDelegate.getParameter(key);
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public Map<String, String> getParameters() {
-      return mOtherDelegate.getParameters();
-    }
-
-    /** {@inheritDoc} */
-    @Override
-    public KijiColumnName getAttachedColumn() {
-      return mOtherDelegate.getAttachedColumn();
-    }
-  }
-
   private ScoreFunctionConf mScoreFunctionConf;
   private ScoreFunction<?> mScoreFunction;
   private InternalFreshenerContext mInternalFreshenerContextDelegate;
+  /**
+   * Single FreshenerContext shared by setup, every call to produce, and cleanup. Rebound to the
+   * KijiContext passed to each of those methods, which is free when the context is unchanged.
+   */
+  private KijiContextFreshenerContext mFreshenerContext;
 
   /**
    * Create a new instance of the given ScoreFunction implementation class.
@@ -176,9 +115,10 @@ public final class ScoreFunctionProducer extends KijiProducer {
         KijiColumnName.create(mScoreFunctionConf.attachedColumn),
         mScoreFunctionConf.parameters,
         // This CounterManager is null because we do not yet have access to a KijiContext to create
-        // a real manager. Methods which provide a KijiContext will create another FreshenerContext
-        // that delegates to this for some operations and includes a real manager.
+        // a real manager. Methods which provide a KijiContext will bind mFreshenerContext, which
+        // delegates to this for some operations and includes a real manager.
         NullCounterManager.get());
+    mFreshenerContext = KijiContextFreshenerContext.create(mInternalFreshenerContextDelegate);
   }
 
   /** {@inheritDoc} */
@@ -192,10 +132,7 @@ public final class ScoreFunctionProducer extends KijiProducer {
   public void setup(
       final KijiContext context
   ) throws IOException {
-    mScoreFunction.setup(new ScoreFunctionProducerFreshenerContext(
-        context,
-        mInternalFreshenerContextDelegate,
-        KijiContextCounterManager.create(context)));
+    mScoreFunction.setup(mFreshenerContext.reset(context));
   }
 
   /**
@@ -233,12 +170,8 @@ public final class ScoreFunctionProducer extends KijiProducer {
   public void produce(
       final KijiRowData input, final ProducerContext context
   ) throws IOException {
-    ScoreFunction.TimestampedValue<?> scoringResult = mScoreFunction.score(
-        input,
-        new ScoreFunctionProducerFreshenerContext(
-            context,
-            mInternalFreshenerContextDelegate,
-            KijiContextCounterManager.create(context)));
+    final ScoreFunction.TimestampedValue<?> scoringResult =
+        mScoreFunction.score(input, mFreshenerContext.reset(context));
     context.put(scoringResult.getTimestamp(), scoringResult.getValue());
   }
 
@@ -247,9 +180,6 @@ public final class ScoreFunctionProducer extends KijiProducer {
   public void cleanup(
       final KijiContext context
   ) throws IOException {
-    mScoreFunction.cleanup(new ScoreFunctionProducerFreshenerContext(
-        context,
-        mInternalFreshenerContextDelegate,
-        KijiContextCounterManager.create(context)));
+    mScoreFunction.cleanup(mFreshenerContext.reset(context));
   }
 }
@@ -0,0 +1,166 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.produce.impl;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.common.base.Preconditions;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.mapreduce.KijiContext;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReader;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.FreshenerContext;
+import org.kiji.scoring.impl.InternalFreshenerContext;
+
+/**
+ * Reusable FreshenerContext implementation which delegates to a KijiContext to provide
+ * KeyValueStores and counters and to an InternalFreshenerContext to provide all other methods.
+ *
+ * <p>
+ *   A single instance of this context is intended to serve every phase of a batch task. The
+ *   KijiContext to which it delegates may be replaced between calls using
+ *   {@link #reset(org.kiji.mapreduce.KijiContext)}. Resetting to the KijiContext which is already
+ *   bound is free, so callers may reset once per input row without allocating.
+ * </p>
+ *
+ * <p>
+ *   This class is not thread safe. It should be confined to the task thread which owns it.
+ * </p>
+ */
+@ApiAudience.Private
+public final class KijiContextFreshenerContext implements FreshenerContext {
+
+  /**
+   * Create a new KijiContextFreshenerContext which is not yet bound to a KijiContext. The returned
+   * context must be bound using {@link #reset(org.kiji.mapreduce.KijiContext)} before
+   * KeyValueStores or counters may be accessed.
+   *
+   * @param delegate InternalFreshenerContext with which to provide all methods other than
+   *     getStore and getCounterManager.
+   * @return a new KijiContextFreshenerContext.
+   */
+  public static KijiContextFreshenerContext create(
+      final InternalFreshenerContext delegate
+  ) {
+    return new KijiContextFreshenerContext(delegate);
+  }
+
+  private final InternalFreshenerContext mDelegate;
+  private KijiContext mKijiContext = null;
+  private CounterManager mCounterManager = null;
+
+  /**
+   * Private constructor. Use {@link #create(org.kiji.scoring.impl.InternalFreshenerContext)}.
+   *
+   * @param delegate InternalFreshenerContext with which to provide all methods other than
+   *     getStore and getCounterManager.
+   */
+  private KijiContextFreshenerContext(
+      final InternalFreshenerContext delegate
+  ) {
+    mDelegate = delegate;
+  }
+
+  /**
+   * Bind this context to the given KijiContext. If this context is already bound to the given
+   * KijiContext this method does nothing. Otherwise a new CounterManager is created to store
+   * counters in the new KijiContext.
+   *
+   * @param kijiContext KijiContext from which to get KeyValueStores and in which to store counters.
+   * @return this context, bound to the given KijiContext.
+   */
+  public KijiContextFreshenerContext reset(
+      final KijiContext kijiContext
+  ) {
+    Preconditions.checkNotNull(kijiContext, "KijiContext may not be null.");
+    if (kijiContext != mKijiContext) {
+      mKijiContext = kijiContext;
+      mCounterManager = KijiContextCounterManager.create(kijiContext);
+    }
+    return this;
+  }
+
+  /**
+   * Ensure that this context has been bound to a KijiContext.
+   *
+   * @throws IllegalStateException if this context has not been bound to a KijiContext.
+   */
+  private void requireBound() {
+    Preconditions.checkState(null != mKijiContext,
+        "KijiContextFreshenerContext must be bound to a KijiContext using reset(KijiContext).");
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiDataRequest getClientRequest() {
+    return mDelegate.getClientRequest();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public long getRemainingNanos() {
+    return mDelegate.getRemainingNanos();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public boolean isCancelled() {
+    return mDelegate.isCancelled();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public <K, V> KeyValueStoreReader<K, V> getStore(
+      final String storeName
+  ) throws IOException {
+    requireBound();
+    return mKijiContext.getStore(storeName);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public CounterManager getCounterManager() {
+    requireBound();
+    return mCounterManager;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getParameter(
+      final String key
+  ) {
+    return mDelegate.getParameter(key);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Map<String, String> getParameters() {
+    return mDelegate.getParameters();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public KijiColumnName getAttachedColumn() {
+    return mDelegate.getAttachedColumn();
+  }
+}
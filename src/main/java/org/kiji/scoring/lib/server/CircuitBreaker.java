@@ -0,0 +1,293 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Ticker;
+
+import org.kiji.annotations.ApiAudience;
+
+/**
+ * Circuit breaker which stops requests to a failing or slow ScoringServer.
+ *
+ * <p>
+ *   The breaker records the outcome of the most recent requests in a fixed size window. A request
+ *   is a failure if it throws or if it takes longer than the slow call threshold. Once the window
+ *   is full and the fraction of failures in it reaches the failure ratio, the breaker opens and
+ *   rejects all requests for the open duration. After the open duration a single trial request is
+ *   allowed through. If it succeeds the breaker closes and the window is cleared, otherwise the
+ *   breaker opens again.
+ * </p>
+ *
+ * <p>
+ *   Each admitted request is given a token identifying the state in which it was admitted, which it
+ *   passes back when it reports its outcome. Outcomes of requests admitted before the most recent
+ *   state change are ignored, so that a slow request admitted while the breaker was closed cannot
+ *   be mistaken for the trial request, and cannot pollute the window after the breaker closes.
+ * </p>
+ *
+ * <p>
+ *   CircuitBreaker is thread safe.
+ * </p>
+ */
+@ApiAudience.Private
+final class CircuitBreaker {
+
+  /** States of a CircuitBreaker. */
+  enum State {
+    /** Requests are allowed and their outcomes recorded. */
+    CLOSED,
+    /** Requests are rejected. */
+    OPEN,
+    /** A single trial request is allowed to determine whether the breaker should close. */
+    HALF_OPEN
+  }
+
+  /** Token returned by {@link #admitRequest()} when a request may not be sent. */
+  static final long NOT_ADMITTED = -1;
+
+  /**
+   * Create a new CircuitBreaker.
+   *
+   * @param windowSize number of recent requests over which to calculate the failure ratio.
+   * @param failureRatio fraction of failed requests in the window at which the breaker opens.
+   * @param slowCallMillis duration in milliseconds after which a successful request is counted as a
+   *     failure.
+   * @param openMillis time in milliseconds for which the breaker stays open before a trial request.
+   * @param ticker source of time.
+   * @return a new CircuitBreaker.
+   */
+  static CircuitBreaker create(
+      final int windowSize,
+      final double failureRatio,
+      final long slowCallMillis,
+      final long openMillis,
+      final Ticker ticker
+  ) {
+    Preconditions.checkArgument(0 < windowSize,
+        "Window size must be positive, found: %s", windowSize);
+    Preconditions.checkArgument(0.0 < failureRatio && failureRatio <= 1.0,
+        "Failure ratio must be in (0, 1], found: %s", failureRatio);
+    Preconditions.checkArgument(0 < slowCallMillis,
+        "Slow call threshold must be positive, found: %s", slowCallMillis);
+    Preconditions.checkArgument(0 <= openMillis,
+        "Open duration must be non-negative, found: %s", openMillis);
+    return new CircuitBreaker(windowSize, failureRatio, slowCallMillis, openMillis, ticker);
+  }
+
+  private final boolean[] mFailures;
+  private final double mFailureRatio;
+  private final long mSlowCallNanos;
+  private final long mOpenNanos;
+  private final Ticker mTicker;
+  // All mutable state is guarded by this.
+  private State mState = State.CLOSED;
+  private int mNextIndex = 0;
+  private int mRecordedCount = 0;
+  private int mFailureCount = 0;
+  private long mOpenedAtNanos = 0;
+  private boolean mTrialInFlight = false;
+  /** Incremented on every state change. Requests are admitted with the current generation. */
+  private long mGeneration = 0;
+
+  /**
+   * Private constructor. Use {@link #create(int, double, long, long, Ticker)}.
+   *
+   * @param windowSize number of recent requests over which to calculate the failure ratio.
+   * @param failureRatio fraction of failed requests in the window at which the breaker opens.
+   * @param slowCallMillis duration in milliseconds after which a successful request is counted as a
+   *     failure.
+   * @param openMillis time in milliseconds for which the breaker stays open before a trial request.
+   * @param ticker source of time.
+   */
+  private CircuitBreaker(
+      final int windowSize,
+      final double failureRatio,
+      final long slowCallMillis,
+      final long openMillis,
+      final Ticker ticker
+  ) {
+    mFailures = new boolean[windowSize];
+    mFailureRatio = failureRatio;
+    mSlowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    mOpenNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+    mTicker = ticker;
+  }
+
+  /**
+   * Get the current time in nanoseconds from this breaker's ticker.
+   *
+   * @return the current time in nanoseconds.
+   */
+  long now() {
+    return mTicker.read();
+  }
+
+  /**
+   * Check whether a request may be sent. Every request which is admitted must report its outcome
+   * with {@link #recordSuccess(long, long)} or {@link #recordFailure(long)}, passing the token
+   * returned by this method.
+   *
+   * @return a token identifying the admitted request, or {@link #NOT_ADMITTED} if the request may
+   *     not be sent.
+   */
+  synchronized long admitRequest() {
+    switch (mState) {
+      case CLOSED:
+        return mGeneration;
+      case OPEN:
+        if (now() - mOpenedAtNanos >= mOpenNanos) {
+          setState(State.HALF_OPEN);
+          mTrialInFlight = true;
+          return mGeneration;
+        } else {
+          return NOT_ADMITTED;
+        }
+      case HALF_OPEN:
+        if (mTrialInFlight) {
+          return NOT_ADMITTED;
+        } else {
+          mTrialInFlight = true;
+          return mGeneration;
+        }
+      default:
+        throw new IllegalStateException("Unknown circuit breaker state: " + mState);
+    }
+  }
+
+  /**
+   * Change the state of the breaker and start a new generation of requests. Must be called while
+   * holding the lock on this.
+   *
+   * @param state the new state of the breaker.
+   */
+  private void setState(
+      final State state
+  ) {
+    mState = state;
+    mGeneration++;
+  }
+
+  /**
+   * Record the outcome of a request and update the state of the breaker. Outcomes of requests
+   * admitted before the most recent state change are ignored.
+   *
+   * @param token the token with which the request was admitted.
+   * @param failed whether the request failed.
+   * @return the state of the breaker before the outcome was recorded.
+   */
+  private State record(
+      final long token,
+      final boolean failed
+  ) {
+    Preconditions.checkArgument(NOT_ADMITTED != token, "Cannot record a request not admitted.");
+    final State previous = mState;
+    if (token != mGeneration) {
+      return previous;
+    }
+    if (State.HALF_OPEN == mState) {
+      mTrialInFlight = false;
+      if (failed) {
+        open();
+      } else {
+        setState(State.CLOSED);
+        mNextIndex = 0;
+        mRecordedCount = 0;
+        mFailureCount = 0;
+      }
+      return previous;
+    }
+    if (mRecordedCount == mFailures.length) {
+      if (mFailures[mNextIndex]) {
+        mFailureCount--;
+      }
+    } else {
+      mRecordedCount++;
+    }
+    mFailures[mNextIndex] = failed;
+    if (failed) {
+      mFailureCount++;
+    }
+    mNextIndex = (mNextIndex + 1) % mFailures.length;
+    if (State.CLOSED == mState
+        && mRecordedCount == mFailures.length
+        && mFailureCount >= mFailureRatio * mFailures.length) {
+      open();
+    }
+    return previous;
+  }
+
+  /** Open the breaker. Must be called while holding the lock on this. */
+  private void open() {
+    setState(State.OPEN);
+    mOpenedAtNanos = now();
+  }
+
+  /**
+   * Record a request which returned a result. The request counts as a failure if it was slower
+   * than the slow call threshold.
+   *
+   * @param token the token returned by {@link #admitRequest()} when the request was admitted.
+   * @param latencyNanos how long the request took in nanoseconds.
+   * @return the state of the breaker after the outcome was recorded, if it changed, otherwise null.
+   */
+  synchronized State recordSuccess(
+      final long token,
+      final long latencyNanos
+  ) {
+    final State previous = record(token, latencyNanos > mSlowCallNanos);
+    return (previous != mState) ? mState : null;
+  }
+
+  /**
+   * Record a request which failed.
+   *
+   * @param token the token returned by {@link #admitRequest()} when the request was admitted.
+   * @return the state of the breaker after the outcome was recorded, if it changed, otherwise null.
+   */
+  synchronized State recordFailure(
+      final long token
+  ) {
+    final State previous = record(token, true);
+    return (previous != mState) ? mState : null;
+  }
+
+  /**
+   * Get the current state of the breaker.
+   *
+   * @return the current state of the breaker.
+   */
+  synchronized State getState() {
+    return mState;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public synchronized String toString() {
+    return Objects.toStringHelper(CircuitBreaker.class)
+        .add("state", mState)
+        .add("failures", mFailureCount)
+        .add("recorded", mRecordedCount)
+        .add("failure_ratio", mFailureRatio)
+        .toString();
+  }
+}
@@ -0,0 +1,220 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.RuntimeInterruptedException;
+import org.kiji.scoring.CounterManager;
+
+/**
+ * Runs requests with a single hedge. If a request has not completed after the hedge delay, a
+ * duplicate request is sent and the result of whichever completes successfully first is returned.
+ *
+ * <p>
+ *   The hedge delay is the configured percentile of the latencies of recent successful requests,
+ *   but never less than the configured minimum delay. Until enough latencies have been recorded to
+ *   estimate the percentile, the minimum delay is used. Hedging at the 95th percentile sends
+ *   duplicates for roughly one request in twenty while cutting off the slowest tail of responses.
+ * </p>
+ *
+ * <p>
+ *   HedgedCaller is thread safe.
+ * </p>
+ */
+@ApiAudience.Private
+final class HedgedCaller {
+
+  /** Number of recent latencies from which to estimate the hedge delay. */
+  private static final int LATENCY_WINDOW_SIZE = 200;
+  /** Minimum number of latencies required before the percentile is used as the hedge delay. */
+  private static final int MIN_LATENCY_SAMPLES = 20;
+
+  /**
+   * Create a new HedgedCaller.
+   *
+   * @param executor executor on which to run requests. Must allow at least two concurrent tasks
+   *     per concurrent caller.
+   * @param minDelayMillis minimum time in milliseconds to wait before sending a hedge.
+   * @param percentile percentile of recent latencies after which to send a hedge, in (0, 100].
+   * @return a new HedgedCaller.
+   */
+  static HedgedCaller create(
+      final ExecutorService executor,
+      final long minDelayMillis,
+      final double percentile
+  ) {
+    Preconditions.checkArgument(0 <= minDelayMillis,
+        "Minimum hedge delay must be non-negative, found: %s", minDelayMillis);
+    Preconditions.checkArgument(0.0 < percentile && percentile <= 100.0,
+        "Hedge percentile must be in (0, 100], found: %s", percentile);
+    return new HedgedCaller(executor, minDelayMillis, percentile);
+  }
+
+  private final ExecutorService mExecutor;
+  private final long mMinDelayNanos;
+  private final double mPercentile;
+  // Recent latencies are guarded by mLatencies.
+  private final long[] mLatencies = new long[LATENCY_WINDOW_SIZE];
+  private int mNextLatencyIndex = 0;
+  private int mLatencyCount = 0;
+
+  /**
+   * Private constructor. Use {@link #create(ExecutorService, long, double)}.
+   *
+   * @param executor executor on which to run requests.
+   * @param minDelayMillis minimum time in milliseconds to wait before sending a hedge.
+   * @param percentile percentile of recent latencies after which to send a hedge.
+   */
+  private HedgedCaller(
+      final ExecutorService executor,
+      final long minDelayMillis,
+      final double percentile
+  ) {
+    mExecutor = executor;
+    mMinDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    mPercentile = percentile;
+  }
+
+  /**
+   * Record the latency of a successful request.
+   *
+   * @param latencyNanos latency of the request in nanoseconds.
+   */
+  private void recordLatency(
+      final long latencyNanos
+  ) {
+    synchronized (mLatencies) {
+      mLatencies[mNextLatencyIndex] = latencyNanos;
+      mNextLatencyIndex = (mNextLatencyIndex + 1) % mLatencies.length;
+      if (mLatencyCount < mLatencies.length) {
+        mLatencyCount++;
+      }
+    }
+  }
+
+  /**
+   * Get the time to wait for a request before sending a hedge.
+   *
+   * @return the time in nanoseconds to wait for a request before sending a hedge.
+   */
+  long getHedgeDelayNanos() {
+    final long[] latencies;
+    synchronized (mLatencies) {
+      if (mLatencyCount < MIN_LATENCY_SAMPLES) {
+        return mMinDelayNanos;
+      }
+      latencies = Arrays.copyOf(mLatencies, mLatencyCount);
+    }
+    Arrays.sort(latencies);
+    final int index = Math.min(
+        latencies.length - 1, (int) Math.ceil(mPercentile / 100.0 * latencies.length) - 1);
+    return Math.max(mMinDelayNanos, latencies[Math.max(0, index)]);
+  }
+
+  /**
+   * Run the given request, sending a hedge if it is slower than the hedge delay.
+   *
+   * @param request the request to run. May be run twice concurrently.
+   * @param counterManager CounterManager with which to count hedges.
+   * @param <T> type of the result of the request.
+   * @return the result of the first copy of the request to complete successfully.
+   * @throws IOException if both copies of the request fail.
+   */
+  <T> T call(
+      final Callable<T> request,
+      final CounterManager counterManager
+  ) throws IOException {
+    final CompletionService<T> completionService = new ExecutorCompletionService<T>(mExecutor);
+    final List<Future<T>> futures = Lists.newArrayListWithCapacity(2);
+    final long startNanos = System.nanoTime();
+    try {
+      final Future<T> primary = completionService.submit(request);
+      futures.add(primary);
+      Future<T> done = completionService.poll(getHedgeDelayNanos(), TimeUnit.NANOSECONDS);
+      if (null == done) {
+        counterManager.incrementCounter(ScoringServerCounter.HEDGED_REQUESTS, 1);
+        futures.add(completionService.submit(request));
+        done = completionService.take();
+      }
+      ExecutionException failure;
+      try {
+        final T result = done.get();
+        recordLatency(System.nanoTime() - startNanos);
+        if (done != primary) {
+          counterManager.incrementCounter(ScoringServerCounter.HEDGE_WINS, 1);
+        }
+        return result;
+      } catch (ExecutionException ee) {
+        failure = ee;
+      }
+      if (2 == futures.size()) {
+        // The first copy to finish failed, wait for the other.
+        final Future<T> other = completionService.take();
+        try {
+          final T result = other.get();
+          recordLatency(System.nanoTime() - startNanos);
+          if (other != primary) {
+            counterManager.incrementCounter(ScoringServerCounter.HEDGE_WINS, 1);
+          }
+          return result;
+        } catch (ExecutionException ee) {
+          failure = ee;
+        }
+      }
+      final Throwable cause = failure.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new RuntimeException(cause);
+      }
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(HedgedCaller.class)
+        .add("min_delay_ns", mMinDelayNanos)
+        .add("percentile", mPercentile)
+        .toString();
+  }
+}
@@ -0,0 +1,328 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.kiji.annotations.ApiAudience;
+
+/**
+ * Collects concurrent score requests for a single model into batches which are sent to the
+ * ScoringServer in one round trip.
+ *
+ * <p>
+ *   A batch is sent as soon as it contains the maximum number of requests, in which case the
+ *   thread which submitted the final request sends the batch, or when the oldest request in the
+ *   batch has waited the maximum linger time. A single scheduler thread takes lingering batches,
+ *   which are then sent concurrently by a pool of sender threads so that a slow response does not
+ *   delay other batches. Scores are returned to each waiting caller in the order of their original
+ *   requests. A caller may bound its wait, in which case a request still waiting to be sent when
+ *   the wait expires is removed from its batch.
+ * </p>
+ *
+ * <p>
+ *   ScoringServerBatcher is thread safe.
+ * </p>
+ */
+@ApiAudience.Private
+final class ScoringServerBatcher implements Closeable {
+
+  /**
+   * Create a new ScoringServerBatcher.
+   *
+   * @param client client with which to send batches.
+   * @param modelBaseURL URL of the scoring servlet for the model.
+   * @param maxBatchSize maximum number of requests to include in a single batch.
+   * @param maxLingerMillis maximum time in milliseconds a request may wait for its batch to fill.
+   * @return a new ScoringServerBatcher.
+   */
+  static ScoringServerBatcher create(
+      final ScoringServerClient client,
+      final String modelBaseURL,
+      final int maxBatchSize,
+      final long maxLingerMillis
+  ) {
+    Preconditions.checkArgument(0 < maxBatchSize,
+        "Max batch size must be positive, found: %s", maxBatchSize);
+    Preconditions.checkArgument(0 <= maxLingerMillis,
+        "Max linger time must be non-negative, found: %s", maxLingerMillis);
+    return new ScoringServerBatcher(client, modelBaseURL, maxBatchSize, maxLingerMillis);
+  }
+
+  /** A submitted request paired with the future which will hold its score. */
+  private static final class PendingScore {
+    private final ScoringServerClient.ScoreRequest mRequest;
+    private final SettableFuture<ScoringServerClient.Score> mFuture = SettableFuture.create();
+
+    /**
+     * Initialize a new PendingScore.
+     *
+     * @param request the request waiting to be sent.
+     */
+    private PendingScore(
+        final ScoringServerClient.ScoreRequest request
+    ) {
+      mRequest = request;
+    }
+  }
+
+  /** Scheduled flush of a single batch. */
+  private final class LingerTask implements Runnable {
+    /** Future of this task's scheduled run. Guarded by mLock. */
+    private ScheduledFuture<?> mFuture = null;
+
+    /** {@inheritDoc} */
+    @Override
+    public void run() {
+      final List<PendingScore> batch;
+      synchronized (mLock) {
+        if (this != mLingerTask) {
+          // The batch for which this task was scheduled filled and was sent before this ran.
+          return;
+        }
+        mLingerTask = null;
+        batch = takeBatch();
+      }
+      mSendExecutor.execute(new Runnable() {
+        /** {@inheritDoc} */
+        @Override
+        public void run() {
+          send(batch);
+        }
+      });
+    }
+
+    /** Cancel this task. Must be called while holding mLock. */
+    private void cancel() {
+      mFuture.cancel(false);
+    }
+  }
+
+  private final ScoringServerClient mClient;
+  private final String mModelBaseURL;
+  private final int mMaxBatchSize;
+  private final long mMaxLingerMillis;
+  /** Schedules flushes of lingering batches. Never sends batches itself. */
+  private final ScheduledExecutorService mLingerExecutor;
+  /** Sends lingering batches. */
+  private final ExecutorService mSendExecutor;
+  private final Object mLock = new Object();
+  /** Requests waiting to be sent. Guarded by mLock. */
+  private List<PendingScore> mPending;
+  /** Scheduled flush of the current batch. Guarded by mLock. */
+  private LingerTask mLingerTask = null;
+  /** Whether this batcher has been closed. Guarded by mLock. */
+  private boolean mClosed = false;
+
+  /**
+   * Private constructor. Use {@link #create(ScoringServerClient, String, int, long)}.
+   *
+   * @param client client with which to send batches.
+   * @param modelBaseURL URL of the scoring servlet for the model.
+   * @param maxBatchSize maximum number of requests to include in a single batch.
+   * @param maxLingerMillis maximum time in milliseconds a request may wait for its batch to fill.
+   */
+  private ScoringServerBatcher(
+      final ScoringServerClient client,
+      final String modelBaseURL,
+      final int maxBatchSize,
+      final long maxLingerMillis
+  ) {
+    mClient = client;
+    mModelBaseURL = modelBaseURL;
+    mMaxBatchSize = maxBatchSize;
+    mMaxLingerMillis = maxLingerMillis;
+    mPending = Lists.newArrayListWithCapacity(maxBatchSize);
+    mLingerExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("scoring-server-batcher-%d")
+        .setDaemon(true)
+        .build());
+    // The number of concurrent sends is bounded by the client's limit on in-flight requests.
+    mSendExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+        .setNameFormat("scoring-server-batcher-send-%d")
+        .setDaemon(true)
+        .build());
+  }
+
+  /**
+   * Remove and return the current batch. Must be called while holding mLock.
+   *
+   * @return the current batch.
+   */
+  private List<PendingScore> takeBatch() {
+    final List<PendingScore> batch = mPending;
+    mPending = Lists.newArrayListWithCapacity(mMaxBatchSize);
+    return batch;
+  }
+
+  /**
+   * Send a batch to the ScoringServer and complete the futures of its requests.
+   *
+   * @param batch the requests to send.
+   */
+  private void send(
+      final List<PendingScore> batch
+  ) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    final List<ScoringServerClient.ScoreRequest> requests =
+        Lists.newArrayListWithCapacity(batch.size());
+    for (PendingScore pending : batch) {
+      requests.add(pending.mRequest);
+    }
+    try {
+      final List<ScoringServerClient.Score> scores = mClient.scoreBatch(mModelBaseURL, requests);
+      for (int i = 0; i < batch.size(); i++) {
+        batch.get(i).mFuture.set(scores.get(i));
+      }
+    } catch (Throwable t) {
+      for (PendingScore pending : batch) {
+        pending.mFuture.setException(t);
+      }
+    }
+  }
+
+  /**
+   * Retrieve a score, waiting for it to be sent to the ScoringServer as part of a batch. The wait
+   * is bounded only by the linger time and the client's timeouts for sending the batch.
+   *
+   * @param request the score to retrieve.
+   * @return the decoded score.
+   * @throws IOException in case of an error communicating with the server or decoding the score.
+   */
+  ScoringServerClient.Score score(
+      final ScoringServerClient.ScoreRequest request
+  ) throws IOException {
+    return score(request, 0L);
+  }
+
+  /**
+   * Retrieve a score, waiting no longer than the given time for it to be sent to the ScoringServer
+   * as part of a batch. If the request has not been sent when the time expires, it is removed
+   * from its batch. A batch which has already been sent continues for its other requests.
+   *
+   * @param request the score to retrieve.
+   * @param timeoutMillis maximum time in milliseconds to wait for the score. 0 indicates the wait
+   *     is bounded only by the linger time and the client's timeouts for sending the batch.
+   * @return the decoded score.
+   * @throws IOException in case of an error communicating with the server or decoding the score,
+   *     or if the score is not retrieved within the given time.
+   */
+  ScoringServerClient.Score score(
+      final ScoringServerClient.ScoreRequest request,
+      final long timeoutMillis
+  ) throws IOException {
+    Preconditions.checkArgument(0 <= timeoutMillis,
+        "Score timeout must be non-negative, found: %s", timeoutMillis);
+    final PendingScore pending = new PendingScore(request);
+    List<PendingScore> fullBatch = null;
+    synchronized (mLock) {
+      Preconditions.checkState(!mClosed, "ScoringServerBatcher is closed.");
+      mPending.add(pending);
+      if (mPending.size() >= mMaxBatchSize) {
+        if (null != mLingerTask) {
+          mLingerTask.cancel();
+          mLingerTask = null;
+        }
+        fullBatch = takeBatch();
+      } else if (null == mLingerTask) {
+        mLingerTask = new LingerTask();
+        mLingerTask.mFuture =
+            mLingerExecutor.schedule(mLingerTask, mMaxLingerMillis, TimeUnit.MILLISECONDS);
+      }
+    }
+    if (null != fullBatch) {
+      send(fullBatch);
+    }
+    try {
+      if (0 == timeoutMillis) {
+        return pending.mFuture.get();
+      } else {
+        return pending.mFuture.get(timeoutMillis, TimeUnit.MILLISECONDS);
+      }
+    } catch (TimeoutException te) {
+      synchronized (mLock) {
+        mPending.remove(pending);
+      }
+      throw new IOException(String.format(
+          "Batched score for entity %s timed out after %d ms.",
+          request.getEntityId(), timeoutMillis));
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(ie);
+    } catch (ExecutionException ee) {
+      final Throwable cause = ee.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else {
+        throw new RuntimeException(cause);
+      }
+    }
+  }
+
+  /**
+   * Send any waiting requests and stop the background threads. Batches already being sent are
+   * allowed to finish. Scores may not be retrieved after this is called.
+   *
+   * @throws IOException never.
+   */
+  @Override
+  public void close() throws IOException {
+    final List<PendingScore> batch;
+    synchronized (mLock) {
+      mClosed = true;
+      if (null != mLingerTask) {
+        mLingerTask.cancel();
+        mLingerTask = null;
+      }
+      batch = takeBatch();
+    }
+    send(batch);
+    mLingerExecutor.shutdown();
+    mSendExecutor.shutdown();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(ScoringServerBatcher.class)
+        .add("model_base_url", mModelBaseURL)
+        .add("max_batch_size", mMaxBatchSize)
+        .add("max_linger_ms", mMaxLingerMillis)
+        .toString();
+  }
+}
@@ -0,0 +1,919 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.SerializationUtils;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.RuntimeInterruptedException;
+import org.kiji.schema.util.FromJson;
+
+/**
+ * HTTP client for the ScoringServer used by {@link ScoringServerScoreFunction}.
+ *
+ * <p>
+ *   ScoringServerClient reuses connections to the ScoringServer through the JVM's HTTP keep-alive
+ *   cache. Every response body is read to completion and closed so that the underlying socket is
+ *   returned to the cache rather than discarded. The number of idle connections kept alive per
+ *   server is governed by the standard <code>http.maxConnections</code> system property.
+ * </p>
+ *
+ * <p>
+ *   The number of requests in flight at once is bounded. Requests beyond that bound wait up to the
+ *   connect timeout for a slot to free up before failing. Serialized client data requests and
+ *   parsed Avro schemas are cached so that repeated requests do not pay to encode or parse them
+ *   again.
+ * </p>
+ *
+ * <p>
+ *   A client created with {@link ResponseFormat#AVRO_BINARY} asks the ScoringServer for single
+ *   scores in Avro binary encoding, both with an <code>Accept: avro/binary</code> header and with a
+ *   <code>format=avro_binary</code> query parameter. A server which supports the binary format
+ *   responds with content type <code>avro/binary</code>, the Avro binary encoded value as the body,
+ *   and the column, timestamp and 64 bit parsing fingerprint of the writer schema in the headers
+ *   <code>X-Kiji-Family</code>, <code>X-Kiji-Qualifier</code>, <code>X-Kiji-Timestamp</code> and
+ *   <code>X-Kiji-Schema-Fingerprint</code>. Schemas are resolved by fingerprint through a local
+ *   cache and fetched from <code>&lt;model base URL&gt;/schema?fingerprint=&lt;fingerprint&gt;</code>
+ *   only the first time a fingerprint is seen. Any other response content type is decoded as JSON,
+ *   so servers without binary support continue to work.
+ * </p>
+ *
+ * <p>
+ *   Many scores may be requested from a single model in one round trip using
+ *   {@link #scoreBatch(String, java.util.List)}. A batch is sent as a POST to
+ *   <code>&lt;model base URL&gt;/batch</code> whose body is a JSON array of objects with the fields
+ *   eid, family, qualifier, request, and params. The server responds with a JSON array of score
+ *   responses in the same order as the requests.
+ * </p>
+ *
+ * <p>
+ *   ScoringServerClient is thread safe.
+ * </p>
+ */
+@ApiAudience.Private
+final class ScoringServerClient {
+
+  private static final Gson GSON = new Gson();
+  /** Accept header sent with requests for binary responses. JSON is accepted as a fallback. */
+  private static final String BINARY_ACCEPT = "avro/binary, application/json;q=0.5";
+  /** Maximum number of distinct encoded client data requests to cache. */
+  private static final int MAX_CACHED_REQUESTS = 1000;
+  /** Maximum number of distinct parsed schemas to cache. */
+  private static final int MAX_CACHED_SCHEMAS = 1000;
+
+  /** Content type of Avro binary encoded responses. */
+  static final String AVRO_BINARY_CONTENT_TYPE = "avro/binary";
+  static final String FAMILY_HEADER = "X-Kiji-Family";
+  static final String QUALIFIER_HEADER = "X-Kiji-Qualifier";
+  static final String TIMESTAMP_HEADER = "X-Kiji-Timestamp";
+  static final String SCHEMA_FINGERPRINT_HEADER = "X-Kiji-Schema-Fingerprint";
+
+  /** Wire formats in which single scores may be requested from the ScoringServer. */
+  enum ResponseFormat {
+    /** JSON value with the full writer schema text. Supported by all ScoringServers. */
+    JSON,
+    /** Avro binary value with a writer schema fingerprint. Falls back to JSON if unsupported. */
+    AVRO_BINARY
+  }
+
+  /**
+   * DatumReader which decodes Avro strings as java.lang.String so that values decoded from binary
+   * responses match those decoded from JSON responses.
+   */
+  private static final class StringDatumReader extends GenericDatumReader<Object> {
+    /**
+     * Initialize a new StringDatumReader.
+     *
+     * @param schema writer schema of the values to read.
+     */
+    private StringDatumReader(
+        final Schema schema
+    ) {
+      super(schema);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected Object readString(
+        final Object old,
+        final Decoder in
+    ) throws IOException {
+      return in.readString();
+    }
+  }
+
+  /** Status, headers and body of a successful HTTP response. */
+  private static final class HttpResponse {
+    private final HttpURLConnection mConnection;
+    private final byte[] mBody;
+
+    /**
+     * Initialize a new HttpResponse.
+     *
+     * @param connection the connection from which the response was read.
+     * @param body the fully read body of the response.
+     */
+    private HttpResponse(
+        final HttpURLConnection connection,
+        final byte[] body
+    ) {
+      mConnection = connection;
+      mBody = body;
+    }
+
+    /**
+     * Get the value of a response header.
+     *
+     * @param name name of the header.
+     * @return the value of the header or null if the header is not set.
+     */
+    private String getHeader(
+        final String name
+    ) {
+      return mConnection.getHeaderField(name);
+    }
+
+    /**
+     * Get the value of a required response header.
+     *
+     * @param name name of the header.
+     * @return the value of the header.
+     * @throws IOException if the header is not set.
+     */
+    private String getRequiredHeader(
+        final String name
+    ) throws IOException {
+      final String value = getHeader(name);
+      if (null == value) {
+        throw new IOException(String.format(
+            "ScoringServer response from %s is missing header %s", mConnection.getURL(), name));
+      }
+      return value;
+    }
+
+    /**
+     * Check whether the response body is Avro binary encoded.
+     *
+     * @return whether the response body is Avro binary encoded.
+     */
+    private boolean isAvroBinary() {
+      final String contentType = mConnection.getContentType();
+      return null != contentType && contentType.startsWith(AVRO_BINARY_CONTENT_TYPE);
+    }
+
+    /**
+     * Get the response body decoded as UTF-8.
+     *
+     * @return the response body decoded as UTF-8.
+     */
+    private String getBodyString() {
+      return new String(mBody, Charsets.UTF_8);
+    }
+  }
+
+  /** Container class for deserializing JSON server responses. */
+  private static final class ScoringServerResponse {
+    // CSOFF: MemberName - names do not match naming pattern so that GSON can write into them.
+    private String family;
+    private String qualifier;
+    private long timestamp;
+    private String value;
+    private String schema;
+    // CSON: MemberName
+  }
+
+  /** Container class for serializing a single entry of a JSON batch request. */
+  private static final class BatchRequestEntry {
+    // CSOFF: MemberName - names do not match naming pattern so that GSON can read from them.
+    private final String eid;
+    private final String family;
+    private final String qualifier;
+    private final String request;
+    private final Map<String, String> params;
+    // CSON: MemberName
+
+    /**
+     * Initialize a new BatchRequestEntry.
+     *
+     * @param eid shell string representation of the entity to score.
+     * @param column the column to score.
+     * @param encodedRequest serialized, Base64 encoded client data request.
+     * @param parameters per-request parameters to be passed to the server.
+     */
+    private BatchRequestEntry(
+        final String eid,
+        final KijiColumnName column,
+        final String encodedRequest,
+        final Map<String, String> parameters
+    ) {
+      this.eid = eid;
+      this.family = column.getFamily();
+      this.qualifier = column.getQualifier();
+      this.request = encodedRequest;
+      this.params = parameters;
+    }
+  }
+
+  /** A request for a single score which may be sent to the ScoringServer as part of a batch. */
+  static final class ScoreRequest {
+    private final String mEntityId;
+    private final KijiColumnName mColumn;
+    private final KijiDataRequest mClientRequest;
+    private final Map<String, String> mParameters;
+
+    /**
+     * Initialize a new ScoreRequest.
+     *
+     * @param eid shell string representation of the entity to score.
+     * @param column the column to score.
+     * @param clientRequest client's data request which triggered the score.
+     * @param parameters per-request parameters to be passed to the server.
+     */
+    ScoreRequest(
+        final String eid,
+        final KijiColumnName column,
+        final KijiDataRequest clientRequest,
+        final Map<String, String> parameters
+    ) {
+      mEntityId = eid;
+      mColumn = column;
+      mClientRequest = clientRequest;
+      mParameters = parameters;
+    }
+
+    /**
+     * Get the shell string representation of the entity to score.
+     *
+     * @return the shell string representation of the entity to score.
+     */
+    public String getEntityId() {
+      return mEntityId;
+    }
+
+    /**
+     * Get the column to score.
+     *
+     * @return the column to score.
+     */
+    public KijiColumnName getColumn() {
+      return mColumn;
+    }
+
+    /**
+     * Get the client data request which triggered the score.
+     *
+     * @return the client data request which triggered the score.
+     */
+    public KijiDataRequest getClientRequest() {
+      return mClientRequest;
+    }
+
+    /**
+     * Get the per-request parameters to be passed to the server.
+     *
+     * @return the per-request parameters to be passed to the server.
+     */
+    public Map<String, String> getParameters() {
+      return mParameters;
+    }
+  }
+
+  /** A single decoded score returned by the ScoringServer. */
+  static final class Score {
+    private final KijiColumnName mColumn;
+    private final long mTimestamp;
+    private final Object mValue;
+
+    /**
+     * Initialize a new Score.
+     *
+     * @param column the column for which the score was calculated.
+     * @param timestamp the timestamp at which the score should be written.
+     * @param value the decoded score.
+     */
+    Score(
+        final KijiColumnName column,
+        final long timestamp,
+        final Object value
+    ) {
+      mColumn = column;
+      mTimestamp = timestamp;
+      mValue = value;
+    }
+
+    /**
+     * Get the column for which the score was calculated.
+     *
+     * @return the column for which the score was calculated.
+     */
+    public KijiColumnName getColumn() {
+      return mColumn;
+    }
+
+    /**
+     * Get the timestamp at which the score should be written.
+     *
+     * @return the timestamp at which the score should be written.
+     */
+    public long getTimestamp() {
+      return mTimestamp;
+    }
+
+    /**
+     * Get the decoded score.
+     *
+     * @return the decoded score.
+     */
+    public Object getValue() {
+      return mValue;
+    }
+  }
+
+  /**
+   * Create a new ScoringServerClient.
+   *
+   * @param maxInFlight the maximum number of requests this client may have in flight at once.
+   * @param connectTimeout time in milliseconds to wait for a connection to the ScoringServer and
+   *     for a free request slot.
+   * @param readTimeout time in milliseconds to wait for the ScoringServer to respond.
+   * @return a new ScoringServerClient.
+   */
+  public static ScoringServerClient create(
+      final int maxInFlight,
+      final int connectTimeout,
+      final int readTimeout
+  ) {
+    return new ScoringServerClient(maxInFlight, connectTimeout, readTimeout, ResponseFormat.JSON);
+  }
+
+  /**
+   * Create a new ScoringServerClient which requests single scores in the given format.
+   *
+   * @param maxInFlight the maximum number of requests this client may have in flight at once.
+   * @param connectTimeout time in milliseconds to wait for a connection to the ScoringServer and
+   *     for a free request slot.
+   * @param readTimeout time in milliseconds to wait for the ScoringServer to respond.
+   * @param format preferred wire format of single score responses.
+   * @return a new ScoringServerClient.
+   */
+  public static ScoringServerClient create(
+      final int maxInFlight,
+      final int connectTimeout,
+      final int readTimeout,
+      final ResponseFormat format
+  ) {
+    return new ScoringServerClient(maxInFlight, connectTimeout, readTimeout, format);
+  }
+
+  private final Semaphore mInFlight;
+  private final int mMaxInFlight;
+  private final int mConnectTimeout;
+  private final int mReadTimeout;
+  private final ResponseFormat mFormat;
+  private final LoadingCache<KijiDataRequest, String> mEncodedRequests = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_REQUESTS)
+      .build(new CacheLoader<KijiDataRequest, String>() {
+        /** {@inheritDoc} */
+        @Override
+        public String load(
+            final KijiDataRequest request
+        ) {
+          return Base64.encodeBase64URLSafeString(SerializationUtils.serialize(request));
+        }
+      });
+  private final LoadingCache<String, Schema> mSchemas = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_SCHEMAS)
+      .build(new CacheLoader<String, Schema>() {
+        /** {@inheritDoc} */
+        @Override
+        public Schema load(
+            final String schema
+        ) {
+          return new Schema.Parser().parse(schema);
+        }
+      });
+  /** Readers for binary encoded values keyed by writer schema fingerprint. */
+  private final Cache<Long, DatumReader<Object>> mReadersByFingerprint = CacheBuilder.newBuilder()
+      .maximumSize(MAX_CACHED_SCHEMAS)
+      .build();
+
+  /**
+   * Private constructor. Use {@link #create(int, int, int, ResponseFormat)}.
+   *
+   * @param maxInFlight the maximum number of requests this client may have in flight at once.
+   * @param connectTimeout time in milliseconds to wait for a connection to the ScoringServer and
+   *     for a free request slot.
+   * @param readTimeout time in milliseconds to wait for the ScoringServer to respond.
+   * @param format preferred wire format of single score responses.
+   */
+  private ScoringServerClient(
+      final int maxInFlight,
+      final int connectTimeout,
+      final int readTimeout,
+      final ResponseFormat format
+  ) {
+    Preconditions.checkArgument(0 < maxInFlight,
+        "Max in flight requests must be positive, got: %s", maxInFlight);
+    Preconditions.checkArgument(0 <= connectTimeout,
+        "Connect timeout may not be negative, got: %s", connectTimeout);
+    Preconditions.checkArgument(0 <= readTimeout,
+        "Read timeout may not be negative, got: %s", readTimeout);
+    mMaxInFlight = maxInFlight;
+    mInFlight = new Semaphore(maxInFlight);
+    mConnectTimeout = connectTimeout;
+    mReadTimeout = readTimeout;
+    mFormat = Preconditions.checkNotNull(format);
+  }
+
+  /**
+   * Get the serialized, Base64 encoded form of the given client data request. Encoded requests are
+   * cached, so repeated calls with equal requests will not serialize the request again.
+   *
+   * @param clientRequest the client data request to encode.
+   * @return the serialized, Base64 encoded form of the given client data request.
+   */
+  String encodeClientRequest(
+      final KijiDataRequest clientRequest
+  ) {
+    return mEncodedRequests.getUnchecked(clientRequest);
+  }
+
+  /**
+   * Get the parsed form of the given schema. Parsed schemas are cached, so repeated calls with the
+   * same schema string will not parse the schema again.
+   *
+   * @param schema JSON representation of an Avro schema.
+   * @return the parsed schema.
+   */
+  Schema parseSchema(
+      final String schema
+  ) {
+    return mSchemas.getUnchecked(schema);
+  }
+
+  /**
+   * Build the URL from which to retrieve a score by appending the necessary parameters to the base
+   * model URL.
+   *
+   * @param modelBaseURL URL of the scoring servlet for this model.
+   * @param eid shell string representation of the entity to score.
+   * @param clientRequest client's data request which triggered the run of this ScoreFunction.
+   * @param params an optional map of per-request parameters to be passed to the server.
+   * @return the URL from which to retrieve a score.
+   * @throws IOException in case the URL cannot be created.
+   */
+  private URL getScoringServerEndpoint(
+      final String modelBaseURL,
+      final String eid,
+      final KijiDataRequest clientRequest,
+      final Map<String, String> params
+  ) throws IOException {
+    final StringBuilder urlStringBuilder = new StringBuilder(modelBaseURL);
+    try {
+      urlStringBuilder
+          .append("?eid=").append(URLEncoder.encode(eid, Charsets.UTF_8.name()))
+          .append("&request=").append(encodeClientRequest(clientRequest));
+      for (Map.Entry<String, String> entry : params.entrySet()) {
+        urlStringBuilder
+            .append("&fresh.").append(URLEncoder.encode(entry.getKey(), Charsets.UTF_8.name()))
+            .append('=').append(URLEncoder.encode(entry.getValue(), Charsets.UTF_8.name()));
+      }
+      if (ResponseFormat.AVRO_BINARY == mFormat) {
+        urlStringBuilder.append("&format=avro_binary");
+      }
+    } catch (UnsupportedEncodingException uee) {
+      throw new RuntimeException(uee);
+    }
+    return new URL(urlStringBuilder.toString());
+  }
+
+  /**
+   * Wait for a free request slot.
+   *
+   * @param connectTimeout time in milliseconds to wait for a free slot. 0 indicates waiting
+   *     indefinitely, matching the meaning of a connect timeout of 0 for HttpURLConnection.
+   * @throws IOException if no slot becomes free within the connect timeout.
+   */
+  private void acquireSlot(
+      final int connectTimeout
+  ) throws IOException {
+    try {
+      if (0 == connectTimeout) {
+        mInFlight.acquire();
+      } else if (!mInFlight.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+        throw new IOException(String.format(
+            "Timed out after %d ms waiting for one of %d ScoringServer request slots.",
+            connectTimeout, mMaxInFlight));
+      }
+    } catch (InterruptedException ie) {
+      throw new RuntimeInterruptedException(ie);
+    }
+  }
+
+  /**
+   * Read the given stream to completion and close it. Reading the whole stream allows the JVM to
+   * return the underlying connection to its keep-alive cache.
+   *
+   * @param stream the stream to read.
+   * @return the contents of the stream.
+   * @throws IOException in case of an error reading the stream.
+   */
+  private static byte[] readFully(
+      final InputStream stream
+  ) throws IOException {
+    try {
+      return IOUtils.toByteArray(stream);
+    } finally {
+      stream.close();
+    }
+  }
+
+  /**
+   * Perform an HTTP request against the given URL and return the response body.
+   *
+   * @param url the URL to request.
+   * @param body JSON body to POST to the URL, or null to perform a GET.
+   * @param accept value of the Accept header to send, or null to send none.
+   * @param connectTimeout time in milliseconds to wait for a request slot and to connect.
+   * @param readTimeout time in milliseconds to wait for the server to respond.
+   * @return the response.
+   * @throws IOException in case of an error communicating with the server or a non 200 response.
+   */
+  private HttpResponse execute(
+      final URL url,
+      final String body,
+      final String accept,
+      final int connectTimeout,
+      final int readTimeout
+  ) throws IOException {
+    acquireSlot(connectTimeout);
+    try {
+      final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+      connection.setConnectTimeout(connectTimeout);
+      connection.setReadTimeout(readTimeout);
+      connection.setUseCaches(false);
+      if (null != accept) {
+        connection.setRequestProperty("Accept", accept);
+      }
+      if (null != body) {
+        final byte[] bytes = body.getBytes(Charsets.UTF_8);
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(bytes.length);
+        final OutputStream os = connection.getOutputStream();
+        try {
+          os.write(bytes);
+        } finally {
+          os.close();
+        }
+      }
+      final int status = connection.getResponseCode();
+      if (HttpURLConnection.HTTP_OK != status) {
+        final InputStream errorStream = connection.getErrorStream();
+        final String error =
+            (null != errorStream) ? new String(readFully(errorStream), Charsets.UTF_8) : "";
+        throw new IOException(String.format(
+            "ScoringServer returned status %d for %s: %s", status, url, error));
+      }
+      return new HttpResponse(connection, readFully(connection.getInputStream()));
+    } finally {
+      mInFlight.release();
+    }
+  }
+
+  /**
+   * Perform an HTTP GET against the given URL and return the response body.
+   *
+   * @param url the URL to get.
+   * @return the body of the response decoded as UTF-8.
+   * @throws IOException in case of an error communicating with the server or a non 200 response.
+   */
+  String get(
+      final URL url
+  ) throws IOException {
+    return execute(url, null, null, mConnectTimeout, mReadTimeout).getBodyString();
+  }
+
+  /**
+   * Get the base URL for the scoring servlet for the given model from the given scoring server.
+   *
+   * @param scoringServerBaseURL URL of the scoring server from which to get the location of the
+   *     model.
+   * @param modelId fully qualified model name for which to get the scoring endpoint.
+   * @return the base URL of the scoring servlet for the given model.
+   * @throws IOException in case of an error getting the model URL from the scoring server.
+   */
+  @SuppressWarnings("unchecked")
+  public String getModelBaseURL(
+      final String scoringServerBaseURL,
+      final String modelId
+  ) throws IOException {
+    final String response = get(new URL(scoringServerBaseURL + "/admin/get?model=" + modelId));
+    final Map<String, String> modelMap = GSON.fromJson(response, Map.class);
+    return scoringServerBaseURL + "/" + modelMap.get(modelId);
+  }
+
+  /**
+   * Decode a single deserialized response from the ScoringServer.
+   *
+   * @param response the deserialized response.
+   * @return the decoded score.
+   * @throws IOException in case of an error decoding the value.
+   */
+  private Score decode(
+      final ScoringServerResponse response
+  ) throws IOException {
+    return new Score(
+        KijiColumnName.create(response.family, response.qualifier),
+        response.timestamp,
+        FromJson.fromJsonString(response.value, parseSchema(response.schema)));
+  }
+
+  /**
+   * Get the reader for values written with the schema with the given fingerprint. Readers are
+   * cached, so the schema is fetched from the ScoringServer only the first time its fingerprint is
+   * seen.
+   *
+   * @param modelBaseURL URL of the scoring servlet for the model which wrote the value.
+   * @param fingerprint 64 bit parsing fingerprint of the writer schema.
+   * @return the reader for values written with the schema with the given fingerprint.
+   * @throws IOException in case of an error fetching the schema.
+   */
+  DatumReader<Object> getReader(
+      final String modelBaseURL,
+      final long fingerprint
+  ) throws IOException {
+    try {
+      return mReadersByFingerprint.get(fingerprint, new Callable<DatumReader<Object>>() {
+        /** {@inheritDoc} */
+        @Override
+        public DatumReader<Object> call() throws IOException {
+          final Schema schema = parseSchema(
+              get(new URL(modelBaseURL + "/schema?fingerprint=" + fingerprint)));
+          final long actual = SchemaNormalization.parsingFingerprint64(schema);
+          if (actual != fingerprint) {
+            throw new IOException(String.format(
+                "ScoringServer returned schema with fingerprint %d for fingerprint %d: %s",
+                actual, fingerprint, schema));
+          }
+          return new StringDatumReader(schema);
+        }
+      });
+    } catch (ExecutionException ee) {
+      final Throwable cause = ee.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else {
+        throw new RuntimeException(cause);
+      }
+    }
+  }
+
+  /**
+   * Decode an Avro binary response from the ScoringServer.
+   *
+   * @param modelBaseURL URL of the scoring servlet for the model which wrote the response.
+   * @param response the response to decode.
+   * @return the decoded score.
+   * @throws IOException in case of an error decoding the value or fetching its schema.
+   */
+  private Score decodeBinary(
+      final String modelBaseURL,
+      final HttpResponse response
+  ) throws IOException {
+    final long fingerprint;
+    final long timestamp;
+    try {
+      fingerprint = Long.parseLong(response.getRequiredHeader(SCHEMA_FINGERPRINT_HEADER));
+      timestamp = Long.parseLong(response.getRequiredHeader(TIMESTAMP_HEADER));
+    } catch (NumberFormatException nfe) {
+      throw new IOException(nfe);
+    }
+    final DatumReader<Object> reader = getReader(modelBaseURL, fingerprint);
+    return new Score(
+        KijiColumnName.create(
+            response.getRequiredHeader(FAMILY_HEADER), response.getHeader(QUALIFIER_HEADER)),
+        timestamp,
+        reader.read(null, DecoderFactory.get().binaryDecoder(response.mBody, null)));
+  }
+
+  /**
+   * Decode a JSON response from the ScoringServer.
+   *
+   * @param scoreJSON the body of the ScoringServer's response.
+   * @return the decoded score.
+   * @throws IOException in case of an error decoding the value.
+   */
+  Score decode(
+      final String scoreJSON
+  ) throws IOException {
+    try {
+      return decode(GSON.fromJson(scoreJSON, ScoringServerResponse.class));
+    } catch (JsonSyntaxException jse) {
+      throw new RuntimeException(jse);
+    }
+  }
+
+  /**
+   * Retrieve a score for the given entity from the given model.
+   *
+   * @param modelBaseURL URL of the scoring servlet for the model.
+   * @param eid shell string representation of the entity to score.
+   * @param clientRequest client's data request which triggered the score.
+   * @param params per-request parameters to be passed to the server.
+   * @return the decoded score.
+   * @throws IOException in case of an error communicating with the server or decoding the score.
+   */
+  public Score score(
+      final String modelBaseURL,
+      final String eid,
+      final KijiDataRequest clientRequest,
+      final Map<String, String> params
+  ) throws IOException {
+    return score(modelBaseURL, eid, clientRequest, params, mConnectTimeout, mReadTimeout);
+  }
+
+  /**
+   * Retrieve a score for the given entity from the given model, waiting no longer than the given
+   * time for each of acquiring a request slot, connecting, and reading the response. The
+   * configured connect and read timeouts still apply if they are shorter. A configured timeout of
+   * 0, which waits indefinitely, is replaced by the given time.
+   *
+   * @param modelBaseURL URL of the scoring servlet for the model.
+   * @param eid shell string representation of the entity to score.
+   * @param clientRequest client's data request which triggered the score.
+   * @param params per-request parameters to be passed to the server.
+   * @param timeoutMillis maximum time in milliseconds to wait for each stage of the request.
+   *     Must be positive.
+   * @return the decoded score.
+   * @throws IOException in case of an error communicating with the server or decoding the score.
+   */
+  public Score score(
+      final String modelBaseURL,
+      final String eid,
+      final KijiDataRequest clientRequest,
+      final Map<String, String> params,
+      final long timeoutMillis
+  ) throws IOException {
+    Preconditions.checkArgument(0 < timeoutMillis,
+        "Score timeout must be positive, found: %s", timeoutMillis);
+    return score(
+        modelBaseURL,
+        eid,
+        clientRequest,
+        params,
+        capTimeout(mConnectTimeout, timeoutMillis),
+        capTimeout(mReadTimeout, timeoutMillis));
+  }
+
+  /**
+   * Limit a configured timeout to the given time.
+   *
+   * @param configuredTimeout the configured timeout in milliseconds. 0 indicates no timeout.
+   * @param timeoutMillis the positive time in milliseconds to which to limit the timeout.
+   * @return the smaller of the two timeouts, or the given time if no timeout is configured.
+   */
+  private static int capTimeout(
+      final int configuredTimeout,
+      final long timeoutMillis
+  ) {
+    final long cap = Math.min(timeoutMillis, Integer.MAX_VALUE);
+    return (0 == configuredTimeout) ? (int) cap : (int) Math.min(configuredTimeout, cap);
+  }
+
+  /**
+   * Retrieve a score for the given entity from the given model using the given timeouts.
+   *
+   * @param modelBaseURL URL of the scoring servlet for the model.
+   * @param eid shell string representation of the entity to score.
+   * @param clientRequest client's data request which triggered the score.
+   * @param params per-request parameters to be passed to the server.
+   * @param connectTimeout time in milliseconds to wait for a request slot and to connect.
+   * @param readTimeout time in milliseconds to wait for the server to respond.
+   * @return the decoded score.
+   * @throws IOException in case of an error communicating with the server or decoding the score.
+   */
+  private Score score(
+      final String modelBaseURL,
+      final String eid,
+      final KijiDataRequest clientRequest,
+      final Map<String, String> params,
+      final int connectTimeout,
+      final int readTimeout
+  ) throws IOException {
+    final URL url = getScoringServerEndpoint(modelBaseURL, eid, clientRequest, params);
+    if (ResponseFormat.AVRO_BINARY == mFormat) {
+      final HttpResponse response =
+          execute(url, null, BINARY_ACCEPT, connectTimeout, readTimeout);
+      if (response.isAvroBinary()) {
+        return decodeBinary(modelBaseURL, response);
+      } else {
+        return decode(response.getBodyString());
+      }
+    } else {
+      return decode(execute(url, null, null, connectTimeout, readTimeout).getBodyString());
+    }
+  }
+
+  /**
+   * Retrieve many scores from the given model in a single round trip.
+   *
+   * @param modelBaseURL URL of the scoring servlet for the model.
+   * @param requests the scores to retrieve.
+   * @return the decoded scores in the same order as the requests.
+   * @throws IOException in case of an error communicating with the server or decoding the scores.
+   */
+  public List<Score> scoreBatch(
+      final String modelBaseURL,
+      final List<ScoreRequest> requests
+  ) throws IOException {
+    final List<BatchRequestEntry> entries = Lists.newArrayListWithCapacity(requests.size());
+    for (ScoreRequest request : requests) {
+      entries.add(new BatchRequestEntry(
+          request.getEntityId(),
+          request.getColumn(),
+          encodeClientRequest(request.getClientRequest()),
+          request.getParameters()));
+    }
+    final String responseJSON =
+        execute(new URL(modelBaseURL + "/batch"), GSON.toJson(entries), null,
+            mConnectTimeout, mReadTimeout).getBodyString();
+    final ScoringServerResponse[] responses;
+    try {
+      responses = GSON.fromJson(responseJSON, ScoringServerResponse[].class);
+    } catch (JsonSyntaxException jse) {
+      throw new RuntimeException(jse);
+    }
+    if (null == responses || responses.length != requests.size()) {
+      throw new IOException(String.format(
+          "ScoringServer returned %s scores for a batch of %d requests.",
+          (null == responses) ? "no" : String.valueOf(responses.length), requests.size()));
+    }
+    final List<Score> scores = Lists.newArrayListWithCapacity(responses.length);
+    for (ScoringServerResponse response : responses) {
+      scores.add(decode(response));
+    }
+    return scores;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(ScoringServerClient.class)
+        .add("max_in_flight", mMaxInFlight)
+        .add("connect_timeout", mConnectTimeout)
+        .add("read_timeout", mReadTimeout)
+        .toString();
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/**
+ * Counters reported by {@link ScoringServerScoreFunction} through the Freshener's
+ * {@link org.kiji.scoring.CounterManager} when hedging, circuit breaking, or deadline propagation
+ * is enabled.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public enum ScoringServerCounter {
+  /** Number of scores which failed with an exception. */
+  FAILED_REQUESTS,
+  /** Number of duplicate requests sent because the first request was slower than the delay. */
+  HEDGED_REQUESTS,
+  /** Number of hedged requests which returned before the request they duplicated. */
+  HEDGE_WINS,
+  /** Number of times the circuit breaker opened. */
+  CIRCUIT_OPENED,
+  /** Number of times the circuit breaker closed after a successful trial request. */
+  CIRCUIT_CLOSED,
+  /** Number of scores which failed fast because the circuit breaker was open. */
+  CIRCUIT_REJECTED,
+  /** Number of scores which failed fast because their request had timed out or been cancelled. */
+  DEADLINE_EXCEEDED
+}
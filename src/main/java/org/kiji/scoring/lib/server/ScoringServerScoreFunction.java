@@ -19,32 +19,27 @@
 package org.kiji.scoring.lib.server;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLEncoder;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
-import com.google.common.base.Charsets;
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import org.apache.avro.Schema;
-import org.apache.commons.codec.binary.Base64;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.SerializationUtils;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
-import org.kiji.schema.EntityId;
 import org.kiji.schema.Kiji;
-import org.kiji.schema.KijiColumnName;
 import org.kiji.schema.KijiDataRequest;
 import org.kiji.schema.KijiRowData;
 import org.kiji.schema.KijiURI;
-import org.kiji.schema.util.FromJson;
+import org.kiji.scoring.CounterManager;
 import org.kiji.scoring.FreshenerContext;
 import org.kiji.scoring.FreshenerSetupContext;
 import org.kiji.scoring.ScoreFunction;
@@ -90,6 +85,94 @@ import org.kiji.scoring.ScoreFunction;
  *   parameters. Both of these values are set by the kiji model-repo fresh-model tool when a Kiji
  *   model repository model is attached as a Freshener using remote scoring.
  * </p>
+ *
+ * <p>
+ *   The connection to the ScoringServer may be tuned with the following optional parameters, which
+ *   are also read only during setup.
+ *   <ul>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.max_in_flight the maximum number of
+ *       requests to the ScoringServer which may be in flight at once. Defaults to 100.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.connect_timeout_ms time in
+ *       milliseconds to wait to connect to the ScoringServer. Defaults to 1000.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.read_timeout_ms time in milliseconds
+ *       to wait for the ScoringServer to respond. Defaults to 10000.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.max_batch_size the maximum number of
+ *       concurrent score requests which may be combined into a single request to the
+ *       ScoringServer. Values greater than 1 require the ScoringServer to support batch requests.
+ *       Defaults to 1, which disables batching.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.max_linger_ms time in milliseconds a
+ *       score request may wait for other requests to fill its batch. Used only if max_batch_size
+ *       is greater than 1. Defaults to 5.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.response_format the preferred wire
+ *       format of scores, either json or avro_binary. Binary responses carry the Avro binary
+ *       encoded score and a fingerprint of its schema, which is resolved through a local cache.
+ *       If the ScoringServer does not support binary responses, JSON is used instead. Batches
+ *       are always exchanged as JSON. Defaults to json.
+ *     </li>
+ *   </ul>
+ * </p>
+ *
+ * <p>
+ *   Slow or failing ScoringServers may be guarded against with the following optional parameters,
+ *   which are also read only during setup. Hedging and circuit breaking report their activity
+ *   through the Freshener's CounterManager using {@link ScoringServerCounter}.
+ *   <ul>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.hedge_min_delay_ms enables hedged
+ *       requests. If a score has not returned after the hedge percentile of recent latencies, and
+ *       at least this many milliseconds, a duplicate request is sent and the first score to return
+ *       is used.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.hedge_percentile percentile of
+ *       recent latencies after which to send a hedged request. Defaults to 95.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_window enables the
+ *       circuit breaker. The number of recent scores over which failures are counted.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_failure_ratio
+ *       fraction of recent scores which must fail for the circuit breaker to open. While the
+ *       breaker is open scores fail immediately, leaving the existing data in place. Defaults to
+ *       0.5.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_slow_call_ms time
+ *       in milliseconds after which a score counts as a failure. Defaults to the read timeout.
+ *     </li>
+ *     <li>
+ *       org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_open_ms time in
+ *       milliseconds for which the circuit breaker stays open before allowing a trial request.
+ *       Defaults to 5000.
+ *     </li>
+ *   </ul>
+ * </p>
+ *
+ * <p>
+ *   org.kiji.scoring.lib.server.ScoringServerScoreFunction.propagate_deadline may be set to true
+ *   to bound each score by the time remaining in the freshening request which triggered it, as
+ *   reported by {@link FreshenerContext#getRemainingNanos()}. The connect and read timeouts of
+ *   each call to the ScoringServer are reduced to the remaining time, and scores whose request has
+ *   already timed out or been cancelled fail immediately without contacting the ScoringServer,
+ *   leaving the existing data in place. These are counted as
+ *   {@link ScoringServerCounter#DEADLINE_EXCEEDED}. Batched scores stop waiting for their batch
+ *   when the remaining time expires, but a batch already sent continues for its other requests
+ *   and is bounded only by the configured timeouts. This parameter is read only during setup and
+ *   defaults to false, in which case scores which outlive their request continue in the
+ *   background and their results are still written.
+ * </p>
  */
 @ApiAudience.Framework
 @ApiStability.Experimental
@@ -102,77 +185,88 @@ public final class ScoringServerScoreFunction extends ScoreFunction<Object> {
       "org.kiji.scoring.lib.server.ScoringServerScoreFunction.model_id_key";
   public static final String SCORING_SERVER_INSTANCE_URI_PARAMETER_KEY =
       "org.kiji.scoring.lib.server.ScoringServerScoreFunction.instance_uri";
-  private static final Gson GSON = new Gson();
+  public static final String SCORING_SERVER_MAX_IN_FLIGHT_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.max_in_flight";
+  public static final String SCORING_SERVER_CONNECT_TIMEOUT_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.connect_timeout_ms";
+  public static final String SCORING_SERVER_READ_TIMEOUT_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.read_timeout_ms";
+  public static final String SCORING_SERVER_MAX_BATCH_SIZE_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.max_batch_size";
+  public static final String SCORING_SERVER_MAX_LINGER_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.max_linger_ms";
+  public static final String SCORING_SERVER_RESPONSE_FORMAT_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.response_format";
+  public static final String SCORING_SERVER_HEDGE_MIN_DELAY_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.hedge_min_delay_ms";
+  public static final String SCORING_SERVER_HEDGE_PERCENTILE_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.hedge_percentile";
+  public static final String SCORING_SERVER_BREAKER_WINDOW_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_window";
+  public static final String SCORING_SERVER_BREAKER_FAILURE_RATIO_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_failure_ratio";
+  public static final String SCORING_SERVER_BREAKER_SLOW_CALL_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_slow_call_ms";
+  public static final String SCORING_SERVER_BREAKER_OPEN_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.circuit_breaker_open_ms";
+  public static final String SCORING_SERVER_PROPAGATE_DEADLINE_PARAMETER_KEY =
+      "org.kiji.scoring.lib.server.ScoringServerScoreFunction.propagate_deadline";
+  private static final int DEFAULT_MAX_IN_FLIGHT = 100;
+  private static final int DEFAULT_CONNECT_TIMEOUT = 1000;
+  private static final int DEFAULT_READ_TIMEOUT = 10000;
+  private static final int DEFAULT_MAX_BATCH_SIZE = 1;
+  private static final int DEFAULT_MAX_LINGER = 5;
+  private static final double DEFAULT_HEDGE_PERCENTILE = 95.0;
+  private static final double DEFAULT_BREAKER_FAILURE_RATIO = 0.5;
+  private static final int DEFAULT_BREAKER_OPEN = 5000;
 
-  /** Container class for deserializing JSON server responses. */
-  private static final class ScoringServerResponse {
-    // CSOFF: MemberName - names do not match naming pattern so that GSON can write into them.
-    private String family;
-    private String qualifier;
-    private long timestamp;
-    private String value;
-    private String schema;
-    // CSON: MemberName
+  /**
+   * Get the value of an optional integer parameter.
+   *
+   * @param context context from which to get the parameter.
+   * @param key the name of the parameter.
+   * @param defaultValue value to return if the parameter is not set.
+   * @return the value of the parameter or the default value if it is not set.
+   */
+  private static int getIntParameter(
+      final FreshenerSetupContext context,
+      final String key,
+      final int defaultValue
+  ) {
+    final String value = context.getParameter(key);
+    return (null != value) ? Integer.parseInt(value) : defaultValue;
   }
 
   /**
-   * Build the URL from which to retrieve a score by appending the necessary parameters to the base
-   * model URL.
-   *
-   * @param modelBaseURL URL of the scoring servlet for this model.
-   * @param eid the entity to score.
-   * @param clientRequest client's data request which triggered the run of this ScoreFunction.
-   * @param params an optional map of per-request parameters to be passed to the server.
+   * Get the value of an optional floating point parameter.
    *
-   * @return the URL from which to retrieve a score.
-   * @throws MalformedURLException in case the URL cannot be created.
+   * @param context context from which to get the parameter.
+   * @param key the name of the parameter.
+   * @param defaultValue value to return if the parameter is not set.
+   * @return the value of the parameter or the default value if it is not set.
    */
-  private static URL getScoringServerEndpoint(
-      final String modelBaseURL,
-      final EntityId eid,
-      final KijiDataRequest clientRequest,
-      final Map<String, String> params
-  ) throws MalformedURLException {
-    final String base64Request = Base64.encodeBase64URLSafeString(
-        SerializationUtils.serialize(clientRequest));
-    final StringBuilder urlStringBuilder;
-    try {
-      urlStringBuilder = new StringBuilder(
-          String.format("%s?eid=%s&request=%s",
-              modelBaseURL,
-              URLEncoder.encode(eid.toShellString(), Charsets.UTF_8.name()),
-              base64Request));
-      for (Map.Entry<String, String> entry : params.entrySet()) {
-          urlStringBuilder.append(String.format(
-              "&fresh.%s=%s",
-              URLEncoder.encode(entry.getKey(), "UTF-8"),
-              URLEncoder.encode(entry.getValue(), "UTF-8")
-          ));
-      }
-    } catch (UnsupportedEncodingException e) {
-      throw new RuntimeException(e);
-    }
-    return new URL(urlStringBuilder.toString());
+  private static double getDoubleParameter(
+      final FreshenerSetupContext context,
+      final String key,
+      final double defaultValue
+  ) {
+    final String value = context.getParameter(key);
+    return (null != value) ? Double.parseDouble(value) : defaultValue;
   }
 
   /**
-   * Get the base URL for the scoring servlet for the given model from the given scoring server.
+   * Get the preferred response format from the optional response format parameter.
    *
-   * @param scoringServerBaseURL URL of the scoring server from which to get the location of the
-   *     model.
-   * @param modelId fully qualified model name for which to get the scoring endpoint.
-   * @return the base URL of the scoring servlet for the given model.
-   * @throws IOException in case of an error getting the model URL from the scoring server.
+   * @param context context from which to get the parameter.
+   * @return the preferred response format.
    */
-  @SuppressWarnings("unchecked")
-  private static String getModelBaseURL(
-      final String scoringServerBaseURL,
-      final String modelId
-  ) throws IOException {
-    final URL getModelURL = new URL(scoringServerBaseURL + "/admin/get?model=" + modelId);
-    final String response = IOUtils.toString(getModelURL.openStream());
-    final Map<String, String> modelMap = GSON.fromJson(response, Map.class);
-    return scoringServerBaseURL + "/" + modelMap.get(modelId);
+  private static ScoringServerClient.ResponseFormat getResponseFormat(
+      final FreshenerSetupContext context
+  ) {
+    final String value = context.getParameter(SCORING_SERVER_RESPONSE_FORMAT_PARAMETER_KEY);
+    return (null != value)
+        ? ScoringServerClient.ResponseFormat.valueOf(value.toUpperCase(Locale.ROOT))
+        : ScoringServerClient.ResponseFormat.JSON;
   }
 
   /**
@@ -198,18 +292,81 @@ public final class ScoringServerScoreFunction extends ScoreFunction<Object> {
     }
   }
 
+  private ScoringServerClient mClient;
   private String mModelBaseURL;
+  /** Batcher for score requests. Null if batching is disabled. */
+  private ScoringServerBatcher mBatcher;
+  /** Executor for hedged requests. Null if hedging is disabled. */
+  private ExecutorService mHedgeExecutor;
+  /** Null if hedging is disabled. */
+  private HedgedCaller mHedgedCaller;
+  /** Null if circuit breaking is disabled. */
+  private CircuitBreaker mCircuitBreaker;
+  /** Whether to bound each score by the time remaining in its freshening request. */
+  private boolean mPropagateDeadline;
 
   /** {@inheritDoc} */
   @Override
   public void setup(
       final FreshenerSetupContext context
   ) throws IOException {
+    final int readTimeout =
+        getIntParameter(context, SCORING_SERVER_READ_TIMEOUT_PARAMETER_KEY, DEFAULT_READ_TIMEOUT);
+    mClient = ScoringServerClient.create(
+        getIntParameter(context, SCORING_SERVER_MAX_IN_FLIGHT_PARAMETER_KEY, DEFAULT_MAX_IN_FLIGHT),
+        getIntParameter(
+            context, SCORING_SERVER_CONNECT_TIMEOUT_PARAMETER_KEY, DEFAULT_CONNECT_TIMEOUT),
+        readTimeout,
+        getResponseFormat(context));
     final KijiURI uri = KijiURI.newBuilder(
         context.getParameter(SCORING_SERVER_INSTANCE_URI_PARAMETER_KEY)).build();
-    mModelBaseURL = getModelBaseURL(
+    mModelBaseURL = mClient.getModelBaseURL(
         getScoringServerBaseUrl(uri),
         context.getParameter(SCORING_SERVER_MODEL_ID_PARAMETER_KEY));
+    final int maxBatchSize = getIntParameter(
+        context, SCORING_SERVER_MAX_BATCH_SIZE_PARAMETER_KEY, DEFAULT_MAX_BATCH_SIZE);
+    if (1 < maxBatchSize) {
+      mBatcher = ScoringServerBatcher.create(
+          mClient,
+          mModelBaseURL,
+          maxBatchSize,
+          getIntParameter(context, SCORING_SERVER_MAX_LINGER_PARAMETER_KEY, DEFAULT_MAX_LINGER));
+    }
+    if (null != context.getParameter(SCORING_SERVER_HEDGE_MIN_DELAY_PARAMETER_KEY)) {
+      mHedgeExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+          .setNameFormat("scoring-server-hedge-%d")
+          .setDaemon(true)
+          .build());
+      mHedgedCaller = HedgedCaller.create(
+          mHedgeExecutor,
+          getIntParameter(context, SCORING_SERVER_HEDGE_MIN_DELAY_PARAMETER_KEY, 0),
+          getDoubleParameter(
+              context, SCORING_SERVER_HEDGE_PERCENTILE_PARAMETER_KEY, DEFAULT_HEDGE_PERCENTILE));
+    }
+    if (null != context.getParameter(SCORING_SERVER_BREAKER_WINDOW_PARAMETER_KEY)) {
+      mCircuitBreaker = CircuitBreaker.create(
+          getIntParameter(context, SCORING_SERVER_BREAKER_WINDOW_PARAMETER_KEY, 0),
+          getDoubleParameter(context, SCORING_SERVER_BREAKER_FAILURE_RATIO_PARAMETER_KEY,
+              DEFAULT_BREAKER_FAILURE_RATIO),
+          getIntParameter(context, SCORING_SERVER_BREAKER_SLOW_CALL_PARAMETER_KEY, readTimeout),
+          getIntParameter(context, SCORING_SERVER_BREAKER_OPEN_PARAMETER_KEY, DEFAULT_BREAKER_OPEN),
+          Ticker.systemTicker());
+    }
+    mPropagateDeadline = Boolean.parseBoolean(
+        context.getParameter(SCORING_SERVER_PROPAGATE_DEADLINE_PARAMETER_KEY));
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void cleanup(
+      final FreshenerSetupContext context
+  ) throws IOException {
+    if (null != mBatcher) {
+      mBatcher.close();
+    }
+    if (null != mHedgeExecutor) {
+      mHedgeExecutor.shutdownNow();
+    }
   }
 
   /**
@@ -224,35 +381,117 @@ public final class ScoringServerScoreFunction extends ScoreFunction<Object> {
     return KijiDataRequest.empty();
   }
 
+  /**
+   * Run the given score request through the circuit breaker and hedging, if they are enabled.
+   *
+   * @param request the score request to run.
+   * @param counterManager CounterManager with which to report hedging and circuit breaker activity.
+   * @return the score.
+   * @throws IOException in case of an error retrieving the score or if the circuit breaker is open.
+   */
+  private ScoringServerClient.Score guardedScore(
+      final Callable<ScoringServerClient.Score> request,
+      final CounterManager counterManager
+  ) throws IOException {
+    final long token =
+        (null != mCircuitBreaker) ? mCircuitBreaker.admitRequest() : CircuitBreaker.NOT_ADMITTED;
+    if (null != mCircuitBreaker && CircuitBreaker.NOT_ADMITTED == token) {
+      counterManager.incrementCounter(ScoringServerCounter.CIRCUIT_REJECTED, 1);
+      throw new IOException(String.format(
+          "Circuit breaker for ScoringServer model %s is open.", mModelBaseURL));
+    }
+    final long startNanos = System.nanoTime();
+    final ScoringServerClient.Score score;
+    try {
+      if (null != mHedgedCaller) {
+        score = mHedgedCaller.call(request, counterManager);
+      } else {
+        score = request.call();
+      }
+    } catch (Exception e) {
+      counterManager.incrementCounter(ScoringServerCounter.FAILED_REQUESTS, 1);
+      if (null != mCircuitBreaker) {
+        countTransition(mCircuitBreaker.recordFailure(token), counterManager);
+      }
+      Throwables.propagateIfPossible(e, IOException.class);
+      throw new RuntimeException(e);
+    }
+    if (null != mCircuitBreaker) {
+      countTransition(
+          mCircuitBreaker.recordSuccess(token, System.nanoTime() - startNanos), counterManager);
+    }
+    return score;
+  }
+
+  /**
+   * Count a circuit breaker state transition.
+   *
+   * @param transition the new state of the breaker, or null if the state did not change.
+   * @param counterManager CounterManager with which to count the transition.
+   */
+  private static void countTransition(
+      final CircuitBreaker.State transition,
+      final CounterManager counterManager
+  ) {
+    if (CircuitBreaker.State.OPEN == transition) {
+      counterManager.incrementCounter(ScoringServerCounter.CIRCUIT_OPENED, 1);
+    } else if (CircuitBreaker.State.CLOSED == transition) {
+      counterManager.incrementCounter(ScoringServerCounter.CIRCUIT_CLOSED, 1);
+    }
+  }
+
+  /**
+   * Get the time remaining in the freshening request of the given context as a positive timeout.
+   * Rounds up so that less than a millisecond remaining does not become a timeout of 0, which
+   * means no timeout.
+   *
+   * @param context the context of the score.
+   * @return the positive time in milliseconds remaining in the freshening request.
+   */
+  private static long getRemainingMillis(
+      final FreshenerContext context
+  ) {
+    return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(context.getRemainingNanos()) + 1);
+  }
+
   /** {@inheritDoc} */
   @Override
   public TimestampedValue<Object> score(
       final KijiRowData dataToScore, final FreshenerContext context
   ) throws IOException {
-    final URL scoringServerEndpoint = getScoringServerEndpoint(
-        mModelBaseURL,
-        dataToScore.getEntityId(),
-        context.getClientRequest(),
-        context.getParameters()
-    );
-
-    final String scoreJSON = IOUtils.toString(scoringServerEndpoint.openStream(), "UTF-8");
-
-    try {
-      final ScoringServerResponse response = GSON.fromJson(scoreJSON, ScoringServerResponse.class);
-      final KijiColumnName responseColumn =
-          KijiColumnName.create(response.family, response.qualifier);
-      if (context.getAttachedColumn().equals(responseColumn)) {
-        return TimestampedValue.create(response.timestamp,
-            FromJson.fromJsonString(response.value, new Schema.Parser().parse(response.schema)));
-      } else {
-        throw new IllegalStateException(String.format(
-            "Column name found in response: %s does not match Freshener attached column: %s",
-            responseColumn,
-            context.getAttachedColumn()));
+    final String eid = dataToScore.getEntityId().toShellString();
+    if (mPropagateDeadline
+        && (context.isCancelled() || 0 >= context.getRemainingNanos())) {
+      context.getCounterManager().incrementCounter(ScoringServerCounter.DEADLINE_EXCEEDED, 1);
+      throw new IOException(String.format(
+          "Freshening request for entity %s timed out before scoring by ScoringServer model %s.",
+          eid, mModelBaseURL));
+    }
+    final Callable<ScoringServerClient.Score> request = new Callable<ScoringServerClient.Score>() {
+      /** {@inheritDoc} */
+      @Override
+      public ScoringServerClient.Score call() throws IOException {
+        if (null != mBatcher) {
+          return mBatcher.score(new ScoringServerClient.ScoreRequest(eid,
+              context.getAttachedColumn(), context.getClientRequest(), context.getParameters()),
+              mPropagateDeadline ? getRemainingMillis(context) : 0L);
+        } else if (mPropagateDeadline) {
+          return mClient.score(mModelBaseURL, eid, context.getClientRequest(),
+              context.getParameters(), getRemainingMillis(context));
+        } else {
+          return mClient.score(
+              mModelBaseURL, eid, context.getClientRequest(), context.getParameters());
+        }
       }
-    } catch (JsonSyntaxException jse) {
-      throw new RuntimeException(jse);
+    };
+    final ScoringServerClient.Score score = guardedScore(request, context.getCounterManager());
+    if (context.getAttachedColumn().equals(score.getColumn())) {
+      return TimestampedValue.create(score.getTimestamp(), score.getValue());
+    } else {
+      throw new IllegalStateException(String.format(
+          "Column name found in response: %s does not match Freshener attached column: %s",
+          score.getColumn(),
+          context.getAttachedColumn()));
     }
   }
 }
@@ -19,27 +19,41 @@
 
 package org.kiji.scoring.statistics;
 
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 import org.kiji.scoring.FreshKijiTableReader.Builder.StatisticGatheringMode;
 import org.kiji.scoring.avro.KijiFreshenerRecord;
 
-/** Container representing statistics about Fresheners run by a single FreshKijiTableReader. */
+/**
+ * Container representing statistics about Fresheners run by a single FreshKijiTableReader.
+ *
+ * <p>
+ *   Aggregate statistics may be added concurrently. Raw statistics are only retained by
+ *   {@link #addFreshenerRunStatistics(FreshenerSingleRunStatistics)}, which must be called from a
+ *   single thread.
+ * </p>
+ */
 @ApiAudience.Public
 @ApiStability.Experimental
 public final class FreshKijiTableReaderStatistics {
   private final StatisticGatheringMode mMode;
   private final List<FreshenerSingleRunStatistics> mFreshenerSingleRunStatistics =
       Lists.newArrayList();
-  private final Map<KijiFreshenerRecord, FreshenerStatistics> mAggregatedFreshenerStatistics
-      = Maps.newHashMap();
+  private final ConcurrentMap<KijiFreshenerRecord, FreshenerStatistics>
+      mAggregatedFreshenerStatistics =
+          new ConcurrentHashMap<KijiFreshenerRecord, FreshenerStatistics>();
+  private final Map<FresheningStage, RunningLogarithmicBin> mRequestStageDurationBins =
+      new EnumMap<FresheningStage, RunningLogarithmicBin>(FresheningStage.class);
 
   /**
    * Initialize a new FreshKijiTableReaderStatistics with the given StatisticsGatheringMode.
@@ -51,6 +65,9 @@ public final class FreshKijiTableReaderStatistics {
       final StatisticGatheringMode mode
   ) {
     mMode = mode;
+    for (FresheningStage stage : FresheningStage.values()) {
+      mRequestStageDurationBins.put(stage, new RunningLogarithmicBin(15));
+    }
   }
 
   /**
@@ -67,23 +84,22 @@ public final class FreshKijiTableReaderStatistics {
   }
 
   /**
-   * Create a new aggregate statistic for a Freshener if none is present, otherwise add the given
-   * stats to the existing aggregate.
+   * Get the aggregate statistics for a Freshener, creating them if none are present.
    *
-   * @param stats statistics about a single run of a Freshener to add to the aggregate.
+   * @param record the KijiFreshenerRecord of the Freshener.
+   * @return the aggregate statistics for the Freshener.
    */
-  private void createOrAddAggregate(
-      final FreshenerSingleRunStatistics stats
+  private FreshenerStatistics getOrCreateAggregate(
+      final KijiFreshenerRecord record
   ) {
-    final FreshenerStatistics freshenerStatistics =
-        mAggregatedFreshenerStatistics.get(stats.getFreshenerRecord());
+    final FreshenerStatistics freshenerStatistics = mAggregatedFreshenerStatistics.get(record);
     if (null != freshenerStatistics) {
-      freshenerStatistics.addValues(stats);
+      return freshenerStatistics;
     } else {
-      final FreshenerStatistics newFreshenerStatistics =
-          FreshenerStatistics.create(stats.getFreshenerRecord());
-      newFreshenerStatistics.addValues(stats);
-      mAggregatedFreshenerStatistics.put(stats.getFreshenerRecord(), newFreshenerStatistics);
+      final FreshenerStatistics newFreshenerStatistics = FreshenerStatistics.create(record);
+      final FreshenerStatistics raced =
+          mAggregatedFreshenerStatistics.putIfAbsent(record, newFreshenerStatistics);
+      return (null != raced) ? raced : newFreshenerStatistics;
     }
   }
 
@@ -105,7 +121,54 @@ public final class FreshKijiTableReaderStatistics {
       final FreshenerSingleRunStatistics stats
   ) {
     mFreshenerSingleRunStatistics.add(stats);
-    createOrAddAggregate(stats);
+    getOrCreateAggregate(stats.getFreshenerRecord()).addValues(stats);
+  }
+
+  /**
+   * Add a single run of a Freshener to the aggregate statistics without retaining it in the raw
+   * statistics. May be called concurrently.
+   *
+   * @param record the KijiFreshenerRecord of the Freshener which ran.
+   * @param timedOut whether the run timed out.
+   * @param duration time in nanoseconds the run took.
+   * @param scoreFunctionRan whether the ScoreFunction was run.
+   */
+  public void addFreshenerRun(
+      final KijiFreshenerRecord record,
+      final boolean timedOut,
+      final long duration,
+      final boolean scoreFunctionRan
+  ) {
+    getOrCreateAggregate(record).addValues(timedOut, duration, scoreFunctionRan);
+  }
+
+  /**
+   * Add the timing of a single stage of a freshening request. Stages run by a Freshener are added
+   * to the aggregated statistics of that Freshener, stages of the whole request are added to the
+   * request stage statistics.
+   *
+   * @param span the timing of a single stage of a freshening request.
+   */
+  public void addFresheningSpan(
+      final FresheningSpan span
+  ) {
+    final KijiFreshenerRecord record = span.getFreshenerRecord();
+    if (null == record) {
+      mRequestStageDurationBins.get(span.getStage()).addValue(span.getDurationNanos());
+    } else {
+      getOrCreateAggregate(record).addSpan(span);
+    }
+  }
+
+  /**
+   * Get the duration in nanoseconds of each stage of freshening requests which is not run by a
+   * single Freshener, binned by duration.
+   *
+   * @return the duration of each stage of freshening requests which is not run by a single
+   *     Freshener, binned by duration.
+   */
+  public Map<FresheningStage, RunningLogarithmicBin> getRequestStageDurationBins() {
+    return Collections.unmodifiableMap(mRequestStageDurationBins);
   }
 
   /**
@@ -140,6 +203,7 @@ public final class FreshKijiTableReaderStatistics {
         // collect and log raw statistics in production, so it's possible that this expense is ok.
         //.add("raw_statistics", mFreshenerSingleRunStatistics)
         .add("aggregated_statistics", mAggregatedFreshenerStatistics.values())
+        .add("request_stage_duration_bins_nano", mRequestStageDurationBins)
         .toString();
   }
 }
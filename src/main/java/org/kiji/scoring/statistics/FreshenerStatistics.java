@@ -19,6 +19,10 @@
 
 package org.kiji.scoring.statistics;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
 import com.google.common.base.Objects;
 
 import org.kiji.annotations.ApiAudience;
@@ -37,6 +41,8 @@ public final class FreshenerStatistics {
   private final RunningMean mMeanFresheningDuration = new RunningMean();
   private final RunningMean mScoreFunctionRanPercent = new RunningMean();
   private final RunningLogarithmicBin mFresheningDurationBins = new RunningLogarithmicBin(15);
+  private final Map<FresheningStage, RunningLogarithmicBin> mStageDurationBins =
+      new EnumMap<FresheningStage, RunningLogarithmicBin>(FresheningStage.class);
 
   /**
    * Initialize a new FreshenerStatistics.
@@ -48,6 +54,9 @@ public final class FreshenerStatistics {
       final KijiFreshenerRecord record
   ) {
     mFreshenerRecord = record;
+    for (FresheningStage stage : FresheningStage.values()) {
+      mStageDurationBins.put(stage, new RunningLogarithmicBin(15));
+    }
   }
 
   /**
@@ -112,6 +121,27 @@ public final class FreshenerStatistics {
     return mFresheningDurationBins;
   }
 
+  /**
+   * Get the duration in nanoseconds of each stage of runs of this Freshener binned by duration.
+   * Stages are only timed for runs within requests to a FreshKijiTableReader.
+   *
+   * @return the duration of each stage of runs of this Freshener binned by duration.
+   */
+  public Map<FresheningStage, RunningLogarithmicBin> getStageDurationBins() {
+    return Collections.unmodifiableMap(mStageDurationBins);
+  }
+
+  /**
+   * Add the duration of a single stage of a run of this Freshener.
+   *
+   * @param span timing of a single stage of a run of this Freshener.
+   */
+  public void addSpan(
+      final FresheningSpan span
+  ) {
+    mStageDurationBins.get(span.getStage()).addValue(span.getDurationNanos());
+  }
+
   /**
    * Add the values from the given FreshenerSingleRunStatistics to the aggregated statistics about
    * this Freshener.
@@ -120,13 +150,29 @@ public final class FreshenerStatistics {
    */
   public void addValues(
       final FreshenerSingleRunStatistics stats
+  ) {
+    addValues(stats.timedOut(), stats.getDuration(), stats.producerRan());
+  }
+
+  /**
+   * Add the values of a single run of this Freshener to the aggregated statistics about this
+   * Freshener. Values may be added concurrently.
+   *
+   * @param timedOut whether the run timed out.
+   * @param duration time in nanoseconds the run took.
+   * @param scoreFunctionRan whether the ScoreFunction was run.
+   */
+  public void addValues(
+      final boolean timedOut,
+      final long duration,
+      final boolean scoreFunctionRan
   ) {
     // Convert the booleans to longs so they can be averaged.
-    mTimedOutPercent.addValue((stats.timedOut()) ? 1 : 0);
-    mScoreFunctionRanPercent.addValue((stats.producerRan()) ? 1 : 0);
+    mTimedOutPercent.addValue((timedOut) ? 1 : 0);
+    mScoreFunctionRanPercent.addValue((scoreFunctionRan) ? 1 : 0);
 
-    mMeanFresheningDuration.addValue(stats.getDuration());
-    mFresheningDurationBins.addValue(stats.getDuration());
+    mMeanFresheningDuration.addValue(duration);
+    mFresheningDurationBins.addValue(duration);
   }
 
   /** {@inheritDoc} */
@@ -138,6 +184,7 @@ public final class FreshenerStatistics {
         .add("score_function_ran_percent", mScoreFunctionRanPercent)
         .add("mean_duration_nano", mMeanFresheningDuration)
         .add("duration_bins_nano", mFresheningDurationBins)
+        .add("stage_duration_bins_nano", mStageDurationBins)
         .toString();
   }
 }
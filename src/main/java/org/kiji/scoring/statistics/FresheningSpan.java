@@ -0,0 +1,168 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import com.google.common.base.Objects;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.avro.KijiFreshenerRecord;
+
+/**
+ * Timing of a single stage of a freshening request.
+ *
+ * <p>
+ *   Spans of stages which belong to the whole request ({@link FresheningStage#CLIENT_READ} and
+ *   {@link FresheningStage#FINAL_READ}) have no attached column or Freshener record.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class FresheningSpan {
+  private final String mRequestId;
+  private final KijiColumnName mAttachedColumn;
+  private final KijiFreshenerRecord mFreshenerRecord;
+  private final FresheningStage mStage;
+  private final long mStartNanos;
+  private final long mDurationNanos;
+
+  /**
+   * Initialize a new FresheningSpan.
+   *
+   * @param requestId unique identifier of the request to which this span belongs.
+   * @param attachedColumn column of the Freshener which ran this stage, or null for stages of the
+   *     whole request.
+   * @param freshenerRecord record of the Freshener which ran this stage, or null for stages of the
+   *     whole request.
+   * @param stage the timed stage.
+   * @param startNanos value of {@link System#nanoTime()} when the stage started.
+   * @param durationNanos time in nanoseconds the stage took.
+   */
+  private FresheningSpan(
+      final String requestId,
+      final KijiColumnName attachedColumn,
+      final KijiFreshenerRecord freshenerRecord,
+      final FresheningStage stage,
+      final long startNanos,
+      final long durationNanos
+  ) {
+    mRequestId = requestId;
+    mAttachedColumn = attachedColumn;
+    mFreshenerRecord = freshenerRecord;
+    mStage = stage;
+    mStartNanos = startNanos;
+    mDurationNanos = durationNanos;
+  }
+
+  /**
+   * Create a new FresheningSpan.
+   *
+   * @param requestId unique identifier of the request to which this span belongs.
+   * @param attachedColumn column of the Freshener which ran this stage, or null for stages of the
+   *     whole request.
+   * @param freshenerRecord record of the Freshener which ran this stage, or null for stages of the
+   *     whole request.
+   * @param stage the timed stage.
+   * @param startNanos value of {@link System#nanoTime()} when the stage started.
+   * @param durationNanos time in nanoseconds the stage took.
+   * @return a new FresheningSpan.
+   */
+  // CSOFF: ParameterNumberCheck
+  public static FresheningSpan create(
+      final String requestId,
+      final KijiColumnName attachedColumn,
+      final KijiFreshenerRecord freshenerRecord,
+      final FresheningStage stage,
+      final long startNanos,
+      final long durationNanos
+  ) {
+    // CSON: ParameterNumberCheck
+    return new FresheningSpan(
+        requestId, attachedColumn, freshenerRecord, stage, startNanos, durationNanos);
+  }
+
+  /**
+   * Get the unique identifier of the request to which this span belongs.
+   *
+   * @return the unique identifier of the request to which this span belongs.
+   */
+  public String getRequestId() {
+    return mRequestId;
+  }
+
+  /**
+   * Get the column of the Freshener which ran this stage, or null for stages of the whole request.
+   *
+   * @return the column of the Freshener which ran this stage, or null for stages of the whole
+   *     request.
+   */
+  public KijiColumnName getAttachedColumn() {
+    return mAttachedColumn;
+  }
+
+  /**
+   * Get the record of the Freshener which ran this stage, or null for stages of the whole request.
+   *
+   * @return the record of the Freshener which ran this stage, or null for stages of the whole
+   *     request.
+   */
+  public KijiFreshenerRecord getFreshenerRecord() {
+    return mFreshenerRecord;
+  }
+
+  /**
+   * Get the timed stage.
+   *
+   * @return the timed stage.
+   */
+  public FresheningStage getStage() {
+    return mStage;
+  }
+
+  /**
+   * Get the value of {@link System#nanoTime()} when the stage started.
+   *
+   * @return the value of {@link System#nanoTime()} when the stage started.
+   */
+  public long getStartNanos() {
+    return mStartNanos;
+  }
+
+  /**
+   * Get the time in nanoseconds the stage took.
+   *
+   * @return the time in nanoseconds the stage took.
+   */
+  public long getDurationNanos() {
+    return mDurationNanos;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(FresheningSpan.class)
+        .add("request_id", mRequestId)
+        .add("attached_column", mAttachedColumn)
+        .add("stage", mStage)
+        .add("start_nano", mStartNanos)
+        .add("duration_nano", mDurationNanos)
+        .toString();
+  }
+}
@@ -0,0 +1,42 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/** Stages of a freshening request which are timed by request tracing. */
+@ApiAudience.Public
+@ApiStability.Experimental
+public enum FresheningStage {
+  /** Reading the data requested by the client before freshening. */
+  CLIENT_READ,
+  /** Reading the data requested by a KijiFreshnessPolicy. */
+  POLICY_READ,
+  /** Running KijiFreshnessPolicy.isFresh. */
+  IS_FRESH,
+  /** Reading the data requested by a ScoreFunction. */
+  SCORE_READ,
+  /** Running ScoreFunction.score. */
+  SCORE,
+  /** Flushing scores to the table. */
+  FLUSH,
+  /** Reading the freshened data requested by the client. */
+  FINAL_READ
+}
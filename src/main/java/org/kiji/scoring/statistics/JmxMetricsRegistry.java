@@ -0,0 +1,492 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/**
+ * MetricsRegistry which publishes each metric as a JMX MBean.
+ *
+ * <p>
+ *   Each metric is registered under the configured domain with a single "name" key, e.g.
+ *   <code>org.kiji.scoring:name="table.reader-0.requests"</code>. Meters report their count, mean
+ *   rate and exponentially weighted one minute rate in events per second. Histograms report the
+ *   count, minimum, maximum and mean of all values, and percentiles of the most recent
+ *   {@value #HISTOGRAM_WINDOW_SIZE} values. Failure to register or unregister an MBean is logged
+ *   and otherwise ignored so that metrics never cause reads to fail.
+ * </p>
+ *
+ * <p>
+ *   JmxMetricsRegistry is thread safe.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class JmxMetricsRegistry implements MetricsRegistry {
+  private static final Logger LOG = LoggerFactory.getLogger(JmxMetricsRegistry.class);
+
+  /** Default JMX domain under which to register metrics. */
+  public static final String DEFAULT_DOMAIN = "org.kiji.scoring";
+  /** Number of most recent values from which histogram percentiles are calculated. */
+  public static final int HISTOGRAM_WINDOW_SIZE = 1024;
+
+  /** Interval at which meter rates are updated. */
+  private static final long TICK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+  /** Weight given to each new interval by the one minute rate. */
+  private static final double ONE_MINUTE_ALPHA = 1 - Math.exp(-5.0 / 60.0);
+
+  /** JMX view of a meter. */
+  public interface MeterMBean {
+    /**
+     * Get the number of events marked.
+     *
+     * @return the number of events marked.
+     */
+    long getCount();
+
+    /**
+     * Get the mean number of events per second since the meter was created.
+     *
+     * @return the mean number of events per second since the meter was created.
+     */
+    double getMeanRate();
+
+    /**
+     * Get the exponentially weighted number of events per second over the last minute.
+     *
+     * @return the exponentially weighted number of events per second over the last minute.
+     */
+    double getOneMinuteRate();
+  }
+
+  /** JMX view of a histogram. */
+  public interface HistogramMBean {
+    /**
+     * Get the number of values recorded.
+     *
+     * @return the number of values recorded.
+     */
+    long getCount();
+
+    /**
+     * Get the smallest value recorded, or 0 if none have been recorded.
+     *
+     * @return the smallest value recorded.
+     */
+    long getMin();
+
+    /**
+     * Get the largest value recorded, or 0 if none have been recorded.
+     *
+     * @return the largest value recorded.
+     */
+    long getMax();
+
+    /**
+     * Get the mean of all values recorded, or 0 if none have been recorded.
+     *
+     * @return the mean of all values recorded.
+     */
+    double getMean();
+
+    /**
+     * Get the median of recent values.
+     *
+     * @return the median of recent values.
+     */
+    long get50thPercentile();
+
+    /**
+     * Get the 95th percentile of recent values.
+     *
+     * @return the 95th percentile of recent values.
+     */
+    long get95thPercentile();
+
+    /**
+     * Get the 99th percentile of recent values.
+     *
+     * @return the 99th percentile of recent values.
+     */
+    long get99thPercentile();
+  }
+
+  /** JMX view of a gauge. */
+  public interface GaugeMBean {
+    /**
+     * Get the current value of the gauge.
+     *
+     * @return the current value of the gauge.
+     */
+    Object getValue();
+  }
+
+  /** Meter with a mean rate and a one minute exponentially weighted rate. */
+  private static final class JmxMeter implements Meter, MeterMBean {
+    private final long mStartNanos = System.nanoTime();
+    private final AtomicLong mCount = new AtomicLong(0);
+    private final AtomicLong mUncounted = new AtomicLong(0);
+    private final AtomicLong mLastTickNanos = new AtomicLong(mStartNanos);
+    // Only updated by the thread which advances mLastTickNanos.
+    private volatile double mOneMinuteRate = 0.0;
+    private volatile boolean mRateInitialized = false;
+
+    /** Fold events counted since the last tick into the one minute rate if a tick has passed. */
+    private void tickIfNecessary() {
+      final long lastTick = mLastTickNanos.get();
+      final long age = System.nanoTime() - lastTick;
+      if (age > TICK_INTERVAL_NANOS) {
+        final long newTick = lastTick + age - (age % TICK_INTERVAL_NANOS);
+        if (mLastTickNanos.compareAndSet(lastTick, newTick)) {
+          for (long i = 0; i < age / TICK_INTERVAL_NANOS; i++) {
+            final double instantRate = mUncounted.getAndSet(0)
+                / ((double) TICK_INTERVAL_NANOS / TimeUnit.SECONDS.toNanos(1));
+            if (mRateInitialized) {
+              mOneMinuteRate += ONE_MINUTE_ALPHA * (instantRate - mOneMinuteRate);
+            } else {
+              mOneMinuteRate = instantRate;
+              mRateInitialized = true;
+            }
+          }
+        }
+      }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void mark(
+        final long count
+    ) {
+      tickIfNecessary();
+      mCount.addAndGet(count);
+      mUncounted.addAndGet(count);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getCount() {
+      return mCount.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMeanRate() {
+      final long elapsedNanos = System.nanoTime() - mStartNanos;
+      return (0 == elapsedNanos)
+          ? 0.0 : mCount.get() / ((double) elapsedNanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getOneMinuteRate() {
+      tickIfNecessary();
+      return mOneMinuteRate;
+    }
+  }
+
+  /** Histogram which calculates percentiles from a sliding window of recent values. */
+  private static final class JmxHistogram implements Histogram, HistogramMBean {
+    private final AtomicLongArray mWindow = new AtomicLongArray(HISTOGRAM_WINDOW_SIZE);
+    private final AtomicLong mCount = new AtomicLong(0);
+    private final AtomicLong mSum = new AtomicLong(0);
+    private final AtomicLong mMin = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong mMax = new AtomicLong(Long.MIN_VALUE);
+
+    /** {@inheritDoc} */
+    @Override
+    public void update(
+        final long value
+    ) {
+      final long index = mCount.getAndIncrement();
+      mWindow.lazySet((int) (index % HISTOGRAM_WINDOW_SIZE), value);
+      mSum.addAndGet(value);
+      long min = mMin.get();
+      while (value < min && !mMin.compareAndSet(min, value)) {
+        min = mMin.get();
+      }
+      long max = mMax.get();
+      while (value > max && !mMax.compareAndSet(max, value)) {
+        max = mMax.get();
+      }
+    }
+
+    /**
+     * Get the given quantile of recent values.
+     *
+     * @param quantile the quantile to get, in (0, 1].
+     * @return the given quantile of recent values, or 0 if none have been recorded.
+     */
+    private long getQuantile(
+        final double quantile
+    ) {
+      final int size = (int) Math.min(mCount.get(), HISTOGRAM_WINDOW_SIZE);
+      if (0 == size) {
+        return 0;
+      }
+      final long[] values = new long[size];
+      for (int i = 0; i < size; i++) {
+        values[i] = mWindow.get(i);
+      }
+      Arrays.sort(values);
+      return values[Math.max(0, (int) Math.ceil(quantile * size) - 1)];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getCount() {
+      return mCount.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMin() {
+      return (0 == mCount.get()) ? 0 : mMin.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getMax() {
+      return (0 == mCount.get()) ? 0 : mMax.get();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMean() {
+      final long count = mCount.get();
+      return (0 == count) ? 0.0 : (double) mSum.get() / count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long get50thPercentile() {
+      return getQuantile(0.50);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long get95thPercentile() {
+      return getQuantile(0.95);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long get99thPercentile() {
+      return getQuantile(0.99);
+    }
+  }
+
+  /** Adapts a Gauge to its JMX view. */
+  private static final class JmxGauge implements GaugeMBean {
+    private final Gauge<?> mGauge;
+
+    /**
+     * Initialize a new JmxGauge.
+     *
+     * @param gauge the gauge to adapt.
+     */
+    private JmxGauge(
+        final Gauge<?> gauge
+    ) {
+      mGauge = gauge;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object getValue() {
+      return mGauge.getValue();
+    }
+  }
+
+  /**
+   * Create a new JmxMetricsRegistry which registers metrics with the platform MBeanServer under
+   * {@link #DEFAULT_DOMAIN}.
+   *
+   * @return a new JmxMetricsRegistry.
+   */
+  public static JmxMetricsRegistry create() {
+    return create(ManagementFactory.getPlatformMBeanServer(), DEFAULT_DOMAIN);
+  }
+
+  /**
+   * Create a new JmxMetricsRegistry.
+   *
+   * @param server MBeanServer with which to register metrics.
+   * @param domain JMX domain under which to register metrics.
+   * @return a new JmxMetricsRegistry.
+   */
+  public static JmxMetricsRegistry create(
+      final MBeanServer server,
+      final String domain
+  ) {
+    Preconditions.checkNotNull(server, "MBeanServer may not be null.");
+    Preconditions.checkNotNull(domain, "Domain may not be null.");
+    return new JmxMetricsRegistry(server, domain);
+  }
+
+  private final MBeanServer mServer;
+  private final String mDomain;
+  private final ConcurrentMap<String, Object> mMetrics = new ConcurrentHashMap<String, Object>();
+
+  /**
+   * Private constructor. Use {@link #create(MBeanServer, String)}.
+   *
+   * @param server MBeanServer with which to register metrics.
+   * @param domain JMX domain under which to register metrics.
+   */
+  private JmxMetricsRegistry(
+      final MBeanServer server,
+      final String domain
+  ) {
+    mServer = server;
+    mDomain = domain;
+  }
+
+  /**
+   * Get the JMX ObjectName of the metric with the given name.
+   *
+   * @param name the name of the metric.
+   * @return the JMX ObjectName of the metric with the given name.
+   * @throws JMException if the name cannot be made into an ObjectName.
+   */
+  public ObjectName getObjectName(
+      final String name
+  ) throws JMException {
+    return new ObjectName(mDomain, "name", ObjectName.quote(name));
+  }
+
+  /**
+   * Register the JMX view of a metric.
+   *
+   * @param name the name of the metric.
+   * @param mbean the JMX view of the metric.
+   * @param mbeanInterface the interface of the JMX view.
+   * @param <T> type of the JMX view.
+   */
+  private <T> void registerMBean(
+      final String name,
+      final T mbean,
+      final Class<T> mbeanInterface
+  ) {
+    try {
+      final ObjectName objectName = getObjectName(name);
+      if (mServer.isRegistered(objectName)) {
+        mServer.unregisterMBean(objectName);
+      }
+      mServer.registerMBean(new StandardMBean(mbean, mbeanInterface), objectName);
+    } catch (JMException jme) {
+      LOG.warn("Failed to register metric: {} with JMX: {}", name, jme.getMessage());
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Meter meter(
+      final String name
+  ) {
+    final Object existing = mMetrics.get(name);
+    if (existing instanceof JmxMeter) {
+      return (JmxMeter) existing;
+    }
+    Preconditions.checkState(null == existing,
+        "Metric: %s is already registered as: %s", name, existing);
+    final JmxMeter meter = new JmxMeter();
+    final Object raced = mMetrics.putIfAbsent(name, meter);
+    if (null != raced) {
+      return meter(name);
+    }
+    registerMBean(name, meter, MeterMBean.class);
+    return meter;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public Histogram histogram(
+      final String name
+  ) {
+    final Object existing = mMetrics.get(name);
+    if (existing instanceof JmxHistogram) {
+      return (JmxHistogram) existing;
+    }
+    Preconditions.checkState(null == existing,
+        "Metric: %s is already registered as: %s", name, existing);
+    final JmxHistogram histogram = new JmxHistogram();
+    final Object raced = mMetrics.putIfAbsent(name, histogram);
+    if (null != raced) {
+      return histogram(name);
+    }
+    registerMBean(name, histogram, HistogramMBean.class);
+    return histogram;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void register(
+      final String name,
+      final Gauge<?> gauge
+  ) {
+    final JmxGauge jmxGauge = new JmxGauge(gauge);
+    mMetrics.put(name, jmxGauge);
+    registerMBean(name, jmxGauge, GaugeMBean.class);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void remove(
+      final String name
+  ) {
+    if (null != mMetrics.remove(name)) {
+      try {
+        final ObjectName objectName = getObjectName(name);
+        if (mServer.isRegistered(objectName)) {
+          mServer.unregisterMBean(objectName);
+        }
+      } catch (JMException jme) {
+        LOG.warn("Failed to unregister metric: {} from JMX: {}", name, jme.getMessage());
+      }
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(JmxMetricsRegistry.class)
+        .add("domain", mDomain)
+        .add("metrics", mMetrics.size())
+        .toString();
+  }
+}
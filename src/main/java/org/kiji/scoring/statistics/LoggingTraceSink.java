@@ -0,0 +1,53 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/** TraceSink which logs each span at INFO level. */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class LoggingTraceSink implements TraceSink {
+  private static final Logger LOG = LoggerFactory.getLogger(LoggingTraceSink.class);
+
+  /**
+   * Create a new LoggingTraceSink.
+   *
+   * @return a new LoggingTraceSink.
+   */
+  public static LoggingTraceSink create() {
+    return new LoggingTraceSink();
+  }
+
+  /** Private constructor. Use {@link #create()}. */
+  private LoggingTraceSink() { }
+
+  /** {@inheritDoc} */
+  @Override
+  public void emit(
+      final FresheningSpan span
+  ) {
+    LOG.info("{} {} {} took {} ns.", span.getRequestId(), span.getAttachedColumn(),
+        span.getStage(), span.getDurationNanos());
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.annotations.Inheritance;
+
+/**
+ * Destination for metrics published by a FreshKijiTableReader. A MetricsRegistry may be
+ * registered with a FreshKijiTableReader using
+ * {@link org.kiji.scoring.FreshKijiTableReader.Builder#withMetricsRegistry(MetricsRegistry)}.
+ *
+ * <p>
+ *   The interface follows the model of common metrics libraries so that it can be implemented by
+ *   delegating to them: meters count events and their rates, histograms record the distribution
+ *   of values, and gauges report a value on demand. {@link JmxMetricsRegistry} publishes metrics
+ *   as JMX MBeans.
+ * </p>
+ *
+ * <p>
+ *   Meters and histograms are updated from the threads which run freshening requests, so they
+ *   must be thread safe and cheap to update. A reader caches each metric the first time it is
+ *   needed and removes all of its metrics when it closes.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+@Inheritance.Extensible
+public interface MetricsRegistry {
+
+  /** Counts events and the rate at which they occur. */
+  interface Meter {
+    /**
+     * Record the occurrence of events.
+     *
+     * @param count the number of events which occurred.
+     */
+    void mark(long count);
+  }
+
+  /** Records the distribution of values. */
+  interface Histogram {
+    /**
+     * Record a value.
+     *
+     * @param value the value to record.
+     */
+    void update(long value);
+  }
+
+  /**
+   * Reports a value when the registry is read.
+   *
+   * @param <T> type of the reported value.
+   */
+  interface Gauge<T> {
+    /**
+     * Get the current value of this gauge.
+     *
+     * @return the current value of this gauge.
+     */
+    T getValue();
+  }
+
+  /**
+   * Get the meter with the given name, creating it if it does not exist.
+   *
+   * @param name the name of the meter.
+   * @return the meter with the given name.
+   */
+  Meter meter(String name);
+
+  /**
+   * Get the histogram with the given name, creating it if it does not exist.
+   *
+   * @param name the name of the histogram.
+   * @return the histogram with the given name.
+   */
+  Histogram histogram(String name);
+
+  /**
+   * Register a gauge with the given name, replacing any existing gauge with that name.
+   *
+   * @param name the name of the gauge.
+   * @param gauge the gauge to register.
+   */
+  void register(String name, Gauge<?> gauge);
+
+  /**
+   * Remove the metric with the given name if it exists.
+   *
+   * @param name the name of the metric to remove.
+   */
+  void remove(String name);
+}
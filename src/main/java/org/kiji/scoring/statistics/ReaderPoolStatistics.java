@@ -0,0 +1,182 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import com.google.common.base.Objects;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/**
+ * Snapshot of the utilization of the pool of KijiTableReaders used by a FreshKijiTableReader to
+ * read data for Fresheners and clients.
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class ReaderPoolStatistics {
+  private final int mMaxActive;
+  private final int mActive;
+  private final int mPeakActive;
+  private final long mBorrowCount;
+  private final long mTotalWaitNanos;
+  private final long mMaxWaitNanos;
+  private final long mExhaustedCount;
+
+  /**
+   * Initialize a new ReaderPoolStatistics.
+   *
+   * @param maxActive maximum number of readers which may be borrowed at once.
+   * @param active number of readers borrowed at the time of the snapshot.
+   * @param peakActive largest number of readers borrowed at once.
+   * @param borrowCount number of readers successfully borrowed.
+   * @param totalWaitNanos total time in nanoseconds spent waiting to borrow readers.
+   * @param maxWaitNanos longest time in nanoseconds spent waiting to borrow a reader.
+   * @param exhaustedCount number of borrows which failed because no reader became available.
+   */
+  private ReaderPoolStatistics(
+      final int maxActive,
+      final int active,
+      final int peakActive,
+      final long borrowCount,
+      final long totalWaitNanos,
+      final long maxWaitNanos,
+      final long exhaustedCount
+  ) {
+    mMaxActive = maxActive;
+    mActive = active;
+    mPeakActive = peakActive;
+    mBorrowCount = borrowCount;
+    mTotalWaitNanos = totalWaitNanos;
+    mMaxWaitNanos = maxWaitNanos;
+    mExhaustedCount = exhaustedCount;
+  }
+
+  /**
+   * Create a new ReaderPoolStatistics.
+   *
+   * @param maxActive maximum number of readers which may be borrowed at once.
+   * @param active number of readers borrowed at the time of the snapshot.
+   * @param peakActive largest number of readers borrowed at once.
+   * @param borrowCount number of readers successfully borrowed.
+   * @param totalWaitNanos total time in nanoseconds spent waiting to borrow readers.
+   * @param maxWaitNanos longest time in nanoseconds spent waiting to borrow a reader.
+   * @param exhaustedCount number of borrows which failed because no reader became available.
+   * @return a new ReaderPoolStatistics.
+   */
+  // CSOFF: ParameterNumberCheck
+  public static ReaderPoolStatistics create(
+      final int maxActive,
+      final int active,
+      final int peakActive,
+      final long borrowCount,
+      final long totalWaitNanos,
+      final long maxWaitNanos,
+      final long exhaustedCount
+  ) {
+    // CSON: ParameterNumberCheck
+    return new ReaderPoolStatistics(
+        maxActive, active, peakActive, borrowCount, totalWaitNanos, maxWaitNanos, exhaustedCount);
+  }
+
+  /**
+   * Get the maximum number of readers which may be borrowed at once.
+   *
+   * @return the maximum number of readers which may be borrowed at once.
+   */
+  public int getMaxActive() {
+    return mMaxActive;
+  }
+
+  /**
+   * Get the number of readers borrowed at the time of the snapshot.
+   *
+   * @return the number of readers borrowed at the time of the snapshot.
+   */
+  public int getActive() {
+    return mActive;
+  }
+
+  /**
+   * Get the largest number of readers borrowed at once.
+   *
+   * @return the largest number of readers borrowed at once.
+   */
+  public int getPeakActive() {
+    return mPeakActive;
+  }
+
+  /**
+   * Get the fraction of the pool in use at the time of the snapshot.
+   *
+   * @return the fraction of the pool in use at the time of the snapshot.
+   */
+  public double getUtilization() {
+    return (double) mActive / mMaxActive;
+  }
+
+  /**
+   * Get the number of readers successfully borrowed.
+   *
+   * @return the number of readers successfully borrowed.
+   */
+  public long getBorrowCount() {
+    return mBorrowCount;
+  }
+
+  /**
+   * Get the mean time in nanoseconds spent waiting to borrow a reader.
+   *
+   * @return the mean time in nanoseconds spent waiting to borrow a reader.
+   */
+  public double getMeanWaitNanos() {
+    return (0 == mBorrowCount) ? 0.0 : (double) mTotalWaitNanos / mBorrowCount;
+  }
+
+  /**
+   * Get the longest time in nanoseconds spent waiting to borrow a reader.
+   *
+   * @return the longest time in nanoseconds spent waiting to borrow a reader.
+   */
+  public long getMaxWaitNanos() {
+    return mMaxWaitNanos;
+  }
+
+  /**
+   * Get the number of borrows which failed because no reader became available in time.
+   *
+   * @return the number of borrows which failed because no reader became available in time.
+   */
+  public long getExhaustedCount() {
+    return mExhaustedCount;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this)
+        .add("max_active", mMaxActive)
+        .add("active", mActive)
+        .add("peak_active", mPeakActive)
+        .add("borrow_count", mBorrowCount)
+        .add("mean_wait_ns", getMeanWaitNanos())
+        .add("max_wait_ns", mMaxWaitNanos)
+        .add("exhausted_count", mExhaustedCount)
+        .toString();
+  }
+}
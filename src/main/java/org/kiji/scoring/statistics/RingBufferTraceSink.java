@@ -0,0 +1,112 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import java.util.List;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+
+/** TraceSink which keeps the most recent spans in memory. */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class RingBufferTraceSink implements TraceSink {
+
+  /**
+   * Create a new RingBufferTraceSink.
+   *
+   * @param capacity the number of most recent spans to keep.
+   * @return a new RingBufferTraceSink.
+   */
+  public static RingBufferTraceSink create(
+      final int capacity
+  ) {
+    Preconditions.checkArgument(0 < capacity, "Capacity must be positive, found: %s", capacity);
+    return new RingBufferTraceSink(capacity);
+  }
+
+  // All mutable state is guarded by mSpans.
+  private final FresheningSpan[] mSpans;
+  private int mNextIndex = 0;
+  private long mEmittedCount = 0;
+
+  /**
+   * Private constructor. Use {@link #create(int)}.
+   *
+   * @param capacity the number of most recent spans to keep.
+   */
+  private RingBufferTraceSink(
+      final int capacity
+  ) {
+    mSpans = new FresheningSpan[capacity];
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void emit(
+      final FresheningSpan span
+  ) {
+    synchronized (mSpans) {
+      mSpans[mNextIndex] = span;
+      mNextIndex = (mNextIndex + 1) % mSpans.length;
+      mEmittedCount++;
+    }
+  }
+
+  /**
+   * Get the most recent spans, oldest first.
+   *
+   * @return the most recent spans, oldest first.
+   */
+  public List<FresheningSpan> getSpans() {
+    synchronized (mSpans) {
+      final int size = (int) Math.min(mEmittedCount, mSpans.length);
+      final List<FresheningSpan> spans = Lists.newArrayListWithCapacity(size);
+      final int oldest = (size < mSpans.length) ? 0 : mNextIndex;
+      for (int i = 0; i < size; i++) {
+        spans.add(mSpans[(oldest + i) % mSpans.length]);
+      }
+      return spans;
+    }
+  }
+
+  /**
+   * Get the total number of spans emitted to this sink, including those no longer kept.
+   *
+   * @return the total number of spans emitted to this sink.
+   */
+  public long getEmittedCount() {
+    synchronized (mSpans) {
+      return mEmittedCount;
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(RingBufferTraceSink.class)
+        .add("capacity", mSpans.length)
+        .add("emitted", getEmittedCount())
+        .toString();
+  }
+}
@@ -19,19 +19,24 @@
 
 package org.kiji.scoring.statistics;
 
-import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.base.Objects;
 
 import org.kiji.annotations.ApiAudience;
 import org.kiji.annotations.ApiStability;
 
-/** Calculates the mean of a growing set of values. */
+/**
+ * Calculates the mean of a growing set of values. Values may be added concurrently without
+ * locking. The total is accumulated as a double so that it cannot overflow however many values are
+ * added.
+ */
 @ApiAudience.Public
 @ApiStability.Experimental
 public final class RunningMean {
-  private long mCount = 0;
-  private BigInteger mTotal = BigInteger.ZERO;
+  private final AtomicLong mCount = new AtomicLong(0);
+  /** Bits of the double total of all values, updated by compare and set. */
+  private final AtomicLong mTotalBits = new AtomicLong(Double.doubleToRawLongBits(0.0));
 
   /**
    * Add a new value to this running mean.
@@ -41,8 +46,14 @@ public final class RunningMean {
   public void addValue(
       final long value
   ) {
-    mCount++;
-    mTotal = mTotal.add(BigInteger.valueOf(value));
+    while (true) {
+      final long bits = mTotalBits.get();
+      final double total = Double.longBitsToDouble(bits) + value;
+      if (mTotalBits.compareAndSet(bits, Double.doubleToRawLongBits(total))) {
+        break;
+      }
+    }
+    mCount.incrementAndGet();
   }
 
   /**
@@ -51,23 +62,23 @@ public final class RunningMean {
    * @return the number of values which have been averaged by this running mean.
    */
   public long getCount() {
-    return mCount;
+    return mCount.get();
   }
 
   /**
    * Get the current value of the mean.
    *
-   * @return the current value of the mean.
+   * @return the current value of the mean, or NaN if no values have been added.
    */
   public double getMean() {
-    return mTotal.divide(BigInteger.valueOf(mCount)).doubleValue();
+    return Double.longBitsToDouble(mTotalBits.get()) / mCount.get();
   }
 
   /** {@inheritDoc} */
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
-        .add("count", mCount)
+        .add("count", mCount.get())
         .add("mean", getMean())
         .toString();
   }
@@ -0,0 +1,46 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.annotations.Inheritance;
+
+/**
+ * Destination for the timing spans of freshening requests. A TraceSink may be registered with a
+ * FreshKijiTableReader using
+ * {@link org.kiji.scoring.FreshKijiTableReader.Builder#withTraceSink(TraceSink)}.
+ *
+ * <p>
+ *   Spans are emitted from the threads which run freshening requests as each stage finishes, so
+ *   implementations must be thread safe and should return quickly.
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+@Inheritance.Extensible
+public interface TraceSink {
+
+  /**
+   * Receive the timing of a finished stage of a freshening request.
+   *
+   * @param span the timing of a finished stage.
+   */
+  void emit(FresheningSpan span);
+}
@@ -0,0 +1,197 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.Gson;
+
+import org.kiji.annotations.ApiAudience;
+import org.kiji.annotations.ApiStability;
+import org.kiji.common.flags.Flag;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiURI;
+import org.kiji.schema.KijiURIException;
+import org.kiji.schema.tools.BaseTool;
+import org.kiji.schema.tools.KijiToolLauncher;
+import org.kiji.scoring.KijiFreshnessPolicy;
+import org.kiji.scoring.ScoreFunction;
+import org.kiji.scoring.batch.LocalBatchScorer;
+
+/**
+ * Command line tool for running ScoreFunctions across a table in the local process.
+ *
+ * <p>
+ *   Unlike {@link BatchScoreTool}, this tool does not launch a MapReduce job. The table is split by
+ *   its region boundaries and regions are scored concurrently by a configurable number of threads.
+ *   See {@link LocalBatchScorer} for details.
+ * </p>
+ *
+ * <p>
+ *   Example usage:
+ *   <pre>
+ *     kiji local-batch-score --target=kiji://.env/default/table/derived:recommendations \
+ *         --score-function-class=com.mycompany.scoring.ScoreFunction \
+ *         --policy-class=com.mycompany.scoring.Policy \
+ *         --parameters='{"key":"value"}' \
+ *         --num-threads=16 \
+ *         --checkpoint-file=/tmp/recommendations.checkpoint
+ *   </pre>
+ * </p>
+ */
+@ApiAudience.Public
+@ApiStability.Experimental
+public final class LocalBatchScoreTool extends BaseTool {
+  private static final Gson GSON = new Gson();
+
+  @Flag(name="target", usage="KijiURI of the column to which scores will be written. The schema "
+      + "of this column should be compatible with the schema of values returned by the "
+      + "ScoreFunction.")
+  private String mTargetFlag = null;
+
+  @Flag(name="score-function-class",
+      usage="Fully qualified class name of the ScoreFunction to run.")
+  private String mScoreFunctionClassFlag = null;
+
+  @Flag(name="policy-class", usage="Fully qualified class name of a KijiFreshnessPolicy. If "
+      + "specified, only rows which the policy considers stale will be scored.")
+  private String mPolicyClassFlag = null;
+
+  @Flag(name="parameters", usage="JSON encoded map of string-string parameters which will be "
+      + "available to the ScoreFunction and KijiFreshnessPolicy.")
+  private String mParametersFlag = null;
+
+  @Flag(name="num-threads", usage="Positive integer number of regions to score concurrently.")
+  private int mNumThreadsFlag = 1;
+
+  @Flag(name="checkpoint-file", usage="Local file in which to record completed regions. Regions "
+      + "already recorded in this file will be skipped.")
+  private String mCheckpointFileFlag = null;
+
+  @Flag(name="reporting-interval", usage="Time in milliseconds between progress reports. 0 "
+      + "disables progress reports.")
+  private long mReportingIntervalFlag = 10000;
+
+  private KijiURI mURI = null;
+  private Kiji mKiji = null;
+  private KijiTable mTable = null;
+
+  /** {@inheritDoc} */
+  @Override
+  public String getName() {
+    return "local-batch-score";
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getDescription() {
+    return "Run a ScoreFunction across a table in the local process.";
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public String getCategory() {
+    return "Data";
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected void validateFlags() throws Exception {
+    super.validateFlags();
+    if (null == mTargetFlag) {
+      throw new ToolError(
+          "--target is required. Please specify the KijiURI of the column to which to write.");
+    }
+    try {
+      mURI = KijiURI.newBuilder(mTargetFlag).build();
+    } catch (KijiURIException kurie) {
+      throw new ToolError(kurie.getMessage());
+    }
+    if (null == mURI.getTable() || 1 != mURI.getColumns().size()) {
+      throw new ToolError("--target URI must include a table and exactly one column.");
+    }
+    if (null == mScoreFunctionClassFlag) {
+      throw new ToolError("Specify a ScoreFunction class with --score-function-class");
+    }
+    if (1 > mNumThreadsFlag) {
+      throw new ToolError("--num-threads must be positive, found: " + mNumThreadsFlag);
+    }
+    if (0 > mReportingIntervalFlag) {
+      throw new ToolError(
+          "--reporting-interval must not be negative, found: " + mReportingIntervalFlag);
+    }
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  @SuppressWarnings("unchecked")
+  protected int run(final List<String> nonFlagArgs) throws Exception {
+    mKiji = Kiji.Factory.open(mURI);
+    mTable = mKiji.openTable(mURI.getTable());
+    final KijiColumnName attachedColumn = mURI.getColumns().get(0);
+    final LocalBatchScorer.Builder builder = LocalBatchScorer.Builder.create()
+        .withTable(mTable)
+        .withAttachedColumn(attachedColumn)
+        .withScoreFunctionClass(
+            (Class<? extends ScoreFunction<?>>) Class.forName(mScoreFunctionClassFlag))
+        .withNumThreads(mNumThreadsFlag)
+        .withReportingInterval(mReportingIntervalFlag)
+        .withReportStream(getPrintStream());
+    if (null != mPolicyClassFlag) {
+      builder.withFreshnessPolicyClass(
+          Class.forName(mPolicyClassFlag).asSubclass(KijiFreshnessPolicy.class));
+    }
+    if (null != mParametersFlag) {
+      builder.withParameters(GSON.fromJson(mParametersFlag, Map.class));
+    }
+    if (null != mCheckpointFileFlag) {
+      builder.withCheckpointFile(new File(mCheckpointFileFlag));
+    }
+    final LocalBatchScorer.Progress progress = builder.build().run();
+    getPrintStream().printf("ScoreFunction %s for column %s completed successfully: %s%n",
+        mScoreFunctionClassFlag, attachedColumn, progress);
+    return BaseTool.SUCCESS;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected void cleanup() throws IOException {
+    if (null != mTable) {
+      mTable.release();
+    }
+    if (null != mKiji) {
+      mKiji.release();
+    }
+  }
+
+  /**
+   * Program entry point.
+   *
+   * @param args command-line arguments.
+   * @throws Exception if there is an error.
+   */
+  public static void main(String[] args) throws Exception {
+    System.exit(new KijiToolLauncher().run(new LocalBatchScoreTool(), args));
+  }
+}
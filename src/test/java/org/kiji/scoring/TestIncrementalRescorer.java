@@ -0,0 +1,288 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.KijiTableWriter;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.avro.ParameterDescription;
+import org.kiji.scoring.impl.TestInternalFreshKijiTableReader.TestCopyScoreFunction;
+import org.kiji.scoring.lib.InMemoryRowChangeSource;
+import org.kiji.scoring.lib.NeverFreshen;
+
+public class TestIncrementalRescorer extends KijiClientTest {
+  private static final String TABLE_NAME = "row_data_test_table";
+  private static final KijiColumnName FAMILY_QUAL0 = KijiColumnName.create("family", "qual0");
+  private static final KijiColumnName FAMILY_QUAL1 = KijiColumnName.create("family", "qual1");
+  private static final KijiColumnName FAMILY_QUAL2 = KijiColumnName.create("family", "qual2");
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+  private static final Map<String, ParameterDescription> EMPTY_DESCRIPTIONS =
+      Collections.emptyMap();
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private KijiTableReader mReader;
+  private InMemoryRowChangeSource mSource;
+  private IncrementalRescorer mRescorer;
+
+  @Before
+  public void setupTestIncrementalRescorer() throws IOException {
+    mKiji = new InstanceBuilder(getKiji())
+        .withTable(KijiTableLayouts.getLayout(KijiTableLayouts.ROW_DATA_TEST))
+            .withRow("foo")
+                .withFamily("family")
+                    .withQualifier("qual0")
+                        .withValue(5L, "foo-val")
+                    .withQualifier("qual1")
+                        .withValue(5L, "foo-val")
+        .build();
+    mTable = mKiji.openTable(TABLE_NAME);
+    mReader = mTable.openTableReader();
+
+    // The policy is never consulted; a changed input always causes a rescore.
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL1,
+          new NeverFreshen(),
+          new TestCopyScoreFunction(),
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    mSource = InMemoryRowChangeSource.create();
+    mRescorer = IncrementalRescorer.Builder.create()
+        .withTable(mTable)
+        .withRowChangeSource(mSource)
+        .withBatchWindow(10)
+        .build();
+  }
+
+  @After
+  public void cleanupTestIncrementalRescorer() throws IOException {
+    mRescorer.close();
+    mSource.close();
+    mReader.close();
+    mTable.release();
+  }
+
+  private String getQual1(
+      final EntityId eid
+  ) throws IOException {
+    return mReader.get(eid, KijiDataRequest.create("family", "qual1"))
+        .getMostRecentValue("family", "qual1").toString();
+  }
+
+  @Test
+  public void testRescoreChangedInput() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiTableWriter writer = mTable.openTableWriter();
+    try {
+      writer.put(eid, "family", "qual0", "changed");
+    } finally {
+      writer.close();
+    }
+    mSource.add(RowChange.create(eid, FAMILY_QUAL0)).add(RowChange.create(eid, FAMILY_QUAL0));
+
+    assertEquals(1, mRescorer.processBatch());
+    assertEquals("copy-changed", getQual1(eid));
+    final CounterManager counters = mRescorer.getCounterManager();
+    assertEquals(2, counters.getCounterValue(RescoreCounter.CHANGES_RECEIVED).longValue());
+    assertEquals(1, counters.getCounterValue(RescoreCounter.CHANGES_DEDUPLICATED).longValue());
+    assertEquals(1, counters.getCounterValue(RescoreCounter.SCORES_WRITTEN).longValue());
+  }
+
+  @Test
+  public void testLoopSurvivesFailedBatch() throws Exception {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiTableWriter writer = mTable.openTableWriter();
+    try {
+      writer.put(eid, "family", "qual0", "changed");
+    } finally {
+      writer.close();
+    }
+    // A source whose first poll fails with an unchecked exception.
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    final RowChangeSource failingSource = new RowChangeSource() {
+      @Override
+      public List<RowChange> poll(
+          final int maxChanges,
+          final long timeout,
+          final TimeUnit unit
+      ) throws IOException {
+        if (failed.compareAndSet(false, true)) {
+          throw new IllegalStateException("poll failed");
+        }
+        return mSource.poll(maxChanges, timeout, unit);
+      }
+
+      @Override
+      public void commit() throws IOException {
+        mSource.commit();
+      }
+
+      @Override
+      public void close() throws IOException {
+        mSource.close();
+      }
+    };
+    final IncrementalRescorer rescorer = IncrementalRescorer.Builder.create()
+        .withTable(mTable)
+        .withRowChangeSource(failingSource)
+        .withBatchWindow(10)
+        .build()
+        .start();
+    try {
+      mSource.add(RowChange.create(eid, FAMILY_QUAL0));
+      final long deadline = System.currentTimeMillis() + 5000;
+      while (!"copy-changed".equals(getQual1(eid)) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals("copy-changed", getQual1(eid));
+      assertTrue(rescorer.isRunning());
+      assertTrue(rescorer.getLastFailure() instanceof IllegalStateException);
+      assertEquals(1, rescorer.getCounterManager()
+          .getCounterValue(RescoreCounter.BATCH_FAILED).longValue());
+    } finally {
+      rescorer.close();
+    }
+  }
+
+  /**
+   * Wrap the test source so that acknowledgements are counted.
+   *
+   * @param commits incremented for each acknowledgement.
+   * @return a source which reads from the test source.
+   */
+  private RowChangeSource countingSource(
+      final AtomicInteger commits
+  ) {
+    return new RowChangeSource() {
+      @Override
+      public List<RowChange> poll(
+          final int maxChanges,
+          final long timeout,
+          final TimeUnit unit
+      ) throws IOException {
+        return mSource.poll(maxChanges, timeout, unit);
+      }
+
+      @Override
+      public void commit() throws IOException {
+        commits.incrementAndGet();
+        mSource.commit();
+      }
+
+      @Override
+      public void close() throws IOException {
+        mSource.close();
+      }
+    };
+  }
+
+  @Test
+  public void testRetryFailedRowBeforeAcknowledging() throws IOException {
+    final AtomicInteger commits = new AtomicInteger(0);
+    final IncrementalRescorer rescorer = IncrementalRescorer.Builder.create()
+        .withTable(mTable)
+        .withRowChangeSource(countingSource(commits))
+        .withBatchWindow(10)
+        .build();
+    try {
+      // Row bar has no qual0, so the copy ScoreFunction fails.
+      final EntityId eid = mTable.getEntityId("bar");
+      mSource.add(RowChange.create(eid, FAMILY_QUAL0));
+      assertEquals(0, rescorer.processBatch());
+      assertEquals(0, commits.get());
+      assertEquals(1, rescorer.getCounterManager()
+          .getCounterValue(RescoreCounter.FAILED).longValue());
+
+      final KijiTableWriter writer = mTable.openTableWriter();
+      try {
+        writer.put(eid, "family", "qual0", "bar-val");
+      } finally {
+        writer.close();
+      }
+      // The failed row is retried without a new change.
+      assertEquals(1, rescorer.processBatch());
+      assertEquals("copy-bar-val", getQual1(eid));
+      assertEquals(1, commits.get());
+    } finally {
+      rescorer.close();
+    }
+  }
+
+  @Test
+  public void testAcknowledgeFailedRows() throws IOException {
+    final AtomicInteger commits = new AtomicInteger(0);
+    final IncrementalRescorer rescorer = IncrementalRescorer.Builder.create()
+        .withTable(mTable)
+        .withRowChangeSource(countingSource(commits))
+        .withBatchWindow(10)
+        .withAcknowledgeFailedRows(true)
+        .build();
+    try {
+      mSource.add(RowChange.create(mTable.getEntityId("bar"), FAMILY_QUAL0));
+      assertEquals(0, rescorer.processBatch());
+      assertEquals(1, commits.get());
+      // The failed row is dropped.
+      assertEquals(0, rescorer.processBatch());
+      assertEquals(1, rescorer.getCounterManager()
+          .getCounterValue(RescoreCounter.FAILED).longValue());
+    } finally {
+      rescorer.close();
+    }
+  }
+
+  @Test
+  public void testIgnoreUnreadColumns() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    mSource.add(RowChange.create(eid, FAMILY_QUAL2)).add(RowChange.create(eid, FAMILY_QUAL1));
+
+    assertEquals(0, mRescorer.processBatch());
+    assertEquals("foo-val", getQual1(eid));
+  }
+}
@@ -265,6 +265,34 @@ public class TestKijiFreshnessManager {
     }
   }
 
+  @Test
+  public void testDependencyCycle() throws IOException {
+    // Input columns are derived from the data request of a setup ScoreFunction.
+    mFreshManager.registerFreshener("user", INFO_NAME, new NeverFreshen(), SCORE_FUNCTION,
+        EMPTY_PARAMS, EMPTY_DESCRIPTIONS, false, true);
+    assertEquals("info:name", mFreshManager.retrieveFreshenerRecord("user", INFO_NAME)
+        .getParameters().get(KijiFreshnessManager.INPUT_COLUMNS_KEY));
+
+    // A Freshener may read a column freshened by another Freshener.
+    final Map<String, String> readsName = Maps.newHashMap();
+    readsName.put(KijiFreshnessManager.INPUT_COLUMNS_KEY, "info:name");
+    mFreshManager.registerFreshener(
+        "user", INFO_EMAIL, POLICY, SCORE_FUNCTION, readsName, EMPTY_DESCRIPTIONS, false, false);
+
+    // But the two Fresheners may not read each other's columns.
+    final Map<String, String> readsEmail = Maps.newHashMap();
+    readsEmail.put(KijiFreshnessManager.INPUT_COLUMNS_KEY, "info:email");
+    try {
+      mFreshManager.registerFreshener(
+          "user", INFO_NAME, POLICY, SCORE_FUNCTION, readsEmail, EMPTY_DESCRIPTIONS, true, false);
+      fail("registerFreshener should have thrown FreshenerValidationException because of a "
+          + "dependency cycle.");
+    } catch (FreshenerValidationException fve) {
+      assertEquals(1, fve.getExceptions().size());
+      assertTrue(fve.getExceptions().containsKey(ValidationFailure.DEPENDENCY_CYCLE));
+    }
+  }
+
   @Test
   public void testVersionTooLow() throws IOException {
     final KijiFreshenerRecord record = KijiFreshenerRecord.newBuilder()
@@ -0,0 +1,63 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.kiji.schema.KijiColumnName;
+
+public class TestAdaptiveTimeouts {
+  private static final KijiColumnName COLUMN = KijiColumnName.create("family", "qualifier");
+  private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long FAST_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+  private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+  @Test
+  public void testBudgetAdaptsToLatency() {
+    final AdaptiveTimeouts timeouts = AdaptiveTimeouts.create(10, 0, 100);
+    assertEquals(TIMEOUT_NANOS, timeouts.getBudgetNanos(COLUMN, TIMEOUT_NANOS));
+    for (int i = 1; i < AdaptiveTimeouts.MIN_SAMPLES; i++) {
+      timeouts.record(COLUMN, FAST_NANOS);
+    }
+    // Too few samples to adapt.
+    assertEquals(TIMEOUT_NANOS, timeouts.getBudgetNanos(COLUMN, TIMEOUT_NANOS));
+    timeouts.record(COLUMN, FAST_NANOS);
+    assertEquals(FAST_NANOS + TimeUnit.MILLISECONDS.toNanos(10),
+        timeouts.getBudgetNanos(COLUMN, TIMEOUT_NANOS));
+    // The budget is capped by the request timeout.
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(7),
+        timeouts.getBudgetNanos(COLUMN, TimeUnit.MILLISECONDS.toNanos(7)));
+  }
+
+  @Test
+  public void testSkipAndRecover() {
+    final AdaptiveTimeouts timeouts = AdaptiveTimeouts.create(10, 3, 100);
+    timeouts.record(COLUMN, SLOW_NANOS);
+    timeouts.record(COLUMN, SLOW_NANOS);
+    assertEquals(TIMEOUT_NANOS, timeouts.getBudgetNanos(COLUMN, TIMEOUT_NANOS));
+    timeouts.record(COLUMN, SLOW_NANOS);
+    assertEquals(0, timeouts.getBudgetNanos(COLUMN, TIMEOUT_NANOS));
+    timeouts.record(COLUMN, FAST_NANOS);
+    assertEquals(TIMEOUT_NANOS, timeouts.getBudgetNanos(COLUMN, TIMEOUT_NANOS));
+  }
+}
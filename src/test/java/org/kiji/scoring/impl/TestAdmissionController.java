@@ -0,0 +1,88 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.AdmissionCounter;
+import org.kiji.scoring.CounterManager;
+
+public class TestAdmissionController {
+  private static final KijiColumnName QUAL0 = KijiColumnName.create("family", "qual0");
+  private static final KijiColumnName QUAL1 = KijiColumnName.create("family", "qual1");
+  private static final List<KijiColumnName> BOTH = Lists.newArrayList(QUAL0, QUAL1);
+
+  @Test
+  public void testRequestLimit() throws Exception {
+    final AdmissionController controller = AdmissionController.create(1, 0);
+    final CounterManager counters = MapCounterManager.create();
+    final AdmissionController.Admission admission = controller.tryAdmit(BOTH, counters);
+    assertNotNull(admission);
+    assertNull(controller.tryAdmit(BOTH, counters));
+    assertEquals(1, counters.getCounterValue(AdmissionCounter.READER_LIMIT_EXCEEDED).longValue());
+
+    // The request slot is released only once both Fresheners have finished.
+    admission.release(QUAL0);
+    assertNull(controller.tryAdmit(BOTH, counters));
+    admission.wrap(QUAL1, new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        return true;
+      }
+    }).call();
+    assertNotNull(controller.tryAdmit(BOTH, counters));
+  }
+
+  @Test
+  public void testFreshenerLimit() {
+    final AdmissionController controller = AdmissionController.create(0, 1);
+    final CounterManager counters = MapCounterManager.create();
+    final AdmissionController.Admission admission =
+        controller.tryAdmit(Lists.newArrayList(QUAL0), counters);
+    assertNotNull(admission);
+    // QUAL1 is free but QUAL0 is not, so a request for both is rejected without holding QUAL1.
+    assertNull(controller.tryAdmit(BOTH, counters));
+    assertEquals(
+        1, counters.getCounterValue(AdmissionCounter.FRESHENER_LIMIT_EXCEEDED).longValue());
+    assertNotNull(controller.tryAdmit(Lists.newArrayList(QUAL1), counters));
+    admission.release(QUAL0);
+    assertNotNull(controller.tryAdmit(Lists.newArrayList(QUAL0), counters));
+  }
+
+  @Test
+  public void testReleaseAll() {
+    final AdmissionController controller = AdmissionController.create(1, 1);
+    final CounterManager counters = MapCounterManager.create();
+    final AdmissionController.Admission admission = controller.tryAdmit(BOTH, counters);
+    assertNotNull(admission);
+    assertNull(controller.tryAdmit(BOTH, counters));
+    // A request which fails before starting its Fresheners releases every slot at once.
+    admission.releaseAll();
+    assertNotNull(controller.tryAdmit(BOTH, counters));
+  }
+}
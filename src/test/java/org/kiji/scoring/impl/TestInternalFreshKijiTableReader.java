@@ -21,14 +21,22 @@ package org.kiji.scoring.impl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
@@ -36,6 +44,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.apache.avro.Schema;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.After;
@@ -60,22 +69,35 @@ import org.kiji.schema.layout.ColumnReaderSpec;
 import org.kiji.schema.layout.KijiTableLayout;
 import org.kiji.schema.layout.KijiTableLayouts;
 import org.kiji.schema.util.InstanceBuilder;
+import org.kiji.scoring.AdmissionCounter;
 import org.kiji.scoring.CounterManager;
 import org.kiji.scoring.FreshKijiTableReader;
+import org.kiji.scoring.FreshKijiTableReader.Builder.OverloadPolicy;
 import org.kiji.scoring.FreshKijiTableReader.Builder.StatisticGatheringMode;
 import org.kiji.scoring.FreshKijiTableReader.FreshRequestOptions;
 import org.kiji.scoring.FreshenerContext;
 import org.kiji.scoring.FreshenerSetupContext;
 import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.KijiFreshnessManager.FreshenerValidationException;
 import org.kiji.scoring.KijiFreshnessPolicy;
+import org.kiji.scoring.PrefreshCounter;
+import org.kiji.scoring.RefreshCounter;
 import org.kiji.scoring.ScoreFunction;
+import org.kiji.scoring.WriteCounter;
 import org.kiji.scoring.avro.KijiFreshenerRecord;
 import org.kiji.scoring.avro.ParameterDescription;
 import org.kiji.scoring.lib.AlwaysFreshen;
 import org.kiji.scoring.lib.NeverFreshen;
 import org.kiji.scoring.lib.NewerThan;
+import org.kiji.scoring.lib.ShelfLife;
 import org.kiji.scoring.statistics.FreshKijiTableReaderStatistics;
 import org.kiji.scoring.statistics.FreshenerStatistics;
+import org.kiji.scoring.statistics.FresheningSpan;
+import org.kiji.scoring.statistics.FresheningStage;
+import org.kiji.scoring.statistics.JmxMetricsRegistry;
+import org.kiji.scoring.statistics.ReaderPoolStatistics;
+import org.kiji.scoring.statistics.RingBufferTraceSink;
+import org.kiji.scoring.statistics.RunningLogarithmicBin;
 
 /** Tests InternalFreshKijiTableReader. */
 public class TestInternalFreshKijiTableReader {
@@ -133,6 +155,18 @@ public class TestInternalFreshKijiTableReader {
     }
   }
 
+  public static final class TestCopyScoreFunction extends ScoreFunction<String> {
+    public KijiDataRequest getDataRequest(final FreshenerContext context) throws IOException {
+      return FAMILY_QUAL0_R;
+    }
+    public TimestampedValue<String> score(
+        final KijiRowData dataToScore, final FreshenerContext context
+    ) throws IOException {
+      return TimestampedValue.create(
+          "copy-" + dataToScore.getMostRecentValue("family", "qual0").toString());
+    }
+  }
+
   public static final class TestTimeoutScoreFunction extends ScoreFunction<String> {
     private long mSleepDuration;
     public TestTimeoutScoreFunction() {
@@ -467,21 +501,658 @@ public class TestInternalFreshKijiTableReader {
     builder.newColumnsDef().add("family", "qual2").add("family", "qual0");
     final KijiDataRequest completeRequest = builder.build();
 
-    // Create a KijiFreshnessManager and register some freshness policies.
+    // Create a KijiFreshnessManager and register some freshness policies.
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL2,
+          NEVER,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+    // Open a new reader to pull in the new Fresheners.
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(10000)
+        .build();
+    try {
+      // Get the old data for comparison
+      final List<KijiRowData> oldData =
+          mReader.bulkGet(Lists.newArrayList(eidFoo, eidBar), completeRequest);
+
+      // Run a request which should return fresh.  nothing should be written.
+      final List<KijiRowData> newData =
+          freshReader.bulkGet(Lists.newArrayList(eidFoo, eidBar), freshRequest);
+      assertEquals(
+          oldData.get(0).getMostRecentValue("family", "qual2"),
+          newData.get(0).getMostRecentValue("family", "qual2"));
+      assertEquals(
+          oldData.get(1).getMostRecentValue("family", "qual2"),
+          newData.get(1).getMostRecentValue("family", "qual2"));
+
+      // Run a request which should return stale.  data should be written.
+      final List<KijiRowData> newData2 =
+          freshReader.bulkGet(Lists.newArrayList(eidFoo, eidBar), staleRequest);
+      assertFalse(
+          oldData.get(0).getMostRecentValue("family", "qual0").equals(
+              newData2.get(0).getMostRecentValue("family", "qual0")));
+      assertEquals("new-val", newData2.get(0).getMostRecentValue("family", "qual0").toString());
+      assertFalse(
+          oldData.get(1).getMostRecentValue("family", "qual0").equals(
+              newData2.get(1).getMostRecentValue("family", "qual0")));
+      assertEquals("new-val", newData2.get(1).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testGetStaleTimeout() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    // Create a KijiFreshnessManager and register some freshness policies.
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_TIMEOUT_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(500)
+        .build();
+    try {
+      // The fresh reader should return stale data after a timeout.
+      assertEquals(
+          mReader.get(eid, request).getMostRecentValue("family", "qual0"),
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0"));
+
+      // Wait for the score function to finish then try again.
+      Thread.sleep(1000L);
+      assertEquals("new-val",
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testCancelOnTimeout() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_TIMEOUT_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(500)
+        .withCancelOnTimeout(true)
+        .build();
+    try {
+      final String staleValue =
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString();
+      assertEquals(staleValue,
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+
+      // The score function finishes after the request was cancelled, so its result is discarded.
+      Thread.sleep(1000L);
+      assertEquals(staleValue,
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testAdmissionControl() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_TIMEOUT_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(100)
+        .withAdmissionControl(1, 0, OverloadPolicy.RETURN_STALE)
+        .build();
+    try {
+      final String staleValue =
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString();
+      // The first request times out, but its Freshener keeps running and holds the only slot.
+      assertEquals(staleValue,
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      // The second request is shed and returns stale data without running its Freshener.
+      assertEquals(staleValue,
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(AdmissionCounter.READER_LIMIT_EXCEEDED).longValue());
+
+      // Once the first Freshener finishes its slot is released and its value is written.
+      Thread.sleep(1500L);
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testAdmissionControlInBackground() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_TIMEOUT_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(100)
+        .withAdmissionControl(1, 0, OverloadPolicy.FRESHEN_IN_BACKGROUND)
+        .build();
+    try {
+      final String staleValue =
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString();
+      // The first request times out, but its Freshener keeps running and holds the only slot.
+      assertEquals(staleValue,
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      // The second request is shed and queued as a background refresh rather than started.
+      assertEquals(staleValue,
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      final CounterManager counters = freshReader.getCounterManager();
+      assertEquals(
+          1, counters.getCounterValue(AdmissionCounter.FRESHENED_IN_BACKGROUND).longValue());
+      assertEquals(1, counters.getCounterValue(RefreshCounter.QUEUED).longValue());
+
+      Thread.sleep(1500L);
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testStaleWhileRevalidate() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .withStaleWhileRevalidate(true)
+        .build();
+    try {
+      final String staleValue =
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString();
+      // The request returns the current data immediately and refreshes in the background.
+      assertEquals(staleValue,
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(RefreshCounter.QUEUED).longValue());
+
+      Thread.sleep(500L);
+      assertEquals("new-val",
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+
+      // A request may opt out of the reader's default.
+      final FreshRequestOptions options =
+          FreshRequestOptions.Builder.create().withStaleWhileRevalidate(false).build();
+      assertEquals("new-val", freshReader.get(eid, request, options)
+          .getMostRecentValue("family", "qual0").toString());
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(RefreshCounter.QUEUED).longValue());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testStaleWhileRevalidateLimits() throws IOException, InterruptedException {
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_TIMEOUT_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(2000)
+        .withStaleWhileRevalidate(true)
+        .withBackgroundRefreshLimits(1, 0)
+        .build();
+    try {
+      freshReader.get(mTable.getEntityId("foo"), request);
+      // The first refresh leaves the queue immediately but remains pending while its Freshener
+      // runs, so a refresh of another row is dropped.
+      Thread.sleep(100L);
+      freshReader.get(mTable.getEntityId("bar"), request);
+      final CounterManager counters = freshReader.getCounterManager();
+      assertEquals(1, counters.getCounterValue(RefreshCounter.QUEUED).longValue());
+      assertEquals(1, counters.getCounterValue(RefreshCounter.DROPPED).longValue());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testFreshenerDependencies() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequestBuilder builder = KijiDataRequest.builder();
+    builder.newColumnsDef().add("family", "qual1").add("family", "qual0");
+    final KijiDataRequest request = builder.build();
+
+    // The Freshener attached to qual1 copies the value of qual0, which is also freshened.
+    final Map<String, String> readsQual0 = Maps.newHashMap();
+    readsQual0.put(KijiFreshnessManager.INPUT_COLUMNS_KEY, "family:qual0");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL1,
+          ALWAYS,
+          new TestCopyScoreFunction(),
+          readsQual0,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .build();
+    try {
+      // Without partial freshening the new value of qual0 is not written until the request
+      // finishes, so qual1 copies the value stored before the request.
+      final KijiRowData freshened = freshReader.get(eid, request);
+      assertEquals("new-val", freshened.getMostRecentValue("family", "qual0").toString());
+      assertEquals("copy-foo-val", freshened.getMostRecentValue("family", "qual1").toString());
+    } finally {
+      freshReader.close();
+    }
+
+    final KijiTableWriter writer = mTable.openTableWriter();
+    try {
+      writer.put(eid, "family", "qual0", "foo-val");
+    } finally {
+      writer.close();
+    }
+    final FreshKijiTableReader partialReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .withPartialFreshening(true)
+        .build();
+    try {
+      // With partial freshening qual1 is scored only after qual0 has been written, so it copies
+      // the new value.
+      final KijiRowData freshened = partialReader.get(eid, request);
+      assertEquals("new-val", freshened.getMostRecentValue("family", "qual0").toString());
+      assertEquals("copy-new-val", freshened.getMostRecentValue("family", "qual1").toString());
+    } finally {
+      partialReader.close();
+    }
+  }
+
+  @Test
+  public void testFreshenerDependenciesTimeout() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequestBuilder builder = KijiDataRequest.builder();
+    builder.newColumnsDef().add("family", "qual1").add("family", "qual0");
+    final KijiDataRequest request = builder.build();
+
+    // The Freshener attached to qual1 reads qual0 and times out.
+    final Map<String, String> readsQual0 = Maps.newHashMap();
+    readsQual0.put(KijiFreshnessManager.INPUT_COLUMNS_KEY, "family:qual0");
+    readsQual0.put("sleep_duration", "1000");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL1,
+          ALWAYS,
+          TEST_TIMEOUT_SCORE_FN,
+          readsQual0,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(500)
+        .build();
+    try {
+      final KijiRowData stale = freshReader.get(eid, request);
+      assertEquals("foo-val", stale.getMostRecentValue("family", "qual0").toString());
+      // The value of qual0 is buffered and not written until every Freshener of the request has
+      // finished.
+      assertEquals("foo-val",
+          mReader.get(eid, FAMILY_QUAL0_R).getMostRecentValue("family", "qual0").toString());
+
+      Thread.sleep(1000L);
+      final KijiRowData fresh = mReader.get(eid, request);
+      assertEquals("new-val", fresh.getMostRecentValue("family", "qual0").toString());
+      assertEquals("new-val", fresh.getMostRecentValue("family", "qual1").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testWriteOnlyOnChange() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final Map<String, String> writeOnlyOnChange = Maps.newHashMap();
+    writeOnlyOnChange.put(KijiFreshnessManager.WRITE_ONLY_ON_CHANGE_KEY, "true");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          writeOnlyOnChange,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .build();
+    try {
+      // The first score differs from the current value and is written.
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      final long writtenTimestamp =
+          mReader.get(eid, request).getMostRecentCell("family", "qual0").getTimestamp();
+
+      // The second score equals the current value and is not written.
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      assertEquals(writtenTimestamp,
+          mReader.get(eid, request).getMostRecentCell("family", "qual0").getTimestamp());
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(WriteCounter.WRITTEN).longValue());
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(WriteCounter.SUPPRESSED).longValue());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testWriteOnlyOnChangeWithShelfLife() throws Exception {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final Map<String, String> writeOnlyOnChange = Maps.newHashMap();
+    writeOnlyOnChange.put(KijiFreshnessManager.WRITE_ONLY_ON_CHANGE_KEY, "true");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      // A policy which judges freshness by cell timestamps may not write only on change.
+      try {
+        manager.registerFreshener(
+            TABLE_NAME,
+            FAMILY_QUAL0,
+            new ShelfLife(100L),
+            TEST_SCORE_FN,
+            writeOnlyOnChange,
+            EMPTY_DESCRIPTIONS,
+            false,
+            false);
+        fail("registerFreshener should have thrown FreshenerValidationException because "
+            + "ShelfLife may not write only on change.");
+      } catch (FreshenerValidationException fve) {
+        assertTrue(fve.getExceptions()
+            .containsKey(KijiFreshnessManager.ValidationFailure.WRITE_ONLY_ON_CHANGE_POLICY));
+      }
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          new ShelfLife(100L),
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .build();
+    try {
+      final FreshRequestOptions options = FreshRequestOptions.withParameters(writeOnlyOnChange);
+      assertEquals("new-val", freshReader.get(eid, request, options)
+          .getMostRecentValue("family", "qual0").toString());
+      final long writtenTimestamp =
+          mReader.get(eid, request).getMostRecentCell("family", "qual0").getTimestamp();
+
+      // Once the shelf life has passed, an unchanged score requested to write only on change is
+      // still written, so the cell is fresh again rather than stale on every later read.
+      Thread.sleep(200L);
+      assertEquals("new-val", freshReader.get(eid, request, options)
+          .getMostRecentValue("family", "qual0").toString());
+      assertTrue(writtenTimestamp
+          < mReader.get(eid, request).getMostRecentCell("family", "qual0").getTimestamp());
+      assertNull(freshReader.getCounterManager().getCounterValue(WriteCounter.SUPPRESSED));
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testPrefreshing() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          new ShelfLife(2000L),
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final KijiTableWriter writer = mTable.openTableWriter();
+    try {
+      writer.put(eid, "family", "qual0", "fresh-val");
+    } finally {
+      writer.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .withPrefreshing(1900L, 10, 1, 0)
+        .build();
+    try {
+      // The value is fresh, so the request does not score but remembers the cell.
+      assertEquals("fresh-val", freshReader.get(eid, request)
+          .getMostRecentValue("family", "qual0").toString());
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(PrefreshCounter.TRACKED).longValue());
+
+      // The value is due to expire within the lead time, so it is rescored before it expires.
+      Thread.sleep(1000L);
+      assertEquals(1, freshReader.getCounterManager()
+          .getCounterValue(PrefreshCounter.STARTED).longValue());
+      assertEquals("new-val",
+          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testVirtualThreadExecutor() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .withVirtualThreadExecutor()
+        .build();
+    try {
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testReadBatching() throws Exception {
+    final EntityId eid = mTable.getEntityId("foo");
+    final EntityId eid2 = mTable.getEntityId("bar");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+
     final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
     try {
       manager.registerFreshener(
           TABLE_NAME,
           FAMILY_QUAL0,
-          ALWAYS,
-          TEST_SCORE_FN,
-          EMPTY_PARAMS,
-          EMPTY_DESCRIPTIONS,
-          false,
-          false);
-      manager.registerFreshener(
-          TABLE_NAME,
-          FAMILY_QUAL2,
           NEVER,
           TEST_SCORE_FN,
           EMPTY_PARAMS,
@@ -491,54 +1162,70 @@ public class TestInternalFreshKijiTableReader {
     } finally {
       manager.close();
     }
-    // Open a new reader to pull in the new Fresheners.
+
     final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
         .withTable(mTable)
-        .withTimeout(10000)
+        .withTimeout(1000)
+        .withReadBatching(1000L, 2)
         .build();
     try {
-      // Get the old data for comparison
-      final List<KijiRowData> oldData =
-          mReader.bulkGet(Lists.newArrayList(eidFoo, eidBar), completeRequest);
+      // Concurrent reads of both rows are served by one batch, each with its own row.
+      final List<KijiRowData> results =
+          freshReader.bulkGetAsync(Lists.newArrayList(eid, eid2), request).get();
+      assertEquals("foo-val", results.get(0).getMostRecentValue("family", "qual0").toString());
+      assertEquals("bar-val", results.get(1).getMostRecentValue("family", "qual0").toString());
+      // A lone read is served once its batch has lingered.
+      assertEquals("foo-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+    } finally {
+      freshReader.close();
+    }
+  }
 
-      // Run a request which should return fresh.  nothing should be written.
-      final List<KijiRowData> newData =
-          freshReader.bulkGet(Lists.newArrayList(eidFoo, eidBar), freshRequest);
-      assertEquals(
-          oldData.get(0).getMostRecentValue("family", "qual2"),
-          newData.get(0).getMostRecentValue("family", "qual2"));
-      assertEquals(
-          oldData.get(1).getMostRecentValue("family", "qual2"),
-          newData.get(1).getMostRecentValue("family", "qual2"));
+  @Test
+  public void testCloseReadsOpenBatches() throws Exception {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
 
-      // Run a request which should return stale.  data should be written.
-      final List<KijiRowData> newData2 =
-          freshReader.bulkGet(Lists.newArrayList(eidFoo, eidBar), staleRequest);
-      assertFalse(
-          oldData.get(0).getMostRecentValue("family", "qual0").equals(
-              newData2.get(0).getMostRecentValue("family", "qual0")));
-      assertEquals("new-val", newData2.get(0).getMostRecentValue("family", "qual0").toString());
-      assertFalse(
-          oldData.get(1).getMostRecentValue("family", "qual0").equals(
-              newData2.get(1).getMostRecentValue("family", "qual0")));
-      assertEquals("new-val", newData2.get(1).getMostRecentValue("family", "qual0").toString());
+    // No Fresheners are attached, so the read goes straight to a batch which lingers for 10s.
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(1000)
+        .withReadBatching(10000000L, 100)
+        .build();
+    final ListenableFuture<KijiRowData> future;
+    try {
+      future = freshReader.getAsync(eid, request);
     } finally {
       freshReader.close();
     }
+    // The open batch is read before the reader pool is closed.
+    assertEquals("foo-val",
+        future.get(1, TimeUnit.SECONDS).getMostRecentValue("family", "qual0").toString());
   }
 
   @Test
-  public void testGetStaleTimeout() throws IOException, InterruptedException {
+  public void testGetAsync() throws Exception {
     final EntityId eid = mTable.getEntityId("foo");
+    final EntityId eid2 = mTable.getEntityId("bar");
     final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+    final KijiDataRequest request2 = KijiDataRequest.create("family", "qual1");
 
-    // Create a KijiFreshnessManager and register some freshness policies.
     final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
     try {
       manager.registerFreshener(
           TABLE_NAME,
           FAMILY_QUAL0,
           ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL1,
+          ALWAYS,
           TEST_TIMEOUT_SCORE_FN,
           EMPTY_PARAMS,
           EMPTY_DESCRIPTIONS,
@@ -550,18 +1237,27 @@ public class TestInternalFreshKijiTableReader {
 
     final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
         .withTable(mTable)
-        .withTimeout(500)
+        .withTimeout(100)
         .build();
     try {
-      // The fresh reader should return stale data after a timeout.
-      assertEquals(
-          mReader.get(eid, request).getMostRecentValue("family", "qual0"),
-          freshReader.get(eid, request).getMostRecentValue("family", "qual0"));
+      // A Freshener which finishes on time completes the future with fresh data.
+      assertEquals("new-val", freshReader.getAsync(eid, request).get()
+          .getMostRecentValue("family", "qual0").toString());
 
-      // Wait for the score function to finish then try again.
-      Thread.sleep(1000L);
-      assertEquals("new-val",
-          mReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      // A Freshener which does not finish on time completes the future with stale data.
+      final String staleValue =
+          mReader.get(eid, request2).getMostRecentValue("family", "qual1").toString();
+      final long startTime = System.currentTimeMillis();
+      final ListenableFuture<KijiRowData> future = freshReader.getAsync(eid, request2);
+      assertEquals(staleValue, future.get().getMostRecentValue("family", "qual1").toString());
+      assertTrue(System.currentTimeMillis() - startTime < 1000L);
+
+      final List<KijiRowData> results =
+          freshReader.bulkGetAsync(Lists.newArrayList(eid, eid2), request).get();
+      assertEquals(2, results.size());
+      for (KijiRowData result : results) {
+        assertEquals("new-val", result.getMostRecentValue("family", "qual0").toString());
+      }
     } finally {
       freshReader.close();
     }
@@ -674,6 +1370,59 @@ public class TestInternalFreshKijiTableReader {
     }
   }
 
+  @Test
+  public void testSmallReaderPool() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family");
+
+    // Create a KijiFreshnessManager and register some Fresheners.
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL0,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+      manager.registerFreshener(
+          TABLE_NAME,
+          FAMILY_QUAL1,
+          ALWAYS,
+          TEST_SCORE_FN,
+          EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS,
+          false,
+          false);
+    } finally {
+      manager.close();
+    }
+
+    // A single pooled reader is enough because readers are only held for one read at a time.
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(10000)
+        .withReaderPoolSize(1)
+        .withReaderPoolMaxWait(10000)
+        .build();
+    try {
+      final KijiRowData data = freshReader.get(eid, request);
+      assertEquals("new-val", data.getMostRecentValue("family", "qual0").toString());
+      assertEquals("new-val", data.getMostRecentValue("family", "qual1").toString());
+
+      final ReaderPoolStatistics stats = freshReader.getReaderPoolStatistics();
+      assertEquals(1, stats.getMaxActive());
+      assertEquals(0, stats.getActive());
+      assertEquals(1, stats.getPeakActive());
+      assertTrue(stats.getBorrowCount() > 0);
+      assertEquals(0, stats.getExhaustedCount());
+    } finally {
+      freshReader.close();
+    }
+  }
+
   @Test
   public void testSpecifyTimeout() throws IOException, InterruptedException {
     final EntityId eid = mTable.getEntityId("foo");
@@ -1289,6 +2038,117 @@ public class TestInternalFreshKijiTableReader {
     }
   }
 
+  private static long sumBins(
+      final RunningLogarithmicBin bins
+  ) {
+    long sum = 0;
+    for (long count : bins.getBins().values()) {
+      sum += count;
+    }
+    return sum;
+  }
+
+  @Test
+  public void testTracing() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+    final KijiFreshenerRecord record;
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(TABLE_NAME, FAMILY_QUAL0, ALWAYS, TEST_SCORE_FN, EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS, false, false);
+      record = manager.retrieveFreshenerRecord(TABLE_NAME, FAMILY_QUAL0);
+    } finally {
+      manager.close();
+    }
+
+    final RingBufferTraceSink sink = RingBufferTraceSink.create(100);
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(2000)
+        .withStatisticsGathering(StatisticGatheringMode.ALL, 0)
+        .withTraceSink(sink)
+        .build();
+    try {
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      // Sleep to give the statistics gatherer time to gather.
+      Thread.sleep(2000);
+
+      final Set<FresheningStage> stages = EnumSet.noneOf(FresheningStage.class);
+      for (FresheningSpan span : sink.getSpans()) {
+        stages.add(span.getStage());
+        if (null != span.getAttachedColumn()) {
+          assertEquals(FAMILY_QUAL0, span.getAttachedColumn());
+          assertEquals(record, span.getFreshenerRecord());
+        }
+      }
+      assertEquals(EnumSet.of(
+          FresheningStage.CLIENT_READ,
+          FresheningStage.POLICY_READ,
+          FresheningStage.IS_FRESH,
+          FresheningStage.SCORE_READ,
+          FresheningStage.SCORE,
+          FresheningStage.FLUSH,
+          FresheningStage.FINAL_READ), stages);
+
+      final FreshKijiTableReaderStatistics stats = freshReader.getStatistics();
+      final FreshenerStatistics freshenerStatistics =
+          stats.getAggregatedFreshenerStatistics().get(record);
+      assertEquals(1,
+          sumBins(freshenerStatistics.getStageDurationBins().get(FresheningStage.SCORE)));
+      assertEquals(0,
+          sumBins(freshenerStatistics.getStageDurationBins().get(FresheningStage.FINAL_READ)));
+      assertEquals(1,
+          sumBins(stats.getRequestStageDurationBins().get(FresheningStage.FINAL_READ)));
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testMetricsRegistry() throws Exception {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(TABLE_NAME, FAMILY_QUAL0, ALWAYS, TEST_SCORE_FN, EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS, false, false);
+    } finally {
+      manager.close();
+    }
+
+    final MBeanServer server = MBeanServerFactory.newMBeanServer();
+    final JmxMetricsRegistry registry = JmxMetricsRegistry.create(server, "test");
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(2000)
+        .withMetricsRegistry(registry)
+        .build();
+    try {
+      assertEquals("new-val",
+          freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+
+      final Map<String, ObjectName> names = Maps.newHashMap();
+      for (ObjectName name : server.queryNames(new ObjectName("test:*"), null)) {
+        final String metric = ObjectName.unquote(name.getKeyProperty("name"));
+        names.put(metric.substring(metric.indexOf('.', TABLE_NAME.length() + 1) + 1), name);
+      }
+      assertEquals(1L, server.getAttribute(names.get("requests"), "Count"));
+      assertEquals(0L, server.getAttribute(names.get("timeouts"), "Count"));
+      assertEquals(1L, server.getAttribute(names.get("request_latency_ns"), "Count"));
+      assertEquals(1L, server.getAttribute(names.get("stage.score_ns"), "Count"));
+      assertEquals(1.0, server.getAttribute(names.get("stale_ratio"), "Value"));
+      assertEquals(1L, server.getAttribute(names.get("freshener.family:qual0.runs"), "Count"));
+      assertEquals(1L, server.getAttribute(names.get("freshener.family:qual0.stale"), "Count"));
+      assertEquals(1L,
+          server.getAttribute(names.get("freshener.family:qual0.stage.flush_ns"), "Count"));
+    } finally {
+      freshReader.close();
+    }
+    assertTrue(server.queryNames(new ObjectName("test:*"), null).isEmpty());
+  }
+
   @Test
   public void testStatistics() throws IOException, InterruptedException {
     final EntityId eid = mTable.getEntityId("foo");
@@ -1346,6 +2206,100 @@ public class TestInternalFreshKijiTableReader {
     }
   }
 
+  @Test
+  public void testAdaptiveTimeouts() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(TABLE_NAME, FAMILY_QUAL0, ALWAYS, TEST_SCORE_FN, EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS, false, false);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(2000)
+        .withAdaptiveTimeouts(1000, 3)
+        .build();
+    try {
+      // Run enough requests for the Freshener's budget to adapt to its latency.
+      for (int i = 0; i < AdaptiveTimeouts.MIN_SAMPLES + 1; i++) {
+        assertEquals("new-val",
+            freshReader.get(eid, request).getMostRecentValue("family", "qual0").toString());
+      }
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testAggregateOnlyStatistics() throws IOException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+    final KijiFreshenerRecord record;
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(TABLE_NAME, FAMILY_QUAL0, ALWAYS, TEST_SCORE_FN, EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS, false, false);
+      record = manager.retrieveFreshenerRecord(TABLE_NAME, FAMILY_QUAL0);
+    } finally {
+      manager.close();
+    }
+
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(2000)
+        .withStatisticsGathering(StatisticGatheringMode.AGGREGATE_ONLY, 0)
+        .build();
+    try {
+      freshReader.get(eid, request);
+      freshReader.get(eid, request);
+
+      // Aggregates are updated before the request returns, so there is no need to wait.
+      final FreshKijiTableReaderStatistics stats = freshReader.getStatistics();
+      assertTrue(stats.getRawFreshenerRunStatistics().isEmpty());
+      final FreshenerStatistics freshenerStatistics =
+          stats.getAggregatedFreshenerStatistics().get(record);
+      assertEquals(2, freshenerStatistics.getScoreFunctionRanPercent().getCount());
+      assertEquals(2, freshenerStatistics.getMeanFresheningDuration().getCount());
+      assertEquals(2,
+          sumBins(freshenerStatistics.getStageDurationBins().get(FresheningStage.SCORE)));
+    } finally {
+      freshReader.close();
+    }
+  }
+
+  @Test
+  public void testSampledStatistics() throws IOException, InterruptedException {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("family", "qual0");
+    final KijiFreshnessManager manager = KijiFreshnessManager.create(mKiji);
+    try {
+      manager.registerFreshener(TABLE_NAME, FAMILY_QUAL0, ALWAYS, TEST_SCORE_FN, EMPTY_PARAMS,
+          EMPTY_DESCRIPTIONS, false, false);
+    } finally {
+      manager.close();
+    }
+
+    // A sample rate of 1 samples every request.
+    final FreshKijiTableReader freshReader = FreshKijiTableReader.Builder.create()
+        .withTable(mTable)
+        .withTimeout(2000)
+        .withStatisticsGathering(StatisticGatheringMode.SAMPLED, 0)
+        .withStatisticsSampleRate(1)
+        .build();
+    try {
+      freshReader.get(eid, request);
+      // Sleep to give the statistics gatherer time to gather.
+      Thread.sleep(2000);
+      assertEquals(1, freshReader.getStatistics().getRawFreshenerRunStatistics().size());
+    } finally {
+      freshReader.close();
+    }
+  }
+
   @Test
   public void testTimedOutStatistics() throws IOException, InterruptedException {
     final EntityId eid = mTable.getEntityId("foo");
@@ -0,0 +1,115 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import org.kiji.mapreduce.kvstore.KeyValueStore;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReader;
+import org.kiji.mapreduce.kvstore.KeyValueStoreReaderFactory;
+import org.kiji.mapreduce.kvstore.lib.InMemoryMapKeyValueStore;
+import org.kiji.scoring.CounterManager;
+import org.kiji.scoring.KijiFreshnessManager;
+import org.kiji.scoring.StoreCacheCounter;
+
+public class TestKeyValueStoreCaches {
+  private static final String STORE = "store";
+
+  private static KeyValueStoreReaderFactory createFactory() {
+    final Map<String, KeyValueStore<?, ?>> stores = Maps.newHashMap();
+    stores.put(STORE, InMemoryMapKeyValueStore.fromMap(ImmutableMap.of("key", "value")));
+    return KeyValueStoreReaderFactory.create(stores);
+  }
+
+  @Test
+  public void testCachedStore() throws IOException {
+    final CounterManager counters = MapCounterManager.create();
+    final KeyValueStoreReaderFactory factory = createFactory();
+    try {
+      final KeyValueStoreCaches caches = KeyValueStoreCaches.create(
+          factory,
+          ImmutableMap.of(KijiFreshnessManager.STORE_CACHE_MAX_SIZE_KEY_PREFIX + STORE, "10"),
+          counters);
+      final KeyValueStoreReader<String, String> reader = caches.openStore(STORE);
+      assertEquals("value", reader.get("key"));
+      assertEquals("value", reader.get("key"));
+      // Absent values are cached as well.
+      assertFalse(reader.containsKey("missing"));
+      assertNull(reader.get("missing"));
+      assertEquals(2, counters.getCounterValue(StoreCacheCounter.HIT).longValue());
+      assertEquals(2, counters.getCounterValue(StoreCacheCounter.MISS).longValue());
+      // All users of the store share the same cache.
+      assertSame(reader, caches.openStore(STORE));
+    } finally {
+      factory.close();
+    }
+  }
+
+  @Test
+  public void testCloseCachedStore() throws IOException {
+    final CounterManager counters = MapCounterManager.create();
+    final KeyValueStoreReaderFactory factory = createFactory();
+    try {
+      final KeyValueStoreCaches caches = KeyValueStoreCaches.create(
+          factory,
+          ImmutableMap.of(KijiFreshnessManager.STORE_CACHE_MAX_SIZE_KEY_PREFIX + STORE, "10"),
+          counters);
+      final KeyValueStoreReader<String, String> reader = caches.openStore(STORE);
+      assertEquals("value", reader.get("key"));
+      // Closing the reader at the end of a request leaves the shared cache and reader open.
+      reader.close();
+      assertTrue(reader.isOpen());
+      assertSame(reader, caches.openStore(STORE));
+      assertEquals("value", reader.get("key"));
+      assertEquals(1, counters.getCounterValue(StoreCacheCounter.HIT).longValue());
+      // Closing the caches releases the shared reader and its cache.
+      caches.close();
+      assertNotSame(reader, caches.openStore(STORE));
+    } finally {
+      factory.close();
+    }
+  }
+
+  @Test
+  public void testUncachedStore() throws IOException {
+    final CounterManager counters = MapCounterManager.create();
+    final KeyValueStoreReaderFactory factory = createFactory();
+    try {
+      final KeyValueStoreCaches caches = KeyValueStoreCaches.create(
+          factory, KijiFreshnessManager.EMPTY_PARAMS, counters);
+      final KeyValueStoreReader<String, String> reader = caches.openStore(STORE);
+      assertEquals("value", reader.get("key"));
+      assertNull(counters.getCounterValue(StoreCacheCounter.MISS));
+    } finally {
+      factory.close();
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.scoring.CounterManager;
+
+public class TestStripedCounterManager {
+  private static final Logger LOG = LoggerFactory.getLogger(TestStripedCounterManager.class);
+
+  private static enum TestCounter {
+    FOO, BAR
+  }
+
+  @Test
+  public void testEnumAndStringCountersAgree() {
+    final StripedCounterManager manager = StripedCounterManager.create();
+    assertNull(manager.getCounterValue(TestCounter.FOO));
+    manager.incrementCounter(TestCounter.FOO, 2);
+    manager.incrementCounter(TestCounter.class.getName(), TestCounter.FOO.name(), 3);
+    assertEquals(Long.valueOf(5), manager.getCounterValue(TestCounter.FOO));
+    assertEquals(Long.valueOf(5),
+        manager.getCounterValue(TestCounter.class.getName(), TestCounter.FOO.name()));
+    assertNull(manager.getCounterValue(TestCounter.BAR));
+  }
+
+  @Test
+  public void testSnapshots() {
+    final StripedCounterManager manager = StripedCounterManager.create();
+    manager.incrementCounter("group", "a", 1);
+    final Set<String> groups = manager.getGroups();
+    final Set<String> counters = manager.getCountersInGroup("group");
+    manager.incrementCounter("other", "b", 1);
+    manager.incrementCounter("group", "c", 1);
+    assertEquals(ImmutableSet.of("group"), groups);
+    assertEquals(ImmutableSet.of("a"), counters);
+    assertEquals(ImmutableSet.of("group", "other"), manager.getGroups());
+    assertEquals(ImmutableSet.of("a", "c"), manager.getCountersInGroup("group"));
+    assertEquals(ImmutableSet.of(), manager.getCountersInGroup("missing"));
+  }
+
+  @Test
+  public void testConcurrentIncrements() throws Exception {
+    final StripedCounterManager manager = StripedCounterManager.create();
+    incrementConcurrently(manager, 16, 10000);
+    assertEquals(Long.valueOf(16 * 10000), manager.getCounterValue(TestCounter.FOO));
+    assertEquals(Long.valueOf(16 * 10000), manager.getCounterValue("group", "name"));
+  }
+
+  /**
+   * Increment an enum counter and a string counter from many threads at once.
+   *
+   * @param manager CounterManager to increment.
+   * @param threads number of threads with which to increment.
+   * @param increments number of times each thread increments each counter.
+   * @return the time in nanoseconds it took for all threads to finish.
+   * @throws Exception in case of an error incrementing.
+   */
+  private static long incrementConcurrently(
+      final CounterManager manager,
+      final int threads,
+      final int increments
+  ) throws Exception {
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final List<Callable<Void>> tasks = Lists.newArrayList();
+      for (int i = 0; i < threads; i++) {
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int j = 0; j < increments; j++) {
+              manager.incrementCounter(TestCounter.FOO, 1);
+              manager.incrementCounter("group", "name", 1);
+            }
+            return null;
+          }
+        });
+      }
+      final long start = System.nanoTime();
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+      return System.nanoTime() - start;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  // Compares the striped counter manager to the map counter manager under contention.
+  //@Test
+  public void benchmark() throws Exception {
+    final int threads = 64;
+    final int increments = 100000;
+    // Warm up both implementations.
+    incrementConcurrently(MapCounterManager.create(), threads, increments);
+    incrementConcurrently(StripedCounterManager.create(), threads, increments);
+
+    final long mapNanos = incrementConcurrently(MapCounterManager.create(), threads, increments);
+    final long stripedNanos =
+        incrementConcurrently(StripedCounterManager.create(), threads, increments);
+    final double totalIncrements = 2.0 * threads * increments;
+    LOG.info("{} threads. map: {} increments/s. striped: {} increments/s.",
+        threads, totalIncrements * 1e9 / mapNanos, totalIncrements * 1e9 / stripedNanos);
+  }
+}
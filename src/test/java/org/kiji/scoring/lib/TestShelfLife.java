@@ -19,6 +19,7 @@
 
 package org.kiji.scoring.lib;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -118,4 +119,22 @@ public class TestShelfLife {
     policy.setup(contextMin);
     assertFalse(policy.isFresh(rowData, contextMin));
   }
+
+  @Test
+  public void testGetExpirationTime() throws Exception {
+    final EntityId eid = mTable.getEntityId("foo");
+    final KijiDataRequest request = KijiDataRequest.create("info", "name");
+    final KijiRowData rowData = mReader.get(eid, request);
+    final Map<String, String> parameters = Maps.newHashMap();
+    parameters.put(ShelfLife.SHELF_LIFE_KEY, "100");
+    final FreshenerContext context = InternalFreshenerContext.create(
+        KijiColumnName.create("info", "name"),
+        parameters,
+        NullCounterManager.get());
+    final ShelfLife policy = new ShelfLife();
+    policy.setup(context);
+
+    // The newest value was written at 5, so it is stale once it is more than 100 ms old.
+    assertEquals(106L, policy.getExpirationTime(rowData, context));
+  }
 }
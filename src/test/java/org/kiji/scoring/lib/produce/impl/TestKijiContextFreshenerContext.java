@@ -0,0 +1,112 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.produce.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.Test;
+
+import org.kiji.mapreduce.KijiContext;
+import org.kiji.schema.KijiColumnName;
+import org.kiji.scoring.impl.InternalFreshenerContext;
+
+public class TestKijiContextFreshenerContext {
+  private static final KijiColumnName FAMILY_QUAL0 = KijiColumnName.create("family", "qual0");
+
+  private static enum TestCounter {
+    ROWS
+  }
+
+  /** Records the counters incremented and the stores opened through a KijiContext. */
+  private static final class RecordingContext implements InvocationHandler {
+    private final Map<Enum<?>, Long> mCounters = Maps.newHashMap();
+    private final List<String> mStores = Lists.newArrayList();
+
+    private KijiContext asKijiContext() {
+      return (KijiContext) Proxy.newProxyInstance(
+          KijiContext.class.getClassLoader(), new Class<?>[] {KijiContext.class}, this);
+    }
+
+    @Override
+    public Object invoke(
+        final Object proxy,
+        final Method method,
+        final Object[] args
+    ) {
+      if ("incrementCounter".equals(method.getName())) {
+        final Long current = mCounters.get((Enum<?>) args[0]);
+        final long increment = (2 == args.length) ? (Long) args[1] : 1L;
+        mCounters.put((Enum<?>) args[0], ((null == current) ? 0L : current) + increment);
+        return null;
+      } else if ("getStore".equals(method.getName())) {
+        mStores.add((String) args[0]);
+        return null;
+      } else if ("equals".equals(method.getName())) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(method.getName())) {
+        return System.identityHashCode(proxy);
+      } else if ("toString".equals(method.getName())) {
+        return "RecordingContext";
+      }
+      throw new UnsupportedOperationException(method.getName());
+    }
+  }
+
+  @Test
+  public void testRebindFreshenerContext() throws Exception {
+    final KijiContextFreshenerContext context = KijiContextFreshenerContext.create(
+        InternalFreshenerContext.create(FAMILY_QUAL0, ImmutableMap.of("key", "value"), null));
+    final RecordingContext first = new RecordingContext();
+    final RecordingContext second = new RecordingContext();
+    final KijiContext firstContext = first.asKijiContext();
+    final KijiContext secondContext = second.asKijiContext();
+
+    assertSame(context, context.reset(firstContext));
+    context.getCounterManager().incrementCounter(TestCounter.ROWS, 1);
+    context.getStore("first-store");
+    // Rebinding to the same KijiContext keeps the same CounterManager.
+    final Object firstCounterManager = context.getCounterManager();
+    assertSame(firstCounterManager, context.reset(firstContext).getCounterManager());
+
+    // After rebinding, counters and stores go to the new KijiContext only.
+    context.reset(secondContext);
+    context.getCounterManager().incrementCounter(TestCounter.ROWS, 2);
+    context.getStore("second-store");
+    assertEquals(1L, first.mCounters.get(TestCounter.ROWS).longValue());
+    assertEquals(2L, second.mCounters.get(TestCounter.ROWS).longValue());
+    assertEquals(Lists.newArrayList("first-store"), first.mStores);
+    assertEquals(Lists.newArrayList("second-store"), second.mStores);
+
+    // Parameters and the attached column come from the Freshener, not the KijiContext.
+    assertEquals("value", context.getParameter("key"));
+    assertNull(context.getParameter("missing"));
+    assertEquals(FAMILY_QUAL0, context.getAttachedColumn());
+  }
+}
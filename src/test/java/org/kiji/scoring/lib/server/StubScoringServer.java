@@ -0,0 +1,305 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * In-process stand in for the ScoringServer. Serves a single model which returns a constant string
+ * score for the column family:qual0 and records how many requests and connections it has seen.
+ * Batch requests receive the same constant score for each requested column. Single score requests
+ * which accept avro/binary are answered in Avro binary encoding unless binary support is disabled.
+ */
+public final class StubScoringServer implements Closeable {
+
+  public static final String MODEL_ID = "org.kiji.test.model";
+  public static final String MODEL_PATH = "model";
+  public static final String SCORE = "scored";
+  public static final String SCORE_JSON = scoreJSON("family", "qual0");
+  private static final Schema SCORE_SCHEMA = Schema.create(Schema.Type.STRING);
+
+  private final HttpServer mServer;
+  private final ExecutorService mExecutor = Executors.newCachedThreadPool();
+  private final AtomicInteger mRequestCount = new AtomicInteger(0);
+  private final AtomicInteger mBatchCount = new AtomicInteger(0);
+  private final AtomicInteger mSchemaRequestCount = new AtomicInteger(0);
+  private volatile boolean mBinarySupported = true;
+  private final AtomicInteger mDelayedRequests = new AtomicInteger(0);
+  private volatile long mDelayMillis = 0;
+  private final Set<Integer> mClientPorts =
+      Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+
+  /**
+   * Write a response to the given exchange.
+   *
+   * @param exchange the exchange to which to respond.
+   * @param status HTTP status code of the response.
+   * @param body body of the response.
+   * @throws IOException in case of an error writing the response.
+   */
+  private static void respond(
+      final HttpExchange exchange,
+      final int status,
+      final String body
+  ) throws IOException {
+    final byte[] bytes = body.getBytes(Charsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length);
+    final OutputStream os = exchange.getResponseBody();
+    try {
+      os.write(bytes);
+    } finally {
+      os.close();
+    }
+  }
+
+  /**
+   * Build the JSON score response for the given column.
+   *
+   * @param family family of the scored column.
+   * @param qualifier qualifier of the scored column.
+   * @return the JSON score response for the given column.
+   */
+  private static String scoreJSON(
+      final String family,
+      final String qualifier
+  ) {
+    return String.format("{\"family\":\"%s\",\"qualifier\":\"%s\",\"timestamp\":5,"
+        + "\"value\":\"\\\"%s\\\"\",\"schema\":\"\\\"string\\\"\"}",
+        family, qualifier, SCORE);
+  }
+
+  /**
+   * Respond to the given exchange with the Avro binary encoded constant score.
+   *
+   * @param exchange the exchange to which to respond.
+   * @throws IOException in case of an error writing the response.
+   */
+  private static void respondBinary(
+      final HttpExchange exchange
+  ) throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(baos, null);
+    new GenericDatumWriter<Object>(SCORE_SCHEMA).write(SCORE, encoder);
+    encoder.flush();
+    final byte[] bytes = baos.toByteArray();
+    exchange.getResponseHeaders().set(
+        "Content-Type", ScoringServerClient.AVRO_BINARY_CONTENT_TYPE);
+    exchange.getResponseHeaders().set(ScoringServerClient.FAMILY_HEADER, "family");
+    exchange.getResponseHeaders().set(ScoringServerClient.QUALIFIER_HEADER, "qual0");
+    exchange.getResponseHeaders().set(ScoringServerClient.TIMESTAMP_HEADER, "5");
+    exchange.getResponseHeaders().set(ScoringServerClient.SCHEMA_FINGERPRINT_HEADER,
+        String.valueOf(SchemaNormalization.parsingFingerprint64(SCORE_SCHEMA)));
+    exchange.sendResponseHeaders(200, bytes.length);
+    final OutputStream os = exchange.getResponseBody();
+    try {
+      os.write(bytes);
+    } finally {
+      os.close();
+    }
+  }
+
+  /**
+   * Start a new StubScoringServer on an ephemeral port.
+   *
+   * @throws IOException in case of an error starting the server.
+   */
+  public StubScoringServer() throws IOException {
+    mServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    mServer.createContext("/admin/get", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        respond(exchange, 200, "{\"" + MODEL_ID + "\":\"" + MODEL_PATH + "\"}");
+      }
+    });
+    mServer.createContext("/" + MODEL_PATH, new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        mRequestCount.incrementAndGet();
+        mClientPorts.add(exchange.getRemoteAddress().getPort());
+        IOUtils.toString(exchange.getRequestBody());
+        maybeDelay();
+        final String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (mBinarySupported && null != accept
+            && accept.contains(ScoringServerClient.AVRO_BINARY_CONTENT_TYPE)) {
+          respondBinary(exchange);
+        } else {
+          respond(exchange, 200, SCORE_JSON);
+        }
+      }
+    });
+    mServer.createContext("/" + MODEL_PATH + "/batch", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        mBatchCount.incrementAndGet();
+        mClientPorts.add(exchange.getRemoteAddress().getPort());
+        final JsonArray entries = new JsonParser().parse(
+            IOUtils.toString(exchange.getRequestBody(), "UTF-8")).getAsJsonArray();
+        maybeDelay();
+        mRequestCount.addAndGet(entries.size());
+        final List<String> scores = Lists.newArrayList();
+        for (JsonElement entry : entries) {
+          final JsonObject object = entry.getAsJsonObject();
+          scores.add(scoreJSON(
+              object.get("family").getAsString(), object.get("qualifier").getAsString()));
+        }
+        respond(exchange, 200, "[" + Joiner.on(",").join(scores) + "]");
+      }
+    });
+    mServer.createContext("/" + MODEL_PATH + "/schema", new HttpHandler() {
+      @Override
+      public void handle(final HttpExchange exchange) throws IOException {
+        mSchemaRequestCount.incrementAndGet();
+        final String expected =
+            "fingerprint=" + SchemaNormalization.parsingFingerprint64(SCORE_SCHEMA);
+        if (expected.equals(exchange.getRequestURI().getQuery())) {
+          respond(exchange, 200, SCORE_SCHEMA.toString());
+        } else {
+          respond(exchange, 404, "unknown fingerprint");
+        }
+      }
+    });
+    mServer.setExecutor(mExecutor);
+    mServer.start();
+  }
+
+  /**
+   * Get the base URL of this server.
+   *
+   * @return the base URL of this server.
+   */
+  public String getBaseURL() {
+    return String.format("http://localhost:%d", mServer.getAddress().getPort());
+  }
+
+  /**
+   * Get the URL of the scoring servlet for the served model.
+   *
+   * @return the URL of the scoring servlet for the served model.
+   */
+  public String getModelURL() {
+    return getBaseURL() + "/" + MODEL_PATH;
+  }
+
+  /**
+   * Get the number of scoring requests this server has received.
+   *
+   * @return the number of scoring requests this server has received.
+   */
+  public int getRequestCount() {
+    return mRequestCount.get();
+  }
+
+  /**
+   * Get the number of batch requests this server has received.
+   *
+   * @return the number of batch requests this server has received.
+   */
+  public int getBatchCount() {
+    return mBatchCount.get();
+  }
+
+  /**
+   * Get the number of schema lookups this server has received.
+   *
+   * @return the number of schema lookups this server has received.
+   */
+  public int getSchemaRequestCount() {
+    return mSchemaRequestCount.get();
+  }
+
+  /**
+   * Set whether this server answers single score requests in Avro binary when asked to.
+   *
+   * @param binarySupported whether this server answers in Avro binary when asked to.
+   */
+  public void setBinarySupported(
+      final boolean binarySupported
+  ) {
+    mBinarySupported = binarySupported;
+  }
+
+  /** Sleep if the current request is one of the requests to delay. */
+  private void maybeDelay() {
+    if (0 <= mDelayedRequests.decrementAndGet()) {
+      try {
+        Thread.sleep(mDelayMillis);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Delay the responses to the next score or batch requests.
+   *
+   * @param count number of requests to delay.
+   * @param delayMillis time in milliseconds by which to delay each response.
+   */
+  public void delayNextRequests(
+      final int count,
+      final long delayMillis
+  ) {
+    mDelayMillis = delayMillis;
+    mDelayedRequests.set(count);
+  }
+
+  /**
+   * Get the number of distinct client connections over which scoring requests have arrived.
+   *
+   * @return the number of distinct client connections over which scoring requests have arrived.
+   */
+  public int getConnectionCount() {
+    return mClientPorts.size();
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public void close() {
+    mServer.stop(0);
+    mExecutor.shutdownNow();
+  }
+}
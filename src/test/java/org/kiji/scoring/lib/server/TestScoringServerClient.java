@@ -0,0 +1,322 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.KijiColumnName;
+import org.kiji.schema.KijiDataRequest;
+
+public class TestScoringServerClient {
+  private static final Logger LOG = LoggerFactory.getLogger(TestScoringServerClient.class);
+
+  private static final String EID = "['foo']";
+  private static final KijiDataRequest REQUEST = KijiDataRequest.create("family", "qual0");
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+
+  private StubScoringServer mServer;
+
+  @Before
+  public void setupTestScoringServerClient() throws IOException {
+    mServer = new StubScoringServer();
+  }
+
+  @After
+  public void cleanupTestScoringServerClient() {
+    mServer.close();
+  }
+
+  @Test
+  public void testScore() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    final String modelURL =
+        client.getModelBaseURL(mServer.getBaseURL(), StubScoringServer.MODEL_ID);
+    assertEquals(mServer.getModelURL(), modelURL);
+
+    final ScoringServerClient.Score score = client.score(modelURL, EID, REQUEST, EMPTY_PARAMS);
+    assertEquals(KijiColumnName.create("family", "qual0"), score.getColumn());
+    assertEquals(5L, score.getTimestamp());
+    assertEquals(StubScoringServer.SCORE, score.getValue().toString());
+  }
+
+  @Test
+  public void testConnectionReuse() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    for (int i = 0; i < 20; i++) {
+      client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+    }
+    assertEquals(20, mServer.getRequestCount());
+    // Sequential requests should all travel over the same kept-alive connection.
+    assertEquals(1, mServer.getConnectionCount());
+  }
+
+  @Test
+  public void testZeroConnectTimeoutWaitsForSlot() throws Exception {
+    // A connect timeout of 0 waits indefinitely for the only request slot.
+    final ScoringServerClient client = ScoringServerClient.create(1, 0, 5000);
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      mServer.delayNextRequests(1, 300);
+      final Future<ScoringServerClient.Score> slow =
+          executor.submit(new Callable<ScoringServerClient.Score>() {
+            @Override
+            public ScoringServerClient.Score call() throws Exception {
+              return client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+            }
+          });
+      Thread.sleep(100L);
+      assertEquals(StubScoringServer.SCORE,
+          client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS).getValue().toString());
+      assertEquals(StubScoringServer.SCORE, slow.get().getValue().toString());
+      assertEquals(2, mServer.getRequestCount());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testDeadlineWithZeroTimeouts() throws IOException {
+    // Timeouts of 0 wait indefinitely, but a propagated deadline still bounds the request.
+    final ScoringServerClient client = ScoringServerClient.create(10, 0, 0);
+    mServer.delayNextRequests(1, 2000);
+    final long start = System.nanoTime();
+    try {
+      client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS, 200L);
+      fail("Expected a read timeout.");
+    } catch (IOException ioe) {
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1500));
+    }
+  }
+
+  @Test
+  public void testCaches() {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    assertSame(client.encodeClientRequest(REQUEST),
+        client.encodeClientRequest(KijiDataRequest.create("family", "qual0")));
+    assertSame(client.parseSchema("\"string\""), client.parseSchema("\"string\""));
+  }
+
+  @Test
+  public void testBinaryScore() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(
+        10, 1000, 1000, ScoringServerClient.ResponseFormat.AVRO_BINARY);
+    for (int i = 0; i < 3; i++) {
+      final ScoringServerClient.Score score =
+          client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+      assertEquals(KijiColumnName.create("family", "qual0"), score.getColumn());
+      assertEquals(5L, score.getTimestamp());
+      assertEquals(StubScoringServer.SCORE, score.getValue());
+    }
+    // The writer schema is fetched once and then resolved from the cache by fingerprint.
+    assertEquals(1, mServer.getSchemaRequestCount());
+  }
+
+  @Test
+  public void testBinaryFallsBackToJSON() throws IOException {
+    mServer.setBinarySupported(false);
+    final ScoringServerClient client = ScoringServerClient.create(
+        10, 1000, 1000, ScoringServerClient.ResponseFormat.AVRO_BINARY);
+    final ScoringServerClient.Score score =
+        client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+    assertEquals(StubScoringServer.SCORE, score.getValue().toString());
+    assertEquals(0, mServer.getSchemaRequestCount());
+  }
+
+  @Test
+  public void testScoreBatch() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    final List<ScoringServerClient.ScoreRequest> requests = Lists.newArrayList();
+    for (int i = 0; i < 3; i++) {
+      requests.add(new ScoringServerClient.ScoreRequest(
+          EID, KijiColumnName.create("map", "qual" + i), REQUEST, EMPTY_PARAMS));
+    }
+    final List<ScoringServerClient.Score> scores =
+        client.scoreBatch(mServer.getModelURL(), requests);
+    assertEquals(1, mServer.getBatchCount());
+    assertEquals(3, scores.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(KijiColumnName.create("map", "qual" + i), scores.get(i).getColumn());
+      assertEquals(StubScoringServer.SCORE, scores.get(i).getValue().toString());
+    }
+  }
+
+  @Test
+  public void testBatcherFillsBatches() throws Exception {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    // Linger long enough that batches are only sent when full.
+    final ScoringServerBatcher batcher =
+        ScoringServerBatcher.create(client, mServer.getModelURL(), 4, 60000);
+    final ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      final List<Future<ScoringServerClient.Score>> futures = Lists.newArrayList();
+      for (int i = 0; i < 8; i++) {
+        final KijiColumnName column = KijiColumnName.create("map", "qual" + i);
+        futures.add(executor.submit(new Callable<ScoringServerClient.Score>() {
+          @Override
+          public ScoringServerClient.Score call() throws Exception {
+            return batcher.score(
+                new ScoringServerClient.ScoreRequest(EID, column, REQUEST, EMPTY_PARAMS));
+          }
+        }));
+      }
+      for (int i = 0; i < 8; i++) {
+        assertEquals(KijiColumnName.create("map", "qual" + i), futures.get(i).get().getColumn());
+      }
+      assertEquals(2, mServer.getBatchCount());
+      assertEquals(8, mServer.getRequestCount());
+    } finally {
+      executor.shutdown();
+      batcher.close();
+    }
+  }
+
+  @Test
+  public void testBatcherLinger() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    final ScoringServerBatcher batcher =
+        ScoringServerBatcher.create(client, mServer.getModelURL(), 100, 10);
+    try {
+      // A lone request is sent once the linger time expires.
+      final ScoringServerClient.Score score = batcher.score(new ScoringServerClient.ScoreRequest(
+          EID, KijiColumnName.create("family", "qual0"), REQUEST, EMPTY_PARAMS));
+      assertEquals(StubScoringServer.SCORE, score.getValue().toString());
+      assertEquals(1, mServer.getBatchCount());
+    } finally {
+      batcher.close();
+    }
+  }
+
+  @Test
+  public void testBatcherLingerSendsConcurrently() throws Exception {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 5000);
+    final ScoringServerBatcher batcher =
+        ScoringServerBatcher.create(client, mServer.getModelURL(), 100, 10);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      mServer.delayNextRequests(1, 2000);
+      final Future<ScoringServerClient.Score> slow =
+          executor.submit(new Callable<ScoringServerClient.Score>() {
+            @Override
+            public ScoringServerClient.Score call() throws Exception {
+              return batcher.score(new ScoringServerClient.ScoreRequest(
+                  EID, KijiColumnName.create("family", "qual0"), REQUEST, EMPTY_PARAMS));
+            }
+          });
+      Thread.sleep(100L);
+      // A later lingering batch is not held up by the slow response to the first.
+      final long start = System.nanoTime();
+      batcher.score(new ScoringServerClient.ScoreRequest(
+          EID, KijiColumnName.create("family", "qual1"), REQUEST, EMPTY_PARAMS));
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+      assertFalse(slow.isDone());
+      assertEquals(KijiColumnName.create("family", "qual0"), slow.get().getColumn());
+    } finally {
+      executor.shutdown();
+      batcher.close();
+    }
+  }
+
+  @Test
+  public void testBatcherTimeout() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    // Linger longer than the score is willing to wait.
+    final ScoringServerBatcher batcher =
+        ScoringServerBatcher.create(client, mServer.getModelURL(), 100, 60000);
+    try {
+      final long start = System.nanoTime();
+      try {
+        batcher.score(new ScoringServerClient.ScoreRequest(
+            EID, KijiColumnName.create("family", "qual0"), REQUEST, EMPTY_PARAMS), 100L);
+        fail("Batched score should have timed out.");
+      } catch (IOException ioe) {
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+      }
+    } finally {
+      batcher.close();
+    }
+    // The timed out request was removed from its batch, so closing sends nothing.
+    assertEquals(0, mServer.getBatchCount());
+  }
+
+  @Test
+  public void testBatcherClosed() throws IOException {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    final ScoringServerBatcher batcher =
+        ScoringServerBatcher.create(client, mServer.getModelURL(), 100, 10);
+    batcher.close();
+    try {
+      batcher.score(new ScoringServerClient.ScoreRequest(
+          EID, KijiColumnName.create("family", "qual0"), REQUEST, EMPTY_PARAMS));
+      fail("Score after close should fail.");
+    } catch (IllegalStateException ise) {
+      assertEquals("ScoringServerBatcher is closed.", ise.getMessage());
+    }
+  }
+
+  // Compares the pooled client to opening a new stream for every request.
+  //@Test
+  public void benchmark() throws IOException {
+    final int requests = 10000;
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 1000);
+    final String encodedRequest = client.encodeClientRequest(REQUEST);
+
+    final long unpooledStart = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      final URL url = new URL(String.format(
+          "%s?eid=%s&request=%s", mServer.getModelURL(), URLEncoder.encode(EID, "UTF-8"), encodedRequest));
+      client.decode(IOUtils.toString(url.openStream(), "UTF-8"));
+    }
+    final long unpooledNanos = System.nanoTime() - unpooledStart;
+
+    final long pooledStart = System.nanoTime();
+    for (int i = 0; i < requests; i++) {
+      client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+    }
+    final long pooledNanos = System.nanoTime() - pooledStart;
+
+    LOG.info("unpooled: {} requests/s over {} connections. pooled: {} requests/s.",
+        requests * 1e9 / unpooledNanos, mServer.getConnectionCount(),
+        requests * 1e9 / pooledNanos);
+  }
+}
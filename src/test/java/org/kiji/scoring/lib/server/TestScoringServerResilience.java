@@ -0,0 +1,196 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.lib.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.scoring.impl.MapCounterManager;
+
+public class TestScoringServerResilience {
+
+  private static final String EID = "['foo']";
+  private static final KijiDataRequest REQUEST = KijiDataRequest.create("family", "qual0");
+  private static final Map<String, String> EMPTY_PARAMS = Collections.emptyMap();
+
+  /** Ticker which only moves when told to. */
+  private static final class ManualTicker extends Ticker {
+    private long mNanos = 0;
+
+    @Override
+    public long read() {
+      return mNanos;
+    }
+
+    public void advance(final long millis) {
+      mNanos += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+  }
+
+  private StubScoringServer mServer;
+  private ScoringServerClient mClient;
+  private ExecutorService mExecutor;
+
+  @Before
+  public void setupTestScoringServerResilience() throws IOException {
+    mServer = new StubScoringServer();
+    mClient = ScoringServerClient.create(10, 1000, 5000);
+    mExecutor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void cleanupTestScoringServerResilience() {
+    mExecutor.shutdownNow();
+    mServer.close();
+  }
+
+  private Callable<ScoringServerClient.Score> scoreCallable() {
+    return new Callable<ScoringServerClient.Score>() {
+      @Override
+      public ScoringServerClient.Score call() throws IOException {
+        return mClient.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+      }
+    };
+  }
+
+  @Test
+  public void testHedgeBeatsSlowRequest() throws IOException {
+    final HedgedCaller caller = HedgedCaller.create(mExecutor, 50, 95.0);
+    final MapCounterManager counters = MapCounterManager.create();
+    mServer.delayNextRequests(1, 3000);
+    final long start = System.nanoTime();
+    final ScoringServerClient.Score score = caller.call(scoreCallable(), counters);
+    final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertEquals(StubScoringServer.SCORE, score.getValue().toString());
+    assertTrue("Hedged request took " + elapsedMillis + " ms", elapsedMillis < 2000);
+    assertEquals(Long.valueOf(1), counters.getCounterValue(ScoringServerCounter.HEDGED_REQUESTS));
+    assertEquals(Long.valueOf(1), counters.getCounterValue(ScoringServerCounter.HEDGE_WINS));
+  }
+
+  @Test
+  public void testNoHedgeForFastRequests() throws IOException {
+    final HedgedCaller caller = HedgedCaller.create(mExecutor, 1000, 95.0);
+    final MapCounterManager counters = MapCounterManager.create();
+    for (int i = 0; i < 5; i++) {
+      caller.call(scoreCallable(), counters);
+    }
+    assertEquals(5, mServer.getRequestCount());
+    assertNull(counters.getCounterValue(ScoringServerCounter.HEDGED_REQUESTS));
+  }
+
+  @Test
+  public void testCircuitOpensOnSlowServer() throws Exception {
+    final CircuitBreaker breaker =
+        CircuitBreaker.create(4, 0.5, 100, 60000, Ticker.systemTicker());
+    mServer.delayNextRequests(2, 300);
+    CircuitBreaker.State transition = null;
+    for (int i = 0; i < 4; i++) {
+      final long token = breaker.admitRequest();
+      assertTrue(CircuitBreaker.NOT_ADMITTED != token);
+      final long start = System.nanoTime();
+      scoreCallable().call();
+      final CircuitBreaker.State state = breaker.recordSuccess(token, System.nanoTime() - start);
+      if (null != state) {
+        transition = state;
+      }
+    }
+    assertEquals(CircuitBreaker.State.OPEN, transition);
+    assertEquals(CircuitBreaker.NOT_ADMITTED, breaker.admitRequest());
+    assertEquals(4, mServer.getRequestCount());
+  }
+
+  @Test
+  public void testCircuitOpensOnTimeouts() throws Exception {
+    final ScoringServerClient client = ScoringServerClient.create(10, 1000, 100);
+    final CircuitBreaker breaker =
+        CircuitBreaker.create(2, 1.0, 1000, 60000, Ticker.systemTicker());
+    mServer.delayNextRequests(2, 500);
+    for (int i = 0; i < 2; i++) {
+      final long token = breaker.admitRequest();
+      assertTrue(CircuitBreaker.NOT_ADMITTED != token);
+      try {
+        client.score(mServer.getModelURL(), EID, REQUEST, EMPTY_PARAMS);
+        fail("Expected a read timeout.");
+      } catch (IOException ioe) {
+        breaker.recordFailure(token);
+      }
+    }
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  @Test
+  public void testCircuitHalfOpen() {
+    final ManualTicker ticker = new ManualTicker();
+    final CircuitBreaker breaker = CircuitBreaker.create(2, 0.5, 100, 1000, ticker);
+    assertNull(breaker.recordFailure(breaker.admitRequest()));
+    assertEquals(CircuitBreaker.State.OPEN, breaker.recordSuccess(breaker.admitRequest(), 0));
+    assertEquals(CircuitBreaker.NOT_ADMITTED, breaker.admitRequest());
+
+    ticker.advance(1000);
+    // A single trial request is allowed after the open duration.
+    final long failedTrial = breaker.admitRequest();
+    assertTrue(CircuitBreaker.NOT_ADMITTED != failedTrial);
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertEquals(CircuitBreaker.NOT_ADMITTED, breaker.admitRequest());
+    assertEquals(CircuitBreaker.State.OPEN, breaker.recordFailure(failedTrial));
+    assertEquals(CircuitBreaker.NOT_ADMITTED, breaker.admitRequest());
+
+    ticker.advance(1000);
+    final long trial = breaker.admitRequest();
+    assertTrue(CircuitBreaker.NOT_ADMITTED != trial);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.recordSuccess(trial, 0));
+    assertTrue(CircuitBreaker.NOT_ADMITTED != breaker.admitRequest());
+  }
+
+  @Test
+  public void testCircuitHalfOpenIgnoresStaleRequests() {
+    final ManualTicker ticker = new ManualTicker();
+    final CircuitBreaker breaker = CircuitBreaker.create(2, 0.5, 100, 1000, ticker);
+    // A request admitted while the breaker is closed is still running when the breaker opens.
+    final long stale = breaker.admitRequest();
+    assertNull(breaker.recordFailure(breaker.admitRequest()));
+    assertEquals(CircuitBreaker.State.OPEN, breaker.recordFailure(breaker.admitRequest()));
+
+    ticker.advance(1000);
+    final long trial = breaker.admitRequest();
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    // The stale request finishing does not decide the trial.
+    assertNull(breaker.recordSuccess(stale, 0));
+    assertNull(breaker.recordFailure(stale));
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    assertEquals(CircuitBreaker.NOT_ADMITTED, breaker.admitRequest());
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.recordSuccess(trial, 0));
+  }
+}
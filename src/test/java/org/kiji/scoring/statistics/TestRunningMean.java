@@ -0,0 +1,45 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.statistics;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestRunningMean {
+
+  @Test
+  public void testMean() {
+    final RunningMean mean = new RunningMean();
+    mean.addValue(1);
+    mean.addValue(2);
+    assertEquals(2, mean.getCount());
+    assertEquals(1.5, mean.getMean(), 0.0);
+  }
+
+  @Test
+  public void testTotalDoesNotOverflow() {
+    final RunningMean mean = new RunningMean();
+    // The total of these values exceeds Long.MAX_VALUE.
+    for (int i = 0; i < 4; i++) {
+      mean.addValue(Long.MAX_VALUE / 2);
+    }
+    assertEquals(Long.MAX_VALUE / 2, mean.getMean(), Long.MAX_VALUE * 1e-12);
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * (c) Copyright 2014 WibiData, Inc.
+ *
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kiji.scoring.tools;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import com.google.common.collect.Lists;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.kiji.schema.EntityId;
+import org.kiji.schema.Kiji;
+import org.kiji.schema.KijiClientTest;
+import org.kiji.schema.KijiDataRequest;
+import org.kiji.schema.KijiTable;
+import org.kiji.schema.KijiTableReader;
+import org.kiji.schema.KijiTableWriter;
+import org.kiji.schema.KijiURI;
+import org.kiji.schema.layout.KijiTableLayouts;
+import org.kiji.schema.tools.BaseTool;
+import org.kiji.schema.util.InstanceBuilder;
+
+public class TestLocalBatchScoreTool extends KijiClientTest {
+  private static final Logger LOG = LoggerFactory.getLogger(TestLocalBatchScoreTool.class);
+
+  /** Horizontal ruler to delimit CLI outputs in logs. */
+  private static final String RULER =
+      "--------------------------------------------------------------------------------";
+
+  /** Output of the CLI tool, as bytes. */
+  private ByteArrayOutputStream mToolOutputBytes = new ByteArrayOutputStream();
+
+  /** Output of the CLI tool, as a single string. */
+  private String mToolOutputStr;
+
+  private int runTool(BaseTool tool, String...arguments) throws Exception {
+    mToolOutputBytes.reset();
+    final PrintStream pstream = new PrintStream(mToolOutputBytes);
+    tool.setPrintStream(pstream);
+    tool.setConf(getConf());
+    try {
+      LOG.info("Running tool: '{}' with parameters {}", tool.getName(), arguments);
+      return tool.toolMain(Lists.newArrayList(arguments));
+    } finally {
+      pstream.flush();
+      pstream.close();
+
+      mToolOutputStr = Bytes.toString(mToolOutputBytes.toByteArray());
+      LOG.info("Captured output for tool: '{}' with parameters {}:\n{}\n{}{}\n",
+          tool.getName(), arguments,
+          RULER, mToolOutputStr, RULER);
+    }
+  }
+
+  //------------------------------------------------------------------------------------------------
+
+  private static final String SCORE_FUNCTION_CLASS_FLAG =
+      "--score-function-class=org.kiji.scoring.impl.TestInternalFreshKijiTableReader$TestScoreFun"
+      + "ction";
+
+  private Kiji mKiji;
+  private KijiTable mTable;
+  private KijiTableReader mReader;
+
+  @Before
+  public void setupTestLocalBatchScoreTool() throws IOException {
+    mKiji = new InstanceBuilder(getKiji())
+        .withTable(KijiTableLayouts.getLayout(KijiTableLayouts.ROW_DATA_TEST))
+            .withRow("foo")
+                .withFamily("family")
+                    .withQualifier("qual0")
+                        .withValue(5L, "foo-val")
+            .withRow("bar")
+                .withFamily("family")
+                    .withQualifier("qual0")
+                        .withValue(5L, "bar-val")
+        .build();
+    mTable = mKiji.openTable("row_data_test_table");
+    mReader = mTable.openTableReader();
+  }
+
+  @After
+  public void cleanupTestLocalBatchScoreTool() throws IOException {
+    mReader.close();
+    mTable.release();
+  }
+
+  private KijiURI getColumnURI() throws IOException {
+    return KijiURI.newBuilder(getKiji().getURI())
+        .withTableName("row_data_test_table")
+        .withColumnNames(Lists.newArrayList("family:qual0"))
+        .build();
+  }
+
+  private String getQual0(
+      final EntityId eid
+  ) throws IOException {
+    return mReader.get(eid, KijiDataRequest.create("family", "qual0"))
+        .getMostRecentValue("family", "qual0").toString();
+  }
+
+  @Test
+  public void testLocalBatchScore() throws Exception {
+    assertEquals(BaseTool.SUCCESS, runTool(new LocalBatchScoreTool(),
+        String.format("--target=%s", getColumnURI()),
+        SCORE_FUNCTION_CLASS_FLAG,
+        "--num-threads=2"
+    ));
+
+    assertEquals("new-val", getQual0(mTable.getEntityId("foo")));
+    assertEquals("new-val", getQual0(mTable.getEntityId("bar")));
+  }
+
+  @Test
+  public void testCheckpoint() throws Exception {
+    final File checkpoint = new File(getLocalTempDir(), "checkpoint");
+    assertEquals(BaseTool.SUCCESS, runTool(new LocalBatchScoreTool(),
+        String.format("--target=%s", getColumnURI()),
+        SCORE_FUNCTION_CLASS_FLAG,
+        String.format("--checkpoint-file=%s", checkpoint)
+    ));
+    final EntityId fooId = mTable.getEntityId("foo");
+    assertEquals("new-val", getQual0(fooId));
+
+    final KijiTableWriter writer = mTable.openTableWriter();
+    try {
+      writer.put(fooId, "family", "qual0", System.currentTimeMillis() + 100000L, "foo-val");
+    } finally {
+      writer.close();
+    }
+
+    // Every region was recorded in the checkpoint, so nothing is scored again.
+    assertEquals(BaseTool.SUCCESS, runTool(new LocalBatchScoreTool(),
+        String.format("--target=%s", getColumnURI()),
+        SCORE_FUNCTION_CLASS_FLAG,
+        String.format("--checkpoint-file=%s", checkpoint)
+    ));
+    assertEquals("foo-val", getQual0(fooId));
+  }
+}